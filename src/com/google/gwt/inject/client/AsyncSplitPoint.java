@@ -0,0 +1,50 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation to put on types injected through an {@link AsyncProvider} to
+ * choose the split point their code is loaded with.  By default, every
+ * {@code AsyncProvider<T>} loads {@code T} with its own split point, named by
+ * {@code T}'s class.  All types annotated with the same {@code value} instead
+ * share a single split point, named by the {@code value} class, and are
+ * downloaded together the first time any of them is requested.
+ *
+ * <p>If {@code prefetch} is {@code true}, the split point's code is prefetched
+ * (see {@link com.google.gwt.core.client.prefetch.Prefetcher}) as soon as an
+ * {@code AsyncProvider} of the annotated type is created, rather than when its
+ * {@code get} method is first called.
+ *
+ * <p>Example:
+ * <pre>  @AsyncSplitPoint(value=SettingsSplitPoint.class, prefetch=true)
+ *  public class SettingsScreen {
+ *    // ...
+ *  }</pre>
+ *
+ * The split point can be referenced by its name like any other, for instance
+ * through {@code RunAsyncCode.runAsyncCode(SettingsSplitPoint.class)}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface AsyncSplitPoint {
+  Class<?> value();
+  boolean prefetch() default false;
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import javax.inject.Scope;
+
+/**
+ * A scope for singletons that should be created eagerly, but are not needed
+ * before the application is first rendered.  Unlike eager singletons bound
+ * with {@code asEagerSingleton()}, which are all created before
+ * {@code GWT.create} returns the ginjector, deferred eager singletons are
+ * created after startup, one at a time, through
+ * {@link com.google.gwt.core.client.Scheduler#scheduleIncremental}.  The
+ * scheduler interleaves them with the browser's event loop in short
+ * time slices.  A deferred eager singleton that is injected before its turn
+ * comes is created right away, like any other singleton, and only once.
+ *
+ * <p>The scope can be set on a binding, or put on a class to apply to its
+ * implicit binding:
+ * <pre>  bind(SearchIndex.class).in(DeferredEagerSingleton.class);</pre>
+ */
+@Scope
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface DeferredEagerSingleton {}
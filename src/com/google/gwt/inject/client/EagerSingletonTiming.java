@@ -0,0 +1,71 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.GWT;
+
+/**
+ * Records how long the eager singletons of generated ginjectors take to
+ * instantiate, if the {@code gin.output.eagerSingletonTiming} configuration
+ * property is set to {@code true}.  Used by generated code only.
+ *
+ * <p>Every instantiation is logged to the development mode log and reported as
+ * a lightweight metrics event with the subsystem {@code "gin"} and the event
+ * group {@code "eagerSingletons"}.  In production, these events can be
+ * collected by defining a {@code __gwtStatsEvent} function on the host page.
+ */
+public final class EagerSingletonTiming {
+
+  private EagerSingletonTiming() {
+  }
+
+  /**
+   * Returns the start time to pass to {@link #record}.
+   */
+  public static double start() {
+    return Duration.currentTimeMillis();
+  }
+
+  /**
+   * Records the instantiation of an eager singleton that started at the given
+   * time and just finished.
+   *
+   * @param key the key the singleton is bound to
+   * @param deferred whether the singleton is a {@link DeferredEagerSingleton}
+   * @param start the start time returned by {@link #start}
+   */
+  public static void record(String key, boolean deferred, double start) {
+    double end = Duration.currentTimeMillis();
+    logStatsEvent(key, deferred, start, end);
+    GWT.log((deferred ? "Deferred eager singleton " : "Eager singleton ") + key
+        + " instantiated in " + (end - start) + " ms");
+  }
+
+  private static native void logStatsEvent(String key, boolean deferred, double start,
+      double end) /*-{
+    $stats && $stats({
+      moduleName: $moduleName,
+      sessionId: $sessionId,
+      subSystem: 'gin',
+      evtGroup: 'eagerSingletons',
+      type: deferred ? 'deferred' : 'eager',
+      key: key,
+      millis: end,
+      duration: end - start
+    });
+  }-*/;
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records which objects generated ginjectors create, in which order and how
+ * long it takes, if the {@code gin.trace} configuration property is set to
+ * {@code true}.  The getters of traced ginjectors report every object they
+ * create to {@link #enter} and {@link #exit}, which build a tree of
+ * instantiations: the children of a node are the dependencies that were
+ * created while creating the node's object, in the order they were created.
+ *
+ * <p>The tree can be inspected through {@link #getRoots}, dumped from the
+ * browser's console by evaluating {@code ginTrace.dump()}, or observed as it
+ * grows by setting a {@link Callback}.
+ */
+public final class GinTrace {
+
+  /**
+   * Receives every top-level instantiation once it is complete, including all
+   * of its dependencies.
+   */
+  public interface Callback {
+    void onInstantiated(Node node);
+  }
+
+  /**
+   * The instantiation of a single object.
+   */
+  public static final class Node {
+    private final String key;
+    private final Node parent;
+    private final double startMillis;
+    private final List<Node> children = new ArrayList<Node>();
+    private double durationMillis = -1;
+
+    private Node(String key, Node parent, double startMillis) {
+      this.key = key;
+      this.parent = parent;
+      this.startMillis = startMillis;
+    }
+
+    /**
+     * Returns the key the created object is bound to.
+     */
+    public String getKey() {
+      return key;
+    }
+
+    /**
+     * Returns the time the instantiation started at, in milliseconds.
+     */
+    public double getStartMillis() {
+      return startMillis;
+    }
+
+    /**
+     * Returns how long the instantiation took, in milliseconds, including the
+     * instantiation of its children, or -1 if it didn't finish.
+     */
+    public double getDurationMillis() {
+      return durationMillis;
+    }
+
+    /**
+     * Returns the instantiations of the dependencies that were created for
+     * this object, in the order they were created.
+     */
+    public List<Node> getChildren() {
+      return Collections.unmodifiableList(children);
+    }
+
+    private void appendTo(StringBuilder builder, String indentation) {
+      builder.append(indentation).append(key).append(": ")
+          .append(durationMillis < 0 ? "unfinished" : durationMillis + " ms").append("\n");
+      for (Node child : children) {
+        child.appendTo(builder, indentation + "  ");
+      }
+    }
+  }
+
+  private static final List<Node> roots = new ArrayList<Node>();
+  private static Node current = null;
+  private static Callback callback = null;
+  private static boolean exported = false;
+
+  private GinTrace() {
+  }
+
+  /**
+   * Sets the callback notified of every top-level instantiation, or
+   * {@code null} to stop notifying.
+   */
+  public static void setCallback(Callback callback) {
+    GinTrace.callback = callback;
+  }
+
+  /**
+   * Returns the top-level instantiations recorded so far, in the order they
+   * were started.
+   */
+  public static List<Node> getRoots() {
+    return Collections.unmodifiableList(roots);
+  }
+
+  /**
+   * Discards all instantiations recorded so far.
+   */
+  public static void clear() {
+    roots.clear();
+    current = null;
+  }
+
+  /**
+   * Returns the recorded instantiations as an indented tree, one line per
+   * instantiation.
+   */
+  public static String dump() {
+    StringBuilder builder = new StringBuilder();
+    for (Node root : roots) {
+      root.appendTo(builder, "");
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Records the start of an instantiation of the object bound to the given
+   * key.  Used by generated code only.
+   *
+   * @return the node to pass to {@link #exit} once the object is created
+   */
+  public static Node enter(String key) {
+    if (!exported) {
+      exported = true;
+      exportDump();
+    }
+
+    Node node = new Node(key, current, now());
+    if (current == null) {
+      roots.add(node);
+    } else {
+      current.children.add(node);
+    }
+    current = node;
+    return node;
+  }
+
+  /**
+   * Records the end of the instantiation started by the {@link #enter} call
+   * that returned the given node.  Used by generated code only.
+   */
+  public static void exit(Node node) {
+    node.durationMillis = now() - node.startMillis;
+
+    // Instantiations below the node that never exited were aborted by an
+    // exception; they are left unfinished.
+    current = node.parent;
+    if (current == null && callback != null) {
+      callback.onInstantiated(node);
+    }
+  }
+
+  private static native double now() /*-{
+    var performance = $wnd.performance;
+    if (performance && performance.now) {
+      return performance.now();
+    }
+    return @com.google.gwt.core.client.Duration::currentTimeMillis()();
+  }-*/;
+
+  private static native void exportDump() /*-{
+    $wnd.ginTrace = {
+      dump: $entry(function() {
+        return @com.google.gwt.inject.client.GinTrace::dump()();
+      })
+    };
+  }-*/;
+}
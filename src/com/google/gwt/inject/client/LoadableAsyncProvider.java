@@ -0,0 +1,38 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client;
+
+/**
+ * An {@link AsyncProvider} that can tell whether the code needed to create its
+ * instances has already been loaded.  Once it has, {@link #get} calls its
+ * callback synchronously, so callers may check {@link #isLoaded} to skip any
+ * asynchronous handling, like showing a loading indicator.
+ *
+ * <p>Gin creates a {@code LoadableAsyncProvider} whenever an
+ * {@code AsyncProvider<T>} or a {@code LoadableAsyncProvider<T>} is injected.
+ * All calls to {@link #get} made while the code is loading share a single
+ * {@code GWT.runAsync} call, and are called back once it completes.
+ */
+public interface LoadableAsyncProvider<T> extends AsyncProvider<T> {
+
+  /**
+   * Returns {@code true} if the code creating instances of T was loaded, through
+   * this provider or any other provider loading T with the same split point.
+   * Once it was loaded through this provider, {@link #get} calls its callback
+   * before returning.
+   */
+  boolean isLoaded();
+}
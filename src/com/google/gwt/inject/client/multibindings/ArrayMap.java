@@ -0,0 +1,163 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client.multibindings;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An unmodifiable map backed by arrays, created by the code Gin generates for
+ * {@link MapBinder}s.  It iterates in the order its keys were first bound.
+ *
+ * <p>Multibindings are small, so looking up keys by comparing them to each
+ * entry is cheaper than hashing them.
+ *
+ * @param <K> type of key for map
+ * @param <V> type of value for map
+ */
+public final class ArrayMap<K, V> extends AbstractMap<K, V> {
+
+  private final Object[] keys;
+  private final Object[] values;
+  private final int size;
+  private Set<Map.Entry<K, V>> entrySet;
+
+  /**
+   * Creates a map of the given keys and values.  If a key is bound more than
+   * once, its last value is kept.  The arrays are reused, and must not be
+   * modified afterwards.
+   */
+  public ArrayMap(Object[] keys, Object[] values) {
+    int size = 0;
+    for (int i = 0; i < keys.length; i++) {
+      int index = ArraySet.indexOf(keys, size, keys[i]);
+      if (index < 0) {
+        keys[size] = keys[i];
+        values[size] = values[i];
+        size++;
+      } else {
+        values[index] = values[i];
+      }
+    }
+    this.keys = keys;
+    this.values = values;
+    this.size = size;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return ArraySet.indexOf(keys, size, key) >= 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public V get(Object key) {
+    int index = ArraySet.indexOf(keys, size, key);
+    return index < 0 ? null : (V) values[index];
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new AbstractSet<Map.Entry<K, V>>() {
+        @Override
+        public int size() {
+          return size;
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+          return new Iterator<Map.Entry<K, V>>() {
+            private int index = 0;
+
+            public boolean hasNext() {
+              return index < size;
+            }
+
+            public Map.Entry<K, V> next() {
+              if (index >= size) {
+                throw new NoSuchElementException();
+              }
+              return new Entry(index++);
+            }
+
+            public void remove() {
+              throw new UnsupportedOperationException();
+            }
+          };
+        }
+      };
+    }
+    return entrySet;
+  }
+
+  private class Entry implements Map.Entry<K, V> {
+    private final int index;
+
+    Entry(int index) {
+      this.index = index;
+    }
+
+    @SuppressWarnings("unchecked")
+    public K getKey() {
+      return (K) keys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getValue() {
+      return (V) values[index];
+    }
+
+    public V setValue(V value) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Map.Entry)) {
+        return false;
+      }
+
+      Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+      return equal(getKey(), other.getKey()) && equal(getValue(), other.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      K key = getKey();
+      V value = getValue();
+      return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+
+    private boolean equal(Object a, Object b) {
+      return a == null ? b == null : a.equals(b);
+    }
+  }
+}
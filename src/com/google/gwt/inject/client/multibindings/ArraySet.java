@@ -0,0 +1,96 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client.multibindings;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An unmodifiable set backed by an array, created by the code Gin generates
+ * for {@link Multibinder}s.  It iterates in the order its elements were bound.
+ *
+ * <p>Multibindings are small, so looking up elements by comparing them to
+ * each entry is cheaper than hashing them.
+ *
+ * @param <T> type of value for set
+ */
+public final class ArraySet<T> extends AbstractSet<T> {
+
+  private final Object[] elements;
+  private final int size;
+
+  /**
+   * Creates a set of the given elements, dropping those equal to an earlier
+   * one.  The array is reused, and must not be modified afterwards.
+   */
+  public ArraySet(Object[] elements) {
+    int size = 0;
+    for (Object element : elements) {
+      if (indexOf(elements, size, element) < 0) {
+        elements[size++] = element;
+      }
+    }
+    this.elements = elements;
+    this.size = size;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return indexOf(elements, size, o) >= 0;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return new Iterator<T>() {
+      private int index = 0;
+
+      public boolean hasNext() {
+        return index < size;
+      }
+
+      @SuppressWarnings("unchecked")
+      public T next() {
+        if (index >= size) {
+          throw new NoSuchElementException();
+        }
+        return (T) elements[index++];
+      }
+
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /**
+   * Returns the index of the first of the first {@code size} objects equal to
+   * the given one, or -1 if there is none.
+   */
+  static int indexOf(Object[] objects, int size, Object o) {
+    for (int i = 0; i < size; i++) {
+      if (o == null ? objects[i] == null : o.equals(objects[i])) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -16,13 +16,13 @@
 package com.google.gwt.inject.client.multibindings;
 
 import static com.google.gwt.inject.client.multibindings.TypeLiterals.mapOf;
-import static com.google.gwt.inject.client.multibindings.TypeLiterals.newParameterizedType;
 
 import com.google.gwt.inject.client.GinModule;
 import com.google.gwt.inject.client.binder.GinBinder;
+import com.google.gwt.inject.client.binder.GinConstantBindingBuilder;
+import com.google.gwt.inject.client.multibindings.MultibindingElement.Role;
 import com.google.inject.Key;
 import com.google.inject.Provider;
-import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
 
 import java.util.Map;
@@ -50,6 +50,20 @@ import java.util.Map;
  * {@link #permitDuplicates()} is going to protect your code from being broken
  * when these checks are implemented.
  *
+ * <p>The key and the value of each added binding are bound to keys annotated
+ * with a unique {@link MultibindingElement}.  Gin collects these keys at
+ * compile time and generates code that creates the map directly from their
+ * getters.  Bindings added in a {@code PrivateGinModule} belong to the map
+ * bound by the highest enclosing ginjector whose modules also create a
+ * mapbinder for it.
+ *
+ * <p>Maps used to be created at runtime, from a registry filled by eagerly
+ * created registerers.  The types involved, {@code MapBinderRegistry},
+ * {@code MapBinderRegisterer} and {@code MapBinderRegistererModule}, were
+ * removed, and {@link ProviderForMap} is deprecated.  Code that used them should
+ * inject {@code Map<K, V>} (or {@code Provider<Map<K, V>>}) instead, and add
+ * entries with {@link #addBinding} rather than by installing registerer modules.
+ *
  * @param <K> type of key for map
  * @param <V> type of value for map
  */
@@ -80,20 +94,24 @@ public final class MapBinder<K, V> implements GinModule {
   private final GinBinder ginBinder;
   private final TypeLiteral<K> keyType;
   private final TypeLiteral<V> valueType;
-  private final Key<MapBinderRegistry<K, V>> keyForMapBinder;
+  private final Key<Map<K, V>> keyForMap;
+
+  /**
+   * Number of entries added through this mapbinder.
+   */
+  private int entryCount;
 
   private MapBinder(GinBinder ginBinder, TypeLiteral<K> keyType, TypeLiteral<V> valueType) {
     this.ginBinder = ginBinder;
     this.keyType = keyType;
     this.valueType = valueType;
-    this.keyForMapBinder = Key.get(registryOf(keyType, valueType));
+    this.keyForMap = Key.get(mapOf(keyType, valueType));
   }
 
   @Override
   public void configure(GinBinder binder) {
-    ginBinder.bind(keyForMapBinder).in(Singleton.class);
-    ginBinder.bind(mapOf(keyType, valueType)).toProvider(
-        Key.get(providerForMapOf(keyType, valueType)));
+    ginBinder.bind(keyForMap)
+        .to(Key.get(keyForMap.getTypeLiteral(), element(Role.COLLECTION, 0)));
   }
 
   public MapBinder<K, V> permitDuplicates() {
@@ -103,13 +121,13 @@ public final class MapBinder<K, V> implements GinModule {
 
   @Override
   public int hashCode() {
-    return keyForMapBinder.hashCode();
+    return keyForMap.hashCode();
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public boolean equals(Object obj) {
-    return obj instanceof MapBinder && ((MapBinder) obj).keyForMapBinder.equals(keyForMapBinder);
+    return obj instanceof MapBinder && ((MapBinder) obj).keyForMap.equals(keyForMap);
   }
 
   public interface BindingBuilder<V> {
@@ -123,8 +141,10 @@ public final class MapBinder<K, V> implements GinModule {
         to(TypeLiteral.get(implementation));
       }
       @Override public void to(TypeLiteral<? extends V> implementation) {
-        ginBinder.install(
-            new MapBinderRegistererModule<K, V>(keyType, valueType, key, implementation));
+        int index = entryCount++;
+        bindToConstant(ginBinder.bindConstant().annotatedWith(element(Role.MAP_KEY, index)),
+            key);
+        bindValue(index, implementation);
       }
     };
   }
@@ -135,21 +155,45 @@ public final class MapBinder<K, V> implements GinModule {
         to(TypeLiteral.get(implementation));
       }
       @Override public void to(TypeLiteral<? extends V> implementation) {
-        ginBinder.install(
-            new MapBinderRegistererModule<K, V>(keyType, valueType, keyProvider, implementation));
+        int index = entryCount++;
+        ginBinder.bind(Key.get(keyType, element(Role.MAP_KEY, index))).toProvider(keyProvider);
+        bindValue(index, implementation);
       }
     };
   }
 
-  @SuppressWarnings("unchecked")
-  private static <K, V> TypeLiteral<MapBinderRegistry<K, V>> registryOf(TypeLiteral<K> keyType,
-      TypeLiteral<V> valueType) {
-    return newParameterizedType(MapBinderRegistry.class, keyType, valueType);
+  private void bindValue(int index, TypeLiteral<? extends V> implementation) {
+    ginBinder.bind(Key.get(valueType, element(Role.MAP_VALUE, index))).to(implementation);
+  }
+
+  private MultibindingElement element(Role role, int index) {
+    return new RealMultibindingElement(this, keyForMap, role, index);
   }
 
   @SuppressWarnings("unchecked")
-  private static <K, V> TypeLiteral<ProviderForMap<K, V>> providerForMapOf(TypeLiteral<K> keyType,
-      TypeLiteral<V> valueType) {
-    return newParameterizedType(ProviderForMap.class, keyType, valueType);
+  private static void bindToConstant(GinConstantBindingBuilder bindKey, Object key) {
+    if (key instanceof String) {
+      bindKey.to((String) key);
+    } else if (key instanceof Enum<?>) {
+      bindKey.to((Enum) key);
+    } else if (key instanceof Integer) {
+      bindKey.to((Integer) key);
+    } else if (key instanceof Long) {
+      bindKey.to((Long) key);
+    } else if (key instanceof Float) {
+      bindKey.to((Float) key);
+    } else if (key instanceof Double) {
+      bindKey.to((Double) key);
+    } else if (key instanceof Short) {
+      bindKey.to((Short) key);
+    } else if (key instanceof Boolean) {
+      bindKey.to((Boolean) key);
+    } else if (key instanceof Character) {
+      bindKey.to((Character) key);
+    } else if (key instanceof Class<?>) {
+      bindKey.to((Class<?>) key);
+    } else {
+      throw new AssertionError("A non-constant type bind as a key");
+    }
   }
 }
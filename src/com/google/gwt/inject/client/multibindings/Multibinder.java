@@ -15,13 +15,12 @@
  */
 package com.google.gwt.inject.client.multibindings;
 
-import static com.google.gwt.inject.client.multibindings.TypeLiterals.newParameterizedType;
 import static com.google.gwt.inject.client.multibindings.TypeLiterals.setOf;
 
 import com.google.gwt.inject.client.GinModule;
 import com.google.gwt.inject.client.binder.GinBinder;
+import com.google.gwt.inject.client.multibindings.MultibindingElement.Role;
 import com.google.inject.Key;
-import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
 
 import java.util.Set;
@@ -48,6 +47,19 @@ import java.util.Set;
  * {@link #permitDuplicates()} is going to protect your code from being broken
  * when these checks are implemented.
  *
+ * <p>Each added binding is bound to a key annotated with a unique
+ * {@link MultibindingElement}.  Gin collects these keys at compile time and
+ * generates code that creates the set directly from their getters.  Bindings
+ * added in a {@code PrivateGinModule} belong to the set bound by the highest
+ * enclosing ginjector whose modules also create a multibinder for it.
+ *
+ * <p>Sets used to be created at runtime, from a registry filled by eagerly
+ * created registerers.  The types involved, {@code MultibinderRegistry},
+ * {@code MultibinderRegisterer} and {@code MultibinderRegistererModule}, were
+ * removed, and {@link ProviderForSet} is deprecated.  Code that used them should
+ * inject {@code Set<T>} (or {@code Provider<Set<T>>}) instead, and add elements
+ * with {@link #addBinding()} rather than by installing registerer modules.
+ *
  * @param <T> type of value for Set
  */
 public final class Multibinder<T> implements GinModule {
@@ -72,18 +84,23 @@ public final class Multibinder<T> implements GinModule {
 
   private final GinBinder ginBinder;
   private final TypeLiteral<T> type;
-  private final Key<MultibinderRegistry<T>> keyForMultibinder;
+  private final Key<Set<T>> keyForSet;
+
+  /**
+   * Number of elements added through this multibinder.
+   */
+  private int elementCount;
 
   private Multibinder(GinBinder ginBinder, TypeLiteral<T> type) {
     this.ginBinder = ginBinder;
     this.type = type;
-    this.keyForMultibinder = Key.get(registryOf(type));
+    this.keyForSet = Key.get(setOf(type));
   }
 
   @Override
   public void configure(GinBinder binder) {
-    ginBinder.bind(keyForMultibinder).in(Singleton.class);
-    ginBinder.bind(setOf(type)).toProvider(Key.get(providerForSetOf(type)));
+    ginBinder.bind(keyForSet)
+        .to(Key.get(keyForSet.getTypeLiteral(), element(Role.COLLECTION, 0)));
   }
 
   public Multibinder<T> permitDuplicates() {
@@ -93,14 +110,14 @@ public final class Multibinder<T> implements GinModule {
 
   @Override
   public int hashCode() {
-    return keyForMultibinder.hashCode();
+    return keyForSet.hashCode();
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public boolean equals(Object obj) {
     return obj instanceof Multibinder
-        && ((Multibinder) obj).keyForMultibinder.equals(keyForMultibinder);
+        && ((Multibinder) obj).keyForSet.equals(keyForSet);
   }
 
   public interface BindingBuilder<T> {
@@ -114,18 +131,13 @@ public final class Multibinder<T> implements GinModule {
         to(TypeLiteral.get(implementation));
       }
       @Override public void to(TypeLiteral<? extends T> implementation) {
-        ginBinder.install(new MultibinderRegistererModule<T>(type, implementation));
+        ginBinder.bind(Key.get(type, element(Role.ELEMENT, elementCount++)))
+            .to(implementation);
       }
     };
   }
 
-  @SuppressWarnings("unchecked")
-  private static <T> TypeLiteral<MultibinderRegistry<T>> registryOf(TypeLiteral<T> type) {
-    return newParameterizedType(MultibinderRegistry.class, type);
-  }
-
-  @SuppressWarnings("unchecked")
-  private static <T> TypeLiteral<ProviderForSet<T>> providerForSetOf(TypeLiteral<T> type) {
-    return newParameterizedType(ProviderForSet.class, type);
+  private MultibindingElement element(Role role, int index) {
+    return new RealMultibindingElement(this, keyForSet, role, index);
   }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client.multibindings;
+
+import com.google.inject.BindingAnnotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binding annotation of the keys bound by {@link Multibinder} and
+ * {@link MapBinder} for each of their entries.  Gin collects these keys at
+ * compile time and generates the code creating the set or map from their
+ * getters.
+ *
+ * <p>Instances are only created by the binders themselves.  Entries added
+ * through different binders, for instance by two modules, may have equal
+ * members; their annotations are still not equal, since they also compare the
+ * binder that created them.
+ */
+@BindingAnnotation
+@Retention(RetentionPolicy.RUNTIME)
+@Target({})
+public @interface MultibindingElement {
+
+  /**
+   * What an annotated key is bound to.
+   */
+  enum Role {
+    /** An element of a set. */
+    ELEMENT,
+
+    /** The key of a map entry. */
+    MAP_KEY,
+
+    /** The value of a map entry. */
+    MAP_VALUE,
+
+    /**
+     * The set or map itself.  A key with this role is never bound: the set or
+     * map is linked to it only to mark its binding as that of a multibinding.
+     */
+    COLLECTION
+  }
+
+  /**
+   * The {@code toString()} of the key of the set or map the entry belongs to.
+   */
+  String multibinding();
+
+  Role role();
+
+  /**
+   * The position of the entry among those added through the same binder,
+   * shared by the key and value of a map entry.
+   */
+  int index();
+}
@@ -19,34 +19,32 @@ import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
 
-import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * A provider for the map of a key&value binding pair.
  *
+ * <p>Maps are now created by code Gin generates for each {@link MapBinder},
+ * which this provider delegates to.  It must not be bound as the provider of
+ * the map itself.
+ *
  * @param <K> type of key for map binding
  * @param <V> type of value for map binding
+ * @deprecated inject {@code Map<K, V>} or {@code Provider<Map<K, V>>} instead
  */
+@Deprecated
 @Singleton
 public class ProviderForMap<K, V> implements Provider<Map<K, V>> {
 
-  private final MapBinderRegistry<K, V> registry;
+  private final Provider<Map<K, V>> mapProvider;
 
   @Inject
-  public ProviderForMap(MapBinderRegistry<K, V> registry) {
-    this.registry = registry;
+  public ProviderForMap(Provider<Map<K, V>> mapProvider) {
+    this.mapProvider = mapProvider;
   }
 
   @Override
   public Map<K, V> get() {
-    Map<K, V> map = new LinkedHashMap<K, V>();
-    for (Map.Entry<K, Set<Provider<V>>> entry : registry.getEntries()) {
-      Provider<V> lastProvider = MapBinderRegistry.getLast(entry.getValue());
-      map.put(entry.getKey(), lastProvider.get());
-    }
-    return Collections.unmodifiableMap(map);
+    return mapProvider.get();
   }
 }
@@ -19,31 +19,31 @@ import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
 
-import java.util.Collections;
-import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
  * A provider for the set of multi-binded values.
  *
+ * <p>Sets are now created by code Gin generates for each {@link Multibinder},
+ * which this provider delegates to.  It must not be bound as the provider of
+ * the set itself.
+ *
  * @param <T> type of key for multi binding
+ * @deprecated inject {@code Set<T>} or {@code Provider<Set<T>>} instead
  */
+@Deprecated
 @Singleton
 public class ProviderForSet<T> implements Provider<Set<T>> {
 
-  private final MultibinderRegistry<T> registry;
+  private final Provider<Set<T>> setProvider;
 
   @Inject
-  public ProviderForSet(MultibinderRegistry<T> registry) {
-    this.registry = registry;
+  public ProviderForSet(Provider<Set<T>> setProvider) {
+    this.setProvider = setProvider;
   }
 
   @Override
   public Set<T> get() {
-    Set<T> set = new LinkedHashSet<T>();
-    for (Provider<? extends T> provider : registry.getProviders()) {
-      set.add(provider.get());
-    }
-    return Collections.unmodifiableSet(set);
+    return setProvider.get();
   }
 }
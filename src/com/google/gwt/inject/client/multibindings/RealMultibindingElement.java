@@ -0,0 +1,92 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client.multibindings;
+
+import com.google.inject.Key;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * Implementation of {@link MultibindingElement}.
+ *
+ * <p>The members only depend on the key of the multibinding and on the order
+ * entries are added in, so that the keys of the entries, and the names of
+ * their getters derived from them, are the same in every compile.  To tell
+ * apart entries added through different binders, equality also compares the
+ * binder that created the annotation, by identity; it is consistent with
+ * {@link Annotation#hashCode}, which only depends on the members.
+ */
+public final class RealMultibindingElement implements MultibindingElement {
+
+  private final Object owner;
+  private final Key<?> multibindingKey;
+  private final Role role;
+  private final int index;
+
+  RealMultibindingElement(Object owner, Key<?> multibindingKey, Role role, int index) {
+    this.owner = owner;
+    this.multibindingKey = multibindingKey;
+    this.role = role;
+    this.index = index;
+  }
+
+  /**
+   * Returns the key of the set or map the entry belongs to.
+   */
+  public Key<?> getMultibindingKey() {
+    return multibindingKey;
+  }
+
+  public String multibinding() {
+    return multibindingKey.toString();
+  }
+
+  public Role role() {
+    return role;
+  }
+
+  public int index() {
+    return index;
+  }
+
+  public Class<? extends Annotation> annotationType() {
+    return MultibindingElement.class;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof RealMultibindingElement)) {
+      return false;
+    }
+
+    RealMultibindingElement other = (RealMultibindingElement) obj;
+    return owner == other.owner && multibindingKey.equals(other.multibindingKey)
+        && role == other.role && index == other.index;
+  }
+
+  @Override
+  public int hashCode() {
+    return ((127 * "multibinding".hashCode()) ^ multibinding().hashCode())
+        + ((127 * "role".hashCode()) ^ role.hashCode())
+        + ((127 * "index".hashCode()) ^ Integer.valueOf(index).hashCode());
+  }
+
+  @Override
+  public String toString() {
+    return "@" + MultibindingElement.class.getName() + "(multibinding=" + multibinding()
+        + ", role=" + role + ", index=" + index + ")";
+  }
+}
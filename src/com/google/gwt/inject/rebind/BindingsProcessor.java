@@ -15,11 +15,13 @@
  */
 package com.google.gwt.inject.rebind;
 
+import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.UnableToCompleteException;
 import com.google.gwt.inject.client.GinModule;
 import com.google.gwt.inject.client.Ginjector;
 import com.google.gwt.inject.client.PrivateGinModule;
 import com.google.gwt.inject.client.assistedinject.FactoryModule;
+import com.google.gwt.inject.rebind.GeneratorProfiler.Phase;
 import com.google.gwt.inject.rebind.adapter.GinModuleAdapter;
 import com.google.gwt.inject.rebind.adapter.PrivateGinModuleAdapter;
 import com.google.gwt.inject.rebind.binding.BindingFactory;
@@ -27,13 +29,16 @@ import com.google.gwt.inject.rebind.binding.Context;
 import com.google.gwt.inject.rebind.binding.FactoryBinding;
 import com.google.gwt.inject.rebind.reflect.MethodLiteral;
 import com.google.gwt.inject.rebind.reflect.ReflectUtil;
+import com.google.gwt.inject.rebind.resolution.DependencyExplorer.DependencyExplorerOutput;
 import com.google.gwt.inject.rebind.util.MemberCollector;
+import com.google.gwt.inject.rebind.util.TaskPool;
 import com.google.inject.ConfigurationException;
 import com.google.inject.Inject;
 import com.google.inject.Key;
 import com.google.inject.Module;
 import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
+import com.google.inject.spi.Element;
 import com.google.inject.spi.Elements;
 
 import javax.inject.Provider;
@@ -42,8 +47,14 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Builds up the bindings and scopes for this {@code Ginjector}.  This uses
@@ -52,6 +63,26 @@ import java.util.Set;
  */
 @Singleton
 class BindingsProcessor {
+
+  /**
+   * Configuration property enabling parallel resolution: if set to
+   * {@code true}, the dependencies of sibling child ginjectors without
+   * children of their own (e.g. the ginjectors of {@link PrivateGinModule}s
+   * installed side by side) are explored concurrently on the
+   * {@link TaskPool}, ahead of their resolution.  Bindings are still resolved
+   * one ginjector at a time and in the same order, each reusing its
+   * exploration unless a ginjector resolved in the meantime changed its
+   * outcome.  The result is therefore the same as without this property.
+   *
+   * <p>Explorations ahead of time don't use the generator context or the
+   * generator's logger (see
+   * {@link com.google.gwt.inject.rebind.resolution.BindingResolver#explore}).
+   * A ginjector that needs the generator context, e.g. to check for a rebind
+   * rule, is explored again on the generator's thread.  They are skipped when
+   * the logger logs traces, which bindings may log while being created.
+   */
+  static final String PARALLEL_RESOLUTION_PROPERTY = "gin.resolution.parallel";
+
   /**
    * Collector that gathers all methods from an injector.
    */
@@ -72,6 +103,14 @@ class BindingsProcessor {
 
   private DoubleBindingChecker doubleBindingChecker;
 
+  private final GeneratorProfiler profiler;
+
+  private final boolean parallelResolution;
+
+  private final ModuleElementCache moduleElementCache;
+
+  private final TreeLogger logger;
+
   @Inject
   BindingsProcessor(Provider<MemberCollector> collectorProvider,
       @GinjectorInterfaceType Class<? extends Ginjector> ginjectorInterface,
@@ -80,7 +119,11 @@ class BindingsProcessor {
       GuiceElementVisitor.GuiceElementVisitorFactory guiceElementVisitorFactory,
       BindingFactory bindingFactory,
       @ModuleClasses Set<Class<? extends GinModule>> moduleClasses,
-      DoubleBindingChecker doubleBindingChecker) {
+      DoubleBindingChecker doubleBindingChecker,
+      GeneratorProfiler profiler,
+      ConfigurationProperties properties,
+      ModuleElementCache moduleElementCache,
+      TreeLogger logger) {
     this.bindingFactory = bindingFactory;
     this.moduleClasses = moduleClasses;
     this.ginjectorInterface = TypeLiteral.get(ginjectorInterface);
@@ -88,6 +131,10 @@ class BindingsProcessor {
     this.rootGinjectorBindings = rootGinjectorBindings;
     this.guiceElementVisitorFactory = guiceElementVisitorFactory;
     this.doubleBindingChecker = doubleBindingChecker;
+    this.profiler = profiler;
+    this.parallelResolution = properties.isEnabled(PARALLEL_RESOLUTION_PROPERTY);
+    this.moduleElementCache = moduleElementCache;
+    this.logger = logger;
 
     completeCollector = collectorProvider.get();
     completeCollector.setMethodFilter(MemberCollector.ALL_METHOD_FILTER);
@@ -99,7 +146,7 @@ class BindingsProcessor {
     rootGinjectorBindings.addUnresolvedEntriesForInjectorInterface();
     registerGinjectorBinding();
 
-    createBindingsForModules(instantiateModules());
+    createBindingsForModules();
     errorManager.checkForError();
     
     resolveAllUnresolvedBindings(rootGinjectorBindings);
@@ -132,18 +179,99 @@ class BindingsProcessor {
    */
   private void resolveAllUnresolvedBindings(GinjectorBindings collection) 
       throws UnableToCompleteException {
-    // Create known/explicit bindings before descending into children.  This ensures that they are
-    // available to any children that may need to depend on them.
-    createBindingsForFactories(collection);
-    
+    boolean exploreAhead = parallelResolution && !logger.isLoggable(TreeLogger.TRACE);
+    resolveAllUnresolvedBindings(collection, exploreAhead, null);
+  }
+
+  /**
+   * Resolves the bindings of the given ginjector and its children as described
+   * {@link #resolveAllUnresolvedBindings(GinjectorBindings) above}.
+   *
+   * @param exploreAhead whether to explore children ahead of time
+   * @param exploration the exploration of the ginjector's dependencies done
+   *     ahead of time, or {@code null}
+   */
+  private void resolveAllUnresolvedBindings(GinjectorBindings collection, boolean exploreAhead,
+      Future<DependencyExplorerOutput> exploration) throws UnableToCompleteException {
+    // Explorations ahead of time read the hierarchy while we modify it.
+    synchronized (collection.getHierarchyLock()) {
+      // Create known/explicit bindings before descending into children.  This ensures that they
+      // are available to any children that may need to depend on them.
+      createBindingsForFactories(collection);
+    }
+
+    Map<GinjectorBindings, Future<DependencyExplorerOutput>> childExplorations =
+        exploreLeafChildren(collection, exploreAhead);
+
     // Visit all children and resolve bindings as appropriate.  This visitation may add implicit
     // bindings (and dependencies) to this ginjector
     for (GinjectorBindings child : collection.getChildren()) {
-      resolveAllUnresolvedBindings(child);
+      resolveAllUnresolvedBindings(child, exploreAhead, childExplorations.get(child));
+    }
+
+    DependencyExplorerOutput explorationOutput = getExploration(exploration);
+    synchronized (collection.getHierarchyLock()) {
+      // Resolve bindings within this ginjector and validate that everything looks OK.
+      collection.resolveBindings(explorationOutput);
+    }
+  }
+
+  /**
+   * Starts exploring the dependencies of those children of the given ginjector
+   * that are complete before any of their siblings is resolved: those without
+   * children or factories of their own.  Only explorations are run ahead of
+   * time, since they don't modify any ginjector.
+   */
+  private Map<GinjectorBindings, Future<DependencyExplorerOutput>> exploreLeafChildren(
+      GinjectorBindings collection, boolean exploreAhead) {
+    if (!exploreAhead) {
+      return Collections.emptyMap();
+    }
+
+    List<GinjectorBindings> leafChildren = new ArrayList<GinjectorBindings>();
+    for (GinjectorBindings child : collection.getChildren()) {
+      if (!child.getChildren().iterator().hasNext()
+          && !child.getFactoryModules().iterator().hasNext()) {
+        leafChildren.add(child);
+      }
+    }
+
+    // A single child gains nothing from being explored ahead of time.
+    if (leafChildren.size() < 2) {
+      return Collections.emptyMap();
+    }
+
+    Map<GinjectorBindings, Future<DependencyExplorerOutput>> explorations =
+        new LinkedHashMap<GinjectorBindings, Future<DependencyExplorerOutput>>();
+    for (final GinjectorBindings child : leafChildren) {
+      explorations.put(child, TaskPool.submit(new Callable<DependencyExplorerOutput>() {
+        public DependencyExplorerOutput call() {
+          return child.exploreBindings();
+        }
+      }));
+    }
+    return explorations;
+  }
+
+  /**
+   * Waits for an exploration started ahead of time.  Returns {@code null} if
+   * there is none or it failed, in which case the ginjector is explored again
+   * during its resolution, reporting any failure there.  This includes
+   * explorations that needed the generator context.
+   */
+  private DependencyExplorerOutput getExploration(Future<DependencyExplorerOutput> exploration) {
+    if (exploration == null) {
+      return null;
+    }
+
+    try {
+      return exploration.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      return null;
     }
-    
-    // Resolve bindings within this ginjector and validate that everything looks OK.
-    collection.resolveBindings();
   }
 
   private void createBindingsForFactories(GinjectorBindings bindings) {
@@ -196,20 +324,45 @@ class BindingsProcessor {
     errorManager.checkForError();
   }
 
-  private void createBindingsForModules(List<Module> modules) {
+  private void createBindingsForModules() {
+    List<Class<? extends GinModule>> moduleClassList =
+        new ArrayList<Class<? extends GinModule>>(moduleClasses);
+    List<Element> elements = moduleElementCache.get(moduleClassList, rootGinjectorBindings);
+    if (elements == null) {
+      List<Module> modules = instantiateModules();
+      GeneratorProfiler.Timer timer =
+          profiler.start(Phase.ELEMENT_RECORDING, rootGinjectorBindings);
+      try {
+        elements = Elements.getElements(modules);
+      } finally {
+        timer.stop();
+      }
+
+      // Modules that failed to instantiate were logged and left out.
+      if (modules.size() == moduleClassList.size()) {
+        moduleElementCache.put(moduleClassList, elements, rootGinjectorBindings);
+      }
+    }
+
     GuiceElementVisitor visitor = guiceElementVisitorFactory.create(rootGinjectorBindings);
-    visitor.visitElementsAndReportErrors(Elements.getElements(modules));
+    visitor.visitElementsAndReportErrors(elements);
   }
 
   private List<Module> instantiateModules() {
-    List<Module> modules = new ArrayList<Module>();
-    for (Class<? extends GinModule> clazz : moduleClasses) {
-      Module module = instantiateModuleClass(clazz);
-      if (module != null) {
-        modules.add(module);
+    GeneratorProfiler.Timer timer =
+        profiler.start(Phase.MODULE_INSTANTIATION, rootGinjectorBindings);
+    try {
+      List<Module> modules = new ArrayList<Module>();
+      for (Class<? extends GinModule> clazz : moduleClasses) {
+        Module module = instantiateModuleClass(clazz);
+        if (module != null) {
+          modules.add(module);
+        }
       }
+      return modules;
+    } finally {
+      timer.stop();
     }
-    return modules;
   }
 
   private Module instantiateModuleClass(Class<? extends GinModule> moduleClass) {
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.gwt.inject.rebind;
+
+import com.google.gwt.core.ext.BadPropertyValueException;
+import com.google.gwt.core.ext.PropertyOracle;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read access to the GWT configuration properties that control a ginjector
+ * generator run.
+ *
+ * <p>Every property read is recorded, since the generator's output depends on
+ * its value (see {@link GeneratorInputs}). All configuration properties must
+ * therefore be read through this class.
+ */
+public class ConfigurationProperties {
+
+  private final PropertyOracle propertyOracle;
+  private final Map<String, Set<String>> readValues = new LinkedHashMap<String, Set<String>>();
+
+  public ConfigurationProperties(PropertyOracle propertyOracle) {
+    this.propertyOracle = propertyOracle;
+  }
+
+  /**
+   * Returns the values of the given multi-valued configuration property, or an
+   * empty set if the property is not defined.
+   */
+  public synchronized Set<String> getValues(String propertyName) {
+    Set<String> values;
+    try {
+      // Result of getConfigurationProperty can never be null.
+      values = Collections.unmodifiableSet(new LinkedHashSet<String>(
+          propertyOracle.getConfigurationProperty(propertyName).getValues()));
+    } catch (BadPropertyValueException e) {
+      // Thrown when the configuration property is not defined.
+      values = Collections.emptySet();
+    }
+
+    readValues.put(propertyName, values);
+    return values;
+  }
+
+  /**
+   * Returns the value of the given single-valued configuration property, or
+   * {@code null} if the property is not defined or has no value.
+   */
+  public String getValue(String propertyName) {
+    Set<String> values = getValues(propertyName);
+    return values.isEmpty() ? null : values.iterator().next();
+  }
+
+  /**
+   * Returns whether the given single-valued configuration property is set to
+   * {@code true}.
+   */
+  public boolean isEnabled(String propertyName) {
+    return Boolean.parseBoolean(getValue(propertyName));
+  }
+
+  /**
+   * Returns the values of all properties read so far, by property name.
+   */
+  public synchronized Map<String, Set<String>> getReadValues() {
+    return new LinkedHashMap<String, Set<String>>(readValues);
+  }
+}
@@ -28,6 +28,9 @@ import com.google.inject.Singleton;
  * we've found an error so we can eventually throw an
  * {@link UnableToCompleteException}. We do this instead of throwing
  * immediately so that we can find more than one error per compilation cycle.
+ *
+ * <p>Errors may be logged concurrently, e.g. while writing ginjector fragments
+ * in parallel.
  */
 @Singleton
 public class ErrorManager {
@@ -49,12 +52,12 @@ public class ErrorManager {
     logError(message, null, (Object[]) args);
   }
 
-  public void logError(String message, Throwable t, Object... args) {
+  public synchronized void logError(String message, Throwable t, Object... args) {
     logger.log(TreeLogger.ERROR, PrettyPrinter.format(message, args), t);
     foundError = true;
   }
 
-  public void checkForError() throws UnableToCompleteException {
+  public synchronized void checkForError() throws UnableToCompleteException {
     if (foundError) {
       throw new UnableToCompleteException();
     }
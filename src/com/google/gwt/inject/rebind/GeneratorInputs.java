@@ -0,0 +1,110 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.gwt.inject.rebind;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Snapshot of everything a ginjector generator run depended on: the bytes of
+ * every client class that was looked up during analysis (ginjector interface,
+ * modules, injected classes and their members), including lookups that found
+ * nothing, the values of all configuration properties that were consulted and
+ * the results of all rebind rule checks. Since client classes are loaded by a
+ * class loader shared within a compile, the recorded classes may include ones
+ * only used by other ginjectors of the same compile; this errs on the side of
+ * regenerating too often.
+ *
+ * <p>Stored as client data with the generator's result so that a later
+ * compile can check whether the previously generated ginjector and its
+ * fragments are still valid, see {@link GinjectorGenerator}.
+ */
+class GeneratorInputs implements Serializable {
+
+  private final Map<String, String> classHashes;
+  private final Map<String, Set<String>> propertyValues;
+  private final Map<String, Boolean> rebindRules;
+
+  GeneratorInputs(Map<String, String> classHashes, Map<String, Set<String>> propertyValues,
+      Map<String, Boolean> rebindRules) {
+    this.classHashes = Collections.unmodifiableMap(new LinkedHashMap<String, String>(classHashes));
+
+    Map<String, Set<String>> values = new LinkedHashMap<String, Set<String>>();
+    for (Map.Entry<String, Set<String>> entry : propertyValues.entrySet()) {
+      values.put(entry.getKey(),
+          Collections.unmodifiableSet(new LinkedHashSet<String>(entry.getValue())));
+    }
+    this.propertyValues = Collections.unmodifiableMap(values);
+    this.rebindRules =
+        Collections.unmodifiableMap(new LinkedHashMap<String, Boolean>(rebindRules));
+  }
+
+  /**
+   * Returns the hashes of the client classes looked up during generation, by
+   * binary class name.  The hash of a class that wasn't available as a client
+   * class is {@code null}.
+   */
+  Map<String, String> getClassHashes() {
+    return classHashes;
+  }
+
+  /**
+   * Returns the values of the configuration properties read during
+   * generation, by property name.
+   */
+  Map<String, Set<String>> getPropertyValues() {
+    return propertyValues;
+  }
+
+  /**
+   * Returns whether rebind rules were available for the types checked during
+   * generation, by source name.
+   */
+  Map<String, Boolean> getRebindRules() {
+    return rebindRules;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+
+    if (!(obj instanceof GeneratorInputs)) {
+      return false;
+    }
+
+    GeneratorInputs other = (GeneratorInputs) obj;
+    return classHashes.equals(other.classHashes) && propertyValues.equals(other.propertyValues)
+        && rebindRules.equals(other.rebindRules);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * classHashes.hashCode() + propertyValues.hashCode()) + rebindRules.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("GeneratorInputs(%d classes, properties %s, %d rebind rules)",
+        classHashes.size(), propertyValues, rebindRules.size());
+  }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.gwt.inject.rebind;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records how much time and memory the phases of a generator run take, for
+ * each {@link GinjectorBindings} node of the ginjector, along with some counts.
+ *
+ * <p>Profiling is enabled by setting the {@value #PROFILE_PROPERTY}
+ * configuration property to the path of a report file. At the end of every
+ * ginjector generation, one line with a JSON object describing the run is
+ * appended to that file.
+ *
+ * <p>Phases may nest (e.g. element visiting of a private module runs within
+ * the element visiting of its parent), the recorded values of a node are
+ * inclusive of all work done while the node's phase was running. Allocation is
+ * measured for the thread that started a phase only, and only on JVMs that
+ * support it; it is reported as {@code -1} otherwise.
+ *
+ * <p>If profiling is disabled, all methods return immediately without
+ * allocating.
+ */
+@Singleton
+public class GeneratorProfiler {
+
+  /**
+   * Configuration property holding the path of the profiling report file.
+   */
+  public static final String PROFILE_PROPERTY = "gin.profile";
+
+  /**
+   * The profiled phases of a generator run.
+   */
+  public enum Phase {
+    MODULE_INSTANTIATION,
+    ELEMENT_RECORDING,
+    ELEMENT_VISITING,
+    DEPENDENCY_EXPLORATION,
+    EAGER_CYCLE_DETECTION,
+    BINDING_POSITIONING,
+    REACHABILITY_ANALYSIS,
+    OUTPUT
+  }
+
+  /**
+   * The counts collected during a generator run.
+   */
+  public enum Counter {
+    KEYS_EXPLORED,
+    IMPLICIT_BINDINGS_CREATED,
+    FRAGMENTS_WRITTEN
+  }
+
+  /**
+   * A running measurement of a phase, see {@link #start}.
+   */
+  public interface Timer {
+
+    /**
+     * Ends the measurement and records its results.
+     */
+    void stop();
+  }
+
+  private static final Timer DISABLED_TIMER = new Timer() {
+    public void stop() {}
+  };
+
+  /**
+   * Lock guarding writes to report files, which may be shared by generator
+   * runs in different threads.
+   */
+  private static final Object REPORT_LOCK = new Object();
+
+  private final String reportPath;
+  private final TreeLogger logger;
+  private final com.sun.management.ThreadMXBean allocationBean;
+
+  /**
+   * Profiles by node, in the order the nodes were first seen.
+   */
+  private final Map<GinjectorBindings, NodeProfile> profiles =
+      new LinkedHashMap<GinjectorBindings, NodeProfile>();
+
+  @Inject
+  public GeneratorProfiler(ConfigurationProperties properties, TreeLogger logger) {
+    this(properties.getValue(PROFILE_PROPERTY), logger);
+  }
+
+  /**
+   * Creates a profiler writing its report to the given path, or a disabled
+   * profiler if the path is {@code null} or empty.
+   */
+  public GeneratorProfiler(String reportPath, TreeLogger logger) {
+    this.reportPath = reportPath == null || reportPath.trim().length() == 0 ? null : reportPath;
+    this.logger = logger;
+    this.allocationBean = this.reportPath == null ? null : getAllocationBean();
+  }
+
+  public boolean isEnabled() {
+    return reportPath != null;
+  }
+
+  /**
+   * Starts measuring the given phase for the given node. The returned timer
+   * must be stopped once the phase has completed, usually in a
+   * {@code finally} block.
+   */
+  public Timer start(final Phase phase, final GinjectorBindings bindings) {
+    if (!isEnabled()) {
+      return DISABLED_TIMER;
+    }
+
+    final long startNanos = System.nanoTime();
+    final long startBytes = getAllocatedBytes();
+    return new Timer() {
+      public void stop() {
+        long nanos = System.nanoTime() - startNanos;
+        long endBytes = getAllocatedBytes();
+        long bytes = startBytes < 0 || endBytes < 0 ? -1 : endBytes - startBytes;
+        getProfile(bindings).record(phase, nanos, bytes);
+      }
+    };
+  }
+
+  /**
+   * Adds one to the given counter of the given node.
+   */
+  public void increment(Counter counter, GinjectorBindings bindings) {
+    add(counter, bindings, 1);
+  }
+
+  /**
+   * Adds the given amount to the given counter of the given node.
+   */
+  public void add(Counter counter, GinjectorBindings bindings, long amount) {
+    if (!isEnabled()) {
+      return;
+    }
+
+    getProfile(bindings).count(counter, amount);
+  }
+
+  /**
+   * Appends the report for the generator run of the given ginjector to the
+   * report file, if profiling is enabled.
+   */
+  public void writeReport(String ginjectorName) {
+    if (!isEnabled()) {
+      return;
+    }
+
+    String report = createReport(ginjectorName);
+    synchronized (REPORT_LOCK) {
+      Writer writer = null;
+      try {
+        writer = new FileWriter(new File(reportPath), true);
+        writer.write(report);
+        writer.write('\n');
+      } catch (IOException e) {
+        logger.log(TreeLogger.WARN, "Failed to write Gin profile to " + reportPath, e);
+      } finally {
+        if (writer != null) {
+          try {
+            writer.close();
+          } catch (IOException e) {
+            logger.log(TreeLogger.WARN, "Failed to write Gin profile to " + reportPath, e);
+          }
+        }
+      }
+    }
+  }
+
+  // Visible for testing.
+  synchronized String createReport(String ginjectorName) {
+    Map<GinjectorBindings, Integer> ids = new LinkedHashMap<GinjectorBindings, Integer>();
+    for (GinjectorBindings bindings : profiles.keySet()) {
+      ids.put(bindings, ids.size());
+    }
+
+    StringBuilder report = new StringBuilder();
+    report.append("{\"ginjector\":").append(quote(ginjectorName)).append(",\"nodes\":[");
+    boolean firstNode = true;
+    for (Map.Entry<GinjectorBindings, NodeProfile> entry : profiles.entrySet()) {
+      if (!firstNode) {
+        report.append(',');
+      }
+      firstNode = false;
+
+      GinjectorBindings bindings = entry.getKey();
+      Integer parentId = bindings.getParent() == null ? null : ids.get(bindings.getParent());
+      Class<?> module = bindings.getModule();
+
+      report.append("{\"id\":").append(ids.get(bindings))
+          .append(",\"parent\":").append(parentId)
+          .append(",\"module\":").append(module == null ? "null" : quote(module.getName()));
+      entry.getValue().appendTo(report);
+      report.append('}');
+    }
+    report.append("]}");
+    return report.toString();
+  }
+
+  private synchronized NodeProfile getProfile(GinjectorBindings bindings) {
+    NodeProfile profile = profiles.get(bindings);
+    if (profile == null) {
+      profile = new NodeProfile();
+      profiles.put(bindings, profile);
+    }
+    return profile;
+  }
+
+  private long getAllocatedBytes() {
+    if (allocationBean == null) {
+      return -1;
+    }
+    return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static com.sun.management.ThreadMXBean getAllocationBean() {
+    try {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+        if (allocationBean.isThreadAllocatedMemorySupported()
+            && allocationBean.isThreadAllocatedMemoryEnabled()) {
+          return allocationBean;
+        }
+      }
+    } catch (LinkageError e) {
+      // Not a HotSpot-compatible JVM, allocation isn't measured.
+    }
+    return null;
+  }
+
+  private static String quote(String value) {
+    StringBuilder result = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      switch (c) {
+        case '"':
+          result.append("\\\"");
+          break;
+        case '\\':
+          result.append("\\\\");
+          break;
+        default:
+          if (c < 0x20) {
+            result.append(String.format("\\u%04x", (int) c));
+          } else {
+            result.append(c);
+          }
+      }
+    }
+    return result.append('"').toString();
+  }
+
+  /**
+   * The measurements of a single node.
+   */
+  private static class NodeProfile {
+    private final Map<Phase, long[]> phases = new EnumMap<Phase, long[]>(Phase.class);
+    private final Map<Counter, Long> counters = new EnumMap<Counter, Long>(Counter.class);
+
+    synchronized void record(Phase phase, long nanos, long bytes) {
+      long[] values = phases.get(phase);
+      if (values == null) {
+        values = new long[] {0, 0, 0};
+        phases.put(phase, values);
+      }
+
+      values[0]++;
+      values[1] += nanos;
+      values[2] = values[2] < 0 || bytes < 0 ? -1 : values[2] + bytes;
+    }
+
+    synchronized void count(Counter counter, long amount) {
+      Long value = counters.get(counter);
+      counters.put(counter, value == null ? amount : value + amount);
+    }
+
+    synchronized void appendTo(StringBuilder report) {
+      report.append(",\"phases\":{");
+      boolean first = true;
+      for (Map.Entry<Phase, long[]> entry : phases.entrySet()) {
+        if (!first) {
+          report.append(',');
+        }
+        first = false;
+
+        long[] values = entry.getValue();
+        report.append(quote(entry.getKey().name().toLowerCase()))
+            .append(":{\"invocations\":").append(values[0])
+            .append(",\"wallNanos\":").append(values[1])
+            .append(",\"allocatedBytes\":").append(values[2]).append('}');
+      }
+
+      report.append("},\"counters\":{");
+      first = true;
+      for (Map.Entry<Counter, Long> entry : counters.entrySet()) {
+        if (!first) {
+          report.append(',');
+        }
+        first = false;
+
+        report.append(quote(entry.getKey().name().toLowerCase())).append(':')
+            .append(entry.getValue());
+      }
+      report.append('}');
+    }
+  }
+}
@@ -19,12 +19,18 @@ package com.google.gwt.inject.rebind;
 import com.google.gwt.core.ext.GeneratorContext;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.TreeLogger.Type;
+import com.google.gwt.core.ext.typeinfo.TypeOracle;
 import com.google.gwt.dev.javac.CompilationState;
 import com.google.gwt.dev.javac.CompiledClass;
 import com.google.gwt.dev.javac.StandardGeneratorContext;
+import com.google.gwt.dev.util.Util;
+import com.google.gwt.inject.rebind.util.CompileScoped;
 
 import java.util.Collection;
-import java.util.LinkedHashSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -42,6 +48,16 @@ import java.util.Set;
  *
  * <p>If the class is not available to GWT, we attempt to load it through the system class loader.
  *
+ * <p>Defining the client classes is expensive, so a single loader is shared by all generator runs
+ * of a compile that use the same excepted packages, see {@link #getSharedInstance}. Every class is
+ * then defined only once per compile, no matter how many ginjectors use it.
+ *
+ * <p>Like any class loader, this one may be asked to load classes from any thread, e.g. by
+ * explorations of dependencies running ahead of time (see {@link BindingsProcessor}).  Loading is
+ * synchronized on the loader, and the compilation state it reads isn't modified while the
+ * generator that owns the loader runs.  The warning about classes missing from GWT is logged
+ * through GWT's tree loggers, whose logging methods are synchronized.
+ *
  * <p>Unfortunately, GWT does not like to expose internal details like the compilation state and its
  * bytes. For now, we use reflection to access this internal state but in the long term we should
  * switch to other strategies such as running javac on source (which we'd need to reverse-engineer
@@ -49,28 +65,103 @@ import java.util.Set;
  */
 class GinBridgeClassLoader extends ClassLoader {
 
-  private final TreeLogger logger;
-  private final GeneratorContext context;
+  /**
+   * Loader shared by the generator runs of the current compile. It is released when a generator
+   * runs for another compile, rather than held in a map weakly keyed by the compile's
+   * {@link TypeOracle}: the classes it defined reference the compilation state and through it the
+   * type oracle, so such a key would never be cleared.
+   */
+  private static final CompileScoped<GinBridgeClassLoader> sharedLoader =
+      new CompileScoped<GinBridgeClassLoader>();
+
+  private TreeLogger logger;
 
   /**
-   * Packages that should not be loaded from GWT.
+   * Packages that should not be loaded from GWT, each ending with a period.
    */
-  private final Collection<String> exceptedPackages;
+  private final Set<String> exceptedPackages;
 
-  // Lazily load class files from compilation state.
-  private boolean loadedClassFiles = false;
+  /**
+   * Class files of the compilation state, by internal name. This is a view of the compilation
+   * state's map, so it includes types added by generators that run after this loader was created.
+   */
   private Map<String, CompiledClass> classFileMap;
 
+  /**
+   * Compiled classes this loader defined classes from, by class name.
+   */
+  private final Map<String, CompiledClass> definedClasses = new HashMap<String, CompiledClass>();
+
+  /**
+   * Hashes of the bytes GWT's compilation state held for every class name this loader was asked
+   * for, or {@code null} for names that weren't in the compilation state.
+   */
+  private final Map<String, String> lookedUpClassHashes = new LinkedHashMap<String, String>();
+
+  /**
+   * Hashes of compiled classes computed so far, see {@link #getClassHash}.
+   */
+  private final Map<CompiledClass, String> classHashes = new HashMap<CompiledClass, String>();
+
   GinBridgeClassLoader(GeneratorContext context, TreeLogger logger,
       Collection<String> exceptedPackages) {
     super(); // Use system class loader by default.
-    this.context = context;
     this.logger = logger;
     this.exceptedPackages = getExceptedPackages(exceptedPackages);
+    this.classFileMap = extractClassFileMap(context);
+  }
+
+  /**
+   * Returns the loader shared by all generator runs of the compile the passed context belongs to,
+   * creating it if necessary. The loader of any other compile is released.
+   *
+   * <p>A loader is only shared if it was created for the same excepted packages, all classes it
+   * defined so far are still the ones found in the compilation state and none of the classes it
+   * couldn't find was added since; otherwise a new loader replaces it.
+   */
+  static GinBridgeClassLoader getSharedInstance(GeneratorContext context, TreeLogger logger,
+      Collection<String> exceptedPackages) {
+    TypeOracle typeOracle = context.getTypeOracle();
+    synchronized (sharedLoader) {
+      GinBridgeClassLoader loader = sharedLoader.get(typeOracle);
+      if (loader == null || !loader.reuse(context, logger, exceptedPackages)) {
+        loader = new GinBridgeClassLoader(context, logger, exceptedPackages);
+        sharedLoader.set(typeOracle, loader);
+      }
+      return loader;
+    }
+  }
+
+  /**
+   * Prepares this loader for another generator run in the given context. Returns {@code false} if
+   * the loader can't be used for the run.
+   */
+  private synchronized boolean reuse(GeneratorContext context, TreeLogger logger,
+      Collection<String> exceptedPackages) {
+    if (!this.exceptedPackages.equals(getExceptedPackages(exceptedPackages))) {
+      return false;
+    }
+
+    this.logger = logger;
+    this.classFileMap = extractClassFileMap(context);
+
+    for (Map.Entry<String, CompiledClass> entry : definedClasses.entrySet()) {
+      if (getCompiledClass(entry.getKey()) != entry.getValue()) {
+        return false;
+      }
+    }
+
+    // A class that couldn't be found before would now be loaded differently.
+    for (Map.Entry<String, String> entry : lookedUpClassHashes.entrySet()) {
+      if (entry.getValue() == null && getCompiledClass(entry.getKey()) != null) {
+        return false;
+      }
+    }
+    return true;
   }
 
-  private static Collection<String> getExceptedPackages(Collection<String> superSourceExceptions) {
-    Set<String> names = new LinkedHashSet<String>();
+  private static Set<String> getExceptedPackages(Collection<String> superSourceExceptions) {
+    Set<String> names = new HashSet<String>();
     for (String name : superSourceExceptions) {
       if (name.endsWith(".")) {
         names.add(name);
@@ -96,7 +187,12 @@ class GinBridgeClassLoader extends ClassLoader {
    * GWT generated or super-source classes. See description {@link GinBridgeClassLoader above}.
    */
   @Override
-  protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+  protected synchronized Class<?> loadClass(String name, boolean resolve)
+      throws ClassNotFoundException {
+    if (!lookedUpClassHashes.containsKey(name)) {
+      lookedUpClassHashes.put(name, getClassHash(name));
+    }
+
     Class<?> clazz = findLoadedClass(name);
     if (clazz == null) {
       if (inExceptedPackage(name)) {
@@ -121,9 +217,14 @@ class GinBridgeClassLoader extends ClassLoader {
     return clazz;
   }
 
+  /**
+   * Checks whether any of the name's package prefixes (up to and including a period) is excepted.
+   * This walks the name once and looks up each prefix, rather than matching every excepted
+   * package against the name.
+   */
   private boolean inExceptedPackage(String name) {
-    for (String pkg : exceptedPackages) {
-      if (name.startsWith(pkg)) {
+    for (int end = name.indexOf('.'); end != -1; end = name.indexOf('.', end + 1)) {
+      if (exceptedPackages.contains(name.substring(0, end + 1))) {
         return true;
       }
     }
@@ -131,21 +232,42 @@ class GinBridgeClassLoader extends ClassLoader {
   }
 
   /**
-   * Looks up classes in GWT's compilation state.
+   * Returns the names of all classes this loader was asked for, mapped to a hash of the bytes GWT's
+   * compilation state held for them at the time (see {@link #getClassHash}).
+   *
+   * <p>This includes classes loaded through the system class loader, and names that couldn't be
+   * found at all: had the compilation state held them, or held other bytes for them, they would
+   * have been loaded differently.  Since the loader is shared, this also includes classes looked up
+   * for other ginjectors of the same compile.
    */
-  @Override
-  protected Class<?> findClass(String name) throws ClassNotFoundException {
-    if (!loadedClassFiles) {
-      classFileMap = extractClassFileMap();
-      loadedClassFiles = true;
-    }
+  synchronized Map<String, String> getLookedUpClassHashes() {
+    return Collections.unmodifiableMap(new LinkedHashMap<String, String>(lookedUpClassHashes));
+  }
 
-    if (classFileMap == null) {
-      throw new ClassNotFoundException(name);
+  /**
+   * Returns a hash of the bytes GWT's compilation state currently holds for the given class, or
+   * {@code null} if the class is not available in the compilation state.
+   */
+  synchronized String getClassHash(String name) {
+    CompiledClass compiledClass = getCompiledClass(name);
+    return compiledClass == null ? null : getClassHash(compiledClass);
+  }
+
+  private String getClassHash(CompiledClass compiledClass) {
+    String hash = classHashes.get(compiledClass);
+    if (hash == null) {
+      hash = Util.computeStrongName(compiledClass.getBytes());
+      classHashes.put(compiledClass, hash);
     }
+    return hash;
+  }
 
-    String internalName = name.replace('.', '/');
-    CompiledClass compiledClass = classFileMap.get(internalName);
+  /**
+   * Looks up classes in GWT's compilation state.
+   */
+  @Override
+  protected synchronized Class<?> findClass(String name) throws ClassNotFoundException {
+    CompiledClass compiledClass = getCompiledClass(name);
     if (compiledClass == null) {
       throw new ClassNotFoundException(name);
     }
@@ -157,13 +279,22 @@ class GinBridgeClassLoader extends ClassLoader {
     }
 
     byte[] bytes = compiledClass.getBytes();
+    definedClasses.put(name, compiledClass);
     return defineClass(name, bytes, 0, bytes.length);
   }
 
+  private CompiledClass getCompiledClass(String name) {
+    if (classFileMap == null) {
+      return null;
+    }
+
+    return classFileMap.get(name.replace('.', '/'));
+  }
+
   /**
    * Retrieves class definitions from a {@link GeneratorContext} by downcasting.
    */
-  private Map<String, CompiledClass> extractClassFileMap() {
+  private Map<String, CompiledClass> extractClassFileMap(GeneratorContext context) {
     if (context instanceof StandardGeneratorContext) {
       StandardGeneratorContext standardContext = (StandardGeneratorContext) context;
       return standardContext.getCompilationState().getClassFileMap();
@@ -20,5 +20,11 @@ package com.google.gwt.inject.rebind;
  * Enum for scopes that GIN supports.
  */
 public enum GinScope {
-  NO_SCOPE, SINGLETON, EAGER_SINGLETON
+  NO_SCOPE, SINGLETON, EAGER_SINGLETON,
+
+  /**
+   * Eager singletons that are created after startup, see
+   * {@link com.google.gwt.inject.client.DeferredEagerSingleton}.
+   */
+  DEFERRED_EAGER_SINGLETON
 }
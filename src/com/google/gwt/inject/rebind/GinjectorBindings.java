@@ -18,6 +18,7 @@ package com.google.gwt.inject.rebind;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.UnableToCompleteException;
 import com.google.gwt.dev.util.Preconditions;
+import com.google.gwt.inject.client.DeferredEagerSingleton;
 import com.google.gwt.inject.client.Ginjector;
 import com.google.gwt.inject.client.assistedinject.FactoryModule;
 import com.google.gwt.inject.rebind.binding.Binding;
@@ -30,6 +31,7 @@ import com.google.gwt.inject.rebind.reflect.FieldLiteral;
 import com.google.gwt.inject.rebind.reflect.MethodLiteral;
 import com.google.gwt.inject.rebind.reflect.ReflectUtil;
 import com.google.gwt.inject.rebind.resolution.BindingResolver;
+import com.google.gwt.inject.rebind.resolution.DependencyExplorer.DependencyExplorerOutput;
 import com.google.gwt.inject.rebind.util.GuiceUtil;
 import com.google.gwt.inject.rebind.util.MemberCollector;
 import com.google.gwt.inject.rebind.util.NameGenerator;
@@ -233,9 +235,19 @@ public class GinjectorBindings implements BindingIndex {
   }
 
   public void resolveBindings() throws UnableToCompleteException {
+    resolveBindings(null);
+  }
+
+  /**
+   * Resolves the bindings of this ginjector like {@link #resolveBindings()},
+   * reusing the given exploration of its dependencies (see
+   * {@link #exploreBindings}) if it is still up to date.
+   */
+  public void resolveBindings(DependencyExplorerOutput exploration)
+      throws UnableToCompleteException {
     assertNotFinalized();
     
-    bindingResolver.resolveBindings(this);
+    bindingResolver.resolveBindings(this, exploration);
     errorManager.checkForError();
 
     // Mark this collection as finalized, so that no new bindings or unresolved
@@ -270,13 +282,13 @@ public class GinjectorBindings implements BindingIndex {
   }
 
   /**
-   * Returns {@code true} if this bindings object contains at least one eager
-   * singleton binding.
+   * Returns {@code true} if this bindings object contains at least one binding
+   * in the given scope.
    */
-  private boolean hasEagerSingletonBinding() {
+  private boolean hasBindingInScope(GinScope expectedScope) {
     for (Key<?> key : bindings.keySet()) {
       GinScope scope = determineScope(key);
-      if (GinScope.EAGER_SINGLETON.equals(scope)) {
+      if (expectedScope.equals(scope)) {
         return true;
       }
     }
@@ -286,19 +298,19 @@ public class GinjectorBindings implements BindingIndex {
 
   /**
    * Returns {@code true} if any binding in this injector or in one of its
-   * descendants is an eager singleton binding.
+   * descendants is in the given scope.
    *
    * <p>Note: this method is Omega(n) in the height of the injector tree, and
    * invoking it on every entry in the injector tree is O(n^2).  The latter cost
    * could be reduced to O(n) by caching the return value.
    */
-  public boolean hasEagerSingletonBindingInSubtree() {
-    if (hasEagerSingletonBinding()) {
+  private boolean hasBindingInScopeInSubtree(GinScope scope) {
+    if (hasBindingInScope(scope)) {
       return true;
     }
 
     for (GinjectorBindings child : getChildren()) {
-      if (child.hasEagerSingletonBindingInSubtree()) {
+      if (child.hasBindingInScopeInSubtree(scope)) {
         return true;
       }
     }
@@ -306,6 +318,22 @@ public class GinjectorBindings implements BindingIndex {
     return false;
   }
 
+  /**
+   * Returns {@code true} if any binding in this injector or in one of its
+   * descendants is an eager singleton binding.
+   */
+  public boolean hasEagerSingletonBindingInSubtree() {
+    return hasBindingInScopeInSubtree(GinScope.EAGER_SINGLETON);
+  }
+
+  /**
+   * Returns {@code true} if any binding in this injector or in one of its
+   * descendants is a deferred eager singleton binding.
+   */
+  public boolean hasDeferredEagerSingletonBindingInSubtree() {
+    return hasBindingInScopeInSubtree(GinScope.DEFERRED_EAGER_SINGLETON);
+  }
+
   /**
    * Returns {@code true} if this injector or any of its children has a static
    * injection request.
@@ -328,6 +356,25 @@ public class GinjectorBindings implements BindingIndex {
     return false;
   }
 
+  /**
+   * Explores the unresolved dependencies of this ginjector ahead of
+   * {@link #resolveBindings}, without modifying any ginjector.  Can be called
+   * from any thread once all bindings and dependencies of this ginjector were
+   * added, while other ginjectors of the hierarchy are being resolved.
+   */
+  public DependencyExplorerOutput exploreBindings() {
+    assertNotFinalized();
+    return bindingResolver.explore(this);
+  }
+
+  /**
+   * Returns the object to synchronize on when the bindings of this ginjector
+   * hierarchy may be read and modified concurrently: that of its root.
+   */
+  public Object getHierarchyLock() {
+    return parent == null ? this : parent.getHierarchyLock();
+  }
+
   void putScope(Key<?> key, GinScope scope) {
     scopes.put(key, scope);
   }
@@ -383,6 +430,8 @@ public class GinjectorBindings implements BindingIndex {
           || raw.getAnnotation(javax.inject.Singleton.class) != null) {
         // Look for scope annotation as a fallback
         scope = GinScope.SINGLETON;
+      } else if (raw.getAnnotation(DeferredEagerSingleton.class) != null) {
+        scope = GinScope.DEFERRED_EAGER_SINGLETON;
       } else if (RemoteServiceProxyBinding.isRemoteServiceProxy(key.getTypeLiteral())) {
         // Special case for remote services
         scope = GinScope.SINGLETON;
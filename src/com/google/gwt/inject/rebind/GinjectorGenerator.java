@@ -16,10 +16,11 @@
 
 package com.google.gwt.inject.rebind;
 
-import com.google.gwt.core.ext.BadPropertyValueException;
-import com.google.gwt.core.ext.Generator;
+import com.google.gwt.core.ext.CachedGeneratorResult;
 import com.google.gwt.core.ext.GeneratorContext;
-import com.google.gwt.core.ext.PropertyOracle;
+import com.google.gwt.core.ext.IncrementalGenerator;
+import com.google.gwt.core.ext.RebindMode;
+import com.google.gwt.core.ext.RebindResult;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.UnableToCompleteException;
 import com.google.gwt.inject.client.GinModule;
@@ -30,31 +31,117 @@ import com.google.inject.Guice;
 import com.google.inject.Module;
 
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Generator for implementations of {@link com.google.gwt.inject.client.Ginjector}.
+ *
+ * <p>The generator works incrementally: every run records the client classes,
+ * configuration properties and rebind rules it depended on (see
+ * {@link GeneratorInputs}). If GWT offers a cached result from a previous run
+ * whose inputs are all unchanged, the previously generated ginjector
+ * implementation and its fragments are reused instead of being generated
+ * again. Runs whose output uses classes shared by all ginjectors of a compile,
+ * e.g. the classes of split points, are never cached, since those classes are
+ * only written by the first run of a compile that needs them.
  */
-public class GinjectorGenerator extends Generator {
+public class GinjectorGenerator extends IncrementalGenerator {
+
+  /**
+   * Version of the generator's output, must be increased whenever a change to
+   * gin makes previously generated ginjectors invalid.
+   */
+  private static final long VERSION_ID = 1L;
+
+  /**
+   * Client data key under which the {@link GeneratorInputs} of a generator run
+   * are stored.
+   */
+  // Visible for testing.
+  static final String GENERATOR_INPUTS_KEY = "gin.generatorInputs";
 
   // Visible for testing.
   ClassLoader classLoader;
 
-  private PropertyOracle propertyOracle;
+  private ConfigurationProperties properties;
+
+  private RebindRules rebindRules;
 
   private TreeLogger logger;
 
   @Override
-  public String generate(TreeLogger logger, GeneratorContext context, String typeName)
-      throws UnableToCompleteException {
+  public long getVersionId() {
+    return VERSION_ID;
+  }
+
+  @Override
+  public RebindResult generateIncrementally(TreeLogger logger, GeneratorContext context,
+      String typeName) throws UnableToCompleteException {
 
-    propertyOracle = context.getPropertyOracle();
+    properties = new ConfigurationProperties(context.getPropertyOracle());
+    rebindRules = new RebindRules(context);
     this.logger = logger;
-    
-    classLoader = createGinClassLoader(logger, context);
 
+    GinBridgeClassLoader ginClassLoader = createGinClassLoader(logger, context);
+    classLoader = ginClassLoader;
+
+    CachedGeneratorResult cachedResult = context.getCachedGeneratorResult();
+    if (cachedResult != null && context.isGeneratorResultCachingEnabled()) {
+      Object cachedInputs = cachedResult.getClientData(GENERATOR_INPUTS_KEY);
+      if (cachedInputs instanceof GeneratorInputs
+          && isUpToDate((GeneratorInputs) cachedInputs, ginClassLoader)) {
+        logger.log(TreeLogger.Type.DEBUG, String.format(
+            "Reusing previously generated %s, none of its inputs changed.",
+            cachedResult.getResultTypeName()));
+        return new RebindResult(RebindMode.USE_ALL_CACHED, cachedResult.getResultTypeName());
+      }
+    }
+
+    GinjectorGeneratorImpl generatorImpl = createGeneratorImpl(typeName, context);
+    String resultTypeName = generatorImpl.generate();
+
+    if (!context.isGeneratorResultCachingEnabled() || !generatorImpl.isOutputCacheable()) {
+      return new RebindResult(RebindMode.USE_ALL_NEW_WITH_NO_CACHING, resultTypeName);
+    }
+
+    RebindResult result = new RebindResult(RebindMode.USE_ALL_NEW, resultTypeName);
+    result.putClientData(GENERATOR_INPUTS_KEY,
+        new GeneratorInputs(ginClassLoader.getLookedUpClassHashes(), properties.getReadValues(),
+            rebindRules.getCheckedRules()));
+    return result;
+  }
+
+  /**
+   * Checks whether all inputs recorded for a previous generator run still have
+   * the same values.
+   */
+  private boolean isUpToDate(GeneratorInputs inputs, GinBridgeClassLoader ginClassLoader) {
+    for (Map.Entry<String, String> entry : inputs.getClassHashes().entrySet()) {
+      String hash = ginClassLoader.getClassHash(entry.getKey());
+      if (hash == null ? entry.getValue() != null : !hash.equals(entry.getValue())) {
+        return false;
+      }
+    }
+
+    for (Map.Entry<String, Set<String>> entry : inputs.getPropertyValues().entrySet()) {
+      if (!entry.getValue().equals(properties.getValues(entry.getKey()))) {
+        return false;
+      }
+    }
+
+    for (Map.Entry<String, Boolean> entry : inputs.getRebindRules().entrySet()) {
+      if (entry.getValue() != rebindRules.isAvailable(entry.getKey())) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private GinjectorGeneratorImpl createGeneratorImpl(String typeName, GeneratorContext context)
+      throws UnableToCompleteException {
     Class<? extends Ginjector> ginjectorInterface;
     try {
       ginjectorInterface = getGinjectorType(typeName);
@@ -69,29 +156,31 @@ public class GinjectorGenerator extends Generator {
 
     // This is the Injector we use for the Generator internally,
     // it has nothing to do with user code.
-    Module module = new GinjectorGeneratorModule(logger, context, ginjectorInterface,
-        getModuleClasses(ginjectorInterface));
-    return Guice.createInjector(module).getInstance(GinjectorGeneratorImpl.class).generate();
+    Module module = new GinjectorGeneratorModule(logger, context, properties, rebindRules,
+        ginjectorInterface, getModuleClasses(ginjectorInterface));
+    return Guice.createInjector(module).getInstance(GinjectorGeneratorImpl.class);
   }
 
   /**
-   * Creates a new gin-specific class loader that will load GWT and non-GWT types such that there is
-   * never a conflict, especially with super source.
+   * Returns the gin-specific class loader that will load GWT and non-GWT types such that there is
+   * never a conflict, especially with super source. The loader is shared by all generator runs of
+   * the compile.
    *
    * @param logger logger for errors that occur during class loading
    * @param context generator context in which classes are loaded
-   * @return new gin class loader
+   * @return gin class loader
    * @see GinBridgeClassLoader
    */
-  private ClassLoader createGinClassLoader(TreeLogger logger, GeneratorContext context) {
+  private GinBridgeClassLoader createGinClassLoader(TreeLogger logger,
+      GeneratorContext context) {
     Set<String> exceptions = new LinkedHashSet<String>();
     exceptions.add("com.google.inject"); // Need the non-super-source version during generation.
     exceptions.add("javax.inject"); // Need the non-super-source version during generation.
     exceptions.add("com.google.gwt.inject.client"); // Excluded to allow class-literal comparison.
 
     // Add any excepted packages or classes registered by other developers.
-    exceptions.addAll(getValuesForProperty("gin.classloading.exceptedPackages"));
-    return new GinBridgeClassLoader(context, logger, exceptions);
+    exceptions.addAll(properties.getValues("gin.classloading.exceptedPackages"));
+    return GinBridgeClassLoader.getSharedInstance(context, logger, exceptions);
   }
 
   @SuppressWarnings("unchecked")
@@ -156,7 +245,7 @@ public class GinjectorGenerator extends Generator {
 
     Set<String> configurationModuleNames = new LinkedHashSet<String>();
     for (String propertyName : propertyNames) {
-      Set<String> moduleNames = getValuesForProperty(propertyName);
+      Set<String> moduleNames = properties.getValues(propertyName);
       if (moduleNames.isEmpty()) {
         logger.log(TreeLogger.Type.ERROR, String.format("The GinModules annotation requests "
             + "property %s, but this property cannot be found in the GWT module.", propertyName));
@@ -167,17 +256,6 @@ public class GinjectorGenerator extends Generator {
     return configurationModuleNames;
   }
 
-  private Set<String> getValuesForProperty(String propertyName) {
-    try {
-      // Result of getConfigurationProperty can never be null.
-      return new LinkedHashSet<String>(
-          propertyOracle.getConfigurationProperty(propertyName).getValues());
-    } catch (BadPropertyValueException e) {
-      // Thrown when the configuration property is not defined.
-      return Collections.emptySet();
-    }
-  }
-
   private void getPropertyNamesFromInjectorInterface(Class<?> ginjectorType,
       Set<String> propertyNames) {
     GinModules ginModulesAnnotation = ginjectorType.getAnnotation(GinModules.class);
@@ -40,6 +40,7 @@ class GinjectorGeneratorImpl {
   private final GeneratorContext ctx;
   private final BindingsProcessor bindingsProcessor;
   private final GinjectorImplOutputter outputter;
+  private final GeneratorProfiler profiler;
 
   /**
    * Convenience cache of rootBindings.getGinjectorInterface().
@@ -51,16 +52,24 @@ class GinjectorGeneratorImpl {
    */
   private final GinjectorBindings rootBindings;
 
+  /**
+   * Whether {@link #generate} wrote a new ginjector implementation, rather
+   * than finding one that had been created before.
+   */
+  private boolean outputGenerated = false;
+
   @Inject
   public GinjectorGeneratorImpl(TreeLogger logger, GeneratorContext ctx,
       BindingsProcessor bindingsProcessor,
       @RootBindings GinjectorBindings rootBindings,
-      GinjectorImplOutputter outputter) {
+      GinjectorImplOutputter outputter,
+      GeneratorProfiler profiler) {
     this.logger = logger;
     this.ctx = ctx;
     this.bindingsProcessor = bindingsProcessor;
     this.ginjectorInterface = rootBindings.getGinjectorInterface();
     this.outputter = outputter;
+    this.profiler = profiler;
     this.rootBindings = rootBindings;
   }
 
@@ -78,11 +87,25 @@ class GinjectorGeneratorImpl {
     } else {
       bindingsProcessor.process();
       outputter.write(packageName, implClassName, printWriter, rootBindings);
+      outputGenerated = true;
+      profiler.writeReport(ginjectorInterface.toString());
     }
 
     return generatedClassName;
   }
 
+  /**
+   * Returns whether the output of the last call to {@link #generate} may be
+   * reused by a later compile whose inputs are unchanged.  It may not if no new
+   * ginjector implementation was written, since the implementation already
+   * existed and none of the ginjector's inputs were analyzed, or if the
+   * implementation uses classes shared by all ginjectors of the compile (see
+   * {@link GinjectorImplOutputter#usesSharedClasses}).
+   */
+  public boolean isOutputCacheable() {
+    return outputGenerated && !outputter.usesSharedClasses();
+  }
+
   private String getImplClassName()
       throws UnableToCompleteException {
     try {
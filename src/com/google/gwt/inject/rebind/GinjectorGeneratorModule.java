@@ -29,6 +29,7 @@ import com.google.gwt.inject.rebind.reflect.MethodLiteral;
 import com.google.gwt.inject.rebind.resolution.ResolutionModule;
 import com.google.gwt.inject.rebind.util.GuiceUtil;
 import com.google.gwt.inject.rebind.util.MemberCollector;
+import com.google.gwt.inject.rebind.util.MemberCollectorCache;
 import com.google.gwt.inject.rebind.util.SourceWriteUtil;
 import com.google.inject.AbstractModule;
 import com.google.inject.Key;
@@ -48,16 +49,40 @@ import java.util.Set;
  * adding bindings.
  */
 class GinjectorGeneratorModule extends AbstractModule {
+
+  // The filters of the injectables collector are shared by all generator runs,
+  // so that they share the members collected with them, see
+  // MemberCollectorCache.
+  private static final MemberCollector.MethodFilter INJECTABLE_METHOD_FILTER =
+      new MemberCollector.MethodFilter() {
+        public boolean accept(MethodLiteral<?, Method> method) {
+          // TODO(schmitt): Do injectable methods require at least one parameter?
+          return GuiceUtil.hasInject(method) && !method.isStatic();
+        }
+      };
+
+  private static final MemberCollector.FieldFilter INJECTABLE_FIELD_FILTER =
+      new MemberCollector.FieldFilter() {
+        public boolean accept(FieldLiteral<?> field) {
+          return (GuiceUtil.hasInject(field)) && !field.isStatic();
+        }
+      };
+
   private final TreeLogger logger;
   private final GeneratorContext ctx;
+  private final ConfigurationProperties properties;
+  private final RebindRules rebindRules;
   private final Class<? extends Ginjector> ginjectorInterface;
   private final Set<Class<? extends GinModule>> moduleClasses;
 
   public GinjectorGeneratorModule(TreeLogger logger, GeneratorContext ctx,
-      Class<? extends Ginjector> ginjectorInterface, 
+      ConfigurationProperties properties, RebindRules rebindRules,
+      Class<? extends Ginjector> ginjectorInterface,
       Set<Class<? extends GinModule>> moduleClasses) {
     this.logger = logger;
     this.ctx = ctx;
+    this.properties = properties;
+    this.rebindRules = rebindRules;
     this.ginjectorInterface = ginjectorInterface;
     this.moduleClasses = moduleClasses;
   }
@@ -69,6 +94,10 @@ class GinjectorGeneratorModule extends AbstractModule {
 
     bind(TreeLogger.class).toInstance(logger);
     bind(GeneratorContext.class).toInstance(ctx);
+    bind(ConfigurationProperties.class).toInstance(properties);
+    bind(RebindRules.class).toInstance(rebindRules);
+    bind(MemberCollectorCache.class)
+        .toInstance(MemberCollectorCache.getSharedInstance(ctx.getTypeOracle()));
     bind(new TypeLiteral<Class<? extends Ginjector>>(){})
         .annotatedWith(GinjectorInterfaceType.class)
         .toInstance(ginjectorInterface);
@@ -91,21 +120,8 @@ class GinjectorGeneratorModule extends AbstractModule {
   @Injectable
   @Singleton
   MemberCollector provideInjectablesCollector(MemberCollector collector) {
-    collector.setMethodFilter(
-        new MemberCollector.MethodFilter() {
-          public boolean accept(MethodLiteral<?, Method> method) {
-            // TODO(schmitt): Do injectable methods require at least one parameter?
-            return GuiceUtil.hasInject(method) && !method.isStatic();
-          }
-        });
-
-    collector.setFieldFilter(
-        new MemberCollector.FieldFilter() {
-          public boolean accept(FieldLiteral<?> field) {
-            return (GuiceUtil.hasInject(field)) && !field.isStatic();
-          }
-        });
-
+    collector.setMethodFilter(INJECTABLE_METHOD_FILTER);
+    collector.setFieldFilter(INJECTABLE_FIELD_FILTER);
     return collector;
   }
 }
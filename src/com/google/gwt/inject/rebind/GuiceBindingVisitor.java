@@ -15,6 +15,7 @@
  */
 package com.google.gwt.inject.rebind;
 
+import com.google.gwt.inject.client.DeferredEagerSingleton;
 import com.google.gwt.inject.rebind.adapter.GwtDotCreateProvider;
 import com.google.gwt.inject.rebind.binding.BindConstantBinding;
 import com.google.gwt.inject.rebind.binding.BindingFactory;
@@ -144,6 +145,8 @@ public class GuiceBindingVisitor<T> extends DefaultBindingTargetVisitor<T, Void>
   public Void visitScopeAnnotation(Class<? extends Annotation> scopeAnnotation) {
     if (scopeAnnotation == Singleton.class || scopeAnnotation == javax.inject.Singleton.class) {
       bindingsCollection.putScope(targetKey, GinScope.SINGLETON);
+    } else if (scopeAnnotation == DeferredEagerSingleton.class) {
+      bindingsCollection.putScope(targetKey, GinScope.DEFERRED_EAGER_SINGLETON);
     } else {
       messages.add(new Message(PrettyPrinter.format("Unsupported scope annotation: key=%s scope=%s",
           targetKey, scopeAnnotation)));
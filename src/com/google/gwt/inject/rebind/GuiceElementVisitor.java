@@ -16,6 +16,9 @@
 package com.google.gwt.inject.rebind;
 
 import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.inject.client.multibindings.MultibindingElement;
+import com.google.gwt.inject.client.multibindings.RealMultibindingElement;
+import com.google.gwt.inject.rebind.GeneratorProfiler.Phase;
 import com.google.gwt.inject.rebind.binding.BindingFactory;
 import com.google.gwt.inject.rebind.binding.Context;
 import com.google.gwt.inject.rebind.binding.ExposedChildBinding;
@@ -25,14 +28,21 @@ import com.google.inject.Key;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.spi.DefaultElementVisitor;
 import com.google.inject.spi.Element;
+import com.google.inject.spi.LinkedKeyBinding;
 import com.google.inject.spi.Message;
 import com.google.inject.spi.PrivateElements;
 import com.google.inject.spi.ProviderLookup;
 import com.google.inject.spi.StaticInjectionRequest;
 
+import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Gathers elements and adds them to a {@link GinjectorBindings}.
@@ -52,25 +62,47 @@ public class GuiceElementVisitor extends DefaultElementVisitor<Void> {
   private final GinjectorBindings bindings;
   private final ErrorManager errorManager;
   private final BindingFactory bindingFactory;
+  private final GeneratorProfiler profiler;
   private Iterator<GinjectorBindings> children;
   private GuiceBindingVisitorFactory bindingVisitorFactory;
 
+  /**
+   * The sets and maps bound by the {@code Multibinder}s and {@code MapBinder}s
+   * of this ginjector, with the elements binding them.
+   */
+  private final Map<Key<?>, Element> multibindings = new LinkedHashMap<Key<?>, Element>();
+
+  /**
+   * The entries of multibindings bound in this ginjector and its children, in
+   * the order they were bound, by the key of the multibinding they belong to.
+   */
+  private final Map<Key<?>, List<MultibindingEntry>> multibindingEntries =
+      new LinkedHashMap<Key<?>, List<MultibindingEntry>>();
+
+  /**
+   * The visitors of the child ginjectors, in the order they were visited.
+   */
+  private final List<GuiceElementVisitor> childVisitors = new ArrayList<GuiceElementVisitor>();
+
   @Inject
   public GuiceElementVisitor(TreeLogger logger,
       GuiceElementVisitorFactory guiceElementVisitorFactory,
       GuiceBindingVisitorFactory bindingVisitorFactory,
       ErrorManager errorManager,
-      @Assisted GinjectorBindings bindings, BindingFactory bindingFactory) {
+      @Assisted GinjectorBindings bindings, BindingFactory bindingFactory,
+      GeneratorProfiler profiler) {
     this.logger = logger;
     this.guiceElementVisitorFactory = guiceElementVisitorFactory;
     this.bindingVisitorFactory = bindingVisitorFactory;
     this.errorManager = errorManager;
     this.bindings = bindings;
     this.bindingFactory = bindingFactory;
+    this.profiler = profiler;
   }
   
   public void visitElementsAndReportErrors(List<Element> elements) {
     visitElements(elements);
+    addMultibindings(Collections.<Key<?>>emptySet());
     
     // Capture any binding errors, any of which we treat as fatal.
     if (!messages.isEmpty()) {
@@ -82,6 +114,15 @@ public class GuiceElementVisitor extends DefaultElementVisitor<Void> {
   }
   
   private void visitElements(List<Element> elements) {
+    GeneratorProfiler.Timer timer = profiler.start(Phase.ELEMENT_VISITING, bindings);
+    try {
+      doVisitElements(elements);
+    } finally {
+      timer.stop();
+    }
+  }
+
+  private void doVisitElements(List<Element> elements) {
     // We take advantage of the fact that iterating over the PrivateElements should
     // happen in the same order that the modules were installed.  We match each PrivateElements
     // up with the {@link GinjectorBindings} that were created in the adapter.
@@ -91,7 +132,106 @@ public class GuiceElementVisitor extends DefaultElementVisitor<Void> {
     }
   }
 
+  /**
+   * Binds the sets and maps of the multibindings visited in this ginjector and
+   * its children to code creating them from the keys bound for their entries.
+   *
+   * <p>A {@code PrivateGinModule} adding entries to a set of its parent creates
+   * its own multibinder for it, so a multibinding is only bound by the highest
+   * ginjector visiting it.  It collects the entries bound there and in all
+   * children, which are exposed up to that ginjector.
+   *
+   * @param boundAbove the multibindings bound by the ancestors of this
+   *     ginjector
+   */
+  private void addMultibindings(Set<Key<?>> boundAbove) {
+    Set<Key<?>> bound = new LinkedHashSet<Key<?>>(boundAbove);
+    for (Map.Entry<Key<?>, Element> multibinding : multibindings.entrySet()) {
+      Key<?> key = multibinding.getKey();
+      if (!bound.add(key)) {
+        continue;
+      }
+
+      Context context = Context.forElement(multibinding.getValue());
+      List<MultibindingEntry> entries = multibindingEntries.get(key);
+      if (entries == null) {
+        entries = Collections.emptyList();
+      }
+
+      List<Key<?>> entryKeys = new ArrayList<Key<?>>();
+      for (MultibindingEntry entry : entries) {
+        exposeEntry(entry, context);
+        entryKeys.add(entry.key);
+      }
+
+      bindings.addPin(key);
+      if (key.getTypeLiteral().getRawType() == Map.class) {
+        List<Key<?>> keyKeys = new ArrayList<Key<?>>();
+        List<Key<?>> valueKeys = new ArrayList<Key<?>>();
+        for (Key<?> entryKey : entryKeys) {
+          MultibindingElement element = (MultibindingElement) entryKey.getAnnotation();
+          if (element.role() == MultibindingElement.Role.MAP_KEY) {
+            keyKeys.add(entryKey);
+          } else {
+            valueKeys.add(entryKey);
+          }
+        }
+        bindings.addBinding(key,
+            bindingFactory.getMapBinderBinding(key, keyKeys, valueKeys, context));
+      } else {
+        bindings.addBinding(key, bindingFactory.getMultibinderBinding(key, entryKeys, context));
+      }
+    }
+
+    for (GuiceElementVisitor childVisitor : childVisitors) {
+      childVisitor.addMultibindings(bound);
+    }
+  }
+
+  /**
+   * Exposes the key of the given entry from the ginjector binding it up to
+   * this ginjector.
+   */
+  private void exposeEntry(MultibindingEntry entry, Context context) {
+    GinjectorBindings child = entry.ginjector;
+    while (child != bindings) {
+      GinjectorBindings parent = child.getParent();
+      parent.addBinding(entry.key,
+          bindingFactory.getExposedChildBinding(entry.key, child, context));
+      child = parent;
+    }
+  }
+
+  /**
+   * Returns {@code true} if the given binding is the binding of the set or map
+   * of a multibinding, to the key marking it.
+   */
+  private boolean isMultibinding(com.google.inject.Binding<?> binding) {
+    if (!(binding instanceof LinkedKeyBinding)) {
+      return false;
+    }
+
+    Annotation annotation = ((LinkedKeyBinding<?>) binding).getLinkedKey().getAnnotation();
+    return annotation instanceof MultibindingElement
+        && ((MultibindingElement) annotation).role() == MultibindingElement.Role.COLLECTION;
+  }
+
+  private void addMultibindingEntry(Key<?> multibinding, MultibindingEntry entry) {
+    List<MultibindingEntry> entries = multibindingEntries.get(multibinding);
+    if (entries == null) {
+      entries = new ArrayList<MultibindingEntry>();
+      multibindingEntries.put(multibinding, entries);
+    }
+    entries.add(entry);
+  }
+
   public <T> Void visit(com.google.inject.Binding<T> command) {
+    // Multibindings are pinned where they are bound, by addMultibindings().
+    if (isMultibinding(command)) {
+      multibindings.put(command.getKey(), command);
+      return null;
+    }
+
     GuiceBindingVisitor<T> bindingVisitor = bindingVisitorFactory.create(
         command.getKey(), messages, bindings);
     PrettyPrinter.log(logger, TreeLogger.DEBUG, "Adding pin for %s in %s because %s",
@@ -101,6 +241,13 @@ public class GuiceElementVisitor extends DefaultElementVisitor<Void> {
     // since it indicates that the user explicitly asked for it to be placed
     // there.
     bindings.addPin(command.getKey());
+
+    Annotation annotation = command.getKey().getAnnotation();
+    if (annotation instanceof RealMultibindingElement) {
+      addMultibindingEntry(((RealMultibindingElement) annotation).getMultibindingKey(),
+          new MultibindingEntry(command.getKey(), bindings));
+    }
+
     command.acceptTargetVisitor(bindingVisitor);
     command.acceptScopingVisitor(bindingVisitor);
     return null;
@@ -142,6 +289,15 @@ public class GuiceElementVisitor extends DefaultElementVisitor<Void> {
     GuiceElementVisitor childVisitor = guiceElementVisitorFactory.create(childCollection);
     childVisitor.visitElements(privateElements.getElements());
     messages.addAll(childVisitor.getMessages());
+    childVisitors.add(childVisitor);
+
+    // Entries bound in the child may belong to multibindings bound here.
+    for (Map.Entry<Key<?>, List<MultibindingEntry>> entries
+        : childVisitor.multibindingEntries.entrySet()) {
+      for (MultibindingEntry entry : entries.getValue()) {
+        addMultibindingEntry(entries.getKey(), entry);
+      }
+    }
     
     // Add information about the exposed elements in child to the current binding collection
     for (Key<?> key : privateElements.getExposedKeys()) {
@@ -177,4 +333,18 @@ public class GuiceElementVisitor extends DefaultElementVisitor<Void> {
   public List<Message> getMessages() {
     return messages;
   }
+
+  /**
+   * The key bound for an entry of a multibinding, with the ginjector binding
+   * it.
+   */
+  private static class MultibindingEntry {
+    private final Key<?> key;
+    private final GinjectorBindings ginjector;
+
+    MultibindingEntry(Key<?> key, GinjectorBindings ginjector) {
+      this.key = key;
+      this.ginjector = ginjector;
+    }
+  }
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind;
+
+import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.typeinfo.TypeOracle;
+import com.google.gwt.inject.client.GinModule;
+import com.google.gwt.inject.client.assistedinject.FactoryModule;
+import com.google.gwt.inject.rebind.util.CompileScoped;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.spi.Element;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Elements recorded from the modules of the ginjectors of a single compile.
+ *
+ * <p>Recording the elements of a ginjector's modules runs their
+ * {@code configure()} methods, which can be expensive. If the
+ * {@value #CACHE_ELEMENTS_PROPERTY} configuration property is set to
+ * {@code true}, the elements recorded for a list of module classes are reused
+ * by every later generator run of the compile with the same module classes,
+ * e.g. other ginjectors using the same modules. This requires the modules to be
+ * pure configuration, i.e. to record the same elements every time they are
+ * configured.
+ *
+ * <p>Recordings are keyed by the ginjector's whole list of module classes,
+ * not by each module class, because the elements of a list of modules aren't
+ * the concatenation of the elements of each module. Guice installs a module
+ * only once per recording, skipping modules equal to one already installed:
+ * e.g. a {@link com.google.gwt.inject.client.multibindings.Multibinder} for a
+ * set that several modules contribute to binds the set only once, and a
+ * private module installed by several modules creates a single child. Guice
+ * doesn't tell which elements an installed module contributed, so recordings
+ * of single modules couldn't be combined without binding such keys twice.
+ * Ginjectors sharing a base interface, or a compile's entry points using the
+ * same ginjector, have the same module list and so still share a recording.
+ *
+ * <p>Besides the elements, recording creates the child
+ * {@link GinjectorBindings} of private modules and registers factory modules.
+ * That structure is kept along with the elements and replayed into the
+ * bindings of the reusing run.
+ *
+ * <p>Recordings are scoped to the {@link TypeOracle} of the compile, like the
+ * shared {@link GinBridgeClassLoader}, and to the class objects of the modules. If
+ * any class changes, the shared {@link GinBridgeClassLoader} is replaced and
+ * the modules' classes with it, so stale recordings are never reused.
+ */
+@Singleton
+public class ModuleElementCache {
+
+  /**
+   * Configuration property enabling the reuse of recorded module elements.
+   */
+  public static final String CACHE_ELEMENTS_PROPERTY = "gin.modules.cacheElements";
+
+  /**
+   * Recordings of the current compile, released when a generator runs for
+   * another compile.  Recorded elements reference the modules' classes, which
+   * reference the compile's {@link TypeOracle} through their class loader, so
+   * they can't be weakly keyed by the type oracle (see {@link CompileScoped}).
+   */
+  private static final CompileScoped<Map<List<Class<?>>, Recording>> recordings =
+      new CompileScoped<Map<List<Class<?>>, Recording>>();
+
+  /**
+   * The elements recorded for a list of modules, along with the structure
+   * recording created in the root bindings.
+   */
+  private static class Recording {
+    private final List<Element> elements;
+    private final Node root;
+
+    Recording(List<Element> elements, Node root) {
+      this.elements = elements;
+      this.root = root;
+    }
+  }
+
+  /**
+   * The factory modules and private module children recorded for a node of
+   * the ginjector hierarchy.
+   */
+  private static class Node {
+    private final Class<?> module;
+    private final List<FactoryModule<?>> factoryModules = new ArrayList<FactoryModule<?>>();
+    private final List<Node> children = new ArrayList<Node>();
+
+    Node(GinjectorBindings bindings) {
+      module = bindings.getModule();
+      for (FactoryModule<?> factoryModule : bindings.getFactoryModules()) {
+        factoryModules.add(factoryModule);
+      }
+      for (GinjectorBindings child : bindings.getChildren()) {
+        children.add(new Node(child));
+      }
+    }
+
+    void replay(GinjectorBindings bindings) {
+      for (FactoryModule<?> factoryModule : factoryModules) {
+        bindings.addFactoryModule(factoryModule);
+      }
+      for (Node child : children) {
+        child.replay(bindings.createChildGinjectorBindings(child.module));
+      }
+    }
+  }
+
+  private final TypeOracle typeOracle;
+  private final boolean enabled;
+
+  @Inject
+  public ModuleElementCache(GeneratorContext context, ConfigurationProperties properties) {
+    this(context.getTypeOracle(), properties.isEnabled(CACHE_ELEMENTS_PROPERTY));
+  }
+
+  // Visible for testing.
+  ModuleElementCache(TypeOracle typeOracle, boolean enabled) {
+    this.typeOracle = typeOracle;
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the elements recorded for the given module classes earlier in the
+   * compile, or {@code null} if there are none. If elements are returned, the
+   * factory modules and children created by the recording are added to the
+   * passed root bindings, which must not have any yet.
+   */
+  public List<Element> get(List<Class<? extends GinModule>> moduleClasses,
+      GinjectorBindings rootBindings) {
+    if (!enabled) {
+      return null;
+    }
+
+    Recording recording;
+    synchronized (recordings) {
+      Map<List<Class<?>>, Recording> compileRecordings = recordings.get(typeOracle);
+      recording = compileRecordings == null
+          ? null : compileRecordings.get(new ArrayList<Class<?>>(moduleClasses));
+    }
+
+    if (recording == null) {
+      return null;
+    }
+
+    recording.root.replay(rootBindings);
+    return recording.elements;
+  }
+
+  /**
+   * Records the elements of the given module classes, along with the factory
+   * modules and children their recording created in the passed root bindings.
+   */
+  public void put(List<Class<? extends GinModule>> moduleClasses, List<Element> elements,
+      GinjectorBindings rootBindings) {
+    if (!enabled) {
+      return;
+    }
+
+    Recording recording = new Recording(
+        Collections.unmodifiableList(new ArrayList<Element>(elements)), new Node(rootBindings));
+    synchronized (recordings) {
+      Map<List<Class<?>>, Recording> compileRecordings = recordings.get(typeOracle);
+      if (compileRecordings == null) {
+        compileRecordings = new HashMap<List<Class<?>>, Recording>();
+        recordings.set(typeOracle, compileRecordings);
+      }
+      compileRecordings.put(new ArrayList<Class<?>>(moduleClasses), recording);
+    }
+  }
+}
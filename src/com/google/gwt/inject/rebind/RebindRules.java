@@ -0,0 +1,56 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind;
+
+import com.google.gwt.core.ext.GeneratorContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Access to the rebind rules of the compile a ginjector generator run belongs
+ * to.
+ *
+ * <p>Every check is recorded, since the generator's output depends on its
+ * result (see {@link GeneratorInputs}). All rebind rules must therefore be
+ * checked through this class.
+ */
+public class RebindRules {
+
+  private final GeneratorContext context;
+  private final Map<String, Boolean> checkedRules = new LinkedHashMap<String, Boolean>();
+
+  public RebindRules(GeneratorContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Returns whether a rebind rule is available for the type with the given
+   * source name, see {@link GeneratorContext#checkRebindRuleAvailable}.
+   */
+  public synchronized boolean isAvailable(String sourceName) {
+    boolean available = context.checkRebindRuleAvailable(sourceName);
+    checkedRules.put(sourceName, available);
+    return available;
+  }
+
+  /**
+   * Returns the results of all checks made so far, by source name.
+   */
+  public synchronized Map<String, Boolean> getCheckedRules() {
+    return new LinkedHashMap<String, Boolean>(checkedRules);
+  }
+}
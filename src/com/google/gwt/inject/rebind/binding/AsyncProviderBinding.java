@@ -17,6 +17,7 @@
 package com.google.gwt.inject.rebind.binding;
 
 import com.google.gwt.dev.util.Preconditions;
+import com.google.gwt.inject.client.AsyncSplitPoint;
 import com.google.gwt.inject.rebind.reflect.NoSourceNameException;
 import com.google.gwt.inject.rebind.reflect.ReflectUtil;
 import com.google.gwt.inject.rebind.util.InjectorMethod;
@@ -34,30 +35,76 @@ import java.util.Collections;
 import java.util.List;
 
 /**
- * Binding implementation for {@code AsyncProvider<T>} that generates
- * the following code for the provider:
+ * Binding implementation for {@code AsyncProvider<T>} and
+ * {@code LoadableAsyncProvider<T>} that generates the following code for the
+ * provider:
  * 
  * <pre style=code>
- *   return new %provider_name% () {
+ *   return new LoadableAsyncProvider<%object_to_create%> () {
+ *      private Provider<%object_to_create%> loadedProvider = null;
+ *      private List<AsyncCallback<%object_to_create%>> pendingCallbacks = null;
+ *      public boolean isLoaded() {
+ *        return loadedProvider != null || %split_point_class%.isLoaded();
+ *      }
  *      public void get(final AsyncCallback<%object_to_create%> callback) {
- *        GWT.runAsync(new RunAsyncCallback() {
+ *        if (loadedProvider != null) {
+ *          deliver(callback);
+ *          return;
+ *        }
+ *        if (pendingCallbacks != null) {
+ *          pendingCallbacks.add(callback);
+ *          return;
+ *        }
+ *        pendingCallbacks = new ArrayList<AsyncCallback<%object_to_create%>>();
+ *        pendingCallbacks.add(callback);
+ *        GWT.runAsync(%object_to_create%.class, new RunAsyncCallback() {
  *          public void onSuccess() {
- *            callback.onSuccess(%provider_of_object_to_create%.get());
+ *            loadedProvider = %provider_of_object_to_create%;
+ *            %split_point_class%.setLoaded();
+ *            // Call deliver(callback) on each pending callback.
  *          }
  *          public void onFailure(Throwable ex) {
- *            callback.onFailure(ex);
+ *            // Call onFailure(ex) on each pending callback.
  *          }
  *        }
  *      }
+ *      private void deliver(AsyncCallback<%object_to_create%> callback) {
+ *        // Call callback.onSuccess(loadedProvider.get()), or
+ *        // callback.onFailure(ex) if the creation throws ex.
+ *      }
  *   }
  * 
  * </pre>
+ *
+ * Concurrent requests thus share a single {@code GWT.runAsync} call, and
+ * requests made after the code was loaded are answered synchronously.
+ * Instances are still created separately for each request, as the scope of
+ * the target key dictates.  Whether the split point was loaded is recorded by
+ * a class written by the ginjector outputter for each split point (see
+ * {@link NameGenerator#getSplitPointClassName}), so that providers created
+ * after the load, in any ginjector, know it too.
+ *
+ * <p>If the target type is annotated with {@link AsyncSplitPoint}, the
+ * {@code GWT.runAsync} call is made by that class instead:
+ *
+ * <pre style=code>
+ *   %split_point_class%.prefetch(); // If requested.
+ *   return new LoadableAsyncProvider<%object_to_create%> () {
+ *      ...
+ *        %split_point_class%.runAsync(new RunAsyncCallback() {
+ *          ...
+ *        }
+ *      ...
+ *   }
+ * </pre>
  */
 public class AsyncProviderBinding extends AbstractBinding implements Binding {
 
   private ParameterizedType providerType;
   private final Key<?> providerKey;
   private final Key<?> targetKey;
+  private final AsyncSplitPoint splitPoint;
+  private final Class<?> splitPointName;
 
   private AsyncProviderBinding(Key<?> providerKey, Key<?> targetKey) {
     super(Context.format("Implicit injection of %s", providerKey), targetKey);
@@ -65,6 +112,9 @@ public class AsyncProviderBinding extends AbstractBinding implements Binding {
     this.providerKey = Preconditions.checkNotNull(providerKey);
     providerType = (ParameterizedType) providerKey.getTypeLiteral().getType();
     this.targetKey = targetKey;
+    this.splitPoint = targetKey.getTypeLiteral().getRawType().getAnnotation(AsyncSplitPoint.class);
+    this.splitPointName =
+        splitPoint == null ? targetKey.getTypeLiteral().getRawType() : splitPoint.value();
   }
 
   AsyncProviderBinding(Key<?> providerKey) {
@@ -76,29 +126,114 @@ public class AsyncProviderBinding extends AbstractBinding implements Binding {
     String providerTypeName = ReflectUtil.getSourceName(providerType);
     String targetKeyName = ReflectUtil.getSourceName(targetKey.getTypeLiteral());
 
-    return new SourceSnippetBuilder()
+    SourceSnippetBuilder builder = new SourceSnippetBuilder();
+    String splitPointClassName = nameGenerator.getSplitPointCanonicalClassName(splitPointName);
+    String runAsync;
+    if (splitPoint == null) {
+      runAsync = "com.google.gwt.core.client.GWT.runAsync("
+          + targetKey.getTypeLiteral().getRawType().getCanonicalName() + ".class,";
+    } else {
+      if (splitPoint.prefetch()) {
+        builder.append(splitPointClassName).append(".prefetch();\n");
+      }
+      runAsync = splitPointClassName + ".runAsync(";
+    }
+
+    String callbackTypeName =
+        "com.google.gwt.user.client.rpc.AsyncCallback<? super " + targetKeyName + ">";
+    String callbackListTypeName = "java.util.List<" + callbackTypeName + ">";
+    String loadedProviderTypeName = "com.google.inject.Provider<" + targetKeyName + ">";
+
+    return builder
         .append(providerTypeName).append(" result = new ")
-        .append(providerTypeName).append("() { \n")
-        .append("    public void get(")
-        .append("final com.google.gwt.user.client.rpc.AsyncCallback<? super ")
-        .append(targetKeyName).append("> callback) { \n")
-        .append("      com.google.gwt.core.client.GWT.runAsync(")
-        .append(targetKey.getTypeLiteral().getRawType().getCanonicalName())
-        .append(".class,")
+        .append("com.google.gwt.inject.client.LoadableAsyncProvider<")
+        .append(targetKeyName).append(">() { \n")
+        .append("    private ").append(loadedProviderTypeName)
+        .append(" loadedProvider = null;\n")
+        .append("    private ").append(callbackListTypeName)
+        .append(" pendingCallbacks = null;\n")
+        .append("    public boolean isLoaded() { \n")
+        .append("      return loadedProvider != null || ").append(splitPointClassName)
+        .append(".isLoaded();\n")
+        .append("    }\n")
+        .append("    public void get(final ").append(callbackTypeName).append(" callback) { \n")
+        .append("      if (loadedProvider != null) { \n")
+        .append("        deliver(callback);\n")
+        .append("        return;\n")
+        .append("      }\n")
+        .append("      if (pendingCallbacks != null) { \n")
+        .append("        pendingCallbacks.add(callback);\n")
+        .append("        return;\n")
+        .append("      }\n")
+        .append("      pendingCallbacks = new java.util.ArrayList<").append(callbackTypeName)
+        .append(">();\n")
+        .append("      pendingCallbacks.add(callback);\n")
+        .append("      ").append(runAsync)
         .append("new com.google.gwt.core.client.RunAsyncCallback() { \n")
         .append("        public void onSuccess() { \n")
-        .append("          callback.onSuccess(")
-        .append(SourceSnippets.callGetter(targetKey)).append(");\n")
+        // Only created once the split point is loaded, so that the code
+        // creating the target isn't reachable from the initial fragment.
+        .append("          loadedProvider = new ").append(loadedProviderTypeName)
+        .append("() { \n")
+        .append("            public ").append(targetKeyName).append(" get() { \n")
+        .append("              return ").append(SourceSnippets.callGetter(targetKey))
+        .append(";\n")
+        .append("            }\n")
+        .append("          };\n")
+        .append("          ").append(splitPointClassName).append(".setLoaded();\n")
+        .append("          ").append(callbackListTypeName)
+        .append(" callbacks = pendingCallbacks;\n")
+        .append("          pendingCallbacks = null;\n")
+        .append("          for (").append(callbackTypeName)
+        .append(" pendingCallback : callbacks) { \n")
+        .append("            deliver(pendingCallback);\n")
+        .append("          }\n")
         .append("        }\n")
-        .append("        public void onFailure(Throwable ex) { \n ")
-        .append("          callback.onFailure(ex); \n" )
+        .append("        public void onFailure(Throwable ex) { \n")
+        .append("          ").append(callbackListTypeName)
+        .append(" callbacks = pendingCallbacks;\n")
+        .append("          pendingCallbacks = null;\n")
+        .append("          for (").append(callbackTypeName)
+        .append(" pendingCallback : callbacks) { \n")
+        .append("            pendingCallback.onFailure(ex);\n")
+        .append("          }\n")
         .append("        } \n")
         .append("    }); \n")
         .append("    }\n")
+        // A failing creation is reported to its callback alone, so that the
+        // other pending callbacks are still answered.
+        .append("    private void deliver(").append(callbackTypeName).append(" callback) { \n")
+        .append("      ").append(targetKeyName).append(" instance;\n")
+        .append("      try { \n")
+        .append("        instance = loadedProvider.get();\n")
+        .append("      } catch (RuntimeException ex) { \n")
+        .append("        callback.onFailure(ex);\n")
+        .append("        return;\n")
+        .append("      }\n")
+        .append("      callback.onSuccess(instance);\n")
+        .append("    }\n")
         .append(" };\n")
         .build();
   }
 
+  /**
+   * Returns the name of the split point loading the target of this provider:
+   * the name shared with other types through {@link AsyncSplitPoint}, or the
+   * target's own class.
+   */
+  public Class<?> getSplitPoint() {
+    return splitPointName;
+  }
+
+  /**
+   * Returns {@code true} if the target of this provider is loaded with a split
+   * point shared through {@link AsyncSplitPoint}, whose {@code GWT.runAsync}
+   * call is made by the split point's class.
+   */
+  public boolean isSplitPointShared() {
+    return splitPoint != null;
+  }
+
   public Collection<Dependency> getDependencies() {    
     return Collections.singleton(new Dependency(providerKey, targetKey, false, true, getContext()));
   }
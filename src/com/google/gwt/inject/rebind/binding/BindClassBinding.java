@@ -63,6 +63,13 @@ public class BindClassBinding extends AbstractBinding implements Binding {
     this.sourceClassKey = Preconditions.checkNotNull(sourceClassKey);
   }
 
+  /**
+   * Returns the key whose getter creates the instances of this binding.
+   */
+  public Key<?> getBoundClassKey() {
+    return boundClassKey;
+  }
+
   public SourceSnippet getCreationStatements(NameGenerator nameGenerator,
       List<InjectorMethod> methodsOutput) throws NoSourceNameException {
 
@@ -26,6 +26,7 @@ import com.google.inject.internal.ProviderMethod;
 import javax.inject.Provider;
 
 import java.lang.reflect.Constructor;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -58,6 +59,12 @@ public interface BindingFactory {
 
   ImplicitProviderBinding getImplicitProviderBinding(Key<?> providerKey);
 
+  MapBinderBinding getMapBinderBinding(Key<?> mapKey, List<Key<?>> keyKeys,
+      List<Key<?>> valueKeys, Context context);
+
+  MultibinderBinding getMultibinderBinding(Key<?> setKey, List<Key<?>> elementKeys,
+      Context context);
+
   ParentBinding getParentBinding(Key<?> key, GinjectorBindings parentBindings, Context context);
 
   ProviderMethodBinding getProviderMethodBinding(ProviderMethod<?> providerMethod, Context context);
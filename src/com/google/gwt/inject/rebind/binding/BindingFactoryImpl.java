@@ -31,6 +31,7 @@ import com.google.inject.internal.ProviderMethod;
 import javax.inject.Provider;
 
 import java.lang.reflect.Constructor;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -101,6 +102,16 @@ public class BindingFactoryImpl implements BindingFactory {
   public ImplicitProviderBinding getImplicitProviderBinding(Key<?> providerKey) {
     return new ImplicitProviderBinding(providerKey);
   }
+
+  public MapBinderBinding getMapBinderBinding(Key<?> mapKey, List<Key<?>> keyKeys,
+      List<Key<?>> valueKeys, Context context) {
+    return new MapBinderBinding(mapKey, keyKeys, valueKeys, context);
+  }
+
+  public MultibinderBinding getMultibinderBinding(Key<?> setKey, List<Key<?>> elementKeys,
+      Context context) {
+    return new MultibinderBinding(setKey, elementKeys, context);
+  }
   
   public ParentBinding getParentBinding(Key<?> key, GinjectorBindings parentBindings,
       Context context) {
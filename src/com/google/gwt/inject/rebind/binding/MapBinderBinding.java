@@ -0,0 +1,85 @@
+/*
+ * Copyright 2010 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.gwt.inject.rebind.binding;
+
+import com.google.gwt.dev.util.Preconditions;
+import com.google.gwt.inject.rebind.reflect.NoSourceNameException;
+import com.google.gwt.inject.rebind.reflect.ReflectUtil;
+import com.google.gwt.inject.rebind.util.InjectorMethod;
+import com.google.gwt.inject.rebind.util.NameGenerator;
+import com.google.gwt.inject.rebind.util.SourceSnippet;
+import com.google.gwt.inject.rebind.util.SourceSnippetBuilder;
+import com.google.inject.Key;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Binding for the map of a
+ * {@link com.google.gwt.inject.client.multibindings.MapBinder}, which creates
+ * the map directly from the getters of its keys and values:
+ *
+ * <pre style=code>
+ *   Map&lt;K, V&gt; result = new ArrayMap&lt;K, V&gt;(
+ *       new Object[] {%key_getter_1%(), %key_getter_2%()},
+ *       new Object[] {%value_getter_1%(), %value_getter_2%()});
+ * </pre>
+ */
+public class MapBinderBinding extends AbstractBinding implements Binding {
+
+  private final Key<?> mapKey;
+  private final List<Key<?>> keyKeys;
+  private final List<Key<?>> valueKeys;
+
+  MapBinderBinding(Key<?> mapKey, List<Key<?>> keyKeys, List<Key<?>> valueKeys,
+      Context context) {
+    super(context, mapKey);
+    Preconditions.checkArgument(keyKeys.size() == valueKeys.size(),
+        "Expected as many keys as values, but got %s and %s", keyKeys, valueKeys);
+
+    this.mapKey = Preconditions.checkNotNull(mapKey);
+    this.keyKeys = new ArrayList<Key<?>>(keyKeys);
+    this.valueKeys = new ArrayList<Key<?>>(valueKeys);
+  }
+
+  public SourceSnippet getCreationStatements(NameGenerator nameGenerator,
+      List<InjectorMethod> methodsOutput) throws NoSourceNameException {
+    Type[] typeArguments =
+        ((ParameterizedType) mapKey.getTypeLiteral().getType()).getActualTypeArguments();
+    String mapTypeName = ReflectUtil.getSourceName(mapKey.getTypeLiteral());
+    String keyTypeName = ReflectUtil.getSourceName(typeArguments[0]);
+    String valueTypeName = ReflectUtil.getSourceName(typeArguments[1]);
+
+    SourceSnippetBuilder builder = new SourceSnippetBuilder()
+        .append(mapTypeName).append(" result = new ")
+        .append("com.google.gwt.inject.client.multibindings.ArrayMap<")
+        .append(keyTypeName).append(", ").append(valueTypeName).append(">(");
+    MultibinderBinding.appendArray(builder, keyKeys);
+    builder.append(", ");
+    MultibinderBinding.appendArray(builder, valueKeys);
+    return builder.append(");").build();
+  }
+
+  public Collection<Dependency> getDependencies() {
+    List<Key<?>> entryKeys = new ArrayList<Key<?>>(keyKeys);
+    entryKeys.addAll(valueKeys);
+    return MultibinderBinding.getDependencies(mapKey, entryKeys, getContext());
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2010 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.gwt.inject.rebind.binding;
+
+import com.google.gwt.dev.util.Preconditions;
+import com.google.gwt.inject.rebind.reflect.NoSourceNameException;
+import com.google.gwt.inject.rebind.reflect.ReflectUtil;
+import com.google.gwt.inject.rebind.util.InjectorMethod;
+import com.google.gwt.inject.rebind.util.NameGenerator;
+import com.google.gwt.inject.rebind.util.SourceSnippet;
+import com.google.gwt.inject.rebind.util.SourceSnippetBuilder;
+import com.google.gwt.inject.rebind.util.SourceSnippets;
+import com.google.inject.Key;
+
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Binding for the set of a
+ * {@link com.google.gwt.inject.client.multibindings.Multibinder}, which
+ * creates the set directly from the getters of its elements:
+ *
+ * <pre style=code>
+ *   Set&lt;T&gt; result = new ArraySet&lt;T&gt;(new Object[] {
+ *       %element_getter_1%(),
+ *       %element_getter_2%()});
+ * </pre>
+ */
+public class MultibinderBinding extends AbstractBinding implements Binding {
+
+  private final Key<?> setKey;
+  private final List<Key<?>> elementKeys;
+
+  MultibinderBinding(Key<?> setKey, List<Key<?>> elementKeys, Context context) {
+    super(context, setKey);
+
+    this.setKey = Preconditions.checkNotNull(setKey);
+    this.elementKeys = new ArrayList<Key<?>>(elementKeys);
+  }
+
+  public SourceSnippet getCreationStatements(NameGenerator nameGenerator,
+      List<InjectorMethod> methodsOutput) throws NoSourceNameException {
+    String setTypeName = ReflectUtil.getSourceName(setKey.getTypeLiteral());
+    String elementTypeName = ReflectUtil.getSourceName(
+        ((ParameterizedType) setKey.getTypeLiteral().getType()).getActualTypeArguments()[0]);
+
+    SourceSnippetBuilder builder = new SourceSnippetBuilder()
+        .append(setTypeName).append(" result = new ")
+        .append("com.google.gwt.inject.client.multibindings.ArraySet<")
+        .append(elementTypeName).append(">(");
+    appendArray(builder, elementKeys);
+    return builder.append(");").build();
+  }
+
+  public Collection<Dependency> getDependencies() {
+    return getDependencies(setKey, elementKeys, getContext());
+  }
+
+  /**
+   * Appends an array containing the values of the given keys.
+   */
+  static void appendArray(SourceSnippetBuilder builder, List<Key<?>> keys) {
+    builder.append("new Object[] {");
+    String separator = "\n    ";
+    for (Key<?> key : keys) {
+      builder.append(separator).append(SourceSnippets.callGetter(key));
+      separator = ",\n    ";
+    }
+    builder.append("}");
+  }
+
+  /**
+   * Returns the dependencies of a multibinding on its entries.
+   */
+  static Collection<Dependency> getDependencies(Key<?> key, List<Key<?>> entryKeys,
+      Context context) {
+    Collection<Dependency> dependencies = new ArrayList<Dependency>();
+    dependencies.add(new Dependency(Dependency.GINJECTOR, key, context));
+    for (Key<?> entryKey : entryKeys) {
+      dependencies.add(new Dependency(key, entryKey, context));
+    }
+    return dependencies;
+  }
+}
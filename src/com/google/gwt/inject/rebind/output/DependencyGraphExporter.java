@@ -0,0 +1,365 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind.output;
+
+import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.core.ext.UnableToCompleteException;
+import com.google.gwt.core.ext.linker.EmittedArtifact.Visibility;
+import com.google.gwt.inject.rebind.ConfigurationProperties;
+import com.google.gwt.inject.rebind.GinjectorBindings;
+import com.google.gwt.inject.rebind.GinjectorNameGenerator;
+import com.google.gwt.inject.rebind.binding.Binding;
+import com.google.gwt.inject.rebind.binding.Dependency;
+import com.google.gwt.inject.rebind.reflect.NoSourceNameException;
+import com.google.gwt.inject.rebind.util.InjectorMethod;
+import com.google.gwt.inject.rebind.util.InjectorWriteContext;
+import com.google.inject.Inject;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports the resolved dependency graph of a ginjector, with the size of the
+ * code generated for each binding, as a JSON artifact.
+ *
+ * <p>If the {@value #GRAPH_EXPORT_PROPERTY} configuration property is set to
+ * {@code true}, one private artifact named
+ * {@code gin/<package>.<ginjector implementation>.graph.json} is written per
+ * generated ginjector, which the GWT compiler places in its extras directory.
+ * It describes every {@link GinjectorBindings} node of the ginjector, with each
+ * binding's type, scope, fragment, reachability and dependencies, and the
+ * number of characters of the getter and helper methods written for it.
+ * Member-inject methods are listed separately, by injected type.
+ *
+ * <p>Sizes are recorded as methods are written, so methods written to several
+ * fragments concurrently (see {@link GinjectorBindingsOutputter}) are counted
+ * as well.
+ */
+class DependencyGraphExporter {
+
+  /**
+   * Configuration property enabling the dependency graph export.
+   */
+  static final String GRAPH_EXPORT_PROPERTY = "gin.output.graphExport";
+
+  private final GeneratorContext ctx;
+  private final TreeLogger logger;
+  private final FragmentPartitioner fragmentPartitioner;
+  private final GinjectorNameGenerator ginjectorNameGenerator;
+  private final ReachabilityAnalyzer reachabilityAnalyzer;
+  private final boolean enabled;
+
+  /**
+   * The sizes recorded for each node.
+   */
+  private final Map<GinjectorBindings, NodeSizes> sizes =
+      new LinkedHashMap<GinjectorBindings, NodeSizes>();
+
+  @Inject
+  DependencyGraphExporter(GeneratorContext ctx, TreeLogger logger,
+      ConfigurationProperties properties, FragmentPartitioner fragmentPartitioner,
+      GinjectorNameGenerator ginjectorNameGenerator, ReachabilityAnalyzer reachabilityAnalyzer) {
+    this.ctx = ctx;
+    this.logger = logger;
+    this.fragmentPartitioner = fragmentPartitioner;
+    this.ginjectorNameGenerator = ginjectorNameGenerator;
+    this.reachabilityAnalyzer = reachabilityAnalyzer;
+    this.enabled = properties.isEnabled(GRAPH_EXPORT_PROPERTY);
+  }
+
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns a method writing the same code as the given getter of the given
+   * key, and recording its size.  Returns the getter itself if the export is
+   * disabled.
+   */
+  InjectorMethod attributeGetter(GinjectorBindings bindings, Key<?> key, InjectorMethod getter) {
+    if (!enabled) {
+      return getter;
+    }
+    return new AttributedMethod(getter, getSizes(bindings).getBindingSizes(key), 0);
+  }
+
+  /**
+   * Returns methods writing the same code as the given helper methods of the
+   * given key, and recording their sizes.  Returns the helpers themselves if
+   * the export is disabled.
+   */
+  List<InjectorMethod> attributeHelpers(GinjectorBindings bindings, Key<?> key,
+      List<InjectorMethod> helpers) {
+    if (!enabled) {
+      return helpers;
+    }
+    return attribute(helpers, getSizes(bindings).getBindingSizes(key), 1);
+  }
+
+  /**
+   * Returns methods writing the same code as the given member-inject method
+   * and helpers of the given type, and recording their sizes.  Returns the
+   * methods themselves if the export is disabled.
+   */
+  List<InjectorMethod> attributeMemberInjection(GinjectorBindings bindings, TypeLiteral<?> type,
+      List<InjectorMethod> methods) {
+    if (!enabled) {
+      return methods;
+    }
+    return attribute(methods, getSizes(bindings).getMemberInjectionSizes(type), 0);
+  }
+
+  private List<InjectorMethod> attribute(List<InjectorMethod> methods, long[] target,
+      int index) {
+    List<InjectorMethod> result = new ArrayList<InjectorMethod>(methods.size());
+    for (InjectorMethod method : methods) {
+      result.add(new AttributedMethod(method, target, index));
+    }
+    return result;
+  }
+
+  /**
+   * Writes the graph artifact of the ginjector with the given root bindings
+   * and implementation class, if the export is enabled.  Must be invoked after
+   * all the ginjector's classes have been written.
+   */
+  void export(String packageName, String implClassName, GinjectorBindings rootBindings)
+      throws UnableToCompleteException {
+    if (!enabled) {
+      return;
+    }
+
+    String path = "gin/" + (packageName.length() == 0 ? "" : packageName + ".")
+        + implClassName + ".graph.json";
+    OutputStream output = ctx.tryCreateResource(logger, path);
+    if (output == null) {
+      // Already exported by an earlier generator run of this compile.
+      return;
+    }
+
+    try {
+      output.write(createGraph(rootBindings).getBytes("UTF-8"));
+    } catch (IOException e) {
+      logger.log(TreeLogger.ERROR, "Failed to write the Gin dependency graph to " + path, e);
+      throw new UnableToCompleteException();
+    }
+    ctx.commitResource(logger, output).setVisibility(Visibility.Private);
+  }
+
+  // Visible for testing.
+  String createGraph(GinjectorBindings rootBindings) {
+    List<GinjectorBindings> nodes = new ArrayList<GinjectorBindings>();
+    collectNodes(rootBindings, nodes);
+
+    StringBuilder graph = new StringBuilder();
+    graph.append("{\"ginjector\":").append(quote(String.valueOf(
+        rootBindings.getGinjectorInterface()))).append(",\"nodes\":[");
+    for (int id = 0; id < nodes.size(); id++) {
+      if (id > 0) {
+        graph.append(',');
+      }
+      appendNode(graph, id, nodes);
+    }
+    return graph.append("]}").toString();
+  }
+
+  private void collectNodes(GinjectorBindings bindings, List<GinjectorBindings> nodes) {
+    nodes.add(bindings);
+    for (GinjectorBindings child : bindings.getChildren()) {
+      collectNodes(child, nodes);
+    }
+  }
+
+  private void appendNode(StringBuilder graph, int id, List<GinjectorBindings> nodes) {
+    GinjectorBindings bindings = nodes.get(id);
+    NodeSizes nodeSizes = getSizes(bindings);
+    Class<?> module = bindings.getModule();
+    int parentId = nodes.indexOf(bindings.getParent());
+
+    graph.append("{\"id\":").append(id)
+        .append(",\"parent\":").append(parentId < 0 ? "null" : String.valueOf(parentId))
+        .append(",\"module\":").append(module == null ? "null" : quote(module.getName()))
+        .append(",\"class\":").append(quote(ginjectorNameGenerator.getClassName(bindings)))
+        .append(",\"bindings\":[");
+
+    boolean firstBinding = true;
+    for (Map.Entry<Key<?>, Binding> entry : bindings.getBindings()) {
+      if (!firstBinding) {
+        graph.append(',');
+      }
+      firstBinding = false;
+
+      Key<?> key = entry.getKey();
+      Binding binding = entry.getValue();
+      long[] bindingSizes = nodeSizes.getBindingSizes(key);
+
+      String reachability;
+      if (!reachabilityAnalyzer.isReachable(binding)) {
+        reachability = "unreachable";
+      } else if (reachabilityAnalyzer.isReachableOnlyAsynchronously(binding)) {
+        reachability = "async";
+      } else {
+        reachability = "reachable";
+      }
+
+      graph.append("{\"key\":").append(quote(key.toString()))
+          .append(",\"binding\":").append(quote(binding.getClass().getSimpleName()))
+          .append(",\"scope\":").append(quote(bindings.determineScope(key).name()))
+          .append(",\"fragment\":")
+          .append(quote(fragmentPartitioner.getGetterFragment(binding).toString()))
+          .append(",\"reachability\":").append(quote(reachability))
+          .append(",\"getterChars\":").append(bindingSizes[0])
+          .append(",\"helperChars\":").append(bindingSizes[1])
+          .append(",\"dependencies\":[");
+
+      boolean firstDependency = true;
+      for (Dependency dependency : binding.getDependencies()) {
+        if (!firstDependency) {
+          graph.append(',');
+        }
+        firstDependency = false;
+
+        graph.append("{\"source\":").append(quote(dependency.getSource().toString()))
+            .append(",\"target\":").append(quote(dependency.getTarget().toString()))
+            .append(",\"optional\":").append(dependency.isOptional())
+            .append(",\"lazy\":").append(dependency.isLazy())
+            .append('}');
+      }
+      graph.append("]}");
+    }
+
+    graph.append("],\"memberInjections\":[");
+    boolean firstType = true;
+    for (Map.Entry<TypeLiteral<?>, long[]> entry : nodeSizes.getMemberInjectionSizes()) {
+      if (!firstType) {
+        graph.append(',');
+      }
+      firstType = false;
+
+      graph.append("{\"type\":").append(quote(entry.getKey().toString()))
+          .append(",\"chars\":").append(entry.getValue()[0])
+          .append('}');
+    }
+    graph.append("]}");
+  }
+
+  private synchronized NodeSizes getSizes(GinjectorBindings bindings) {
+    NodeSizes nodeSizes = sizes.get(bindings);
+    if (nodeSizes == null) {
+      nodeSizes = new NodeSizes();
+      sizes.put(bindings, nodeSizes);
+    }
+    return nodeSizes;
+  }
+
+  private static String quote(String value) {
+    StringBuilder result = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      switch (c) {
+        case '"':
+          result.append("\\\"");
+          break;
+        case '\\':
+          result.append("\\\\");
+          break;
+        default:
+          if (c < 0x20) {
+            result.append(String.format("\\u%04x", (int) c));
+          } else {
+            result.append(c);
+          }
+      }
+    }
+    return result.append('"').toString();
+  }
+
+  /**
+   * The sizes recorded for the bindings and member injections of a node.
+   * Binding sizes hold the characters of the getter and of the helpers.
+   */
+  private static class NodeSizes {
+    private final Map<Key<?>, long[]> bindingSizes = new LinkedHashMap<Key<?>, long[]>();
+    private final Map<TypeLiteral<?>, long[]> memberInjectionSizes =
+        new LinkedHashMap<TypeLiteral<?>, long[]>();
+
+    synchronized long[] getBindingSizes(Key<?> key) {
+      long[] result = bindingSizes.get(key);
+      if (result == null) {
+        result = new long[2];
+        bindingSizes.put(key, result);
+      }
+      return result;
+    }
+
+    synchronized long[] getMemberInjectionSizes(TypeLiteral<?> type) {
+      long[] result = memberInjectionSizes.get(type);
+      if (result == null) {
+        result = new long[1];
+        memberInjectionSizes.put(type, result);
+      }
+      return result;
+    }
+
+    synchronized Iterable<Map.Entry<TypeLiteral<?>, long[]>> getMemberInjectionSizes() {
+      return new ArrayList<Map.Entry<TypeLiteral<?>, long[]>>(memberInjectionSizes.entrySet());
+    }
+  }
+
+  /**
+   * A method that adds the size of its code to a recorded size when its body
+   * is written.
+   */
+  private static class AttributedMethod implements InjectorMethod {
+    private final InjectorMethod method;
+    private final long[] target;
+    private final int index;
+
+    AttributedMethod(InjectorMethod method, long[] target, int index) {
+      this.method = method;
+      this.target = target;
+      this.index = index;
+    }
+
+    public boolean isNative() {
+      return method.isNative();
+    }
+
+    public String getMethodSignature() {
+      return method.getMethodSignature();
+    }
+
+    public String getMethodBody(InjectorWriteContext context) throws NoSourceNameException {
+      String body = method.getMethodBody(context);
+      // Fragments may write concurrently, and several may add to the same
+      // binding's helper size.
+      synchronized (target) {
+        target[index] += method.getMethodSignature().length() + body.length();
+      }
+      return body;
+    }
+
+    public String getPackageName() {
+      return method.getPackageName();
+    }
+  }
+}
@@ -33,10 +33,14 @@ import com.google.inject.assistedinject.Assisted;
  * parts of those packages).  Since it doesn't matter where those methods go, we
  * arbitrarily put them in the fragment corresponding to the ginjector
  * interface.
+ *
+ * <p>A package may have a second fragment holding the bindings that are only
+ * reachable through an {@code AsyncProvider}, see {@link #getAsyncFragment}.
  */
 public class FragmentPackageName {
 
   private final String name;
+  private final boolean async;
 
   private static final String[] prohibitedPackageNames = new String[] {
     "java.lang",
@@ -48,17 +52,49 @@ public class FragmentPackageName {
       @Assisted String requestedName) {
 
     name = sanitizePackageName(ginjectorInterface, requestedName);
+    async = false;
   }
 
-  private static String sanitizePackageName(Class<?> ginjectorInterface, String packageName) {
+  private FragmentPackageName(String name, boolean async) {
+    this.name = name;
+    this.async = async;
+  }
+
+  /**
+   * Returns the name of the fragment in the same package that holds bindings
+   * only reachable through an {@code AsyncProvider}.  That fragment is only
+   * used from {@code GWT.runAsync} callbacks, so that GWT's code splitter can
+   * move it out of the initial download.
+   */
+  public FragmentPackageName getAsyncFragment() {
+    return async ? this : new FragmentPackageName(name, true);
+  }
+
+  /**
+   * Returns whether this is the name of the asynchronous fragment of its
+   * package, see {@link #getAsyncFragment}.
+   */
+  public boolean isAsync() {
+    return async;
+  }
+
+  /**
+   * Returns whether the JVM forbids placing generated code in the given
+   * package.
+   */
+  public static boolean isProhibited(String packageName) {
     for (String prohibitedPackageName : prohibitedPackageNames) {
       if (packageName.equals(prohibitedPackageName)
           || packageName.startsWith(prohibitedPackageName + ".")) {
-        return ginjectorInterface.getPackage().getName();
+        return true;
       }
     }
 
-    return packageName;
+    return false;
+  }
+
+  private static String sanitizePackageName(Class<?> ginjectorInterface, String packageName) {
+    return isProhibited(packageName) ? ginjectorInterface.getPackage().getName() : packageName;
   }
 
   public boolean equals(Object obj) {
@@ -70,13 +106,18 @@ public class FragmentPackageName {
       return false;
     }
 
-    return name.equals(((FragmentPackageName) obj).name);
+    FragmentPackageName other = (FragmentPackageName) obj;
+    return name.equals(other.name) && async == other.async;
   }
 
   public int hashCode() {
-    return name.hashCode();
+    return async ? name.hashCode() * 31 + 1 : name.hashCode();
   }
 
+  /**
+   * Returns the name of the package, which is the same for both fragments of
+   * the package.
+   */
   public String toString() {
     return name;
   }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind.output;
+
+import com.google.gwt.inject.rebind.ConfigurationProperties;
+import com.google.gwt.inject.rebind.binding.Binding;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Decides which fragment of a ginjector the getter of a binding is written to.
+ *
+ * <p>By default, getters are grouped by the package they have to be placed in
+ * (see {@link Binding#getGetterMethodPackage}).  If the
+ * {@value #ASYNC_FRAGMENTS_PROPERTY} configuration property is set to
+ * {@code true}, the getters of bindings that are only reachable through an
+ * {@code AsyncProvider} are instead written to the asynchronous fragment of
+ * their package (see {@link FragmentPackageName#getAsyncFragment}), along with
+ * their helper methods.  The initial fragments then never reference those
+ * getters, except from within {@code GWT.runAsync} callbacks.
+ */
+@Singleton
+class FragmentPartitioner {
+
+  /**
+   * Configuration property enabling asynchronous fragments.
+   */
+  static final String ASYNC_FRAGMENTS_PROPERTY = "gin.output.asyncFragments";
+
+  private final FragmentPackageName.Factory fragmentPackageNameFactory;
+  private final ReachabilityAnalyzer reachabilityAnalyzer;
+  private final boolean asyncFragments;
+
+  @Inject
+  FragmentPartitioner(ConfigurationProperties properties,
+      FragmentPackageName.Factory fragmentPackageNameFactory,
+      ReachabilityAnalyzer reachabilityAnalyzer) {
+    this.fragmentPackageNameFactory = fragmentPackageNameFactory;
+    this.reachabilityAnalyzer = reachabilityAnalyzer;
+    this.asyncFragments = properties.isEnabled(ASYNC_FRAGMENTS_PROPERTY);
+  }
+
+  /**
+   * Returns the fragment containing the getter for the given binding.
+   */
+  FragmentPackageName getGetterFragment(Binding binding) {
+    FragmentPackageName fragmentPackageName =
+        fragmentPackageNameFactory.create(binding.getGetterMethodPackage());
+    if (asyncFragments && reachabilityAnalyzer.isReachableOnlyAsynchronously(binding)) {
+      return fragmentPackageName.getAsyncFragment();
+    }
+    return fragmentPackageName;
+  }
+}
@@ -18,9 +18,15 @@ package com.google.gwt.inject.rebind.output;
 import com.google.gwt.core.ext.GeneratorContext;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.UnableToCompleteException;
+import com.google.gwt.inject.rebind.ConfigurationProperties;
 import com.google.gwt.inject.rebind.ErrorManager;
+import com.google.gwt.inject.rebind.GeneratorProfiler;
+import com.google.gwt.inject.rebind.GeneratorProfiler.Counter;
+import com.google.gwt.inject.rebind.GeneratorProfiler.Phase;
+import com.google.gwt.inject.rebind.GinScope;
 import com.google.gwt.inject.rebind.GinjectorBindings;
 import com.google.gwt.inject.rebind.GinjectorNameGenerator;
+import com.google.gwt.inject.rebind.binding.AsyncProviderBinding;
 import com.google.gwt.inject.rebind.binding.Binding;
 import com.google.gwt.inject.rebind.binding.GinjectorBinding;
 import com.google.gwt.inject.rebind.reflect.FieldLiteral;
@@ -34,6 +40,7 @@ import com.google.gwt.inject.rebind.util.SourceSnippet;
 import com.google.gwt.inject.rebind.util.SourceSnippetBuilder;
 import com.google.gwt.inject.rebind.util.SourceSnippets;
 import com.google.gwt.inject.rebind.util.SourceWriteUtil;
+import com.google.gwt.inject.rebind.util.TaskPool;
 import com.google.gwt.user.rebind.ClassSourceFileComposerFactory;
 import com.google.gwt.user.rebind.SourceWriter;
 import com.google.inject.Inject;
@@ -49,8 +56,11 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * Outputs the generated classes for one or more {@link GinjectorBindings}.
@@ -58,36 +68,75 @@ import java.util.Map;
 @Singleton
 class GinjectorBindingsOutputter {
 
+  /**
+   * Configuration property enabling parallel output: if set to {@code true},
+   * the creation statements of a ginjector's getters are created concurrently,
+   * and the method bodies of its fragments are written concurrently, both on
+   * the {@link TaskPool}.  The output is the same as without this property.
+   */
+  static final String PARALLEL_OUTPUT_PROPERTY = "gin.output.parallel";
+
+  /**
+   * Configuration property enabling inlining-friendly output: if set to
+   * {@code true}, chains of unscoped linked bindings are collapsed into direct
+   * calls to the getter at their end (see {@link GinjectorFragmentContext}),
+   * and the initial fragments of a ginjector are created along with it and
+   * stored in final fields, rather than lazily.
+   */
+  static final String INLINE_OUTPUT_PROPERTY = "gin.output.inline";
+
   private final GeneratorContext ctx;
+  private final DependencyGraphExporter graphExporter;
   private final ErrorManager errorManager;
   private final GinjectorFragmentOutputter.Factory fragmentOutputterFactory;
   private final FragmentPackageName.Factory fragmentPackageNameFactory;
+  private final FragmentPartitioner fragmentPartitioner;
   private final GinjectorNameGenerator ginjectorNameGenerator;
   private final TreeLogger logger;
   private final MethodCallUtil methodCallUtil;
+  private final GeneratorProfiler profiler;
   private final ReachabilityAnalyzer reachabilityAnalyzer;
+  private final SingletonSlots singletonSlots;
   private final SourceWriteUtil.Factory sourceWriteUtilFactory;
+  private final boolean parallelOutput;
+  private final boolean inlineOutput;
+
+  /**
+   * Whether any split point class was needed, see {@link #usesSplitPoints}.
+   */
+  private boolean splitPointsUsed = false;
 
   @Inject
   GinjectorBindingsOutputter(GeneratorContext ctx,
+      ConfigurationProperties properties,
+      DependencyGraphExporter graphExporter,
       ErrorManager errorManager,
       GinjectorFragmentOutputter.Factory fragmentOutputterFactory,
       FragmentPackageName.Factory fragmentPackageNameFactory,
+      FragmentPartitioner fragmentPartitioner,
       GinjectorNameGenerator ginjectorNameGenerator,
       TreeLogger logger,
       MethodCallUtil methodCallUtil,
+      GeneratorProfiler profiler,
       ReachabilityAnalyzer reachabilityAnalyzer,
+      SingletonSlots singletonSlots,
       SourceWriteUtil.Factory sourceWriteUtilFactory) {
 
     this.ctx = ctx;
+    this.graphExporter = graphExporter;
     this.errorManager = errorManager;
     this.fragmentOutputterFactory = fragmentOutputterFactory;
     this.fragmentPackageNameFactory = fragmentPackageNameFactory;
+    this.fragmentPartitioner = fragmentPartitioner;
     this.ginjectorNameGenerator = ginjectorNameGenerator;
     this.logger = logger;
     this.methodCallUtil = methodCallUtil;
+    this.profiler = profiler;
     this.reachabilityAnalyzer = reachabilityAnalyzer;
+    this.singletonSlots = singletonSlots;
     this.sourceWriteUtilFactory = sourceWriteUtilFactory;
+    this.parallelOutput = properties.isEnabled(PARALLEL_OUTPUT_PROPERTY);
+    this.inlineOutput = properties.isEnabled(INLINE_OUTPUT_PROPERTY);
   }
 
   /**
@@ -95,7 +144,15 @@ class GinjectorBindingsOutputter {
    * package-specific fragments.
    */
   void write(GinjectorBindings bindings) throws UnableToCompleteException {
+    GeneratorProfiler.Timer timer = profiler.start(Phase.OUTPUT, bindings);
+    try {
+      doWrite(bindings);
+    } finally {
+      timer.stop();
+    }
+  }
 
+  private void doWrite(GinjectorBindings bindings) throws UnableToCompleteException {
     TypeLiteral<?> ginjectorInterface = bindings.getGinjectorInterface();
     String implClassName = ginjectorNameGenerator.getClassName(bindings);
     if (implClassName.contains(".")) {
@@ -117,13 +174,47 @@ class GinjectorBindingsOutputter {
     FragmentMap fragments = new FragmentMap(bindings, packageName, implClassName,
         fragmentOutputterFactory);
 
+    if (parallelOutput) {
+      // Fragments only write their method bodies once all methods are known,
+      // all fragments at the same time.
+      reserveGetterNames(bindings);
+      fragments.deferOutput();
+    }
+
     outputBindings(bindings, fragments, writer);
+
+    if (parallelOutput) {
+      fragments.writeDeferredOutputInParallel();
+    }
     errorManager.checkForError();
 
     fragments.commitAll();
+    profiler.add(Counter.FRAGMENTS_WRITTEN, bindings, fragments.size());
     writer.commit(logger);
   }
 
+  /**
+   * Creates the names of the getters and member inject methods of the given
+   * bindings and all their parents, before any fragment code is written.
+   *
+   * <p>Fragments writing their code concurrently only look up existing names.
+   * Since creating a name can affect the names created later (see
+   * {@link NameGenerator#createMethodName}), this keeps the output independent
+   * of the order in which fragments are written.
+   */
+  private void reserveGetterNames(GinjectorBindings bindings) {
+    for (GinjectorBindings current = bindings; current != null; current = current.getParent()) {
+      NameGenerator nameGenerator = current.getNameGenerator();
+      for (Map.Entry<Key<?>, Binding> entry : current.getBindings()) {
+        nameGenerator.getGetterMethodName(entry.getKey());
+      }
+
+      for (TypeLiteral<?> type : current.getMemberInjectRequests()) {
+        nameGenerator.getMemberInjectMethodName(type);
+      }
+    }
+  }
+
   /**
    * Outputs the top-level injector for the given {@link GinjectorBindings},
    * along with all of its fragments.
@@ -147,6 +238,9 @@ class GinjectorBindingsOutputter {
     // Collects the text of the body of initializeEagerSingletons().
     StringBuilder initializeEagerSingletonsBody = new StringBuilder();
 
+    // Collects the text of the body of scheduleDeferredEagerSingletons().
+    StringBuilder scheduleDeferredEagerSingletonsBody = new StringBuilder();
+
     // Collects the text of the body of initializeStaticInjections().
     StringBuilder initializeStaticInjectionsBody = new StringBuilder();
 
@@ -176,11 +270,12 @@ class GinjectorBindingsOutputter {
             + "return %2$s;", canonicalClassName, fieldName));
 
       // Ensure that the initializer initializes this child, if necessary.
-      outputSubInitialize(child, getterName,
-          initializeEagerSingletonsBody, initializeStaticInjectionsBody);
+      outputSubInitialize(child, getterName, initializeEagerSingletonsBody,
+          scheduleDeferredEagerSingletonsBody, initializeStaticInjectionsBody);
     }
 
     initializeEagerSingletonsBody.append("\n");
+    scheduleDeferredEagerSingletonsBody.append("\n");
     initializeStaticInjectionsBody.append("\n");
 
     outputInterfaceField(bindings, sourceWriteUtil, writer);
@@ -189,29 +284,201 @@ class GinjectorBindingsOutputter {
     outputStaticInjections(bindings, fragments, sourceWriteUtil);
 
     // Output the bindings in the fragments.
+    List<Map.Entry<Key<?>, Binding>> reachableBindings =
+        new ArrayList<Map.Entry<Key<?>, Binding>>();
     for (Map.Entry<Key<?>, Binding> entry : bindings.getBindings()) {
-      Binding binding = entry.getValue();
-      if (!reachabilityAnalyzer.isReachable(binding)) {
-        continue;
+      if (reachabilityAnalyzer.isReachable(entry.getValue())) {
+        reachableBindings.add(entry);
       }
+    }
 
-      FragmentPackageName fragmentPackageName =
-          fragmentPackageNameFactory.create(binding.getGetterMethodPackage());
-      Key<?> key = entry.getKey();
+    List<PreparedGetter> preparedGetters = parallelOutput
+        ? prepareGetters(reachableBindings, nameGenerator)
+        : Collections.<PreparedGetter>nCopies(reachableBindings.size(), null);
+
+    for (int i = 0; i < reachableBindings.size(); i++) {
+      Binding binding = reachableBindings.get(i).getValue();
+      FragmentPackageName fragmentPackageName = fragmentPartitioner.getGetterFragment(binding);
+      Key<?> key = reachableBindings.get(i).getKey();
+      GinjectorFragmentOutputter fragment = fragments.get(fragmentPackageName);
+      GinScope scope = bindings.determineScope(key);
+
+      List<InjectorMethod> helperMethods;
+      PreparedGetter preparedGetter = preparedGetters.get(i);
+      if (preparedGetter != null && nameGenerator.merge(preparedGetter.nameGenerator)) {
+        helperMethods = preparedGetter.helperMethods;
+        if (preparedGetter.error != null) {
+          fragment.reportGetterError(key, binding, preparedGetter.error);
+        } else {
+          fragment.writeBindingGetter(key, binding, scope, preparedGetter.creationStatements);
+        }
+      } else {
+        helperMethods = new ArrayList<InjectorMethod>();
+        fragment.writeBindingGetter(key, binding, scope, helperMethods);
+      }
+      outputMethods(graphExporter.attributeHelpers(bindings, key, helperMethods), fragments,
+          fragmentPackageName.isAsync());
 
-      List<InjectorMethod> helperMethods = new ArrayList();
-      fragments.get(fragmentPackageName)
-          .writeBindingGetter(key, binding, bindings.determineScope(key), helperMethods);
-      outputMethods(helperMethods, fragments);
+      if (binding instanceof AsyncProviderBinding) {
+        outputSplitPoint((AsyncProviderBinding) binding, nameGenerator);
+      }
+    }
+
+    // The root injector is written last, when all slots are assigned.
+    if (singletonSlots.isUsed(bindings)) {
+      writer.beginJavaDocComment();
+      writer.print("Slots for the singletons of all injectors of the ginjector");
+      writer.endJavaDocComment();
+      if (bindings.getParent() == null) {
+        writer.println("public final Object[] %s = new Object[%d];",
+            nameGenerator.getSingletonSlotsFieldName(), singletonSlots.getCount());
+      } else {
+        writer.println("public final Object[] %s;", nameGenerator.getSingletonSlotsFieldName());
+      }
     }
 
     // Output the fragment members.
     outputFragments(bindings, fragments, initializeEagerSingletonsBody,
-        initializeStaticInjectionsBody, sourceWriteUtil, writer);
+        scheduleDeferredEagerSingletonsBody, initializeStaticInjectionsBody, sourceWriteUtil,
+        writer);
 
     writeConstructor(bindings, sourceWriteUtil, writer);
-    writeInitializers(bindings, initializeEagerSingletonsBody, initializeStaticInjectionsBody,
-        sourceWriteUtil, writer);
+    writeInitializers(bindings, initializeEagerSingletonsBody,
+        scheduleDeferredEagerSingletonsBody, initializeStaticInjectionsBody, sourceWriteUtil,
+        writer);
+  }
+
+  /**
+   * Creates the creation statements of the getters of the given bindings
+   * concurrently, each with its own fork of the ginjector's name generator.
+   *
+   * <p>The forks are merged back in binding order as the getters are written.
+   * A fork whose names clash with names merged before it is discarded and its
+   * getter prepared again, so the output is the same as when preparing the
+   * getters one after another.
+   */
+  private List<PreparedGetter> prepareGetters(List<Map.Entry<Key<?>, Binding>> bindings,
+      final NameGenerator nameGenerator) {
+    List<Callable<PreparedGetter>> tasks = new ArrayList<Callable<PreparedGetter>>();
+    for (final Map.Entry<Key<?>, Binding> entry : bindings) {
+      tasks.add(new Callable<PreparedGetter>() {
+        public PreparedGetter call() {
+          return new PreparedGetter(entry.getValue(), nameGenerator.fork());
+        }
+      });
+    }
+    return TaskPool.invokeAll(tasks);
+  }
+
+  /**
+   * The creation statements of a getter, created ahead of time by
+   * {@link #prepareGetters}.
+   */
+  private static final class PreparedGetter {
+    final NameGenerator nameGenerator;
+    final List<InjectorMethod> helperMethods = new ArrayList<InjectorMethod>();
+    SourceSnippet creationStatements;
+    NoSourceNameException error;
+
+    PreparedGetter(Binding binding, NameGenerator nameGenerator) {
+      this.nameGenerator = nameGenerator;
+      try {
+        creationStatements = binding.getCreationStatements(nameGenerator, helperMethods);
+      } catch (NoSourceNameException e) {
+        error = e;
+      }
+    }
+  }
+
+  /**
+   * Returns {@code true} if the bindings written so far needed the class of a
+   * split point.  That class is shared by all ginjectors of a compile and
+   * written by the first one that needs it, so their output depends on each
+   * other.
+   */
+  boolean usesSplitPoints() {
+    return splitPointsUsed;
+  }
+
+  /**
+   * Writes the class recording whether the split point of an
+   * {@code AsyncProvider} was loaded, unless it was already written for this or
+   * another ginjector.  For a split point shared by several
+   * {@code AsyncProvider}s, the class also holds its {@code GWT.runAsync} call:
+   * GWT requires split point names to be unique, so there must only be one such
+   * call per name in the entire program.
+   */
+  private void outputSplitPoint(AsyncProviderBinding binding, NameGenerator nameGenerator) {
+    splitPointsUsed = true;
+    Class<?> splitPoint = binding.getSplitPoint();
+
+    // Named first, so that a failure doesn't leave behind a created but
+    // unwritten class.
+    String splitPointName;
+    try {
+      splitPointName = ReflectUtil.getSourceName(splitPoint);
+    } catch (NoSourceNameException e) {
+      errorManager.logError("Cannot name split point %s: %s", splitPoint, e.getMessage());
+      return;
+    }
+
+    String packageName = nameGenerator.getSplitPointPackageName(splitPoint);
+    String className = nameGenerator.getSplitPointClassName(splitPoint);
+    PrintWriter printWriter = ctx.tryCreate(logger, packageName, className);
+    if (printWriter == null) {
+      return;
+    }
+
+    ClassSourceFileComposerFactory composerFactory =
+        new ClassSourceFileComposerFactory(packageName, className);
+    SourceWriter writer = composerFactory.createSourceWriter(ctx, printWriter);
+
+    writer.println("private static boolean loaded = false;");
+
+    writer.beginJavaDocComment();
+    writer.print("Returns whether the code of split point %s was loaded.", splitPointName);
+    writer.endJavaDocComment();
+    writer.println("public static boolean isLoaded() {");
+    writer.indentln("return loaded;");
+    writer.println("}");
+
+    writer.beginJavaDocComment();
+    writer.print("Records that the code of split point %s was loaded.", splitPointName);
+    writer.endJavaDocComment();
+    writer.println("public static void setLoaded() {");
+    writer.indentln("loaded = true;");
+    writer.println("}");
+
+    if (binding.isSplitPointShared()) {
+      writer.println("private static boolean prefetched = false;");
+
+      writer.beginJavaDocComment();
+      writer.print("Loads the code of split point %s, then invokes the given callback.",
+          splitPointName);
+      writer.endJavaDocComment();
+      writer.println("public static void runAsync("
+          + "com.google.gwt.core.client.RunAsyncCallback callback) {");
+      writer.indentln("com.google.gwt.core.client.GWT.runAsync(%s.class, callback);",
+          splitPointName);
+      writer.println("}");
+
+      writer.beginJavaDocComment();
+      writer.print("Prefetches the code of split point %s, unless that was already requested.",
+          splitPointName);
+      writer.endJavaDocComment();
+      writer.println("public static void prefetch() {");
+      writer.indent();
+      writer.println("if (!prefetched) {");
+      writer.indentln("prefetched = true;");
+      writer.indentln("com.google.gwt.core.client.prefetch.Prefetcher.prefetch("
+          + "com.google.gwt.core.client.prefetch.RunAsyncCode.runAsyncCode(%s.class));",
+          splitPointName);
+      writer.println("}");
+      writer.outdent();
+      writer.println("}");
+    }
+
+    writer.commit(logger);
   }
 
   /**
@@ -257,6 +524,7 @@ class GinjectorBindingsOutputter {
    */
   private void outputFragments(GinjectorBindings bindings,
       FragmentMap fragments, StringBuilder initializeEagerSingletonsBody,
+      StringBuilder scheduleDeferredEagerSingletonsBody,
       StringBuilder initializeStaticInjectionsBody, SourceWriteUtil sourceWriteUtil,
       SourceWriter writer) {
     String implClassName = ginjectorNameGenerator.getClassName(bindings);
@@ -271,25 +539,53 @@ class GinjectorBindingsOutputter {
 
       // Create the field.
       writer.beginJavaDocComment();
-      writer.print("Injector fragment for %s", fragmentPackageName);
+      if (fragmentPackageName.isAsync()) {
+        writer.print("Injector fragment for %s, only reachable through an AsyncProvider",
+            fragmentPackageName);
+      } else {
+        writer.print("Injector fragment for %s", fragmentPackageName);
+      }
       writer.endJavaDocComment();
-      writer.print("private %s %s = null;", fragmentCanonicalClassName, fieldName);
 
-      // Write the getter.
-      writer.beginJavaDocComment();
-      writer.print("Getter for injector fragment for %s", fragmentPackageName);
-      writer.endJavaDocComment();
-      sourceWriteUtil.writeMethod(writer,
-          "public " + fragmentCanonicalClassName + " " + getterName + "()", String.format(
-          "if (%2$s == null) {\n"
-        + "    %2$s = new %1$s(this);\n"
-        + "}\n\n"
-        + "return %2$s;", fragmentCanonicalClassName, fieldName));
+      // Asynchronous fragments are always created lazily, so that their code
+      // stays out of the initial download.
+      if (inlineOutput && !fragmentPackageName.isAsync()) {
+        // A final field that is assigned right away lets the compiler inline
+        // the getter.  The fragment's constructor has no side-effects, so it
+        // can run before the injector is fully constructed.
+        writer.print("private final %1$s %2$s = new %1$s(this);", fragmentCanonicalClassName,
+            fieldName);
+
+        writer.beginJavaDocComment();
+        writer.print("Getter for injector fragment for %s", fragmentPackageName);
+        writer.endJavaDocComment();
+        sourceWriteUtil.writeMethod(writer,
+            "public " + fragmentCanonicalClassName + " " + getterName + "()",
+            String.format("return %s;", fieldName));
+      } else {
+        writer.print("private %s %s = null;", fragmentCanonicalClassName, fieldName);
+
+        // Write the getter.
+        writer.beginJavaDocComment();
+        writer.print("Getter for injector fragment for %s", fragmentPackageName);
+        writer.endJavaDocComment();
+        sourceWriteUtil.writeMethod(writer,
+            "public " + fragmentCanonicalClassName + " " + getterName + "()", String.format(
+            "if (%2$s == null) {\n"
+          + "    %2$s = new %1$s(this);\n"
+          + "}\n\n"
+          + "return %2$s;", fragmentCanonicalClassName, fieldName));
+      }
 
       if (fragments.get(fragmentPackageName).hasEagerSingletonInitialization()) {
         initializeEagerSingletonsBody.append(getterName + "().initializeEagerSingletons();\n");
       }
 
+      if (fragments.get(fragmentPackageName).hasDeferredEagerSingletonInitialization()) {
+        scheduleDeferredEagerSingletonsBody.append(
+            getterName + "().scheduleDeferredEagerSingletons();\n");
+      }
+
       if (fragments.get(fragmentPackageName).hasStaticInjectionInitialization()) {
         initializeStaticInjectionsBody.append(getterName + "().initializeStaticInjections();\n");
       }
@@ -297,24 +593,38 @@ class GinjectorBindingsOutputter {
   }
 
   /**
-   * Adds member injections to each fragment.
+   * Adds member injections to each fragment.  The member-inject methods of
+   * supertypes that member-inject methods delegate to are added once each,
+   * after the requested ones.
    */
   private void outputMemberInjections(GinjectorBindings bindings, FragmentMap fragments,
       SourceWriteUtil sourceWriteUtil) {
     NameGenerator nameGenerator = bindings.getNameGenerator();
+    Set<TypeLiteral<?>> types = new LinkedHashSet<TypeLiteral<?>>();
     for (TypeLiteral<?> type : bindings.getMemberInjectRequests()) {
-      if (!reachabilityAnalyzer.isReachableMemberInject(bindings, type)) {
-        continue;
+      if (reachabilityAnalyzer.isReachableMemberInject(bindings, type)) {
+        types.add(type);
       }
+    }
 
+    List<TypeLiteral<?>> pending = new ArrayList<TypeLiteral<?>>(types);
+    for (int i = 0; i < pending.size(); i++) {
+      TypeLiteral<?> type = pending.get(i);
       List<InjectorMethod> memberInjectionHelpers = new ArrayList<InjectorMethod>();
 
       try {
         sourceWriteUtil.createMemberInjection(type, nameGenerator, memberInjectionHelpers);
-        outputMethods(memberInjectionHelpers, fragments);
+        outputMethods(
+            graphExporter.attributeMemberInjection(bindings, type, memberInjectionHelpers),
+            fragments);
       } catch (NoSourceNameException e) {
         errorManager.logError(e.getMessage(), e);
       }
+
+      TypeLiteral<?> supertype = sourceWriteUtil.getMemberInjectionSupertype(type);
+      if (supertype != null && types.add(supertype)) {
+        pending.add(supertype);
+      }
     }
   }
 
@@ -373,9 +683,21 @@ class GinjectorBindingsOutputter {
    * Outputs some methods to the fragments they belong to.
    */
   void outputMethods(Iterable<InjectorMethod> methods, FragmentMap fragments) {
+    outputMethods(methods, fragments, false);
+  }
+
+  /**
+   * Outputs some methods to the fragments they belong to, or to the
+   * asynchronous fragments of their packages if {@code async} is set (see
+   * {@link FragmentPartitioner}).
+   */
+  void outputMethods(Iterable<InjectorMethod> methods, FragmentMap fragments, boolean async) {
     for (InjectorMethod method : methods) {
       FragmentPackageName fragmentPackageName =
           fragmentPackageNameFactory.create(method.getPackageName());
+      if (async) {
+        fragmentPackageName = fragmentPackageName.getAsyncFragment();
+      }
       GinjectorFragmentOutputter fragment = fragments.get(fragmentPackageName);
       fragment.outputMethod(method);
     }
@@ -386,7 +708,9 @@ class GinjectorBindingsOutputter {
    * member variable.
    */
   private void outputSubInitialize(GinjectorBindings child, String childGetterName,
-      StringBuilder initializeEagerSingletonsBody, StringBuilder initializeStaticInjectionsBody) {
+      StringBuilder initializeEagerSingletonsBody,
+      StringBuilder scheduleDeferredEagerSingletonsBody,
+      StringBuilder initializeStaticInjectionsBody) {
 
     if (child.hasEagerSingletonBindingInSubtree()) {
       initializeEagerSingletonsBody
@@ -394,6 +718,12 @@ class GinjectorBindingsOutputter {
           .append("().initializeEagerSingletons();\n");
     }
 
+    if (child.hasDeferredEagerSingletonBindingInSubtree()) {
+      scheduleDeferredEagerSingletonsBody
+          .append(childGetterName)
+          .append("().scheduleDeferredEagerSingletons();\n");
+    }
+
     if (child.hasStaticInjectionRequestInSubtree()) {
       initializeStaticInjectionsBody
           .append(childGetterName)
@@ -427,7 +757,7 @@ class GinjectorBindingsOutputter {
   /**
    * Writes the class constructor.  If there is a parent injector, also writes a
    * field that stores it and a getter (used by fragments in this injector and
-   * its children).
+   * its children), and takes the parent's singleton slot array, if any.
    *
    * <p>The arguments to the constructor are:
    *
@@ -458,8 +788,13 @@ class GinjectorBindingsOutputter {
       sourceWriteUtil.writeMethod(writer, String.format("public %s getParent()",
           parentImplCanonicalClassName), "return parent;");
 
+      String body = "this.parent = parent;";
+      if (singletonSlots.isUsed(bindings)) {
+        body += String.format("\nthis.%1$s = parent.%1$s;",
+            bindings.getNameGenerator().getSingletonSlotsFieldName());
+      }
       sourceWriteUtil.writeMethod(writer, String.format("public %1$s(%2$s parent)",
-          implClassName, parentImplCanonicalClassName), "this.parent = parent;");
+          implClassName, parentImplCanonicalClassName), body);
     }
   }
 
@@ -475,7 +810,9 @@ class GinjectorBindingsOutputter {
 
   private void writeInitializers(
       GinjectorBindings bindings,
-      StringBuilder initializeEagerSingletonsBody, StringBuilder initializeStaticInjectionsBody,
+      StringBuilder initializeEagerSingletonsBody,
+      StringBuilder scheduleDeferredEagerSingletonsBody,
+      StringBuilder initializeStaticInjectionsBody,
       SourceWriteUtil sourceWriteUtil, SourceWriter writer) {
 
     if (bindings.hasEagerSingletonBindingInSubtree()) {
@@ -483,6 +820,11 @@ class GinjectorBindingsOutputter {
           "public void initializeEagerSingletons()", initializeEagerSingletonsBody.toString());
     }
 
+    if (bindings.hasDeferredEagerSingletonBindingInSubtree()) {
+      sourceWriteUtil.writeMethod(writer, "public void scheduleDeferredEagerSingletons()",
+          scheduleDeferredEagerSingletonsBody.toString());
+    }
+
     if (bindings.hasStaticInjectionRequestInSubtree()) {
       sourceWriteUtil.writeMethod(writer,
           "public void initializeStaticInjections()", initializeStaticInjectionsBody.toString());
@@ -500,6 +842,7 @@ class GinjectorBindingsOutputter {
         new LinkedHashMap<FragmentPackageName, GinjectorFragmentOutputter>();
     private final String ginjectorPackageName;
     private final String ginjectorClassName;
+    private boolean deferOutput = false;
 
     FragmentMap(GinjectorBindings bindings, String ginjectorPackageName,
         String ginjectorClassName, GinjectorFragmentOutputter.Factory fragmentFactory) {
@@ -519,6 +862,9 @@ class GinjectorBindingsOutputter {
       } else {
         GinjectorFragmentOutputter result = fragmentFactory.create(bindings, packageName,
             ginjectorPackageName, ginjectorClassName);
+        if (deferOutput) {
+          result.deferOutput();
+        }
         fragments.put(packageName, result);
         return result;
       }
@@ -532,6 +878,48 @@ class GinjectorBindingsOutputter {
       return fragments.keySet();
     }
 
+    /**
+     * Returns the number of fragments created by this map.
+     */
+    int size() {
+      return fragments.size();
+    }
+
+    /**
+     * Defers the output of all fragments created by this map, see
+     * {@link GinjectorFragmentOutputter#deferOutput}.
+     */
+    void deferOutput() {
+      deferOutput = true;
+      for (GinjectorFragmentOutputter fragment : fragments.values()) {
+        fragment.deferOutput();
+      }
+    }
+
+    /**
+     * Writes the deferred output of all fragments created by this map, each
+     * fragment in its own task on the {@link TaskPool}.
+     */
+    void writeDeferredOutputInParallel() {
+      if (size() < 2) {
+        for (GinjectorFragmentOutputter fragment : fragments.values()) {
+          fragment.writeDeferredOutput();
+        }
+        return;
+      }
+
+      List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+      for (final GinjectorFragmentOutputter fragment : fragments.values()) {
+        tasks.add(new Callable<Void>() {
+          public Void call() {
+            fragment.writeDeferredOutput();
+            return null;
+          }
+        });
+      }
+      TaskPool.invokeAll(tasks);
+    }
+
     /**
      * Commits all the fragments that were created by this map.
      */
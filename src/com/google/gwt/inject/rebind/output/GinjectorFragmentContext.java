@@ -15,10 +15,14 @@
  */
 package com.google.gwt.inject.rebind.output;
 
+import com.google.gwt.inject.rebind.ConfigurationProperties;
 import com.google.gwt.inject.rebind.ErrorManager;
+import com.google.gwt.inject.rebind.GinScope;
 import com.google.gwt.inject.rebind.GinjectorBindings;
 import com.google.gwt.inject.rebind.GinjectorNameGenerator;
+import com.google.gwt.inject.rebind.binding.BindClassBinding;
 import com.google.gwt.inject.rebind.binding.Binding;
+import com.google.gwt.inject.rebind.reflect.ReflectUtil;
 import com.google.gwt.inject.rebind.util.InjectorWriteContext;
 import com.google.gwt.inject.rebind.util.NameGenerator;
 import com.google.gwt.inject.rebind.util.SourceWriteUtil;
@@ -28,8 +32,16 @@ import com.google.inject.Key;
 import com.google.inject.TypeLiteral;
 import com.google.inject.assistedinject.Assisted;
 
+import java.lang.reflect.Type;
+
 /**
  * An {@link InjectorWriteContext} for use when writing an injector fragment.
+ *
+ * <p>If the {@value GinjectorBindingsOutputter#INLINE_OUTPUT_PROPERTY}
+ * configuration property is set to {@code true}, {@link #callGetter} skips the
+ * getters of unscoped linked bindings ({@code bind(A.class).to(B.class)}),
+ * which only forward to the getter of their target, and calls the getter at
+ * the end of the chain instead.
  */
 class GinjectorFragmentContext implements InjectorWriteContext {
 
@@ -37,14 +49,18 @@ class GinjectorFragmentContext implements InjectorWriteContext {
   private final ErrorManager errorManager;
   private final FragmentPackageName fragmentPackageName;
   private final FragmentPackageName.Factory fragmentPackageNameFactory;
+  private final FragmentPartitioner fragmentPartitioner;
   private final GinjectorNameGenerator ginjectorNameGenerator;
   private final SourceWriteUtil sourceWriteUtil;
   private final SourceWriter sourceWriter;
+  private final boolean inlineOutput;
 
   @Inject
   public GinjectorFragmentContext(
+      ConfigurationProperties properties,
       ErrorManager errorManager,
       FragmentPackageName.Factory fragmentPackageNameFactory,
+      FragmentPartitioner fragmentPartitioner,
       GinjectorNameGenerator ginjectorNameGenerator,
       SourceWriteUtil.Factory sourceWriteUtilFactory,
       @Assisted GinjectorBindings bindings,
@@ -55,9 +71,12 @@ class GinjectorFragmentContext implements InjectorWriteContext {
     this.errorManager = errorManager;
     this.fragmentPackageName = fragmentPackageName;
     this.fragmentPackageNameFactory = fragmentPackageNameFactory;
+    this.fragmentPartitioner = fragmentPartitioner;
     this.ginjectorNameGenerator = ginjectorNameGenerator;
     this.sourceWriteUtil = sourceWriteUtilFactory.create(bindings);
     this.sourceWriter = sourceWriter;
+    this.inlineOutput = properties.isEnabled(
+        GinjectorBindingsOutputter.INLINE_OUTPUT_PROPERTY);
   }
 
   public String callGetter(Key<?> key) {
@@ -66,8 +85,18 @@ class GinjectorFragmentContext implements InjectorWriteContext {
       errorManager.logError("No binding found for %s in %s", key, bindings);
       return "null /* No binding found */";
     }
-    FragmentPackageName keyPackageName =
-        fragmentPackageNameFactory.create(keyBinding.getGetterMethodPackage());
+
+    if (inlineOutput) {
+      while (keyBinding instanceof BindClassBinding && canSkipGetter(key)) {
+        key = ((BindClassBinding) keyBinding).getBoundClassKey();
+        keyBinding = bindings.getBinding(key);
+        if (keyBinding == null) {
+          errorManager.logError("No binding found for %s in %s", key, bindings);
+          return "null /* No binding found */";
+        }
+      }
+    }
+    FragmentPackageName keyPackageName = fragmentPartitioner.getGetterFragment(keyBinding);
 
     String getterCall = bindings.getNameGenerator().getGetterMethodName(key) + "()";
 
@@ -81,6 +110,32 @@ class GinjectorFragmentContext implements InjectorWriteContext {
     }
   }
 
+  /**
+   * Returns {@code true} if the getter of the given linked binding can be
+   * replaced by the getter of its target: the binding must not cache its
+   * instance, and the target's getter must be callable from any fragment,
+   * which it is if the target's type is public.
+   */
+  private boolean canSkipGetter(Key<?> linkedKey) {
+    if (bindings.determineScope(linkedKey) != GinScope.NO_SCOPE) {
+      return false;
+    }
+
+    Key<?> targetKey =
+        ((BindClassBinding) bindings.getBinding(linkedKey)).getBoundClassKey();
+    Type targetType = targetKey.getTypeLiteral().getType();
+    if (!(targetType instanceof Class)) {
+      return false;
+    }
+
+    for (Class<?> type = (Class<?>) targetType; type != null; type = type.getEnclosingClass()) {
+      if (!ReflectUtil.isPublic(type)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public String callChildGetter(GinjectorBindings childBindings, Key<?> key) {
     Binding childKeyBinding = childBindings.getBinding(key);
     if (childKeyBinding == null) {
@@ -88,7 +143,7 @@ class GinjectorFragmentContext implements InjectorWriteContext {
       return "null /* No binding found */";
     }
     FragmentPackageName childKeyPackageName =
-        fragmentPackageNameFactory.create(childKeyBinding.getGetterMethodPackage());
+        fragmentPartitioner.getGetterFragment(childKeyBinding);
 
     NameGenerator nameGenerator = bindings.getNameGenerator();
     NameGenerator childNameGenerator = childBindings.getNameGenerator();
@@ -108,6 +163,11 @@ class GinjectorFragmentContext implements InjectorWriteContext {
 
     FragmentPackageName methodFragmentPackageName =
         fragmentPackageNameFactory.create(methodFragmentPackage);
+    if (fragmentPackageName.isAsync()) {
+      // Asynchronous fragments only invoke the helper methods of their own
+      // getters, which are written to asynchronous fragments as well.
+      methodFragmentPackageName = methodFragmentPackageName.getAsyncFragment();
+    }
 
     if (!methodFragmentPackageName.equals(fragmentPackageName)) {
       String fragmentGetter = nameGenerator.getFragmentGetterMethodName(methodFragmentPackageName);
@@ -119,7 +179,18 @@ class GinjectorFragmentContext implements InjectorWriteContext {
   }
 
   public String callMemberInject(TypeLiteral<?> type, String input) {
-    String memberInjectMethodName = bindings.getNameGenerator().getMemberInjectMethodName(type);
+    NameGenerator nameGenerator = bindings.getNameGenerator();
+    String memberInjectMethodName = nameGenerator.getMemberInjectMethodName(type);
+
+    if (fragmentPackageName.isAsync()) {
+      // Member injection methods are always written to the initial fragment
+      // of the injected type's package.
+      FragmentPackageName memberInjectPackageName =
+          fragmentPackageNameFactory.create(ReflectUtil.getUserPackageName(type));
+      return String.format("injector.%s().%s(%s);",
+          nameGenerator.getFragmentGetterMethodName(memberInjectPackageName),
+          memberInjectMethodName, input);
+    }
 
     return String.format("%s(%s);", memberInjectMethodName, input);
   }
@@ -130,8 +201,8 @@ class GinjectorFragmentContext implements InjectorWriteContext {
       errorManager.logError("No binding found for %s in %s", key, parentBindings);
       return "null /* No binding found */";
     }
-    FragmentPackageName parentKeyPackageName = fragmentPackageNameFactory.create(
-        parentKeyBinding.getGetterMethodPackage());
+    FragmentPackageName parentKeyPackageName =
+        fragmentPartitioner.getGetterFragment(parentKeyBinding);
 
     StringBuilder result = new StringBuilder().append("injector");
     // Walk up the injector hierarchy until we hit the requested parent.
@@ -16,8 +16,13 @@
 package com.google.gwt.inject.rebind.output;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.ext.Generator;
 import com.google.gwt.core.ext.GeneratorContext;
 import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.inject.client.EagerSingletonTiming;
+import com.google.gwt.inject.client.GinTrace;
+import com.google.gwt.inject.rebind.ConfigurationProperties;
 import com.google.gwt.inject.rebind.ErrorManager;
 import com.google.gwt.inject.rebind.GinScope;
 import com.google.gwt.inject.rebind.GinjectorBindings;
@@ -28,6 +33,7 @@ import com.google.gwt.inject.rebind.reflect.ReflectUtil;
 import com.google.gwt.inject.rebind.util.InjectorMethod;
 import com.google.gwt.inject.rebind.util.InjectorWriteContext;
 import com.google.gwt.inject.rebind.util.NameGenerator;
+import com.google.gwt.inject.rebind.util.PrettyPrinter;
 import com.google.gwt.inject.rebind.util.SourceSnippet;
 import com.google.gwt.inject.rebind.util.SourceSnippetBuilder;
 import com.google.gwt.inject.rebind.util.SourceSnippets;
@@ -48,26 +54,76 @@ import java.util.List;
  * belong to a particular package, exposing only methods to create objects that
  * are not package-private.
  *
+ * <p>Eager singletons are created by the fragment's
+ * {@code initializeEagerSingletons()} method, before the ginjector is returned
+ * to the client.  Deferred eager singletons (see
+ * {@link com.google.gwt.inject.client.DeferredEagerSingleton}) are instead
+ * created by an incremental command that {@code scheduleDeferredEagerSingletons()}
+ * hands to the {@link Scheduler}, one per invocation of the command.  If the
+ * {@value #EAGER_SINGLETON_TIMING_PROPERTY} configuration property is set to
+ * {@code true}, the instantiation of every eager singleton is timed with
+ * {@link EagerSingletonTiming}.
+ *
+ * <p>Singletons are cached in a field of the fragment, one per singleton.  If
+ * the {@value #SINGLETON_SLOTS_PROPERTY} configuration property is set to
+ * {@code true}, they are instead cached in a single array shared by all
+ * injectors of the ginjector, at an index assigned at compile time by
+ * {@link SingletonSlots}.  Only reachable singletons have a getter and thus a
+ * slot.
+ *
+ * <p>If the {@value #TRACE_PROPERTY} configuration property is set to
+ * {@code true}, every getter reports the objects it creates to
+ * {@link GinTrace}.  Otherwise, no tracing code is written at all.
+ *
  * <p>Visible for testing, so it can be returned from a mock factory.
  */
 class GinjectorFragmentOutputter {
 
+  /**
+   * Configuration property enabling the timing of eager singletons.
+   */
+  static final String EAGER_SINGLETON_TIMING_PROPERTY = "gin.output.eagerSingletonTiming";
+
+  /**
+   * Configuration property enabling the tracing of instantiations.
+   */
+  static final String TRACE_PROPERTY = "gin.trace";
+
+  /**
+   * Configuration property selecting the singleton slot array over singleton
+   * fields.
+   */
+  static final String SINGLETON_SLOTS_PROPERTY = "gin.output.singletonSlots";
+
   private final GeneratorContext ctx;
+  private final GinjectorBindings bindings;
+  private final DependencyGraphExporter graphExporter;
   private final InjectorWriteContext injectorWriteContext;
   private final ErrorManager errorManager;
   private final TreeLogger logger;
   private final NameGenerator nameGenerator;
   private final SourceWriteUtil sourceWriteUtil;
+  private final SingletonSlots slots;
 
   private final String fragmentClassName;
   private final FragmentPackageName fragmentPackageName;
   private final String ginjectorClassName;
+  private final boolean eagerSingletonTiming;
+  private final boolean trace;
+  private final boolean singletonSlots;
 
   /**
    * Collects the text of the body of initializeEagerSingletons().
    */
   private final StringBuilder initializeEagerSingletonsBody = new StringBuilder();
 
+  /**
+   * Collects the cases of the switch statement creating deferred eager
+   * singletons in scheduleDeferredEagerSingletons(), one per singleton.
+   */
+  private final StringBuilder deferredEagerSingletonCases = new StringBuilder();
+  private int deferredEagerSingletonCount = 0;
+
   /**
    * Collects the text of the body of initializeStaticInjections().
    */
@@ -78,28 +134,43 @@ class GinjectorFragmentOutputter {
    */
   private final SourceWriter writer;
 
+  /**
+   * Output that was requested but not written yet, in request order, or
+   * {@code null} if output is written immediately.
+   */
+  private List<Runnable> deferredOutput = null;
+
   private boolean committed = false;
 
   @Inject
   GinjectorFragmentOutputter(
       GeneratorContext ctx,
+      ConfigurationProperties properties,
+      DependencyGraphExporter graphExporter,
       GinjectorFragmentContext.Factory ginjectorFragmentContextFactory,
       ErrorManager errorManager,
       TreeLogger logger,
       SourceWriteUtil.Factory sourceWriteUtilFactory,
+      SingletonSlots slots,
       @Assisted GinjectorBindings bindings,
       @Assisted FragmentPackageName fragmentPackageName,
       @Assisted("ginjectorPackageName") String ginjectorPackageName,
       @Assisted("ginjectorClassName") String ginjectorClassName) {
 
     this.ctx = ctx;
+    this.bindings = bindings;
+    this.graphExporter = graphExporter;
     this.errorManager = errorManager;
     this.logger = logger;
     this.sourceWriteUtil = sourceWriteUtilFactory.create(bindings);
+    this.slots = slots;
 
     this.fragmentPackageName = fragmentPackageName;
     this.ginjectorClassName = ginjectorClassName;
     this.nameGenerator = bindings.getNameGenerator();
+    this.eagerSingletonTiming = properties.isEnabled(EAGER_SINGLETON_TIMING_PROPERTY);
+    this.trace = properties.isEnabled(TRACE_PROPERTY);
+    this.singletonSlots = properties.isEnabled(SINGLETON_SLOTS_PROPERTY);
 
     fragmentClassName = nameGenerator.getFragmentClassName(ginjectorClassName, fragmentPackageName);
     if (fragmentClassName.contains(".")) {
@@ -138,11 +209,43 @@ class GinjectorFragmentOutputter {
     return fragmentPackageName;
   }
 
+  /**
+   * Defers writing any code to the fragment's source writer until
+   * {@link #writeDeferredOutput} is invoked.  The deferred output of different
+   * fragments can be written concurrently.
+   */
+  void deferOutput() {
+    if (deferredOutput == null) {
+      deferredOutput = new ArrayList<Runnable>();
+    }
+  }
+
+  /**
+   * Writes all output that was deferred since {@link #deferOutput} was invoked,
+   * in the order it was requested.  Writes only to this fragment's source
+   * writer, so it is safe to call concurrently for different fragments.
+   */
+  void writeDeferredOutput() {
+    if (deferredOutput == null) {
+      return;
+    }
+
+    for (Runnable output : deferredOutput) {
+      output.run();
+    }
+    deferredOutput = null;
+  }
+
   /** Returns true if the eager singletons initializer is nonempty. */
   boolean hasEagerSingletonInitialization() {
     return initializeEagerSingletonsBody.length() > 0;
   }
 
+  /** Returns true if the fragment creates deferred eager singletons. */
+  boolean hasDeferredEagerSingletonInitialization() {
+    return deferredEagerSingletonCount > 0;
+  }
+
   /** Returns true if the static injections initializer is nonempty. */
   boolean hasStaticInjectionInitialization() {
     return initializeStaticInjectionsBody.length() > 0;
@@ -155,44 +258,72 @@ class GinjectorFragmentOutputter {
    */
   void writeBindingGetter(Key<?> key, Binding binding, GinScope scope,
       List<InjectorMethod> helperMethodsOutput) {
-    Context bindingContext = binding.getContext();
+    SourceSnippet creationStatements;
+    try {
+      creationStatements = binding.getCreationStatements(nameGenerator, helperMethodsOutput);
+    } catch (NoSourceNameException e) {
+      reportGetterError(key, binding, e);
+      return;
+    }
+
+    writeBindingGetter(key, binding, scope, creationStatements);
+  }
+
+  /**
+   * Writes the getter for the given key around the given creation statements,
+   * which were created by {@link Binding#getCreationStatements} beforehand,
+   * along with any other code necessary to support it.
+   */
+  void writeBindingGetter(final Key<?> key, Binding binding, GinScope scope,
+      SourceSnippet creationStatements) {
+    final Context bindingContext = binding.getContext();
 
     SourceSnippetBuilder getterBuilder = new SourceSnippetBuilder();
-    SourceSnippet creationStatements;
     String getter = nameGenerator.getGetterMethodName(key);
 
-    String typeName;
+    final String typeName;
     try {
       typeName = ReflectUtil.getSourceName(key.getTypeLiteral());
-
-      creationStatements = binding.getCreationStatements(nameGenerator, helperMethodsOutput);
     } catch (NoSourceNameException e) {
-      errorManager.logError("Error trying to write getter for [%s] -> [%s];"
-          + " binding declaration: %s", e, key, binding, bindingContext);
+      reportGetterError(key, binding, e);
       return;
     }
 
+    if (trace) {
+      creationStatements = traceCreation(key, typeName, creationStatements);
+    }
+
     // Name of the field that we might need.
-    String field = nameGenerator.getSingletonFieldName(key);
+    final String field = nameGenerator.getSingletonFieldName(key);
 
     switch (scope) {
       case EAGER_SINGLETON:
         initializeEagerSingletonsBody.append("// Eager singleton bound at:\n");
         appendBindingContextCommentToMethod(bindingContext, initializeEagerSingletonsBody);
-        initializeEagerSingletonsBody.append(getter).append("();\n");
+        appendEagerSingletonCreation(key, getter, false, initializeEagerSingletonsBody);
         // $FALL-THROUGH$
       case SINGLETON:
-        writer.println("private " + typeName + " " + field + " = null;");
-        writer.println();
-        getterBuilder.append(String.format("\nif (%s == null) {\n", field))
-            .append(creationStatements).append("\n")
-            .append(String.format("    %s = result;\n", field))
-            .append("}\n")
-            .append(String.format("return %s;\n", field));
+        appendSingletonGetter(key, typeName, field, creationStatements, getterBuilder);
+        break;
+
+      case DEFERRED_EAGER_SINGLETON:
+        StringBuilder creation = new StringBuilder("// Deferred eager singleton bound at:\n");
+        appendBindingContextCommentToMethod(bindingContext, creation);
+        appendEagerSingletonCreation(key, getter, true, creation);
+        creation.append("break;\n");
+        deferredEagerSingletonCases
+            .append(String.format("case %d:\n", deferredEagerSingletonCount++))
+            .append(indent(creation.toString(), "  "));
+
+        appendSingletonGetter(key, typeName, field, creationStatements, getterBuilder);
         break;
 
       case NO_SCOPE:
-        sourceWriteUtil.writeBindingContextJavadoc(writer, bindingContext, key);
+        output(new Runnable() {
+          public void run() {
+            sourceWriteUtil.writeBindingContextJavadoc(writer, bindingContext, key);
+          }
+        });
 
         getterBuilder.append(creationStatements).append("\n").append("return result;\n");
         break;
@@ -201,16 +332,125 @@ class GinjectorFragmentOutputter {
         throw new IllegalStateException();
     }
 
-    outputMethod(SourceSnippets.asMethod(false, String.format("public %s %s()", typeName, getter),
-        fragmentPackageName.toString(), getterBuilder.build()));
+    outputMethod(graphExporter.attributeGetter(bindings, key,
+        SourceSnippets.asMethod(false, String.format("public %s %s()", typeName, getter),
+            fragmentPackageName.toString(), getterBuilder.build())));
   }
 
-  void outputMethod(InjectorMethod method) {
-    try {
-      sourceWriteUtil.writeMethod(method, writer, injectorWriteContext);
-    } catch (NoSourceNameException e) {
-      errorManager.logError(e.getMessage(), e);
+  /**
+   * Appends the body of the getter of a singleton to the given builder, storing
+   * the instance in a slot of the singleton array or in its own field.
+   */
+  private void appendSingletonGetter(Key<?> key, final String typeName, final String field,
+      SourceSnippet creationStatements, SourceSnippetBuilder getterBuilder) {
+    // Primitives can't be cast from the slot array's elements, so they always
+    // get a field.
+    if (singletonSlots && !key.getTypeLiteral().getRawType().isPrimitive()) {
+      String slot = String.format("injector.%s[%d]",
+          nameGenerator.getSingletonSlotsFieldName(), slots.getSlot(bindings, key));
+      getterBuilder.append(String.format("Object slot = %s;\n", slot))
+          .append("if (slot != null) {\n")
+          .append(String.format("  return (%s) slot;\n", typeName))
+          .append("}\n\n")
+          .append(creationStatements).append("\n")
+          .append(String.format("%s = result;\n", slot))
+          .append("return result;\n");
+      return;
+    }
+
+    output(new Runnable() {
+      public void run() {
+        writer.println("private " + typeName + " " + field + " = null;");
+        writer.println();
+      }
+    });
+    getterBuilder.append(String.format("\nif (%s == null) {\n", field))
+        .append(creationStatements).append("\n")
+        .append(String.format("    %s = result;\n", field))
+        .append("}\n")
+        .append(String.format("return %s;\n", field));
+  }
+
+  void outputMethod(final InjectorMethod method) {
+    output(new Runnable() {
+      public void run() {
+        try {
+          sourceWriteUtil.writeMethod(method, writer, injectorWriteContext);
+        } catch (NoSourceNameException e) {
+          errorManager.logError(e.getMessage(), e);
+        }
+      }
+    });
+  }
+
+  /**
+   * Reports that the getter for the given key can't be written.
+   */
+  void reportGetterError(Key<?> key, Binding binding, NoSourceNameException e) {
+    errorManager.logError("Error trying to write getter for [%s] -> [%s];"
+        + " binding declaration: %s", e, key, binding, binding.getContext());
+  }
+
+  /**
+   * Writes the given output to the source writer, or defers it if output is
+   * currently being deferred.
+   */
+  private void output(Runnable output) {
+    if (deferredOutput == null) {
+      output.run();
+    } else {
+      deferredOutput.add(output);
+    }
+  }
+
+  /**
+   * Appends the invocation of the getter of an eager singleton to the given
+   * method body, timing it if {@link #eagerSingletonTiming} is set.
+   */
+  private void appendEagerSingletonCreation(Key<?> key, String getter, boolean deferred,
+      StringBuilder methodBody) {
+    if (!eagerSingletonTiming) {
+      methodBody.append(getter).append("();\n");
+      return;
     }
+
+    String timing = EagerSingletonTiming.class.getCanonicalName();
+    methodBody.append("{\n")
+        .append(String.format("  double start = %s.start();\n", timing))
+        .append(String.format("  %s();\n", getter))
+        .append(String.format("  %s.record(%s, %s, start);\n", timing, getKeyLiteral(key),
+            deferred))
+        .append("}\n");
+  }
+
+  /**
+   * Wraps the given creation statements, which store the created object in
+   * {@code result}, with calls reporting the instantiation to {@link GinTrace}.
+   * The trace node is exited even if the creation throws, so that later roots
+   * are not attached to an aborted node.
+   */
+  private SourceSnippet traceCreation(Key<?> key, String typeName,
+      SourceSnippet creationStatements) {
+    String ginTrace = GinTrace.class.getCanonicalName();
+    return new SourceSnippetBuilder()
+        .append(String.format("%1$s.Node traceNode = %1$s.enter(%2$s);\n", ginTrace,
+            getKeyLiteral(key)))
+        .append(String.format("%s tracedResult;\n", typeName))
+        .append("try {\n")
+        .append(creationStatements)
+        .append("\ntracedResult = result;\n")
+        .append("} finally {\n")
+        .append(String.format("  %s.exit(traceNode);\n", ginTrace))
+        .append("}\n")
+        .append(String.format("%s result = tracedResult;", typeName))
+        .build();
+  }
+
+  /**
+   * Returns a string literal holding the human-readable form of the given key.
+   */
+  private static String getKeyLiteral(Key<?> key) {
+    return "\"" + Generator.escape(PrettyPrinter.format("%s", key)) + "\"";
   }
 
   /**
@@ -231,6 +471,7 @@ class GinjectorFragmentOutputter {
     }
 
     committed = true;
+    writeDeferredOutput();
 
     // Write the field where the enclosing injector is stored.
     writer.beginJavaDocComment();
@@ -254,6 +495,29 @@ class GinjectorFragmentOutputter {
           initializeEagerSingletonsBody.toString());
     }
 
+    if (hasDeferredEagerSingletonInitialization()) {
+      // Write a method to schedule the creation of deferred eager singletons.
+      // The scheduler invokes the command until it returns false, creating
+      // one singleton per invocation, and yields to the browser between its
+      // time slices.
+      String scheduler = Scheduler.class.getCanonicalName();
+      sourceWriteUtil.writeMethod(
+          writer,
+          "public void scheduleDeferredEagerSingletons()",
+          String.format(
+              "%1$s.get().scheduleIncremental(new %1$s.RepeatingCommand() {\n"
+            + "  private int next = 0;\n\n"
+            + "  public boolean execute() {\n"
+            + "    switch (next++) {\n"
+            + "%2$s"
+            + "    }\n\n"
+            + "    return next < %3$d;\n"
+            + "  }\n"
+            + "});",
+              scheduler, indent(deferredEagerSingletonCases.toString(), "      "),
+              deferredEagerSingletonCount));
+    }
+
     if (hasStaticInjectionInitialization()) {
       // Write a method to initialize static injection.
       sourceWriteUtil.writeMethod(
@@ -265,6 +529,14 @@ class GinjectorFragmentOutputter {
     writer.commit(logger);
   }
 
+  private static String indent(String lines, String indentation) {
+    StringBuilder result = new StringBuilder();
+    for (String line : lines.split("\n")) {
+      result.append(indentation).append(line).append("\n");
+    }
+    return result.toString();
+  }
+
   private void appendBindingContextCommentToMethod(Context bindingContext,
       StringBuilder methodBody) {
     for (String line : bindingContext.toString().split("\n")) {
@@ -28,6 +28,8 @@ import com.google.gwt.inject.rebind.util.GuiceUtil;
 import com.google.gwt.inject.rebind.util.MemberCollector;
 import com.google.gwt.inject.rebind.util.NameGenerator;
 import com.google.gwt.inject.rebind.util.PrettyPrinter;
+import com.google.gwt.inject.rebind.util.SharedAccessors;
+import com.google.gwt.inject.rebind.util.SharedHelpers;
 import com.google.gwt.inject.rebind.util.SourceWriteUtil;
 import com.google.gwt.user.rebind.ClassSourceFileComposerFactory;
 import com.google.gwt.user.rebind.SourceWriter;
@@ -59,11 +61,15 @@ public class GinjectorImplOutputter {
   private final MemberCollector constructorInjectCollector;
 
   private final GeneratorContext ctx;
+  private final DependencyGraphExporter graphExporter;
   private final FragmentPackageName.Factory fragmentPackageNameFactory;
+  private final FragmentPartitioner fragmentPartitioner;
   private final GinjectorNameGenerator ginjectorNameGenerator;
   private final GuiceUtil guiceUtil;
   private final TreeLogger logger;
   private final ReachabilityAnalyzer reachabilityAnalyzer;
+  private final SharedAccessors sharedAccessors;
+  private final SharedHelpers sharedHelpers;
   private final SourceWriteUtil.Factory sourceWriteUtilFactory;
 
   /**
@@ -77,17 +83,24 @@ public class GinjectorImplOutputter {
 
   @Inject
   public GinjectorImplOutputter(GinjectorBindingsOutputter bindingsOutputter,
-      GeneratorContext ctx, FragmentPackageName.Factory fragmentPackageNameFactory,
-      GinjectorNameGenerator ginjectorNameGenerator, final GuiceUtil guiceUtil,
+      GeneratorContext ctx, DependencyGraphExporter graphExporter,
+      FragmentPackageName.Factory fragmentPackageNameFactory,
+      FragmentPartitioner fragmentPartitioner, GinjectorNameGenerator ginjectorNameGenerator,
+      final GuiceUtil guiceUtil,
       TreeLogger logger, Provider<MemberCollector> collectorProvider,
-      ReachabilityAnalyzer reachabilityAnalyzer, SourceWriteUtil.Factory sourceWriteUtilFactory) {
+      ReachabilityAnalyzer reachabilityAnalyzer, SharedAccessors sharedAccessors,
+      SharedHelpers sharedHelpers, SourceWriteUtil.Factory sourceWriteUtilFactory) {
     this.bindingsOutputter = bindingsOutputter;
     this.ctx = ctx;
+    this.graphExporter = graphExporter;
     this.fragmentPackageNameFactory = fragmentPackageNameFactory;
+    this.fragmentPartitioner = fragmentPartitioner;
     this.ginjectorNameGenerator = ginjectorNameGenerator;
     this.guiceUtil = guiceUtil;
     this.logger = logger;
     this.reachabilityAnalyzer = reachabilityAnalyzer;
+    this.sharedAccessors = sharedAccessors;
+    this.sharedHelpers = sharedHelpers;
     this.sourceWriteUtilFactory = sourceWriteUtilFactory;
 
     constructorInjectCollector = collectorProvider.get();
@@ -118,6 +131,25 @@ public class GinjectorImplOutputter {
     if (ginjectorInterface != null) {
       writeInterface(ginjectorInterface, packageName, implClassName, printWriter, rootBindings);
     }
+
+    // Shared member classes are requested while the bindings are written, and
+    // written here, on the generator's thread.
+    sharedAccessors.writePendingClasses();
+    sharedHelpers.writePendingClasses();
+
+    graphExporter.export(packageName, implClassName, rootBindings);
+  }
+
+  /**
+   * Returns {@code true} if the classes written by {@link #write} use classes
+   * shared by all ginjectors of the compile: the classes of split points and
+   * shared member classes.  Each of these is only written by the first
+   * generator run of a compile that needs it, so the output of a run using
+   * them can't be reused on its own.
+   */
+  public boolean usesSharedClasses() {
+    return bindingsOutputter.usesSplitPoints() || sharedAccessors.hasRequestedClasses()
+        || sharedHelpers.hasRequestedClasses();
   }
 
   private void writeInjectorHierarchy(GinjectorBindings bindings) throws UnableToCompleteException {
@@ -158,16 +190,23 @@ public class GinjectorImplOutputter {
           ? String.format("%s.initializeEagerSingletons();\n", rootFieldName)
           : "";
 
+      String deferredEagerSingletonsScheduling =
+          rootBindings.hasDeferredEagerSingletonBindingInSubtree()
+              ? String.format("%s.scheduleDeferredEagerSingletons();\n", rootFieldName)
+              : "";
+
       sourceWriteUtil.writeMethod(writer, "public " + implClassName + "()", String.format(
           // To imitate the behavior of Guice and provide more predictable
           // bootstrap ordering, we initialize the injectors in two phases:
           // static injections first, followed by eager singletons.  Each of
           // these method calls performs all necessary initialization of the
           // given type in all fragments, ensuring that the initializers run in
-          // the proper order.
+          // the proper order.  Deferred eager singletons are only scheduled
+          // here, and created once the scheduler runs after startup.
           //
           // See http://code.google.com/p/google-guice/wiki/Bootstrap
-          "%s%s", staticInjectionInitialization, eagerSingletonsInitialization));
+          "%s%s%s", staticInjectionInitialization, eagerSingletonsInitialization,
+          deferredEagerSingletonsScheduling));
 
       outputInterfaceMethods(rootBindings, ginjectorInterface, sourceWriteUtil, writer);
     } catch (NoSourceNameException e) {
@@ -208,8 +247,7 @@ public class GinjectorImplOutputter {
         throw new UnableToCompleteException();
       }
 
-      FragmentPackageName fragmentPackageName = fragmentPackageNameFactory.create(
-          binding.getGetterMethodPackage());
+      FragmentPackageName fragmentPackageName = fragmentPartitioner.getGetterFragment(binding);
 
       String body = String.format("return %s.%s().%s();",
           ginjectorNameGenerator.getFieldName(bindings),
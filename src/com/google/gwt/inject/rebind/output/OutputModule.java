@@ -36,6 +36,8 @@ public class OutputModule extends PrivateModule {
 
     bind(GinjectorImplOutputter.class);
     bind(ReachabilityAnalyzer.class).in(Singleton.class);
+    bind(DependencyGraphExporter.class).in(Singleton.class);
+    bind(SingletonSlots.class).in(Singleton.class);
 
     expose(FragmentPackageName.Factory.class);
     expose(GinjectorImplOutputter.class);
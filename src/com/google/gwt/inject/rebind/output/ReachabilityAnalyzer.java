@@ -16,9 +16,12 @@
 package com.google.gwt.inject.rebind.output;
 
 import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.inject.rebind.GeneratorProfiler;
+import com.google.gwt.inject.rebind.GeneratorProfiler.Phase;
 import com.google.gwt.inject.rebind.GinScope;
 import com.google.gwt.inject.rebind.GinjectorBindings;
 import com.google.gwt.inject.rebind.RootBindings;
+import com.google.gwt.inject.rebind.binding.AsyncProviderBinding;
 import com.google.gwt.inject.rebind.binding.Binding;
 import com.google.gwt.inject.rebind.binding.Dependency;
 import com.google.gwt.inject.rebind.binding.ExposedChildBinding;
@@ -37,8 +40,13 @@ import com.google.inject.spi.InjectionPoint;
 import java.lang.reflect.Field;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -55,20 +63,31 @@ import java.util.Set;
 final class ReachabilityAnalyzer {
 
   private Set<Binding> reachable = null;
+  private Set<Binding> reachableOnlyAsynchronously = null;
   private Map<GinjectorBindings, Set<TypeLiteral<?>>> reachableMemberInjects = null;
 
+  /**
+   * Keys of the targets of {@code AsyncProvider}s, which are traced after all
+   * bindings that are reachable without passing through an
+   * {@code AsyncProvider}, or {@code null} if those targets are being traced.
+   */
+  private List<TraceRoot> asynchronousRoots = null;
+
   private final GuiceUtil guiceUtil;
   private final TreeLogger logger;
   private final MemberCollector memberCollector;
   private final GinjectorBindings rootBindings;
+  private final GeneratorProfiler profiler;
 
   @Inject
   public ReachabilityAnalyzer(
+      GeneratorProfiler profiler,
       GuiceUtil guiceUtil,
       Provider<MemberCollector> memberCollectorProvider,
       @RootBindings GinjectorBindings rootBindings,
       TreeLogger logger) {
 
+    this.profiler = profiler;
     this.guiceUtil = guiceUtil;
     this.logger = logger;
     this.memberCollector = memberCollectorProvider.get();
@@ -104,6 +123,19 @@ final class ReachabilityAnalyzer {
     return reachable.contains(binding);
   }
 
+  /**
+   * Tests whether the given binding is reachable from a true root, but only
+   * through the target of an {@code AsyncProvider}, see
+   * {@link FragmentPartitioner}.
+   */
+  boolean isReachableOnlyAsynchronously(Binding binding) {
+    if (reachable == null) {
+      computeReachable();
+    }
+
+    return reachableOnlyAsynchronously.contains(binding);
+  }
+
   boolean isReachableMemberInject(GinjectorBindings bindings, TypeLiteral<?> type) {
     if (reachableMemberInjects == null) {
       computeReachable();
@@ -114,9 +146,12 @@ final class ReachabilityAnalyzer {
 
   private void computeReachable() {
     reachable = new LinkedHashSet<Binding>();
+    reachableOnlyAsynchronously = new LinkedHashSet<Binding>();
+    asynchronousRoots = new ArrayList<TraceRoot>();
     reachableMemberInjects = new LinkedHashMap<GinjectorBindings, Set<TypeLiteral<?>>>();
 
     logger.log(TreeLogger.DEBUG, "Begin reachability analysis");
+    GeneratorProfiler.Timer timer = profiler.start(Phase.REACHABILITY_ANALYSIS, rootBindings);
 
     // Note on implementation: for simplicity, we use a Binding as the node of
     // the graph that we run reachability on.  This would be incoherent before
@@ -125,9 +160,14 @@ final class ReachabilityAnalyzer {
     // unique Binding object.  Since the caller of this routine is interested in
     // determining which bindings to output, it's more convenient to just work
     // at the binding level.
-    traceGinjectorMethods();
-    traceEagerSingletons();
-    traceStaticInjections();
+    try {
+      traceGinjectorMethods();
+      traceEagerSingletons();
+      traceStaticInjections();
+      traceAsynchronousRoots();
+    } finally {
+      timer.stop();
+    }
 
     logger.log(TreeLogger.DEBUG, "End reachability analysis");
   }
@@ -171,7 +211,7 @@ final class ReachabilityAnalyzer {
       Binding binding = entry.getValue();
       GinScope scope = bindings.determineScope(key);
 
-      if (scope == GinScope.EAGER_SINGLETON) {
+      if (scope == GinScope.EAGER_SINGLETON || scope == GinScope.DEFERRED_EAGER_SINGLETON) {
         PrettyPrinter.log(logger, TreeLogger.DEBUG,
             "ROOT -> %s:%s [eager singleton: %s]", bindings, key, binding);
 
@@ -232,45 +272,83 @@ final class ReachabilityAnalyzer {
     }
   }
 
+  /**
+   * Traces out the bindings that are reachable from the targets of
+   * {@code AsyncProvider}s, once everything else has been traced.  The
+   * bindings first reached here are only reachable asynchronously.
+   */
+  private void traceAsynchronousRoots() {
+    List<TraceRoot> roots = asynchronousRoots;
+    asynchronousRoots = null;
+
+    for (TraceRoot root : roots) {
+      PrettyPrinter.log(logger, TreeLogger.DEBUG, "ASYNC ROOT -> %s:%s", root.bindings, root.key);
+      traceKey(root.key, root.bindings);
+    }
+  }
+
   /**
    * Marks the binding of the given key in the given {@link GinjectorBindings}
    * as reachable, and traces out its dependencies.
+   *
+   * <p>Chains of dependencies can be arbitrarily long, so bindings are traced
+   * depth-first using an explicit stack of the bindings whose dependencies are
+   * being traced.
    */
   private void traceKey(Key<?> key, GinjectorBindings bindings) {
-    Binding binding = bindings.getBinding(key);
-    // Make sure the binding is present: optional bindings might be missing.
-    if (binding != null) {
-      if (!reachable.add(binding)) {
-        // The binding was already marked as reachable.
-        return;
-      }
-
-      getReachableMemberInjects(bindings).addAll(binding.getMemberInjectRequests());
-
-      for (Dependency dependency : binding.getDependencies()) {
-        if (dependency.getSource().equals(key)) {
+    Deque<TraceFrame> stack = new ArrayDeque<TraceFrame>();
+    enter(key, bindings, stack);
+
+    while (!stack.isEmpty()) {
+      TraceFrame frame = stack.peek();
+      if (frame.dependencies.hasNext()) {
+        Dependency dependency = frame.dependencies.next();
+        if (dependency.getSource().equals(frame.key)) {
           Key<?> target = dependency.getTarget();
 
           PrettyPrinter.log(logger, TreeLogger.DEBUG, "%s:%s -> %s:%s [%s]",
-              bindings, key, bindings, dependency.getTarget(), binding);
-          traceKey(target, bindings);
+              frame.bindings, frame.key, frame.bindings, target, frame.binding);
+          if (frame.binding instanceof AsyncProviderBinding && asynchronousRoots != null) {
+            asynchronousRoots.add(new TraceRoot(target, frame.bindings));
+          } else {
+            enter(target, frame.bindings, stack);
+          }
+        }
+      } else {
+        stack.pop();
+
+        // Special cases: parent / child bindings induce dependencies between
+        // GinjectorBindings objects, which can't be represented in the standard
+        // dependency graph.
+        if (frame.binding instanceof ParentBinding) {
+          ParentBinding parentBinding = (ParentBinding) frame.binding;
+          PrettyPrinter.log(logger, TreeLogger.DEBUG, "%s:%s -> %s:%s [inherited]",
+              frame.bindings, frame.key, parentBinding.getParentBindings(), frame.key);
+          enter(frame.key, parentBinding.getParentBindings(), stack);
+        } else if (frame.binding instanceof ExposedChildBinding) {
+          ExposedChildBinding exposedChildBinding = (ExposedChildBinding) frame.binding;
+          PrettyPrinter.log(logger, TreeLogger.DEBUG, "%s:%s -> %s:%s [exposed]",
+              frame.bindings, frame.key, exposedChildBinding.getChildBindings(), frame.key);
+          enter(frame.key, exposedChildBinding.getChildBindings(), stack);
         }
       }
+    }
+  }
 
-      // Special cases: parent / child bindings induce dependencies between
-      // GinjectorBindings objects, which can't be represented in the standard
-      // dependency graph.
-      if (binding instanceof ParentBinding) {
-        ParentBinding parentBinding = (ParentBinding) binding;
-        PrettyPrinter.log(logger, TreeLogger.DEBUG, "%s:%s -> %s:%s [inherited]",
-            bindings, key, parentBinding.getParentBindings(), key);
-        traceKey(key, parentBinding.getParentBindings());
-      } else if (binding instanceof ExposedChildBinding) {
-        ExposedChildBinding exposedChildBinding = (ExposedChildBinding) binding;
-        PrettyPrinter.log(logger, TreeLogger.DEBUG, "%s:%s -> %s:%s [exposed]",
-            bindings, key, exposedChildBinding.getChildBindings(), key);
-        traceKey(key, exposedChildBinding.getChildBindings());
+  /**
+   * Marks the binding of the given key in the given {@link GinjectorBindings}
+   * as reachable, and pushes it on the stack so that its dependencies are
+   * traced next.  Does nothing if the binding was already marked.
+   */
+  private void enter(Key<?> key, GinjectorBindings bindings, Deque<TraceFrame> stack) {
+    Binding binding = bindings.getBinding(key);
+    // Make sure the binding is present: optional bindings might be missing.
+    if (binding != null && reachable.add(binding)) {
+      if (asynchronousRoots == null) {
+        reachableOnlyAsynchronously.add(binding);
       }
+      getReachableMemberInjects(bindings).addAll(binding.getMemberInjectRequests());
+      stack.push(new TraceFrame(key, bindings, binding));
     }
   }
 
@@ -283,4 +361,34 @@ final class ReachabilityAnalyzer {
 
     return result;
   }
+
+  /**
+   * A key to trace from, in the given {@link GinjectorBindings}.
+   */
+  private static class TraceRoot {
+    final Key<?> key;
+    final GinjectorBindings bindings;
+
+    TraceRoot(Key<?> key, GinjectorBindings bindings) {
+      this.key = key;
+      this.bindings = bindings;
+    }
+  }
+
+  /**
+   * A reachable binding whose dependencies are being traced.
+   */
+  private static class TraceFrame {
+    final Key<?> key;
+    final GinjectorBindings bindings;
+    final Binding binding;
+    final Iterator<Dependency> dependencies;
+
+    TraceFrame(Key<?> key, GinjectorBindings bindings, Binding binding) {
+      this.key = key;
+      this.bindings = bindings;
+      this.binding = binding;
+      this.dependencies = binding.getDependencies().iterator();
+    }
+  }
 }
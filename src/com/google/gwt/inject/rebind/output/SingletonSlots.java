@@ -0,0 +1,87 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind.output;
+
+import com.google.gwt.inject.rebind.GinjectorBindings;
+import com.google.inject.Key;
+import com.google.inject.Singleton;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Assigns the indices of the singleton slot array of a ginjector (see
+ * {@link GinjectorFragmentOutputter}).
+ *
+ * <p>There is a single array for the whole ginjector: it is created by the
+ * root injector, and every other injector of the hierarchy refers to it.  Each
+ * singleton gets its own index, even if the same key is bound as a singleton
+ * in several injectors.  Indices are assigned as getters are written, children
+ * before their parents, so the root injector knows the size of the array once
+ * its own getters are written.
+ */
+@Singleton
+class SingletonSlots {
+
+  private final Map<GinjectorBindings, Map<Key<?>, Integer>> slots =
+      new IdentityHashMap<GinjectorBindings, Map<Key<?>, Integer>>();
+  private int count = 0;
+
+  /**
+   * Returns the index of the slot of the given key's singleton in the given
+   * injector, assigning the next free index if it doesn't have one yet.
+   */
+  synchronized int getSlot(GinjectorBindings bindings, Key<?> key) {
+    Map<Key<?>, Integer> bindingsSlots = slots.get(bindings);
+    if (bindingsSlots == null) {
+      bindingsSlots = new LinkedHashMap<Key<?>, Integer>();
+      slots.put(bindings, bindingsSlots);
+    }
+
+    Integer slot = bindingsSlots.get(key);
+    if (slot == null) {
+      slot = count++;
+      bindingsSlots.put(key, slot);
+    }
+    return slot;
+  }
+
+  /**
+   * Returns the number of slots assigned so far, i.e. the size of the array
+   * once all injectors are written.
+   */
+  synchronized int getCount() {
+    return count;
+  }
+
+  /**
+   * Returns {@code true} if slots were assigned to the given injector or any of
+   * its descendants, which then need a reference to the array.
+   */
+  synchronized boolean isUsed(GinjectorBindings bindings) {
+    if (slots.containsKey(bindings)) {
+      return true;
+    }
+
+    for (GinjectorBindings child : bindings.getChildren()) {
+      if (isUsed(child)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
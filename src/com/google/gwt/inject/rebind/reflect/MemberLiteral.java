@@ -158,6 +158,16 @@ public abstract class MemberLiteral<T, M extends Member & AnnotatedElement> {
     return Modifier.isStatic(getModifiers());
   }
 
+  /**
+   * Returns {@code true} if this member was introduced by the compiler, e.g.
+   * a bridge method.
+   *
+   * @return {@code true} if synthetic
+   */
+  public boolean isSynthetic() {
+    return member.isSynthetic();
+  }
+
   protected Annotation getBindingAnnotation(Annotation[] annotations) {
     Annotation bindingAnnotation = null;
     for (Annotation annotation : annotations) {
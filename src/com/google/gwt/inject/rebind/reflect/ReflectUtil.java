@@ -201,6 +201,20 @@ public class ReflectUtil {
     }
   }
 
+  /**
+   * Returns {@code true} if all the type names contained in the given type
+   * literal are public, so that it can be used from any package.
+   */
+  public static boolean isVisibleFromAnyPackage(TypeLiteral<?> typeLiteral) {
+    Map<String, Class<?>> packageNames = new LinkedHashMap<String, Class<?>>();
+    try {
+      getTypePackageNames(typeLiteral.getType(), packageNames);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+    return packageNames.isEmpty();
+  }
+
   /**
    * Visits all the components of a type, collecting a map taking the name of
    * each package in which package-private types are defined to one of the
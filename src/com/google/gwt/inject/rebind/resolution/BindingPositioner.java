@@ -17,6 +17,8 @@ package com.google.gwt.inject.rebind.resolution;
 
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.dev.util.Preconditions;
+import com.google.gwt.inject.rebind.GeneratorProfiler;
+import com.google.gwt.inject.rebind.GeneratorProfiler.Phase;
 import com.google.gwt.inject.rebind.GinjectorBindings;
 import com.google.gwt.inject.rebind.binding.Binding;
 import com.google.gwt.inject.rebind.binding.Dependency;
@@ -27,10 +29,13 @@ import com.google.inject.Inject;
 import com.google.inject.Key;
 import com.google.inject.assistedinject.Assisted;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Given the dependency information about all unresolved (and required and optional) keys needed by
@@ -67,6 +72,8 @@ import java.util.Set;
  * {@code
  *    Level(k) = lowest(Level(k) U {Level(d) | d \in deps(k)})
  * }
+ * Keys are visited one strongly connected component of the dependency graph at a time, in reverse
+ * topological order, so that only keys in dependency cycles are ever visited more than once.
  * 
  * <p>One exception to the rules above is bindings that are needed in the origin and exposed to the
  * parent.  Instead of installing and using them from "as high as possible", we need to install
@@ -80,11 +87,11 @@ class BindingPositioner {
   private final TreeLogger logger;
   
   /**
-   * The keys that still need to be positioned.  We use a LinkedHashSet so that we visit keys in the
-   * order they were added, but disallow a key be queued multiple times.
+   * Level of keys that have no position, e.g. {@link Dependency#GINJECTOR}.  It never constrains
+   * the position of other keys.
    */
-  private final LinkedHashSet<Key<?>> workqueue = new LinkedHashSet<Key<?>>();
-  
+  private static final int UNPOSITIONED = Integer.MAX_VALUE;
+
   /**
    * Map containing the current (and eventually correct) positions for each key.
    */
@@ -105,8 +112,22 @@ class BindingPositioner {
    */
   private DependencyExplorerOutput output;
 
+  private final GeneratorProfiler profiler;
+
+  // State of calculateExactPositions(), indexed by key id in the dependency graph.  Levels are
+  // distances from the origin.
+  private int[] initialLevels;
+  private int[] currentLevels;
+  private BitSet implicitKeys;
+
+  // State of positionComponent(), kept across components to avoid reallocating it.
+  private BitSet inComponent;
+  private BitSet queued;
+  private int[] queue;
+
   @Inject
-  public BindingPositioner(@Assisted TreeLogger logger) {
+  public BindingPositioner(GeneratorProfiler profiler, @Assisted TreeLogger logger) {
+    this.profiler = profiler;
     this.logger = logger;
   }
   
@@ -114,9 +135,14 @@ class BindingPositioner {
     Preconditions.checkState(this.output == null, "Should not call position more than once");
     this.output = output;
 
-    computeInitialPositions();
-    workqueue.addAll(output.getImplicitlyBoundKeys());
-    calculateExactPositions();
+    GeneratorProfiler.Timer timer =
+        profiler.start(Phase.BINDING_POSITIONING, output.getGraph().getOrigin());
+    try {
+      computeInitialPositions();
+      calculateExactPositions();
+    } finally {
+      timer.stop();
+    }
   }
  
   /**
@@ -148,8 +174,8 @@ class BindingPositioner {
     for (Key<?> key : output.getImplicitlyBoundKeys()) {
       GinjectorBindings initialPosition = computeInitialPosition(key);
 
-      PrettyPrinter.log(logger, TreeLogger.DEBUG, PrettyPrinter.format(
-          "Initial highest visible position of %s is %s", key, initialPosition));
+      PrettyPrinter.log(logger, TreeLogger.DEBUG,
+          "Initial highest visible position of %s is %s", key, initialPosition);
 
       positions.put(key, initialPosition);
     }
@@ -172,8 +198,7 @@ class BindingPositioner {
     // to install the binding in the origin.
     if (pinned) {
       PrettyPrinter.log(logger, TreeLogger.DEBUG,
-          PrettyPrinter.format("Forcing %s to be installed in %s due to a pin.", key,
-              initialPosition));
+          "Forcing %s to be installed in %s due to a pin.", key, initialPosition);
       installOverrides.put(key, initialPosition);
     }
 
@@ -230,57 +255,225 @@ class BindingPositioner {
   }
     
   /**
-   * Iterates on the position equation, updating each binding in the queue and re-queueing nodes
-   * that depend on any node we move.  This will always terminate, since we only re-queue when we
-   * make a change, and there are a finite number of entries in the injector hierarchy.
+   * Solves the position equation for all keys in the dependency graph.
+   *
+   * <p>The graph is split into strongly connected components, which are positioned in reverse
+   * topological order: by the time a component is processed, the positions of all keys it depends
+   * on outside the component are final.  Within a component, we iterate on the position equation,
+   * re-queueing keys of the component that depend on any key we move.  Keys that are not in a
+   * cycle are therefore positioned exactly once.
+   *
+   * <p>A key that was not implicitly bound (and so isn't constrained by the position equation on
+   * its own) is only repositioned if one of its dependencies moved.
    */
   private void calculateExactPositions() {
-    while (!workqueue.isEmpty()) {
-      Key<?> key = workqueue.iterator().next();
-      workqueue.remove(key);
-      
-      Set<GinjectorBindings> injectors = getSourceGinjectors(key);
-      injectors.add(positions.get(key));
-      GinjectorBindings newPosition = lowest(injectors);
-      
-      GinjectorBindings oldPosition = positions.put(key, newPosition);
-      if (oldPosition != newPosition) {
-        PrettyPrinter.log(logger, TreeLogger.DEBUG,
-            "Moved the highest visible position of %s from %s to %s, the lowest injector of %s.",
-            key, oldPosition, newPosition, injectors);
-
-        // We don't care if GINJECTOR is present, as its Ginjector will resolve to "null", which
-        // will never be reached on the path from the origin up to the root, therefore it won't
-        // actually constrain anything.
-        for (Dependency dependency : output.getGraph().getDependenciesTargeting(key)) {
-          PrettyPrinter.log(logger, TreeLogger.DEBUG, "Re-enqueuing %s due to %s",
-              dependency.getSource(), dependency);
-          workqueue.add(dependency.getSource());
+    DependencyGraph graph = output.getGraph();
+    int keyCount = graph.getKeyCount();
+
+    // Positions are represented by their distance from the origin, so that "lowest" is the minimum.
+    List<GinjectorBindings> pathToRoot = new ArrayList<GinjectorBindings>();
+    Map<GinjectorBindings, Integer> levels = new HashMap<GinjectorBindings, Integer>();
+    for (GinjectorBindings bindings = graph.getOrigin(); bindings != null;
+        bindings = bindings.getParent()) {
+      levels.put(bindings, pathToRoot.size());
+      pathToRoot.add(bindings);
+    }
+
+    initialLevels = new int[keyCount];
+    currentLevels = new int[keyCount];
+    for (int key = 0; key < keyCount; key++) {
+      GinjectorBindings position = positions.get(graph.getKey(key));
+      initialLevels[key] = position == null ? UNPOSITIONED
+          : Preconditions.checkNotNull(levels.get(position),
+              "Position is not on the path from the origin to the root");
+      currentLevels[key] = initialLevels[key];
+    }
+
+    implicitKeys = new BitSet(keyCount);
+    for (Key<?> key : output.getImplicitlyBoundKeys()) {
+      int keyId = graph.getKeyId(key);
+      if (keyId >= 0) {
+        implicitKeys.set(keyId);
+      }
+    }
+
+    inComponent = new BitSet(keyCount);
+    queued = new BitSet(keyCount);
+    queue = new int[keyCount];
+
+    positionComponentsInReverseTopologicalOrder(graph);
+
+    for (int key = 0; key < keyCount; key++) {
+      if (currentLevels[key] != initialLevels[key]) {
+        positions.put(graph.getKey(key), pathToRoot.get(currentLevels[key]));
+      }
+    }
+  }
+
+  /**
+   * Finds the strongly connected components of the dependency graph using Tarjan's algorithm, and
+   * positions each of them as soon as it is found.  Tarjan's algorithm completes a component only
+   * after all components reachable from it, which is exactly the order we need.
+   *
+   * <p>The depth-first search uses an explicit stack, since chains of implicit bindings can be
+   * arbitrarily long.
+   */
+  private void positionComponentsInReverseTopologicalOrder(DependencyGraph graph) {
+    int keyCount = graph.getKeyCount();
+    int[] index = new int[keyCount];
+    Arrays.fill(index, -1);
+    int[] lowLink = new int[keyCount];
+    int nextIndex = 0;
+
+    // Keys of the components that are still being discovered.
+    int[] componentStack = new int[keyCount];
+    int componentStackSize = 0;
+    BitSet onComponentStack = new BitSet(keyCount);
+
+    // The depth-first search path, and for each key on it the next outgoing edge to follow.
+    int[] path = new int[keyCount];
+    int[] nextEdge = new int[keyCount];
+    int pathSize = 0;
+
+    for (int root = 0; root < keyCount; root++) {
+      if (index[root] >= 0) {
+        continue;
+      }
+
+      index[root] = lowLink[root] = nextIndex++;
+      componentStack[componentStackSize++] = root;
+      onComponentStack.set(root);
+      path[pathSize] = root;
+      nextEdge[pathSize++] = graph.getOutgoingBegin(root);
+
+      while (pathSize > 0) {
+        int key = path[pathSize - 1];
+        int edge = nextEdge[pathSize - 1];
+        if (edge < graph.getOutgoingEnd(key)) {
+          nextEdge[pathSize - 1]++;
+          int dependency = graph.getOutgoing(edge);
+          if (graph.isRemovedFromSource(dependency)) {
+            continue;
+          }
+
+          int target = graph.getTargetId(dependency);
+          if (index[target] < 0) {
+            index[target] = lowLink[target] = nextIndex++;
+            componentStack[componentStackSize++] = target;
+            onComponentStack.set(target);
+            path[pathSize] = target;
+            nextEdge[pathSize++] = graph.getOutgoingBegin(target);
+          } else if (onComponentStack.get(target)) {
+            lowLink[key] = Math.min(lowLink[key], index[target]);
+          }
+        } else {
+          pathSize--;
+          if (pathSize > 0) {
+            int parent = path[pathSize - 1];
+            lowLink[parent] = Math.min(lowLink[parent], lowLink[key]);
+          }
+
+          if (lowLink[key] == index[key]) {
+            int componentEnd = componentStackSize;
+            do {
+              onComponentStack.clear(componentStack[--componentStackSize]);
+            } while (componentStack[componentStackSize] != key);
+            positionComponent(graph, componentStack, componentStackSize, componentEnd);
+          }
         }
       }
     }
   }
-  
+
   /**
-   * Returns the injectors where the dependencies for node are currently placed.
+   * Iterates on the position equation for the keys {@code keys[begin]} to {@code keys[end - 1]},
+   * which form a strongly connected component whose dependencies outside the component have all
+   * been positioned already.
    */
-  private Set<GinjectorBindings> getSourceGinjectors(Key<?> key) {
-    Set<GinjectorBindings> sourceInjectors = new LinkedHashSet<GinjectorBindings>();
-    for (Dependency dep : output.getGraph().getDependenciesOf(key)) {
-      sourceInjectors.add(positions.get(dep.getTarget()));
+  private void positionComponent(DependencyGraph graph, int[] keys, int begin, int end) {
+    int size = end - begin;
+    int queueHead = 0;
+    int queueSize = 0;
+
+    for (int i = begin; i < end; i++) {
+      inComponent.set(keys[i]);
+    }
+
+    for (int i = begin; i < end; i++) {
+      int key = keys[i];
+      if (implicitKeys.get(key) || hasMovedDependency(graph, key)) {
+        queue[queueSize++] = key;
+        queued.set(key);
+      }
+    }
+
+    while (queueSize > 0) {
+      int key = queue[queueHead];
+      queueHead = (queueHead + 1) % size;
+      queueSize--;
+      queued.clear(key);
+
+      int newLevel = currentLevels[key];
+      for (int i = graph.getOutgoingBegin(key); i < graph.getOutgoingEnd(key); i++) {
+        int dependency = graph.getOutgoing(i);
+        if (!graph.isRemovedFromSource(dependency)) {
+          newLevel = Math.min(newLevel, currentLevels[graph.getTargetId(dependency)]);
+        }
+      }
+      Preconditions.checkState(newLevel != UNPOSITIONED, "Should never make it to null");
+
+      if (newLevel != currentLevels[key]) {
+        PrettyPrinter.log(logger, TreeLogger.DEBUG,
+            "Moved the highest visible position of %s from %s to %s.", graph.getKey(key),
+            getPosition(graph, currentLevels[key]), getPosition(graph, newLevel));
+        currentLevels[key] = newLevel;
+
+        // Keys outside the component that depend on this key come later in the topological order,
+        // and will see its final position.
+        for (int i = graph.getIncomingBegin(key); i < graph.getIncomingEnd(key); i++) {
+          int dependency = graph.getIncoming(i);
+          int source = graph.getSourceId(dependency);
+          if (!graph.isRemovedFromTarget(dependency) && inComponent.get(source)
+              && !queued.get(source)) {
+            PrettyPrinter.log(logger, TreeLogger.DEBUG, "Re-enqueuing %s due to %s",
+                graph.getKey(source), graph.getDependency(dependency));
+            queue[(queueHead + queueSize++) % size] = source;
+            queued.set(source);
+          }
+        }
+      }
+    }
+
+    for (int i = begin; i < end; i++) {
+      inComponent.clear(keys[i]);
     }
-    return sourceInjectors;
   }
-  
+
   /**
-   * Returns the member of {@code sources} closest to the origin.
+   * Returns whether any of the key's dependencies was moved from its initial position.
    */
-  private GinjectorBindings lowest(Set<GinjectorBindings> sources) {
-    GinjectorBindings lowest = output.getGraph().getOrigin();
-    while (!sources.contains(lowest)) {
-      lowest = lowest.getParent();
+  private boolean hasMovedDependency(DependencyGraph graph, int key) {
+    for (int i = graph.getOutgoingBegin(key); i < graph.getOutgoingEnd(key); i++) {
+      int dependency = graph.getOutgoing(i);
+      int target = graph.getTargetId(dependency);
+      if (!graph.isRemovedFromSource(dependency)
+          && currentLevels[target] != initialLevels[target]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private GinjectorBindings getPosition(DependencyGraph graph, int level) {
+    if (level == UNPOSITIONED) {
+      return null;
+    }
+
+    GinjectorBindings position = graph.getOrigin();
+    for (int i = 0; i < level; i++) {
+      position = position.getParent();
     }
-    return Preconditions.checkNotNull(lowest, "Should never make it to null");
+    return position;
   }
 
   interface Factory {
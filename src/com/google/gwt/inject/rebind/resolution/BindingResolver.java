@@ -61,13 +61,33 @@ public class BindingResolver {
   }
   
   public void resolveBindings(GinjectorBindings origin) {
+    resolveBindings(origin, null);
+  }
+
+  /**
+   * Resolves the bindings of the given ginjector, reusing the given
+   * exploration of its dependencies (see {@link #explore}) if it is not
+   * {@code null} and still up to date.
+   */
+  public void resolveBindings(GinjectorBindings origin, DependencyExplorerOutput exploration) {
     TreeLogger branch = logger.branch(TreeLogger.DEBUG, PrettyPrinter.format(
         "Resolving bindings for %s", origin));
 
-    // Use providers so that the instances are cleaned up after this method.  This ensures that even
-    // though BindingResolver may be held on to (eg, {@link GinjectorBindings}, we won't leak
-    // memory used for temporary storage during resolution.
-    DependencyExplorerOutput output = explorerFactory.create(branch).explore(origin);
+    DependencyExplorerOutput output;
+    if (exploration != null && exploration.isUpToDate()) {
+      branch.log(TreeLogger.DEBUG, "Using the dependency graph explored ahead of time.");
+      output = exploration;
+    } else {
+      if (exploration != null) {
+        branch.log(TreeLogger.DEBUG,
+            "The dependency graph explored ahead of time is out of date, exploring again.");
+      }
+
+      // Use providers so that the instances are cleaned up after this method.  This ensures that
+      // even though BindingResolver may be held on to (eg, {@link GinjectorBindings}, we won't
+      // leak memory used for temporary storage during resolution.
+      output = explorerFactory.create(branch).explore(origin);
+    }
     
     UnresolvedBindingValidator validator = validatorFactory.create(branch);
     InvalidKeys invalidKeys = validator.getInvalidKeys(output);
@@ -76,4 +96,21 @@ public class BindingResolver {
       installerFactory.create(branch).installBindings(output);
     }
   }
+
+  /**
+   * Explores the dependencies of the given ginjector ahead of
+   * {@link #resolveBindings(GinjectorBindings, DependencyExplorerOutput)},
+   * without modifying any ginjector.  Safe to call concurrently with the
+   * resolution of other ginjectors of the same hierarchy, as long as those
+   * only modify the hierarchy while holding its
+   * {@link GinjectorBindings#getHierarchyLock lock}.
+   *
+   * <p>May be called off the generator's thread, so nothing is logged; see
+   * {@link DependencyExplorer#exploreConcurrently} for what the exploration
+   * may do.
+   */
+  public DependencyExplorerOutput explore(GinjectorBindings origin) {
+    return explorerFactory.create(TreeLogger.NULL)
+        .exploreConcurrently(origin, origin.getHierarchyLock());
+  }
 }
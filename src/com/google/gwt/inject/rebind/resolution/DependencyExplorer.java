@@ -18,6 +18,9 @@ package com.google.gwt.inject.rebind.resolution;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.TreeLogger.Type;
 import com.google.gwt.dev.util.Preconditions;
+import com.google.gwt.inject.rebind.GeneratorProfiler;
+import com.google.gwt.inject.rebind.GeneratorProfiler.Counter;
+import com.google.gwt.inject.rebind.GeneratorProfiler.Phase;
 import com.google.gwt.inject.rebind.GinjectorBindings;
 import com.google.gwt.inject.rebind.binding.Binding;
 import com.google.gwt.inject.rebind.binding.Dependency;
@@ -28,8 +31,11 @@ import com.google.inject.Inject;
 import com.google.inject.Key;
 import com.google.inject.assistedinject.Assisted;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -48,11 +54,20 @@ public class DependencyExplorer {
   private final Set<Key<?>> visited = new LinkedHashSet<Key<?>>();
   
   private final ImplicitBindingCreator bindingCreator;
+
+  private final GeneratorProfiler profiler;
+
+  /**
+   * Lock held while looking up keys in the ginjector hierarchy, if it may be
+   * modified concurrently; see {@link #exploreConcurrently}.
+   */
+  private Object hierarchyLock;
   
   @Inject
   public DependencyExplorer(ImplicitBindingCreator.Factory bindingCreatorFactory,
-      @Assisted TreeLogger logger) {
+      GeneratorProfiler profiler, @Assisted TreeLogger logger) {
     this.bindingCreator = bindingCreatorFactory.create(logger);
+    this.profiler = profiler;
     this.logger = logger;
   }
   
@@ -64,6 +79,33 @@ public class DependencyExplorer {
    * @param origin the ginjector to build a dependency graph for
    */
   public DependencyExplorerOutput explore(GinjectorBindings origin) {
+    GeneratorProfiler.Timer timer = profiler.start(Phase.DEPENDENCY_EXPLORATION, origin);
+    try {
+      return doExplore(origin);
+    } finally {
+      timer.stop();
+    }
+  }
+
+  /**
+   * Explores the origin like {@link #explore}, while other ginjectors of its
+   * hierarchy may be modified concurrently, as long as that only happens while
+   * holding the given lock.  The origin itself must not be modified.
+   *
+   * <p>The exploration may run on any thread: implicit bindings are created
+   * by a {@link ImplicitBindingCreator#detach detached} creator, which throws
+   * a {@link ImplicitBindingCreator.DetachedCreationException} for keys whose
+   * binding depends on the generator context.  Such origins have to be
+   * explored on the generator's thread instead.
+   */
+  public DependencyExplorerOutput exploreConcurrently(GinjectorBindings origin,
+      Object hierarchyLock) {
+    this.hierarchyLock = hierarchyLock;
+    bindingCreator.detach();
+    return explore(origin);
+  }
+
+  private DependencyExplorerOutput doExplore(GinjectorBindings origin) {
     DependencyExplorerOutput output = new DependencyExplorerOutput();
     DependencyGraph.Builder builder = new DependencyGraph.Builder(origin);
     
@@ -80,7 +122,7 @@ public class DependencyExplorer {
               "Registering %s as available at %s because of the dependency %s", edge.getSource(),
               origin, edge);
         output.preExistingBindings.put(edge.getSource(), 
-            locateHighestAccessibleSource(edge.getSource(), origin));
+            locateSource(edge.getSource(), origin));
       }
 
       PrettyPrinter.log(logger, TreeLogger.DEBUG,
@@ -93,10 +135,48 @@ public class DependencyExplorer {
     return output;
   }
  
-  private void visit(Key<?> key, DependencyGraph.Builder builder, 
+  /**
+   * Visits the given key and, depth-first, all keys its implicit binding depends on that haven't
+   * been visited yet.
+   *
+   * <p>Chains of implicit bindings can be arbitrarily long, so the search uses an explicit stack
+   * holding the keys whose implicit bindings are being explored, innermost key first.
+   */
+  private void visit(Key<?> key, DependencyGraph.Builder builder,
       DependencyExplorerOutput output, GinjectorBindings origin) {
+    Deque<VisitFrame> stack = new ArrayDeque<VisitFrame>();
+    try {
+      enter(key, stack, output, origin);
+      while (!stack.isEmpty()) {
+        VisitFrame frame = stack.peek();
+        if (frame.dependencies.hasNext()) {
+          Dependency edge = frame.dependencies.next();
+          PrettyPrinter.log(logger, TreeLogger.DEBUG, "Following %s", edge);
+          builder.addEdge(edge);
+          enter(edge.getTarget(), stack, output, origin);
+        } else {
+          // Do this *after* visiting all dependencies so that that the ordering is post-order
+          output.implicitBindings.put(frame.key, frame.binding);
+          stack.pop();
+        }
+      }
+    } catch (RuntimeException e) {
+      for (VisitFrame frame : stack) {
+        logger.log(Type.ERROR, "Exception while visiting " + frame.key);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Starts visiting the given key if it hasn't been visited yet.  If we create an implicit binding
+   * for it, pushes it on the stack so that its dependencies are visited next.
+   */
+  private void enter(Key<?> key, Deque<VisitFrame> stack, DependencyExplorerOutput output,
+      GinjectorBindings origin) {
     if (visited.add(key)) {
-      GinjectorBindings accessibleSource = locateHighestAccessibleSource(key, origin);
+      profiler.increment(Counter.KEYS_EXPLORED, origin);
+      GinjectorBindings accessibleSource = locateSource(key, origin);
       if (accessibleSource != null) {
         PrettyPrinter.log(logger, TreeLogger.DEBUG, "Using binding of %s in %s.", key,
             accessibleSource);
@@ -104,17 +184,10 @@ public class DependencyExplorer {
       } else {
         try {
           Binding binding = bindingCreator.create(key);
+          profiler.increment(Counter.IMPLICIT_BINDINGS_CREATED, origin);
           PrettyPrinter.log(logger, TreeLogger.DEBUG, "Implicitly bound %s in %s using %s.", key,
               origin, binding);
-          
-          for (Dependency edge : binding.getDependencies()) {
-            PrettyPrinter.log(logger, TreeLogger.DEBUG, "Following %s", edge);
-            builder.addEdge(edge);
-            visit(edge.getTarget(), builder, output, origin);
-          }
-          
-          // Do this *after* visiting all dependencies so that that the ordering is post-order
-          output.implicitBindings.put(key, binding);
+          stack.push(new VisitFrame(key, binding));
         } catch (BindingCreationException e) {
           PrettyPrinter.log(logger, TreeLogger.DEBUG, "Implicit binding failed for %s: %s", key,
               e.getMessage());
@@ -126,6 +199,21 @@ public class DependencyExplorer {
       }
     }
   }
+
+  /**
+   * A key with an implicit binding whose dependencies are being visited.
+   */
+  private static class VisitFrame {
+    final Key<?> key;
+    final Binding binding;
+    final Iterator<Dependency> dependencies;
+
+    VisitFrame(Key<?> key, Binding binding) {
+      this.key = key;
+      this.binding = binding;
+      this.dependencies = binding.getDependencies().iterator();
+    }
+  }
   
   /**
    * Find the highest binding in the Ginjector tree that could be used to supply the given key.
@@ -137,7 +225,8 @@ public class DependencyExplorer {
    * @param key The binding to search for
    * @return the highest ginjector that contains the key or {@code null} if none contain it
    */
-  private GinjectorBindings locateHighestAccessibleSource(Key<?> key, GinjectorBindings origin) {
+  private static GinjectorBindings locateHighestAccessibleSource(Key<?> key,
+      GinjectorBindings origin) {
     // If we don't already have a binding, and the key is "pinned", it means that this injector
     // is supposed to contain a binding, but it needs to have one created implicitly.  We return
     // null so that we attempt to create the implicit binding.
@@ -156,6 +245,21 @@ public class DependencyExplorer {
     }
     return source;
   }
+
+  /**
+   * Like {@link #locateHighestAccessibleSource(Key, GinjectorBindings)}, but
+   * holding the hierarchy lock, if any.
+   */
+  private GinjectorBindings locateSource(Key<?> key, GinjectorBindings origin) {
+    if (hierarchyLock == null) {
+      return locateHighestAccessibleSource(key, origin);
+    }
+
+    synchronized (hierarchyLock) {
+      return locateHighestAccessibleSource(key, origin);
+    }
+  }
+
   
   /**
    * Class that packages up all the output of exploring the unresolved dependencies for a Ginjector.
@@ -228,6 +332,37 @@ public class DependencyExplorer {
     public DependencyGraph getGraph() {
       return graph;
     }
+
+    /**
+     * Returns {@code true} if exploring the origin again would yield the same
+     * output, i.e. if every key that was found to be available still is
+     * available at the same ginjector, and every key that wasn't still isn't.
+     * Exploring only depends on these lookups, so an exploration done ahead
+     * of time can be used as long as they didn't change.
+     *
+     * <p>Must not be called while the hierarchy is modified concurrently.
+     */
+    public boolean isUpToDate() {
+      GinjectorBindings origin = graph.getOrigin();
+      for (Map.Entry<Key<?>, GinjectorBindings> entry : preExistingBindings.entrySet()) {
+        if (locateHighestAccessibleSource(entry.getKey(), origin) != entry.getValue()) {
+          return false;
+        }
+      }
+
+      for (Key<?> key : implicitBindings.keySet()) {
+        if (locateHighestAccessibleSource(key, origin) != null) {
+          return false;
+        }
+      }
+
+      for (Key<?> key : bindingErrors.keySet()) {
+        if (locateHighestAccessibleSource(key, origin) != null) {
+          return false;
+        }
+      }
+      return true;
+    }
   }
 
   public interface Factory {
@@ -15,17 +15,22 @@
  */
 package com.google.gwt.inject.rebind.resolution;
 
-import com.google.gwt.dev.util.Preconditions;
 import com.google.gwt.inject.rebind.GinjectorBindings;
 import com.google.gwt.inject.rebind.binding.Binding;
 import com.google.gwt.inject.rebind.binding.Dependency;
 import com.google.inject.Key;
 
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -51,30 +56,147 @@ import java.util.Set;
  * that do not already exist and for which we cannot create an implicit binding.
  * </li>
  * </ul>
+ *
+ * <p>Internally, every key is interned to a dense integer id and every
+ * dependency is numbered in the order it was added.  The dependencies of and
+ * targeting each key are stored in compressed sparse row form: one array of
+ * dependency ids sorted by key, and one array of offsets into it per key.
+ * Graph algorithms in this package can work directly on these ids (see
+ * {@link #getKeyId}, {@link #getOutgoingBegin} and friends), tracking sets of
+ * keys as {@link BitSet}s instead of hash sets.  All iteration orders are the
+ * insertion orders, so error messages (and tests) are stable.
  */
 public class DependencyGraph {
 
+  private final GinjectorBindings origin;
+
   /**
-   * For each key, this stores the set of {@link Dependency}s that have the key as their source.
+   * Interned keys, by id.
    */
-  private final Map<Key<?>, Set<Dependency>> dependenciesOf;
+  private final List<Key<?>> keys;
 
   /**
-   * For each key, this stores the set of {@link Dependency}s that have the key as their target.
+   * Ids of interned keys.
    */
-  private final Map<Key<?>, Set<Dependency>> dependenciesTargeting;
+  private final Map<Key<?>, Integer> keyIds;
 
-  private final GinjectorBindings origin;
+  /**
+   * All dependencies, by id, in the order they were added.
+   */
+  private final Dependency[] dependencies;
+  private final int[] sourceIds;
+  private final int[] targetIds;
+
+  /**
+   * Ids of the dependencies with key {@code k} as their source are
+   * {@code outgoing[outgoingOffsets[k]]} up to (excluding)
+   * {@code outgoing[outgoingOffsets[k + 1]]}, in the order they were added.
+   */
+  private final int[] outgoingOffsets;
+  private final int[] outgoing;
+
+  /**
+   * Like {@link #outgoing}, for the dependencies with key {@code k} as their
+   * target.
+   */
+  private final int[] incomingOffsets;
+  private final int[] incoming;
+
+  /**
+   * Ids of all keys that are the target of a dependency, in the order they
+   * were first targeted.
+   */
+  private final int[] targetedKeys;
 
-  private DependencyGraph(GinjectorBindings origin, Map<Key<?>, Set<Dependency>> dependenciesOf,
-      Map<Key<?>, Set<Dependency>> dependenciesTargeting) {
+  /**
+   * Dependencies a {@link GraphPruner} removed from the dependencies of their
+   * source, and from the dependencies targeting their target, respectively.
+   * Pruning a key removes its outgoing dependencies from their targets and its
+   * incoming dependencies from their sources, but the key itself keeps both.
+   */
+  private final BitSet removedFromSource = new BitSet();
+  private final BitSet removedFromTarget = new BitSet();
+
+  /**
+   * Number of dependencies targeting each key that aren't removed from it.
+   */
+  private final int[] incomingCounts;
+
+  /**
+   * Number of keys with a non-zero {@link #incomingCounts} entry.
+   */
+  private int size;
+
+  private DependencyGraph(GinjectorBindings origin, Collection<Dependency> edges) {
     this.origin = origin;
-    this.dependenciesOf = dependenciesOf;
-    this.dependenciesTargeting = dependenciesTargeting;
+    this.keys = new ArrayList<Key<?>>();
+    this.keyIds = new HashMap<Key<?>, Integer>();
+    this.dependencies = edges.toArray(new Dependency[edges.size()]);
+    this.sourceIds = new int[dependencies.length];
+    this.targetIds = new int[dependencies.length];
+
+    for (int i = 0; i < dependencies.length; i++) {
+      sourceIds[i] = intern(dependencies[i].getSource());
+      targetIds[i] = intern(dependencies[i].getTarget());
+    }
+
+    this.outgoingOffsets = new int[keys.size() + 1];
+    this.outgoing = sortByKey(sourceIds, outgoingOffsets);
+    this.incomingOffsets = new int[keys.size() + 1];
+    this.incoming = sortByKey(targetIds, incomingOffsets);
+
+    // A key may be seen as a source before it is first targeted.
+    this.incomingCounts = new int[keys.size()];
+    BitSet seen = new BitSet(keys.size());
+    int[] targeted = new int[keys.size()];
+    int count = 0;
+    for (int i = 0; i < dependencies.length; i++) {
+      int target = targetIds[i];
+      incomingCounts[target]++;
+      if (!seen.get(target)) {
+        seen.set(target);
+        targeted[count++] = target;
+      }
+    }
+    this.targetedKeys = new int[count];
+    System.arraycopy(targeted, 0, targetedKeys, 0, count);
+    this.size = count;
+  }
+
+  private int intern(Key<?> key) {
+    Integer id = keyIds.get(key);
+    if (id == null) {
+      id = keys.size();
+      keys.add(key);
+      keyIds.put(key, id);
+    }
+    return id;
+  }
+
+  /**
+   * Counting sort of the dependency ids by the given key of each dependency,
+   * stable with respect to the dependency ids.  Fills in the offsets of each
+   * key's range of dependency ids.
+   */
+  private static int[] sortByKey(int[] keyOfDependency, int[] offsets) {
+    for (int key : keyOfDependency) {
+      offsets[key + 1]++;
+    }
+    for (int k = 1; k < offsets.length; k++) {
+      offsets[k] += offsets[k - 1];
+    }
+
+    int[] next = new int[offsets.length - 1];
+    System.arraycopy(offsets, 0, next, 0, next.length);
+    int[] sorted = new int[keyOfDependency.length];
+    for (int i = 0; i < keyOfDependency.length; i++) {
+      sorted[next[keyOfDependency[i]]++] = i;
+    }
+    return sorted;
   }
 
   public int size() {
-    return dependenciesTargeting.size();
+    return size;
   }
 
   public GinjectorBindings getOrigin() {
@@ -82,15 +204,17 @@ public class DependencyGraph {
   }
   
   public Collection<Dependency> getDependenciesOf(Key<?> key) {
-    Set<Dependency> dependencySet = dependenciesOf.get(key);
-    return dependencySet == null ? Collections.<Dependency>emptyList() 
-        : Collections.unmodifiableCollection(dependencySet);
+    int id = getKeyId(key);
+    return id < 0 ? Collections.<Dependency>emptyList()
+        : new DependencyRange(outgoing, outgoingOffsets[id], outgoingOffsets[id + 1],
+            removedFromSource);
   }
 
   public Collection<Dependency> getDependenciesTargeting(Key<?> key) {
-    Collection<Dependency> dependencySet = dependenciesTargeting.get(key);
-    return dependencySet == null ? Collections.<Dependency>emptyList() 
-        : Collections.unmodifiableCollection(dependencySet);
+    int id = getKeyId(key);
+    return id < 0 ? Collections.<Dependency>emptyList()
+        : new DependencyRange(incoming, incomingOffsets[id], incomingOffsets[id + 1],
+            removedFromTarget);
   }
   
   /**
@@ -99,13 +223,207 @@ public class DependencyGraph {
    */
   public Iterable<Key<?>> getAllKeys() {
     // All keys in the graph should be reachable from the Ginjector, which means they must appear as
-    // the target of some dependency.  Thus, the keyset covers all nodes.
-    return dependenciesTargeting.keySet();
+    // the target of some dependency.  Thus, the targeted keys cover all nodes.
+    return new Iterable<Key<?>>() {
+      public Iterator<Key<?>> iterator() {
+        return new Iterator<Key<?>>() {
+          private int next = advance(0);
+
+          private int advance(int index) {
+            while (index < targetedKeys.length && incomingCounts[targetedKeys[index]] == 0) {
+              index++;
+            }
+            return index;
+          }
+
+          public boolean hasNext() {
+            return next < targetedKeys.length;
+          }
+
+          public Key<?> next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            Key<?> key = keys.get(targetedKeys[next]);
+            next = advance(next + 1);
+            return key;
+          }
+
+          public void remove() {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+    };
+  }
+
+  // Index-based access for the graph algorithms of this package.
+
+  /**
+   * Returns the number of interned keys; key ids range from 0 (inclusive) to
+   * this number (exclusive).
+   */
+  int getKeyCount() {
+    return keys.size();
+  }
+
+  /**
+   * Returns the id of the given key, or -1 if the key doesn't appear in the
+   * graph.
+   */
+  int getKeyId(Key<?> key) {
+    Integer id = keyIds.get(key);
+    return id == null ? -1 : id;
+  }
+
+  Key<?> getKey(int keyId) {
+    return keys.get(keyId);
+  }
+
+  Dependency getDependency(int dependencyId) {
+    return dependencies[dependencyId];
+  }
+
+  int getSourceId(int dependencyId) {
+    return sourceIds[dependencyId];
+  }
+
+  int getTargetId(int dependencyId) {
+    return targetIds[dependencyId];
+  }
+
+  /**
+   * Returns whether a {@link GraphPruner} removed the given dependency from
+   * the dependencies of its source.  Removed dependencies still occupy their
+   * slots in the ranges returned by {@link #getOutgoingBegin} etc. and must be
+   * skipped by callers iterating over outgoing dependencies.
+   */
+  boolean isRemovedFromSource(int dependencyId) {
+    return removedFromSource.get(dependencyId);
+  }
+
+  /**
+   * Like {@link #isRemovedFromSource}, for the dependencies targeting the
+   * dependency's target, as iterated over through {@link #getIncomingBegin}
+   * etc.
+   */
+  boolean isRemovedFromTarget(int dependencyId) {
+    return removedFromTarget.get(dependencyId);
+  }
+
+  /**
+   * The dependencies with the given key as their source are
+   * {@code getOutgoing(i)} for {@code getOutgoingBegin(keyId) <= i <
+   * getOutgoingEnd(keyId)}.
+   */
+  int getOutgoingBegin(int keyId) {
+    return outgoingOffsets[keyId];
+  }
+
+  int getOutgoingEnd(int keyId) {
+    return outgoingOffsets[keyId + 1];
+  }
+
+  int getOutgoing(int index) {
+    return outgoing[index];
+  }
+
+  /**
+   * The dependencies with the given key as their target are
+   * {@code getIncoming(i)} for {@code getIncomingBegin(keyId) <= i <
+   * getIncomingEnd(keyId)}.
+   */
+  int getIncomingBegin(int keyId) {
+    return incomingOffsets[keyId];
+  }
+
+  int getIncomingEnd(int keyId) {
+    return incomingOffsets[keyId + 1];
+  }
+
+  int getIncoming(int index) {
+    return incoming[index];
+  }
+
+  private void removeFromSource(int dependencyId) {
+    removedFromSource.set(dependencyId);
+  }
+
+  private void removeFromTarget(int dependencyId) {
+    if (!removedFromTarget.get(dependencyId)) {
+      removedFromTarget.set(dependencyId);
+      if (--incomingCounts[targetIds[dependencyId]] == 0) {
+        size--;
+      }
+    }
+  }
+
+  /**
+   * Unmodifiable view of a range of dependency ids in {@link #outgoing} or
+   * {@link #incoming}, skipping the given removed dependencies.
+   */
+  private class DependencyRange extends AbstractCollection<Dependency> {
+    private final int[] ids;
+    private final int begin;
+    private final int end;
+    private final BitSet removed;
+
+    DependencyRange(int[] ids, int begin, int end, BitSet removed) {
+      this.ids = ids;
+      this.begin = begin;
+      this.end = end;
+      this.removed = removed;
+    }
+
+    @Override
+    public Iterator<Dependency> iterator() {
+      return new Iterator<Dependency>() {
+        private int next = advance(begin);
+
+        private int advance(int index) {
+          while (index < end && removed.get(ids[index])) {
+            index++;
+          }
+          return index;
+        }
+
+        public boolean hasNext() {
+          return next < end;
+        }
+
+        public Dependency next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          Dependency dependency = dependencies[ids[next]];
+          next = advance(next + 1);
+          return dependency;
+        }
+
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      if (removed.isEmpty()) {
+        return end - begin;
+      }
+
+      int size = 0;
+      for (int i = begin; i < end; i++) {
+        if (!removed.get(ids[i])) {
+          size++;
+        }
+      }
+      return size;
+    }
   }
 
   public static class Builder {
-    private final Map<Key<?>, Set<Dependency>> dependenciesOf;
-    private final Map<Key<?>, Set<Dependency>> dependenciesTargeting;
+    private final Set<Dependency> dependencies;
     private final GinjectorBindings origin;
 
     /**
@@ -115,30 +433,17 @@ public class DependencyGraph {
      */
     public Builder(GinjectorBindings origin) {
       this.origin = origin;
-      // Use linked hash maps so that error messages (and tests) are stable
-      this.dependenciesOf = new LinkedHashMap<Key<?>, Set<Dependency>>();
-      this.dependenciesTargeting = new LinkedHashMap<Key<?>, Set<Dependency>>();
+      // Use a linked hash set so that error messages (and tests) are stable
+      this.dependencies = new LinkedHashSet<Dependency>();
     }
    
     public Builder addEdge(Dependency dependency) {
-      addTo(dependency.getSource(), dependency, dependenciesOf);
-      addTo(dependency.getTarget(), dependency, dependenciesTargeting);
+      dependencies.add(dependency);
       return this;
     }
 
-    private void addTo(
-        Key<?> key, Dependency dependency, Map<Key<?>, Set<Dependency>> dependencies) {
-      Set<Dependency> dependencySet = dependencies.get(key);
-      if (dependencySet == null) {
-        // Use LinkedHashSet so that error messages (and tests) are stable
-        dependencySet = new LinkedHashSet<Dependency>();
-        dependencies.put(key, dependencySet);
-      }
-      dependencySet.add(dependency);
-    }
-
     public DependencyGraph build() {
-      return new DependencyGraph(origin, dependenciesOf, dependenciesTargeting);
+      return new DependencyGraph(origin, dependencies);
     }
   }
 
@@ -160,30 +465,26 @@ public class DependencyGraph {
      * Removes the given key, all its incoming edges, and all its outgoing edges, from the graph.
      */
     public GraphPruner remove(Key<?> key) {
-      for (Dependency dependency : source.getDependenciesOf(key)) {
-        removeFrom(dependency.getTarget(), dependency, source.dependenciesTargeting);
+      int id = source.getKeyId(key);
+      if (id < 0) {
+        return this;
       }
-      
-      for (Dependency dependency : source.getDependenciesTargeting(key)) {
-        removeFrom(dependency.getSource(), dependency, source.dependenciesOf);
-      }
-      
-      return this;
-    }
-    
-    private void removeFrom(Key<?> key, Dependency dependency, 
-        Map<Key<?>, Set<Dependency>> dependencies) {
-      Set<Dependency> dependencySet = dependencies.get(key);
-      Preconditions.checkNotNull(dependencySet,
-          "Expected dependency set to be present for dependency %s", key);
-      if (!dependencySet.remove(dependency)) {
-        throw new IllegalStateException(String.format(
-            "Expected %s to be present in the dependency set", dependency));
+
+      for (int i = source.getOutgoingBegin(id); i < source.getOutgoingEnd(id); i++) {
+        int dependency = source.getOutgoing(i);
+        if (!source.isRemovedFromSource(dependency)) {
+          source.removeFromTarget(dependency);
+        }
       }
-      
-      if (dependencySet.isEmpty()) {
-        dependencies.remove(key);
+
+      for (int i = source.getIncomingBegin(id); i < source.getIncomingEnd(id); i++) {
+        int dependency = source.getIncoming(i);
+        if (!source.isRemovedFromTarget(dependency)) {
+          source.removeFromSource(dependency);
+        }
       }
+
+      return this;
     }
 
     public DependencyGraph update() {
@@ -16,17 +16,16 @@
 package com.google.gwt.inject.rebind.resolution;
 
 import com.google.gwt.inject.rebind.ErrorManager;
+import com.google.gwt.inject.rebind.GeneratorProfiler;
+import com.google.gwt.inject.rebind.GeneratorProfiler.Phase;
 import com.google.gwt.inject.rebind.binding.Dependency;
 import com.google.inject.Inject;
 import com.google.inject.Key;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 /**
  * Searches for "eager" cycles in the dependency graph.  These are cycles that do not pass through
@@ -43,25 +42,39 @@ import java.util.Set;
 public class EagerCycleFinder {
   
   /**
-   * For each key that has been visited, this maps to the eager edge that was followed to reach the
-   * node, or null if it was used in the initial call to visit.
+   * Ids of the keys that have been visited.
    */
-  private Map<Key<?>, Dependency> visitedEdge;
+  private BitSet visited;
+
+  /**
+   * For each key id that has been visited, this holds the id of the eager edge that was followed to
+   * reach the node, or -1 if it was used in the initial call to visit.
+   */
+  private int[] visitedEdge;
   
   /**
-   * Nodes that are active in the current DFS.  Revisiting any of these nodes indicates an eager
-   * cycle, and should be reported as a problem.
+   * Ids of the nodes that are active in the current DFS.  Revisiting any of these nodes indicates
+   * an eager cycle, and should be reported as a problem.
+   */
+  private BitSet dfsStack;
+
+  /**
+   * The keys in the current DFS, outermost first, and for each the index of the next outgoing
+   * edge to follow.
    */
-  private Set<Key<?>> dfsStack = new LinkedHashSet<Key<?>>();
+  private int[] stackKeys;
+  private int[] stackNextEdges;
   
   private final ErrorManager errorManager;
+  private final GeneratorProfiler profiler;
 
   private boolean cycleDetected = false;
   private DependencyGraph graph;
   
   @Inject
-  public EagerCycleFinder(ErrorManager errorManager) {
+  public EagerCycleFinder(ErrorManager errorManager, GeneratorProfiler profiler) {
     this.errorManager = errorManager;
+    this.profiler = profiler;
   }
   
   /**
@@ -72,51 +85,93 @@ public class EagerCycleFinder {
   public boolean findAndReportCycles(DependencyGraph graph) {
     this.graph = graph;
     cycleDetected = false;
-    visitedEdge = new LinkedHashMap<Key<?>, Dependency>(graph.size());
-    
-    for (Key<?> key : graph.getAllKeys()) {
-      visit(key, null);
+    visited = new BitSet(graph.getKeyCount());
+    visitedEdge = new int[graph.getKeyCount()];
+    dfsStack = new BitSet(graph.getKeyCount());
+    stackKeys = new int[graph.getKeyCount()];
+    stackNextEdges = new int[graph.getKeyCount()];
+
+    GeneratorProfiler.Timer timer =
+        profiler.start(Phase.EAGER_CYCLE_DETECTION, graph.getOrigin());
+    try {
+      for (Key<?> key : graph.getAllKeys()) {
+        visit(graph.getKeyId(key));
+      }
+    } finally {
+      timer.stop();
     }
 
     return cycleDetected;
   }
   
-  private void visit(Key<?> key, Dependency edge) {
-    // If we loop back to a key that is "active" in the current DFS, we have found an eager cycle.
-    if (!dfsStack.add(key)) {
-      reportCycle(edge);
+  /**
+   * Runs a depth-first search over the eager edges from the given key.
+   *
+   * <p>Chains of dependencies can be arbitrarily long, so the search uses an explicit stack: the
+   * keys in {@link #dfsStack}, in order, with the next outgoing edge to follow for each of them.
+   */
+  private void visit(int root) {
+    // Keys that were discovered from an earlier root have been fully explored already.
+    if (visited.get(root)) {
       return;
     }
-    
-    // If this is a first time an edge to the target has been visited, we're "discovering" it.
-    // We need to recursively walk over the dependencies.
-    if (!visitedEdge.containsKey(key)) {
-      visitedEdge.put(key, edge);
-      for (Dependency nextEdge : graph.getDependenciesOf(key)) {
-        if (!nextEdge.isLazy()) {
-          visit(nextEdge.getTarget(), nextEdge); // Recursively visit eager edges in the current DFS
+    int stackSize = enter(root, -1, 0);
+
+    while (stackSize > 0) {
+      int key = stackKeys[stackSize - 1];
+      int index = stackNextEdges[stackSize - 1];
+      if (index < graph.getOutgoingEnd(key)) {
+        stackNextEdges[stackSize - 1]++;
+        int edge = graph.getOutgoing(index);
+        if (graph.isRemovedFromSource(edge) || graph.getDependency(edge).isLazy()) {
+          continue;
+        }
+
+        // Visit eager edges in the current DFS.  If we loop back to a key that is "active" in the
+        // current DFS, we have found an eager cycle.
+        // If this is the first time an edge to the target has been visited, we're "discovering" it
+        // and need to walk over its dependencies.
+        int target = graph.getTargetId(edge);
+        if (dfsStack.get(target)) {
+          reportCycle(edge);
+        } else if (!visited.get(target)) {
+          stackSize = enter(target, edge, stackSize);
         }
+      } else {
+        dfsStack.clear(key);
+        stackSize--;
       }
     }
-    
-    dfsStack.remove(key);
   }
 
-  private List<Dependency> describeCycle(Dependency cycleEdge) {
+  /**
+   * Marks the key as discovered through the given edge, and pushes it on the DFS stack.  Returns
+   * the new size of the stack.
+   */
+  private int enter(int key, int edge, int stackSize) {
+    visited.set(key);
+    visitedEdge[key] = edge;
+    dfsStack.set(key);
+    stackKeys[stackSize] = key;
+    stackNextEdges[stackSize] = graph.getOutgoingBegin(key);
+    return stackSize + 1;
+  }
+
+  private List<Dependency> describeCycle(int cycleEdge) {
     List<Dependency> cycle = new ArrayList<Dependency>();
-    cycle.add(cycleEdge);
+    cycle.add(graph.getDependency(cycleEdge));
     
-    Key<?> curr = cycleEdge.getSource();
-    while (!curr.equals(cycleEdge.getTarget())) {
-      Dependency edge = visitedEdge.get(curr);
-      cycle.add(edge);
-      curr = edge.getSource();
+    int curr = graph.getSourceId(cycleEdge);
+    while (curr != graph.getTargetId(cycleEdge)) {
+      int edge = visitedEdge[curr];
+      cycle.add(graph.getDependency(edge));
+      curr = graph.getSourceId(edge);
     }
     Collections.reverse(cycle);
     return cycle;
   }
   
-  private void reportCycle(Dependency cycleEdge) {
+  private void reportCycle(int cycleEdge) {
     cycleDetected = true;
     
     // Get the edges in the cycle
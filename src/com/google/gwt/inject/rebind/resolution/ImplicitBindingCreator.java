@@ -15,9 +15,10 @@
  */
 package com.google.gwt.inject.rebind.resolution;
 
-import com.google.gwt.core.ext.GeneratorContext;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.inject.client.AsyncProvider;
+import com.google.gwt.inject.client.LoadableAsyncProvider;
+import com.google.gwt.inject.rebind.RebindRules;
 import com.google.gwt.inject.rebind.binding.BindClassBinding;
 import com.google.gwt.inject.rebind.binding.BindConstantBinding;
 import com.google.gwt.inject.rebind.binding.BindProviderBinding;
@@ -64,18 +65,46 @@ public class ImplicitBindingCreator {
     }
   }
 
+  /**
+   * Exception thrown by a {@link #detach detached} creator if creating the
+   * binding requires the generator context.
+   */
+  public static class DetachedCreationException extends RuntimeException {
+
+    public DetachedCreationException(Key<?> key) {
+      super(PrettyPrinter.format("Creating the binding for %s requires the generator context",
+          key));
+    }
+  }
+
   private final BindingFactory bindingFactory;
-  private final GeneratorContext generatorContext;
+  private final RebindRules rebindRules;
   private final TreeLogger logger;
 
+  /**
+   * Whether this creator may be used off the generator's thread, see
+   * {@link #detach}.
+   */
+  private boolean detached;
+
   @Inject
-  public ImplicitBindingCreator(BindingFactory bindingFactory, GeneratorContext generatorContext,
+  public ImplicitBindingCreator(BindingFactory bindingFactory, RebindRules rebindRules,
       @Assisted TreeLogger logger) {
     this.bindingFactory = bindingFactory;
-    this.generatorContext = generatorContext;
+    this.rebindRules = rebindRules;
     this.logger = logger;
   }
 
+  /**
+   * Stops this creator from using the generator context, which isn't
+   * thread-safe, so that it can create bindings on any thread.  Creating a
+   * binding that depends on the generator context then throws a
+   * {@link DetachedCreationException}.
+   */
+  void detach() {
+    detached = true;
+  }
+
   /**
    * Creates the implicit binding
    */
@@ -97,7 +126,7 @@ public class ImplicitBindingCreator {
       // TODO(bstoler): Scope the provider binding like the thing being provided?
     }
 
-    // 4b. AsyncProvider injections.
+    // 4b. AsyncProvider and LoadableAsyncProvider injections.
     if (isAsyncProviderKey(key)) {
       return bindingFactory.getAsyncProviderBinding(key);
     }
@@ -194,8 +223,10 @@ public class ImplicitBindingCreator {
     String canonicalName = rawType.getCanonicalName();
     if (canonicalName == null) {
       throw new BindingCreationException("Cannot inject a type with no canonical name: " + rawType);
+    } else if (detached) {
+      throw new DetachedCreationException(Key.get(rawType));
     } else {
-      return generatorContext.checkRebindRuleAvailable(canonicalName);
+      return rebindRules.isAvailable(canonicalName);
     }
   }
 
@@ -262,7 +293,8 @@ public class ImplicitBindingCreator {
   private boolean isAsyncProviderKey(Key<?> key) {
     Type keyType = key.getTypeLiteral().getType();
     return keyType instanceof ParameterizedType &&
-    ((ParameterizedType) keyType).getRawType() == AsyncProvider.class;
+    (((ParameterizedType) keyType).getRawType() == AsyncProvider.class
+        || ((ParameterizedType) keyType).getRawType() == LoadableAsyncProvider.class);
   }
 
   private MethodLiteral<?, Constructor<?>> getInjectConstructor(TypeLiteral<?> type)
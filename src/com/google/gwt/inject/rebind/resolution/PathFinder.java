@@ -20,14 +20,11 @@ import com.google.gwt.inject.rebind.binding.Dependency;
 import com.google.inject.Key;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Queue;
 
 /**
  * Finds the shortest path from the edges in the root set to any of one or more destination keys.
@@ -43,17 +40,17 @@ public class PathFinder {
   private boolean onlyRequiredEdges;
 
   /**
-   * For every key that is discovered during the Breadth-first search, this points to the edge that
-   * discovered it.  We don't need to revisit(or requeue) any keys that are already defined here,
-   * because any new edge leading to back to the given key will at best be longer than the current
-   * path.
+   * Ids of the keys discovered during the Breadth-first search.  We don't need to revisit (or
+   * requeue) any of these keys, because any new edge leading back to the given key will at best be
+   * longer than the current path.
    */
-  private Map<Key<?>, Dependency> visited;
-  
+  private BitSet visited;
+
   /**
-   * The nodes remaining to visit.
+   * For every key that is discovered during the Breadth-first search, this holds the id of the edge
+   * that discovered it, or -1 for the destinations.
    */
-  private Queue<Key<?>> workQueue;
+  private int[] discoveringEdge;
 
   public PathFinder() {}
   
@@ -101,32 +98,51 @@ public class PathFinder {
     Preconditions.checkState(!destinations.isEmpty(),
         "Must call addDestinations(Key<?>...) before findShortestPath");
     
-    visited = new LinkedHashMap<Key<?>, Dependency>();
-    workQueue = new LinkedList<Key<?>>();
-    
+    visited = new BitSet(graph.getKeyCount());
+    discoveringEdge = new int[graph.getKeyCount()];
+    BitSet rootIds = new BitSet(graph.getKeyCount());
+    for (Key<?> root : roots) {
+      int id = graph.getKeyId(root);
+      if (id >= 0) {
+        rootIds.set(id);
+      }
+    }
+
+    // The work queue holds key ids, every key is enqueued at most once.
+    int[] workQueue = new int[graph.getKeyCount()];
+    int tail = 0;
+
     // Populate the workqueue with our initial destination keys.  If any of them are in the root
     // set, we can return early.
     for (Key<?> key : destinations) {
-      visited.put(key, null);
       if (roots.contains(key)) {
-        return getPathFor(key);
+        return new ArrayList<Dependency>();
+      }
+
+      // Destinations that aren't in the graph can't be reached from anywhere.
+      int id = graph.getKeyId(key);
+      if (id >= 0 && !visited.get(id)) {
+        visited.set(id);
+        discoveringEdge[id] = -1;
+        workQueue[tail++] = id;
       }
-      workQueue.add(key);
     }
     
     // Perform a BFS looking for a path back to a root edge
-    while (!workQueue.isEmpty()) {
-      Key<?> key = workQueue.remove();
-      
-      for (Dependency edge : graph.getDependenciesTargeting(key)) {
-        if (isEdgeUsable(edge)) {
-          Key<?> sourceKey = edge.getSource();
-          if (!visited.containsKey(sourceKey)) {
-            workQueue.add(sourceKey);
-            visited.put(sourceKey, edge);
-          
+    for (int head = 0; head < tail; head++) {
+      int key = workQueue[head];
+
+      for (int i = graph.getIncomingBegin(key); i < graph.getIncomingEnd(key); i++) {
+        int edge = graph.getIncoming(i);
+        if (!graph.isRemovedFromTarget(edge) && isEdgeUsable(graph.getDependency(edge))) {
+          int sourceKey = graph.getSourceId(edge);
+          if (!visited.get(sourceKey)) {
+            workQueue[tail++] = sourceKey;
+            visited.set(sourceKey);
+            discoveringEdge[sourceKey] = edge;
+
             // Check for early termination
-            if (roots.contains(sourceKey)) {
+            if (rootIds.get(sourceKey)) {
               return getPathFor(sourceKey);
             }
           }
@@ -139,14 +155,14 @@ public class PathFinder {
     return null;
   }
   
-  private List<Dependency> getPathFor(Key<?> rootKey) {
+  private List<Dependency> getPathFor(int rootKey) {
     List<Dependency> result = new ArrayList<Dependency>();
     
     // Now, add the edges from the BFS path
-    Dependency edge = visited.get(rootKey);
-    while (edge != null) {
-      result.add(edge);
-      edge = visited.get(edge.getTarget());
+    int edge = discoveringEdge[rootKey];
+    while (edge != -1) {
+      result.add(graph.getDependency(edge));
+      edge = discoveringEdge[graph.getTargetId(edge)];
     }
     return result;
   }
@@ -3,7 +3,8 @@ package com.google.gwt.inject.rebind.resolution;
 import com.google.gwt.inject.rebind.binding.Dependency;
 import com.google.inject.Key;
 
-import java.util.LinkedHashSet;
+import java.util.BitSet;
+import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -13,7 +14,17 @@ import java.util.Set;
  */
 public class RequiredKeySet {
   
-  private Set<Key<?>> requiredKeys;
+  /**
+   * Ids of the required keys in the graph.
+   */
+  private BitSet requiredKeys;
+
+  /**
+   * Required keys that don't appear in the graph (targets of origin dependencies that weren't
+   * added to the graph).
+   */
+  private Set<Key<?>> requiredKeysOutsideGraph;
+
   private final DependencyGraph graph;
   
   public RequiredKeySet(DependencyGraph graph) {
@@ -24,30 +35,42 @@ public class RequiredKeySet {
     if (requiredKeys == null) {
       computeRequiredKeys();
     }
-    return requiredKeys.contains(key);
+
+    int id = graph.getKeyId(key);
+    return id < 0 ? requiredKeysOutsideGraph.contains(key) : requiredKeys.get(id);
   }
   
   private void computeRequiredKeys() {
-    requiredKeys = new LinkedHashSet<Key<?>>(graph.size());
-    
-    Set<Key<?>> newKeys = new LinkedHashSet<Key<?>>();
-    addRequiredKeysFor(graph.getOrigin().getDependencies(), newKeys);
-    
-    while (!newKeys.isEmpty()) {
-      requiredKeys.addAll(newKeys);
-      Set<Key<?>> discoveredKeys = new LinkedHashSet<Key<?>>();
-      for (Key<?> key : newKeys) {
-        addRequiredKeysFor(graph.getDependenciesOf(key), discoveredKeys);
+    requiredKeys = new BitSet(graph.getKeyCount());
+    requiredKeysOutsideGraph = new HashSet<Key<?>>();
+
+    // Breadth-first search over the required edges, using an array of key ids as the queue: every
+    // key is enqueued at most once.
+    int[] queue = new int[graph.getKeyCount()];
+    int tail = 0;
+    for (Dependency edge : graph.getOrigin().getDependencies()) {
+      if (!edge.isOptional()) {
+        int target = graph.getKeyId(edge.getTarget());
+        if (target < 0) {
+          requiredKeysOutsideGraph.add(edge.getTarget());
+        } else if (!requiredKeys.get(target)) {
+          requiredKeys.set(target);
+          queue[tail++] = target;
+        }
       }
-      newKeys = discoveredKeys;
-      newKeys.removeAll(requiredKeys);
     }
-  }
-  
-  private void addRequiredKeysFor(Iterable<Dependency> edges, Set<Key<?>> discoveredKeys) {
-    for (Dependency edge : edges) {
-      if (!edge.isOptional()) {
-        discoveredKeys.add(edge.getTarget());
+
+    for (int head = 0; head < tail; head++) {
+      int key = queue[head];
+      for (int i = graph.getOutgoingBegin(key); i < graph.getOutgoingEnd(key); i++) {
+        int edge = graph.getOutgoing(i);
+        if (!graph.isRemovedFromSource(edge) && !graph.getDependency(edge).isOptional()) {
+          int target = graph.getTargetId(edge);
+          if (!requiredKeys.get(target)) {
+            requiredKeys.set(target);
+            queue[tail++] = target;
+          }
+        }
       }
     }
   }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.gwt.inject.rebind.util;
+
+import com.google.gwt.core.ext.typeinfo.TypeOracle;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Holds a value shared by the generator runs of a compile, identified by the
+ * compile's {@link TypeOracle}.
+ *
+ * <p>Only the value of the compile seen last is held: it is released as soon as
+ * a generator runs for a compile with another type oracle.  Shared values, such
+ * as classes defined from the compilation state, usually reference the type
+ * oracle themselves, so they can't be held in a map weakly keyed by it: the
+ * entries of such a map would never be cleared.  The holder itself only
+ * references the type oracle weakly.
+ *
+ * <p>Thread-safe.
+ */
+public class CompileScoped<T> {
+
+  private WeakReference<TypeOracle> typeOracle;
+  private T value;
+
+  /**
+   * Returns the value of the compile the passed type oracle belongs to, or
+   * {@code null} if none was set.  If the value held belongs to another compile,
+   * it is released.
+   */
+  public synchronized T get(TypeOracle typeOracle) {
+    if (this.typeOracle != null && this.typeOracle.get() != typeOracle) {
+      this.typeOracle = null;
+      value = null;
+    }
+    return value;
+  }
+
+  /**
+   * Sets the value of the compile the passed type oracle belongs to, releasing
+   * any value held before.
+   */
+  public synchronized void set(TypeOracle typeOracle, T value) {
+    this.typeOracle = new WeakReference<TypeOracle>(typeOracle);
+    this.value = value;
+  }
+}
@@ -28,10 +28,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -40,9 +38,11 @@ import java.util.TreeSet;
  * (recursive) superclasses and interfaces.  The collector treats overrides
  * correctly, i.e. it returns the method defined the closest to the provided
  * type.
- * <p>Note:  The collector uses internal caching and can be called with the same
- * arguments repeatedly without repeated performance costs.
- * <p>This class is not thread-safe.
+ * <p>Note:  The collector caches collected members in a
+ * {@link MemberCollectorCache} and can be called with the same arguments
+ * repeatedly without repeated performance costs.  Collectors sharing a cache
+ * and filter instances share the collected members.
+ * <p>Setting filters is not thread-safe, collecting members is.
  */
 public class MemberCollector {
 
@@ -106,7 +106,7 @@ public class MemberCollector {
             TypeLiteral<?> param1 = parameters1.get(i);
             TypeLiteral<?> param2 = parameters2.get(i);
             if (!param1.equals(param2)) {
-              return param1.toString().compareTo(param2.toString());
+              return getComparisonKey(param1).compareTo(getComparisonKey(param2));
             }
           }
 
@@ -133,6 +133,18 @@ public class MemberCollector {
         private boolean samePackage(MethodLiteral<?, Method> m1, MethodLiteral<?, Method> m2) {
           return m1.getRawDeclaringType().getPackage() == m2.getRawDeclaringType().getPackage();
         }
+
+        /**
+         * Returns the type's string representation.  For plain classes, this is
+         * the class name, which the class already holds; only other types are
+         * formatted.
+         */
+        private String getComparisonKey(TypeLiteral<?> type) {
+          if (type.getType() instanceof Class) {
+            return ((Class<?>) type.getType()).getName();
+          }
+          return type.toString();
+        }
       };
 
   /**
@@ -146,16 +158,9 @@ public class MemberCollector {
       };
 
   /**
-   * Internal method cache: Type name -> Method Set
+   * Cache of collected members, possibly shared with other collectors.
    */
-  private final Map<TypeLiteral<?>, Set<MethodLiteral<?, Method>>> methodMultiMap =
-      new LinkedHashMap<TypeLiteral<?>, Set<MethodLiteral<?, Method>>>();
-
-  /**
-   * Internal field cache: Type name -> Method Set
-   */
-  private final Map<TypeLiteral<?>, Set<FieldLiteral<?>>> fieldMultiMap =
-      new LinkedHashMap<TypeLiteral<?>, Set<FieldLiteral<?>>>();
+  private final MemberCollectorCache cache;
 
   private final TreeLogger logger;
 
@@ -175,9 +180,17 @@ public class MemberCollector {
    */
   private boolean locked;
 
-  @Inject
+  /**
+   * Creates a collector with a cache of its own.
+   */
   public MemberCollector(TreeLogger logger) {
+    this(logger, new MemberCollectorCache());
+  }
+
+  @Inject
+  public MemberCollector(TreeLogger logger, MemberCollectorCache cache) {
     this.logger = logger;
+    this.cache = cache;
     this.locked = false;
   }
 
@@ -224,8 +237,7 @@ public class MemberCollector {
    * @return all methods for the given type
    */
   public Collection<MethodLiteral<?, Method>> getMethods(TypeLiteral<?> typeLiteral) {
-    collect(typeLiteral);
-    return Collections.unmodifiableCollection(methodMultiMap.get(typeLiteral));
+    return collect(typeLiteral).getMethods();
   }
 
   /**
@@ -237,15 +249,15 @@ public class MemberCollector {
    * @return all fields for the given type
    */
   public Collection<FieldLiteral<?>> getFields(TypeLiteral<?> typeLiteral) {
-    collect(typeLiteral);
-    return Collections.unmodifiableCollection(fieldMultiMap.get(typeLiteral));
+    return collect(typeLiteral).getFields();
   }
 
-  private void collect(TypeLiteral<?> typeLiteral) {
+  private MemberCollectorCache.Members collect(TypeLiteral<?> typeLiteral) {
     locked = true;
 
-    if (methodMultiMap.containsKey(typeLiteral)) {
-      return;
+    MemberCollectorCache.Members members = cache.get(typeLiteral, methodFilter, fieldFilter);
+    if (members != null) {
+      return members;
     }
 
     // Type hasn't been collected yet.
@@ -253,16 +265,19 @@ public class MemberCollector {
         new TreeSet<MethodLiteral<?, Method>>(METHOD_COMPARATOR);
     Set<FieldLiteral<?>> typeFields = new LinkedHashSet<FieldLiteral<?>>();
     accumulateMembers(typeLiteral, typeMethods, typeFields);
-    methodMultiMap.put(typeLiteral, typeMethods);
-    fieldMultiMap.put(typeLiteral, typeFields);
+    return cache.put(typeLiteral, methodFilter, fieldFilter, new MemberCollectorCache.Members(
+        Collections.unmodifiableSet(typeMethods), Collections.unmodifiableSet(typeFields)));
   }
 
   private void accumulateMembers(TypeLiteral<?> typeLiteral,
       Set<MethodLiteral<?, Method>> methodAccu, Set<FieldLiteral<?>> fieldAccu) {
 
+    // Members of supertypes that were collected before are taken from the cache.
+    MemberCollectorCache.Members collected = cache.get(typeLiteral, methodFilter, fieldFilter);
+
     if (methodFilter != null) {
-      if (methodMultiMap.containsKey(typeLiteral)) {
-        for (MethodLiteral<?, Method> method : methodMultiMap.get(typeLiteral)) {
+      if (collected != null) {
+        for (MethodLiteral<?, Method> method : collected.getMethods()) {
           methodAccu.add(method);
         }
       } else {
@@ -278,8 +293,8 @@ public class MemberCollector {
     }
 
     if (fieldFilter != null) {
-      if (fieldMultiMap.containsKey(typeLiteral)) {
-        for (FieldLiteral<?> field : fieldMultiMap.get(typeLiteral)) {
+      if (collected != null) {
+        for (FieldLiteral<?> field : collected.getFields()) {
           fieldAccu.add(field);
         }
       } else {
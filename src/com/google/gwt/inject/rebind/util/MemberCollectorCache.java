@@ -0,0 +1,142 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.gwt.inject.rebind.util;
+
+import com.google.gwt.core.ext.typeinfo.TypeOracle;
+import com.google.gwt.inject.rebind.reflect.FieldLiteral;
+import com.google.gwt.inject.rebind.reflect.MethodLiteral;
+import com.google.gwt.inject.rebind.util.MemberCollector.FieldFilter;
+import com.google.gwt.inject.rebind.util.MemberCollector.MethodFilter;
+import com.google.inject.TypeLiteral;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread-safe cache of the members collected by {@link MemberCollector}s,
+ * keyed by type and by the identity of the collector's filters.
+ *
+ * <p>Collecting the members of a type means reflecting over its entire type
+ * hierarchy, so a single cache is shared by all generator runs of a compile,
+ * see {@link #getSharedInstance}. Collectors using the same filter instances
+ * (e.g. {@link MemberCollector#ALL_METHOD_FILTER}) then collect every type
+ * only once per compile.
+ */
+public class MemberCollectorCache {
+
+  /**
+   * Cache shared by the generator runs of the current compile, released when a
+   * generator runs for another compile.  The collected members reference
+   * classes of the compile's class loader, which references the compile's
+   * {@link TypeOracle}, so the cache can't be weakly keyed by the type oracle
+   * (see {@link CompileScoped}).
+   */
+  private static final CompileScoped<MemberCollectorCache> sharedCache =
+      new CompileScoped<MemberCollectorCache>();
+
+  private final ConcurrentMap<CacheKey, Members> members =
+      new ConcurrentHashMap<CacheKey, Members>();
+
+  /**
+   * Returns the cache shared by all generator runs of the compile the passed
+   * type oracle belongs to.  The cache of any other compile is released.
+   */
+  public static MemberCollectorCache getSharedInstance(TypeOracle typeOracle) {
+    synchronized (sharedCache) {
+      MemberCollectorCache cache = sharedCache.get(typeOracle);
+      if (cache == null) {
+        cache = new MemberCollectorCache();
+        sharedCache.set(typeOracle, cache);
+      }
+      return cache;
+    }
+  }
+
+  /**
+   * Returns the members collected for the given type and filters, or
+   * {@code null} if they haven't been collected yet.
+   */
+  Members get(TypeLiteral<?> type, MethodFilter methodFilter, FieldFilter fieldFilter) {
+    return members.get(new CacheKey(type, methodFilter, fieldFilter));
+  }
+
+  /**
+   * Records the members collected for the given type and filters. If another
+   * thread recorded members for them concurrently, those are kept and
+   * returned.
+   */
+  Members put(TypeLiteral<?> type, MethodFilter methodFilter, FieldFilter fieldFilter,
+      Members collected) {
+    Members existing = members.putIfAbsent(new CacheKey(type, methodFilter, fieldFilter),
+        collected);
+    return existing == null ? collected : existing;
+  }
+
+  /**
+   * The members of a type, including those of its supertypes.
+   */
+  static class Members {
+    private final Set<MethodLiteral<?, Method>> methods;
+    private final Set<FieldLiteral<?>> fields;
+
+    Members(Set<MethodLiteral<?, Method>> methods, Set<FieldLiteral<?>> fields) {
+      this.methods = methods;
+      this.fields = fields;
+    }
+
+    Set<MethodLiteral<?, Method>> getMethods() {
+      return methods;
+    }
+
+    Set<FieldLiteral<?>> getFields() {
+      return fields;
+    }
+  }
+
+  private static class CacheKey {
+    private final TypeLiteral<?> type;
+    private final MethodFilter methodFilter;
+    private final FieldFilter fieldFilter;
+    private final int hashCode;
+
+    CacheKey(TypeLiteral<?> type, MethodFilter methodFilter, FieldFilter fieldFilter) {
+      this.type = type;
+      this.methodFilter = methodFilter;
+      this.fieldFilter = fieldFilter;
+      this.hashCode = 31 * (31 * type.hashCode() + System.identityHashCode(methodFilter))
+          + System.identityHashCode(fieldFilter);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof CacheKey)) {
+        return false;
+      }
+
+      CacheKey other = (CacheKey) obj;
+      return methodFilter == other.methodFilter && fieldFilter == other.fieldFilter
+          && type.equals(other.type);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
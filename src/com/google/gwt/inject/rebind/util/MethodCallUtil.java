@@ -21,6 +21,7 @@ import static com.google.gwt.inject.rebind.util.SourceWriteUtil.join;
 import com.google.gwt.inject.rebind.reflect.MethodLiteral;
 import com.google.gwt.inject.rebind.reflect.NoSourceNameException;
 import com.google.gwt.inject.rebind.reflect.ReflectUtil;
+import com.google.inject.Inject;
 import com.google.inject.Key;
 import com.google.inject.TypeLiteral;
 
@@ -39,6 +40,15 @@ import java.util.List;
  */
 public class MethodCallUtil {
 
+  private final SharedAccessors sharedAccessors;
+  private final SharedHelpers sharedHelpers;
+
+  @Inject
+  public MethodCallUtil(SharedAccessors sharedAccessors, SharedHelpers sharedHelpers) {
+    this.sharedAccessors = sharedAccessors;
+    this.sharedHelpers = sharedHelpers;
+  }
+
   /**
    * Creates a constructor injecting method and returns a string that invokes
    * the new method.  The new method returns the constructed object.
@@ -111,6 +121,14 @@ public class MethodCallUtil {
         ReflectUtil.isPrivate(method.getDeclaringType());
     boolean isThrowing = hasCheckedExceptions(method);
 
+    // If the target method has a shared helper, it is called directly, no
+    // invoker method is needed.
+    if (!useNativeMethod && sharedHelpers.isShared(method)
+        && hasInvokee == !(method.isStatic() || method.isConstructor())) {
+      return new SharedHelperCall(hasInvokee, invokeeName,
+          sharedHelpers.getMethodInvoker(method, nameGenerator), method, parameterNames);
+    }
+
     // Determine method signature parts.
     String invokeeTypeName = ReflectUtil.getSourceName(method.getRawDeclaringType());
     int invokerParamCount = method.getParameterTypes().size() + (hasInvokee ? 1 : 0);
@@ -119,6 +137,7 @@ public class MethodCallUtil {
     boolean returning = !returnType.getRawType().equals(Void.TYPE);
 
     String invokerMethodName = getInvokerMethodName(method, nameGenerator);
+
     // The invoker method is placed in the fragment of the package that declares
     // the method, so it has access to the same package-private types as the
     // method declaration.
@@ -142,9 +161,20 @@ public class MethodCallUtil {
       // invokee have limited visibility?  Currently I believe that we'll just
       // generate noncompiling code.
     }
+
+    // If the target method has a shared accessor, the invoker is a plain Java
+    // method delegating to it, rather than a native method of its own.
+    String sharedInvoker = null;
+    if (useNativeMethod && sharedAccessors.isShared(method)
+        && hasInvokee == !(method.isStatic() || method.isConstructor())) {
+      sharedInvoker = sharedAccessors.getMethodInvoker(method, nameGenerator);
+      useNativeMethod = false;
+      isThrowing = false;
+    }
+
     methodsOutput.add(createInvoker(invokeeName, invokeeTypeName, hasInvokee, useNativeMethod,
         isThrowing, invokerMethodName, invokerPackageName, invokerParamCount, method,
-        returnTypeString, returning, isLongAccess(method)));
+        returnTypeString, returning, isLongAccess(method), sharedInvoker));
 
     return new InvokerCall(hasInvokee, invokeeName, invokerMethodName, invokerPackageName,
         invokerParamCount, method, parameterNames);
@@ -209,13 +239,52 @@ public class MethodCallUtil {
     }
   }
 
+  private static final class SharedHelperCall implements SourceSnippet {
+    private final boolean hasInvokee;
+    private final String invokeeName;
+    private final String helperName;
+    private final MethodLiteral<?, ?> method;
+    private final String[] parameterNames;
+
+    public SharedHelperCall(boolean hasInvokee, String invokeeName, String helperName,
+        MethodLiteral<?, ?> method, String[] parameterNames) {
+      this.hasInvokee = hasInvokee;
+      this.invokeeName = invokeeName;
+      this.helperName = helperName;
+      this.method = method;
+      this.parameterNames = parameterNames;
+    }
+
+    @Override
+    public String getSource(InjectorWriteContext writeContext) {
+      List<String> helperCallParams = new ArrayList<String>();
+
+      if (hasInvokee) {
+        helperCallParams.add(invokeeName);
+      }
+
+      int paramCount = 0;
+      for (Key<?> paramKey : method.getParameterKeys()) {
+        if (parameterNames[paramCount] != null) {
+          helperCallParams.add(parameterNames[paramCount]);
+        } else {
+          helperCallParams.add(writeContext.callGetter(paramKey));
+        }
+
+        paramCount++;
+      }
+
+      return helperName + "(" + join(", ", helperCallParams) + ");";
+    }
+  }
+
   /**
    * Create an invoker method.  See {@link #createMethodCallWithInjection}.
    */
   private InjectorMethod createInvoker(String invokeeName, String invokeeTypeName,
       boolean hasInvokee, boolean isNative, boolean isThrowing, String invokerMethodName,
       String invokerPackageName, int invokerParamCount, MethodLiteral<?, ?> method,
-      String returnTypeString, boolean returning, boolean isLongAccess)
+      String returnTypeString, boolean returning, boolean isLongAccess, String sharedInvoker)
       throws NoSourceNameException {
 
     List<String> invokerSignatureParams = new ArrayList<String>(invokerParamCount);
@@ -246,7 +315,8 @@ public class MethodCallUtil {
         + ")";
 
     return new InvokerMethod(hasInvokee, invokeeCallParams, invokeeTypeName, invokerPackageName,
-        invokerSignature, isNative, isThrowing, method, returning, returnTypeString);
+        invokerSignature, isNative, isThrowing, method, returning, returnTypeString,
+        sharedInvoker);
   }
 
   private static final class InvokerMethod extends AbstractInjectorMethod {
@@ -257,10 +327,12 @@ public class MethodCallUtil {
     private final MethodLiteral<?, ?> method;
     private final boolean returning;
     private final String returnTypeString;
+    private final String sharedInvoker;
 
     public InvokerMethod(boolean hasInvokee, List<String> invokeeCallParams, String invokeeTypeName,
         String invokerPackageName, String invokerSignature, boolean isNative, boolean isThrowing,
-        MethodLiteral<?, ?> method, boolean returning, String returnTypeString) {
+        MethodLiteral<?, ?> method, boolean returning, String returnTypeString,
+        String sharedInvoker) {
       super(isNative, invokerSignature, invokerPackageName);
 
       this.hasInvokee = hasInvokee;
@@ -270,6 +342,7 @@ public class MethodCallUtil {
       this.method = method;
       this.returning = returning;
       this.returnTypeString = returnTypeString;
+      this.sharedInvoker = sharedInvoker;
     }
 
     public String getMethodBody(InjectorWriteContext writeContext) throws NoSourceNameException {
@@ -282,6 +355,19 @@ public class MethodCallUtil {
       if (returning) {
         result.append("return ");
       }
+      if (sharedInvoker != null) {
+        // The shared accessor returns references as Object.
+        if (returning && !method.getReturnType().getRawType().isPrimitive()) {
+          result.append("(").append(returnTypeString).append(") ");
+        }
+        List<String> sharedInvokerParams = new ArrayList<String>(invokeeCallParams);
+        if (hasInvokee) {
+          sharedInvokerParams.add(0, "invokee");
+        }
+        result.append(sharedInvoker)
+            .append("(").append(join(", ", sharedInvokerParams)).append(");");
+        return result.toString();
+      }
       if (!isNative()) {
         if (hasInvokee) {
           result.append("invokee.").append(method.getName());
@@ -334,7 +420,7 @@ public class MethodCallUtil {
     return method.getExceptionTypes().size() > 0;
   }
 
-  private static String getJsniSignature(MethodLiteral<?, ?> method) throws NoSourceNameException {
+  static String getJsniSignature(MethodLiteral<?, ?> method) throws NoSourceNameException {
     StringBuilder signature = new StringBuilder();
     signature.append("@");
     signature.append(ReflectUtil.getSourceName(method.getRawDeclaringType()));
@@ -353,7 +439,7 @@ public class MethodCallUtil {
     return signature.toString();
   }
 
-  private static String getJniSignature(Type type) throws NoSourceNameException {
+  static String getJniSignature(Type type) throws NoSourceNameException {
     if (type instanceof Class<?>) {
       if (((Class) type).isPrimitive()) {
         if (type.equals(Boolean.TYPE)) {
@@ -28,9 +28,19 @@ import java.util.Set;
 /**
  * Helper to generate various names for members of a {@code Ginjector}
  * implementation.
+ *
+ * <p>Thread-safe, since the fragments of a ginjector may be written
+ * concurrently.  Code creating names concurrently uses a {@link #fork} each,
+ * so that the names don't depend on the order the threads run in.
  */
 public class NameGenerator {
 
+  /**
+   * Package of the split point classes that can't be placed in the package of
+   * their split point, see {@link #getSplitPointPackageName}.
+   */
+  private static final String SPLIT_POINT_FALLBACK_PACKAGE = "com.google.gwt.inject.client";
+
   private class CacheKey {
     private final String prefix;
     private final Key<?> key;
@@ -65,6 +75,60 @@ public class NameGenerator {
    */
   private final Set<String> methodNames = new LinkedHashSet<String>();
 
+  /**
+   * The name generator this one was forked from, or {@code null}.
+   */
+  private final NameGenerator parent;
+
+  public NameGenerator() {
+    this(null);
+  }
+
+  private NameGenerator(NameGenerator parent) {
+    this.parent = parent;
+  }
+
+  /**
+   * Returns a name generator that knows all names of this one, but keeps the
+   * names it creates to itself until it is {@link #merge merged} back.  This
+   * one must not create names while the fork is in use.
+   */
+  public NameGenerator fork() {
+    return new NameGenerator(this);
+  }
+
+  /**
+   * Adds the names created by the given fork of this name generator, unless
+   * one of them was created by this one since the fork was made.  In that case
+   * nothing is added: the fork chose names this name generator would no longer
+   * choose, so its names must be discarded and created again.
+   *
+   * @return whether the names were added
+   */
+  public boolean merge(NameGenerator fork) {
+    Preconditions.checkArgument(fork.parent == this, "Not a fork of this name generator.");
+
+    // The fork locks itself before this one, so copy its names first.
+    Set<String> forkMethodNames;
+    Map<CacheKey, String> forkMethodKeyCache;
+    synchronized (fork) {
+      forkMethodNames = new LinkedHashSet<String>(fork.methodNames);
+      forkMethodKeyCache = new LinkedHashMap<CacheKey, String>(fork.methodKeyCache);
+    }
+
+    synchronized (this) {
+      for (String name : forkMethodNames) {
+        if (methodNames.contains(name)) {
+          return false;
+        }
+      }
+
+      methodNames.addAll(forkMethodNames);
+      methodKeyCache.putAll(forkMethodKeyCache);
+      return true;
+    }
+  }
+
   /**
    * Returns the name of an assisted injection helper method.
    */
@@ -83,7 +147,8 @@ public class NameGenerator {
    * Returnst he name of a getter for an injector fragment.
    */
   public String getFragmentGetterMethodName(FragmentPackageName fragmentPackageName) {
-    return "getFragment_" + fragmentPackageName.toString().replace(".", "_");
+    String prefix = fragmentPackageName.isAsync() ? "getAsyncFragment_" : "getFragment_";
+    return prefix + fragmentPackageName.toString().replace(".", "_");
   }
 
   /**
@@ -114,7 +179,7 @@ public class NameGenerator {
     // a file (e.g., ~256 characters).  However, it means that other parts of
     // Gin must reference the fragment using its canonical class name, to avoid
     // ambiguity.
-    return injectorClassName + "_fragment";
+    return injectorClassName + (fragmentPackageName.isAsync() ? "_asyncFragment" : "_fragment");
   }
 
   /**
@@ -126,11 +191,78 @@ public class NameGenerator {
     return fragmentPackageName + "." + getFragmentClassName(injectorClassName, fragmentPackageName);
   }
 
+  /**
+   * Computes the simple name of the class recording whether the split point of
+   * an {@code AsyncProvider} was loaded, which also holds the
+   * {@code GWT.runAsync} call of a split point shared by several
+   * {@code AsyncProvider}s (see
+   * {@link com.google.gwt.inject.client.AsyncSplitPoint}).  The class is
+   * placed in the package returned by {@link #getSplitPointPackageName}; if that
+   * isn't the package of the split point's name, the class name also includes
+   * the split point's package.
+   */
+  public String getSplitPointClassName(Class<?> splitPoint) {
+    String binaryName = splitPoint.getName();
+    int packageEnd = binaryName.lastIndexOf('.');
+    String name = isSplitPointPackageUsable(binaryName.substring(0, Math.max(packageEnd, 0)))
+        ? binaryName.substring(packageEnd + 1) : binaryName.replace('.', '_');
+    return name.replace('$', '_') + "_GinSplitPoint";
+  }
+
+  /**
+   * Computes the package of the class named by {@link #getSplitPointClassName}.
+   * That is the package of the split point's name, so that all ginjectors share
+   * the class, unless generated code can't be placed there: the JVM forbids it
+   * for some packages (see {@link FragmentPackageName#isProhibited}), and the
+   * generated ginjectors can't refer to classes in the default package.  Such
+   * split points use the package of the gin client classes instead.
+   */
+  public String getSplitPointPackageName(Class<?> splitPoint) {
+    String binaryName = splitPoint.getName();
+    String packageName = binaryName.substring(0, Math.max(binaryName.lastIndexOf('.'), 0));
+    return isSplitPointPackageUsable(packageName) ? packageName : SPLIT_POINT_FALLBACK_PACKAGE;
+  }
+
+  /**
+   * Computes the canonical name (including package) of the class named by
+   * {@link #getSplitPointClassName}.
+   */
+  public String getSplitPointCanonicalClassName(Class<?> splitPoint) {
+    return getSplitPointPackageName(splitPoint) + "." + getSplitPointClassName(splitPoint);
+  }
+
+  private static boolean isSplitPointPackageUsable(String packageName) {
+    return packageName.length() > 0 && !FragmentPackageName.isProhibited(packageName);
+  }
+
+  /**
+   * Computes the simple name of the class holding the shared native accessors
+   * of a class's members (see {@link SharedAccessors}).  The class is placed in
+   * the package of the class whose members it accesses.
+   */
+  public String getAccessorClassName(Class<?> declaringClass) {
+    String binaryName = declaringClass.getName();
+    return binaryName.substring(binaryName.lastIndexOf('.') + 1).replace('$', '_')
+        + "_GinAccessor";
+  }
+
+  /**
+   * Computes the simple name of the class holding the shared static helpers
+   * injecting a class's members (see {@link SharedHelpers}).  The class is
+   * placed in the package of the class whose members it injects.
+   */
+  public String getHelperClassName(Class<?> declaringClass) {
+    String binaryName = declaringClass.getName();
+    return binaryName.substring(binaryName.lastIndexOf('.') + 1).replace('$', '_')
+        + "_GinHelper";
+  }
+
   /**
    * Computes the field name of a single fragment of an injector.
    */
   public String getFragmentFieldName(FragmentPackageName fragmentPackageName) {
-    return convertToValidMemberName("fieldFragment_" + fragmentPackageName);
+    String prefix = fragmentPackageName.isAsync() ? "fieldAsyncFragment_" : "fieldFragment_";
+    return convertToValidMemberName(prefix + fragmentPackageName);
   }
 
   /**
@@ -167,6 +299,14 @@ public class NameGenerator {
   public String getSingletonFieldName(Key<?> key) {
     return mangle("singleton_", key);
   }
+
+  /**
+   * Returns the name of the field in which the injector stores the singleton
+   * slot array of its ginjector.
+   */
+  public String getSingletonSlotsFieldName() {
+    return "singletonSlots";
+  }
   
   /**
    * Returns a new valid (i.e. unique) method name based on {@code base}.
@@ -177,8 +317,8 @@ public class NameGenerator {
    * @param base base on which method name gets created
    * @return valid method name
    */
-  public String createMethodName(String base) {
-    while (methodNames.contains(base)) {
+  public synchronized String createMethodName(String base) {
+    while (isUsed(base)) {
 
       // TODO(schmitt):  Make more efficient for repeated calls with same base?
       base += "_";
@@ -192,13 +332,24 @@ public class NameGenerator {
    *
    * @param name name to be reserved
    */
-  public void markAsUsed(String name) throws IllegalArgumentException {
-    methodNames.add(name);
+  public synchronized void markAsUsed(String name) throws IllegalArgumentException {
+    if (!isUsed(name)) {
+      methodNames.add(name);
+    }
   }
 
-  private String mangle(String prefix, Key<?> key) {
-    CacheKey cacheKey = new CacheKey(prefix, key);
+  private synchronized boolean isUsed(String name) {
+    return methodNames.contains(name) || (parent != null && parent.isUsed(name));
+  }
+
+  private synchronized String getCachedName(CacheKey cacheKey) {
     String cached = methodKeyCache.get(cacheKey);
+    return cached != null || parent == null ? cached : parent.getCachedName(cacheKey);
+  }
+
+  private synchronized String mangle(String prefix, Key<?> key) {
+    CacheKey cacheKey = new CacheKey(prefix, key);
+    String cached = getCachedName(cacheKey);
     if (cached != null) {
       return cached;
     }
@@ -58,6 +58,46 @@ public final class PrettyPrinter {
     }
   }
 
+  // Fixed-arity variants of log(), picked by the compiler over the varargs
+  // version.  They are used from the generator's hot loops, which log every
+  // edge they visit at DEBUG level: unlike the varargs version, they don't
+  // allocate an argument array unless the message is actually logged.
+
+  public static void log(TreeLogger logger, TreeLogger.Type type, String formatString,
+      Object arg) {
+    if (logger.isLoggable(type)) {
+      logger.log(type, format(formatString, arg));
+    }
+  }
+
+  public static void log(TreeLogger logger, TreeLogger.Type type, String formatString,
+      Object arg1, Object arg2) {
+    if (logger.isLoggable(type)) {
+      logger.log(type, format(formatString, arg1, arg2));
+    }
+  }
+
+  public static void log(TreeLogger logger, TreeLogger.Type type, String formatString,
+      Object arg1, Object arg2, Object arg3) {
+    if (logger.isLoggable(type)) {
+      logger.log(type, format(formatString, arg1, arg2, arg3));
+    }
+  }
+
+  public static void log(TreeLogger logger, TreeLogger.Type type, String formatString,
+      Object arg1, Object arg2, Object arg3, Object arg4) {
+    if (logger.isLoggable(type)) {
+      logger.log(type, format(formatString, arg1, arg2, arg3, arg4));
+    }
+  }
+
+  public static void log(TreeLogger logger, TreeLogger.Type type, String formatString,
+      Object arg1, Object arg2, Object arg3, Object arg4, Object arg5) {
+    if (logger.isLoggable(type)) {
+      logger.log(type, format(formatString, arg1, arg2, arg3, arg4, arg5));
+    }
+  }
+
   /**
    * Generate a string based on a format template as {@link String#format}
    * would, using the pretty-printing rules specified in the class
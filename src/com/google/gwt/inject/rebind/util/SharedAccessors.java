@@ -0,0 +1,193 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind.util;
+
+import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.inject.rebind.ConfigurationProperties;
+import com.google.gwt.inject.rebind.reflect.FieldLiteral;
+import com.google.gwt.inject.rebind.reflect.MemberLiteral;
+import com.google.gwt.inject.rebind.reflect.MethodLiteral;
+import com.google.gwt.inject.rebind.reflect.NoSourceNameException;
+import com.google.gwt.inject.rebind.reflect.ReflectUtil;
+import com.google.inject.Inject;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.TypeLiteral;
+import com.google.inject.assistedinject.AssistedInject;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes and names the shared native accessors of injected members that
+ * generated code can't access directly, e.g. private fields and methods.
+ *
+ * <p>By default, every ginjector declares its own native (JSNI) method for
+ * each such member it injects.  If the {@value #SHARED_ACCESSORS_PROPERTY}
+ * configuration property is set to {@code true}, the native methods are
+ * instead collected in one accessor class per declaring class (see
+ * {@link NameGenerator#getAccessorClassName}), which is written once per
+ * compile and called by all ginjectors and fragments (see
+ * {@link SharedMemberClasses}).
+ *
+ * <p>Accessors take and return {@code Object} in place of any reference
+ * type, which keeps them callable from everywhere; the generated code calling
+ * them is type-checked as before.
+ */
+@Singleton
+public class SharedAccessors extends SharedMemberClasses {
+
+  /**
+   * Configuration property enabling shared accessor classes.
+   */
+  static final String SHARED_ACCESSORS_PROPERTY = "gin.output.sharedAccessors";
+
+  @Inject
+  public SharedAccessors(GeneratorContext ctx, TreeLogger logger,
+      ConfigurationProperties properties) {
+    this(ctx, logger, properties.isEnabled(SHARED_ACCESSORS_PROPERTY));
+  }
+
+  SharedAccessors(GeneratorContext ctx, TreeLogger logger, boolean enabled) {
+    super(ctx, logger, enabled);
+  }
+
+  @Override
+  protected String getClassName(Class<?> declaringClass, NameGenerator nameGenerator) {
+    return nameGenerator.getAccessorClassName(declaringClass);
+  }
+
+  /**
+   * Returns {@code true} if the given member gets an accessor in the accessor
+   * class of its declaring class, i.e. if it is an injectable member needing
+   * native access that can be named in native code.
+   */
+  @Override
+  protected boolean hasMethod(MemberLiteral<?, ?> member) {
+    if (member.isSynthetic()) {
+      return false;
+    }
+
+    Class<?> declaringClass = member.getRawDeclaringType();
+    boolean needsNativeAccess = member.isPrivate() || ReflectUtil.isPrivate(declaringClass);
+
+    try {
+      if (member instanceof FieldLiteral) {
+        FieldLiteral<?> field = (FieldLiteral<?>) member;
+        ReflectUtil.getSourceName(declaringClass);
+        return GuiceUtil.hasInject(field) && (needsNativeAccess || field.isLegacyFinalField());
+      }
+
+      MethodLiteral<?, ?> method = (MethodLiteral<?, ?>) member;
+      if (method.isConstructor() && (Modifier.isAbstract(declaringClass.getModifiers())
+          || (declaringClass.getEnclosingClass() != null
+              && !Modifier.isStatic(declaringClass.getModifiers())))) {
+        return false;
+      }
+
+      MethodCallUtil.getJsniSignature(method);
+      return needsNativeAccess && (GuiceUtil.hasInject(method)
+          || method.isAnnotationPresent(AssistedInject.class)
+          || method.isAnnotationPresent(Provides.class));
+    } catch (NoSourceNameException e) {
+      return false;
+    }
+  }
+
+  @Override
+  protected String createFieldSetter(FieldLiteral<?> field) throws NoSourceNameException {
+    Class<?> fieldType = field.getFieldType().getRawType();
+
+    List<String> params = new ArrayList<String>();
+    if (!field.isStatic()) {
+      params.add("Object injectee");
+    }
+    params.add(getAccessorTypeName(fieldType) + " value");
+
+    return getAnnotation(fieldType.equals(Long.TYPE)) + "public static native void "
+        + getMethodName(field) + "(" + SourceWriteUtil.join(", ", params) + ") /*-{\n"
+        + "  " + (field.isStatic() ? "" : "injectee.") + "@"
+        + ReflectUtil.getSourceName(field.getRawDeclaringType()) + "::" + field.getName()
+        + " = value;\n"
+        + "}-*/;";
+  }
+
+  @Override
+  protected String createMethodInvoker(MethodLiteral<?, ?> method) throws NoSourceNameException {
+    boolean hasInvokee = !method.isConstructor() && !method.isStatic();
+    Class<?> returnType = method.isConstructor() ? Object.class
+        : method.getReturnType().getRawType();
+    boolean returning = !returnType.equals(Void.TYPE);
+    boolean longAccess = returnType.equals(Long.TYPE);
+
+    List<String> params = new ArrayList<String>();
+    List<String> args = new ArrayList<String>();
+    if (hasInvokee) {
+      params.add("Object invokee");
+    }
+
+    int paramCount = 0;
+    for (TypeLiteral<?> paramType : method.getParameterTypes()) {
+      Class<?> rawParamType = paramType.getRawType();
+      longAccess |= rawParamType.equals(Long.TYPE);
+
+      String paramName = ReflectUtil.formatParameterName(paramCount++);
+      params.add(getAccessorTypeName(rawParamType) + " " + paramName);
+      args.add(paramName);
+    }
+
+    StringBuilder call = new StringBuilder();
+    if (returning) {
+      call.append("return ");
+    }
+    if (hasInvokee) {
+      call.append("invokee.");
+    }
+    call.append(MethodCallUtil.getJsniSignature(method))
+        .append("(").append(SourceWriteUtil.join(", ", args)).append(");");
+
+    StringBuilder body = new StringBuilder();
+    if (method.getExceptionTypes().isEmpty()) {
+      body.append("  ").append(call).append("\n");
+    } else {
+      body.append("  try {\n")
+          .append("    ").append(call).append("\n")
+          .append("  } catch (e) {\n")
+          .append("    throw @com.google.gwt.inject.client.CreationException")
+          .append("::new(Ljava/lang/Throwable;)(e);\n")
+          .append("  }\n");
+    }
+
+    return getAnnotation(longAccess) + "public static native "
+        + getAccessorTypeName(returnType) + " " + getMethodName(method) + "("
+        + SourceWriteUtil.join(", ", params) + ") /*-{\n" + body + "}-*/;";
+  }
+
+  /**
+   * Returns the type used for values of the given type in accessor
+   * signatures: primitives are kept, so they are passed unboxed, and all
+   * other types are replaced by {@code Object}.
+   */
+  private String getAccessorTypeName(Class<?> type) {
+    return type.isPrimitive() ? type.getName() : "Object";
+  }
+
+  private String getAnnotation(boolean longAccess) {
+    return longAccess ? "@com.google.gwt.core.client.UnsafeNativeLong " : "";
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind.util;
+
+import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.inject.rebind.ConfigurationProperties;
+import com.google.gwt.inject.rebind.reflect.FieldLiteral;
+import com.google.gwt.inject.rebind.reflect.MemberLiteral;
+import com.google.gwt.inject.rebind.reflect.MethodLiteral;
+import com.google.gwt.inject.rebind.reflect.NoSourceNameException;
+import com.google.gwt.inject.rebind.reflect.ReflectUtil;
+import com.google.inject.Inject;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.TypeLiteral;
+import com.google.inject.assistedinject.AssistedInject;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes and names the shared static helpers that invoke injected methods and
+ * constructors and set injected fields.
+ *
+ * <p>By default, every ginjector declares its own invoker method for each
+ * method, constructor or provider method it calls, and its own setter method
+ * for each field it injects.  If the {@value #SHARED_HELPERS_PROPERTY}
+ * configuration property is set to {@code true}, these are instead collected
+ * in one helper class per declaring class (see
+ * {@link NameGenerator#getHelperClassName}), which is written once per compile
+ * and called directly by all ginjectors and fragments (see
+ * {@link SharedMemberClasses}).  Ginjectors installing the same modules or
+ * injecting the same types then share this code.
+ *
+ * <p>Helpers are stateless: they take the invokee or injectee and all injected
+ * values as parameters, so the ginjector-specific getters stay in the
+ * ginjectors.
+ *
+ * <p>Helpers are public and may be called from any package, so a member only
+ * gets one if all the types in the helper's signature are public.  Members
+ * that need native access are left to {@link SharedAccessors}.
+ */
+@Singleton
+public class SharedHelpers extends SharedMemberClasses {
+
+  /**
+   * Configuration property enabling shared helper classes.
+   */
+  static final String SHARED_HELPERS_PROPERTY = "gin.output.sharedHelpers";
+
+  @Inject
+  public SharedHelpers(GeneratorContext ctx, TreeLogger logger,
+      ConfigurationProperties properties) {
+    this(ctx, logger, properties.isEnabled(SHARED_HELPERS_PROPERTY));
+  }
+
+  SharedHelpers(GeneratorContext ctx, TreeLogger logger, boolean enabled) {
+    super(ctx, logger, enabled);
+  }
+
+  @Override
+  protected String getClassName(Class<?> declaringClass, NameGenerator nameGenerator) {
+    return nameGenerator.getHelperClassName(declaringClass);
+  }
+
+  /**
+   * Returns {@code true} if the given member gets a helper in the helper class
+   * of its declaring class, i.e. if it is an injectable member that generated
+   * code can access directly, and all the types in its helper's signature are
+   * public.
+   *
+   * <p>Besides injectable constructors, a concrete class's constructor without
+   * parameters gets a helper, since Gin calls it for classes without an
+   * {@code @Inject} constructor.
+   */
+  @Override
+  protected boolean hasMethod(MemberLiteral<?, ?> member) {
+    if (member.isSynthetic() || member.isPrivate()) {
+      return false;
+    }
+
+    // Generic classes, and inner classes that may use the type parameters of
+    // their enclosing classes, give their members different types depending on
+    // where they are injected, so a single helper can't serve them.
+    Class<?> declaringClass = member.getRawDeclaringType();
+    if (ReflectUtil.isPrivate(declaringClass) || declaringClass.getTypeParameters().length > 0
+        || (declaringClass.getEnclosingClass() != null
+            && !Modifier.isStatic(declaringClass.getModifiers()))) {
+      return false;
+    }
+
+    try {
+      if (member instanceof FieldLiteral) {
+        FieldLiteral<?> field = (FieldLiteral<?>) member;
+        ReflectUtil.getSourceName(field.getFieldType());
+        return GuiceUtil.hasInject(field) && !field.isLegacyFinalField()
+            && (field.isStatic() || ReflectUtil.isVisibleFromAnyPackage(field.getDeclaringType()))
+            && ReflectUtil.isVisibleFromAnyPackage(field.getFieldType());
+      }
+
+      MethodLiteral<?, ?> method = (MethodLiteral<?, ?>) member;
+      if (method.getTypeParameters().length > 0) {
+        return false;
+      }
+
+      if (method.isConstructor()) {
+        if (Modifier.isAbstract(declaringClass.getModifiers())
+            || !(GuiceUtil.hasInject(method)
+                || method.isAnnotationPresent(AssistedInject.class)
+                || method.getParameterTypes().isEmpty())) {
+          return false;
+        }
+      } else if (!(GuiceUtil.hasInject(method) || method.isAnnotationPresent(Provides.class))) {
+        return false;
+      }
+
+      if ((!method.isStatic() || method.isConstructor())
+          && !ReflectUtil.isVisibleFromAnyPackage(method.getDeclaringType())) {
+        return false;
+      }
+
+      if (!ReflectUtil.isVisibleFromAnyPackage(method.getReturnType())) {
+        return false;
+      }
+      ReflectUtil.getSourceName(method.getReturnType());
+
+      for (TypeLiteral<?> parameterType : method.getParameterTypes()) {
+        if (!ReflectUtil.isVisibleFromAnyPackage(parameterType)) {
+          return false;
+        }
+        ReflectUtil.getSourceName(parameterType);
+      }
+      return true;
+    } catch (NoSourceNameException e) {
+      return false;
+    }
+  }
+
+  @Override
+  protected String createFieldSetter(FieldLiteral<?> field) throws NoSourceNameException {
+    String declaringTypeName = ReflectUtil.getSourceName(field.getRawDeclaringType());
+
+    List<String> params = new ArrayList<String>();
+    if (!field.isStatic()) {
+      params.add(declaringTypeName + " injectee");
+    }
+    params.add(ReflectUtil.getSourceName(field.getFieldType()) + " value");
+
+    return "public static void " + getMethodName(field) + "("
+        + SourceWriteUtil.join(", ", params) + ") {\n"
+        + "  " + (field.isStatic() ? declaringTypeName : "injectee") + "." + field.getName()
+        + " = value;\n"
+        + "}";
+  }
+
+  @Override
+  protected String createMethodInvoker(MethodLiteral<?, ?> method) throws NoSourceNameException {
+    String declaringTypeName = ReflectUtil.getSourceName(method.getRawDeclaringType());
+    boolean hasInvokee = !method.isConstructor() && !method.isStatic();
+    boolean returning = !method.getReturnType().getRawType().equals(Void.TYPE);
+
+    List<String> params = new ArrayList<String>();
+    List<String> args = new ArrayList<String>();
+    if (hasInvokee) {
+      params.add(declaringTypeName + " invokee");
+    }
+
+    int paramCount = 0;
+    for (TypeLiteral<?> paramType : method.getParameterTypes()) {
+      String paramName = ReflectUtil.formatParameterName(paramCount++);
+      params.add(ReflectUtil.getSourceName(paramType) + " " + paramName);
+      args.add(paramName);
+    }
+
+    StringBuilder call = new StringBuilder();
+    if (returning) {
+      call.append("return ");
+    }
+    if (method.isConstructor()) {
+      call.append("new ").append(declaringTypeName);
+    } else {
+      call.append(hasInvokee ? "invokee" : declaringTypeName).append(".")
+          .append(method.getName());
+    }
+    call.append("(").append(SourceWriteUtil.join(", ", args)).append(");");
+
+    StringBuilder body = new StringBuilder();
+    if (method.getExceptionTypes().isEmpty()) {
+      body.append("  ").append(call).append("\n");
+    } else {
+      body.append("  try {\n")
+          .append("    ").append(call).append("\n")
+          .append("  } catch (Exception e) {\n")
+          .append("    throw new com.google.gwt.inject.client.CreationException(e);\n")
+          .append("  }\n");
+    }
+
+    return "public static " + ReflectUtil.getSourceName(method.getReturnType()) + " "
+        + getMethodName(method) + "(" + SourceWriteUtil.join(", ", params)
+        + ") {\n" + body + "}";
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind.util;
+
+import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.inject.rebind.reflect.FieldLiteral;
+import com.google.gwt.inject.rebind.reflect.MemberLiteral;
+import com.google.gwt.inject.rebind.reflect.MethodLiteral;
+import com.google.gwt.inject.rebind.reflect.NoSourceNameException;
+import com.google.gwt.user.rebind.ClassSourceFileComposerFactory;
+import com.google.gwt.user.rebind.SourceWriter;
+import com.google.inject.TypeLiteral;
+
+import java.io.PrintWriter;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Base class for the writers of shared member classes: generated classes
+ * holding static methods for the injectable members of one declaring class,
+ * which are written once per compile and called by all ginjectors and
+ * fragments (see {@link SharedAccessors} and {@link SharedHelpers}).
+ *
+ * <p>A shared member class contains a method for every member of its class
+ * that can have one, regardless of which ginjector first requested it, so that
+ * its contents don't depend on the order ginjectors are generated in.
+ *
+ * <p>Requesting a method only records that its class is needed, and may be
+ * done from any thread.  The classes themselves are written by
+ * {@link #writePendingClasses}, which must be called from the generator's
+ * thread since the {@link GeneratorContext} isn't thread-safe.
+ */
+public abstract class SharedMemberClasses {
+
+  private final GeneratorContext ctx;
+  private final TreeLogger logger;
+  private final boolean enabled;
+
+  /**
+   * Classes whose shared member class was requested by this generator run,
+   * mapped to the simple name of that class.
+   */
+  private final Map<Class<?>, String> requestedClasses = new LinkedHashMap<Class<?>, String>();
+
+  /**
+   * Classes whose shared member class was already written (or found to exist)
+   * by this generator run.
+   */
+  private final Set<Class<?>> writtenClasses = new HashSet<Class<?>>();
+
+  protected SharedMemberClasses(GeneratorContext ctx, TreeLogger logger, boolean enabled) {
+    this.ctx = ctx;
+    this.logger = logger;
+    this.enabled = enabled;
+  }
+
+  /**
+   * Returns {@code true} if the given member is injected through a method of
+   * its shared member class.
+   */
+  public boolean isShared(MemberLiteral<?, ?> member) {
+    return enabled && hasMethod(member);
+  }
+
+  /**
+   * Returns the qualified name of the static method setting the given field,
+   * requesting its class.  The method takes the injectee (unless the field is
+   * static) and the value as parameters.
+   */
+  public String getFieldSetter(FieldLiteral<?> field, NameGenerator nameGenerator) {
+    return getMethod(field.getRawDeclaringType(), getMethodName(field), nameGenerator);
+  }
+
+  /**
+   * Returns the qualified name of the static method invoking the given method
+   * or constructor, requesting its class.  The method takes the invokee
+   * (unless the method is static or a constructor) and the method's
+   * parameters.  Checked exceptions are rethrown as
+   * {@link com.google.gwt.inject.client.CreationException}s.
+   */
+  public String getMethodInvoker(MethodLiteral<?, ?> method, NameGenerator nameGenerator)
+      throws NoSourceNameException {
+    return getMethod(method.getRawDeclaringType(), getMethodName(method), nameGenerator);
+  }
+
+  /**
+   * Returns {@code true} if this generator run requested any shared member
+   * class.  Such a class is written by the first generator run of a compile
+   * that needs it, so the run's output depends on the other runs.
+   */
+  public synchronized boolean hasRequestedClasses() {
+    return !requestedClasses.isEmpty();
+  }
+
+  /**
+   * Writes the classes requested since the last call, unless another generator
+   * run of this compile already wrote them.
+   */
+  public synchronized void writePendingClasses() {
+    for (Map.Entry<Class<?>, String> entry : requestedClasses.entrySet()) {
+      if (writtenClasses.add(entry.getKey())) {
+        writeClass(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Returns {@code true} if the given member gets a method in the shared
+   * member class of its declaring class.
+   */
+  protected abstract boolean hasMethod(MemberLiteral<?, ?> member);
+
+  /**
+   * Returns the simple name of the shared member class of the given class.
+   */
+  protected abstract String getClassName(Class<?> declaringClass, NameGenerator nameGenerator);
+
+  /**
+   * Returns the source of the method setting the given field, named
+   * {@link #getMethodName(FieldLiteral)}.
+   */
+  protected abstract String createFieldSetter(FieldLiteral<?> field)
+      throws NoSourceNameException;
+
+  /**
+   * Returns the source of the method invoking the given method or constructor,
+   * named {@link #getMethodName(MethodLiteral)}.
+   */
+  protected abstract String createMethodInvoker(MethodLiteral<?, ?> method)
+      throws NoSourceNameException;
+
+  static String getMethodName(FieldLiteral<?> field) {
+    return "set_" + field.getName();
+  }
+
+  static String getMethodName(MethodLiteral<?, ?> method) throws NoSourceNameException {
+    // The raw parameter types distinguish overloaded methods.
+    StringBuilder name = new StringBuilder(
+        method.isConstructor() ? "create_" : "call_" + method.getName() + "_");
+    for (Type parameterType : method.getRawParameterTypes()) {
+      for (char c : MethodCallUtil.getJniSignature(parameterType).toCharArray()) {
+        if (c == '_') {
+          name.append("_1");
+        } else if (c == ';') {
+          name.append("_2");
+        } else if (c == '[') {
+          name.append("_3");
+        } else if (c == '$') {
+          name.append("_0");
+        } else if (c == '/') {
+          name.append('_');
+        } else {
+          name.append(c);
+        }
+      }
+    }
+    return name.toString();
+  }
+
+  /**
+   * Returns the body of the shared member class of the given class: the
+   * methods of all its members that have one, sorted by name for stable
+   * output.
+   */
+  String createClassBody(Class<?> declaringClass) {
+    Map<String, String> methods = new TreeMap<String, String>();
+    TypeLiteral<?> declaringType = TypeLiteral.get(declaringClass);
+    List<MethodLiteral<?, ?>> methodLiterals = new ArrayList<MethodLiteral<?, ?>>();
+    for (Method method : declaringClass.getDeclaredMethods()) {
+      methodLiterals.add(MethodLiteral.get(method, declaringType));
+    }
+    for (Constructor<?> constructor : declaringClass.getDeclaredConstructors()) {
+      methodLiterals.add(MethodLiteral.get(constructor, declaringType));
+    }
+
+    try {
+      for (Field field : declaringClass.getDeclaredFields()) {
+        FieldLiteral<?> fieldLiteral = FieldLiteral.get(field, declaringType);
+        if (hasMethod(fieldLiteral)) {
+          methods.put(getMethodName(fieldLiteral), createFieldSetter(fieldLiteral));
+        }
+      }
+
+      for (MethodLiteral<?, ?> method : methodLiterals) {
+        if (hasMethod(method)) {
+          methods.put(getMethodName(method), createMethodInvoker(method));
+        }
+      }
+    } catch (NoSourceNameException e) {
+      // Can't happen, hasMethod() checked that the members can be named.
+      throw new IllegalStateException(e);
+    }
+
+    return SourceWriteUtil.join("\n\n", methods.values()).toString();
+  }
+
+  private String getMethod(Class<?> declaringClass, String methodName,
+      NameGenerator nameGenerator) {
+    String packageName = declaringClass.getPackage().getName();
+    String className = getClassName(declaringClass, nameGenerator);
+    synchronized (this) {
+      requestedClasses.put(declaringClass, className);
+    }
+
+    String qualifiedClassName = packageName.length() == 0 ? className
+        : packageName + "." + className;
+    return qualifiedClassName + "." + methodName;
+  }
+
+  private void writeClass(Class<?> declaringClass, String className) {
+    // The class is the same for every ginjector, so if another ginjector of
+    // this compile already wrote it, it can be used as is.
+    String packageName = declaringClass.getPackage().getName();
+    PrintWriter printWriter = ctx.tryCreate(logger, packageName, className);
+    if (printWriter == null) {
+      return;
+    }
+
+    ClassSourceFileComposerFactory composerFactory =
+        new ClassSourceFileComposerFactory(packageName, className);
+    SourceWriter writer = composerFactory.createSourceWriter(ctx, printWriter);
+    writer.println(createClassBody(declaringClass));
+    writer.commit(logger);
+  }
+}
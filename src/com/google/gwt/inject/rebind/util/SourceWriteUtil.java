@@ -20,6 +20,7 @@ import com.google.gwt.inject.rebind.binding.BindingIndex;
 import com.google.gwt.inject.rebind.binding.Context;
 import com.google.gwt.inject.rebind.binding.Injectable;
 import com.google.gwt.inject.rebind.reflect.FieldLiteral;
+import com.google.gwt.inject.rebind.reflect.MemberLiteral;
 import com.google.gwt.inject.rebind.reflect.MethodLiteral;
 import com.google.gwt.inject.rebind.reflect.NoSourceNameException;
 import com.google.gwt.inject.rebind.reflect.ReflectUtil;
@@ -30,8 +31,12 @@ import com.google.inject.TypeLiteral;
 import com.google.inject.assistedinject.Assisted;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -45,14 +50,19 @@ public class SourceWriteUtil {
   private final GuiceUtil guiceUtil;
   private final MemberCollector memberCollector;
   private final MethodCallUtil methodCallUtil;
+  private final SharedAccessors sharedAccessors;
+  private final SharedHelpers sharedHelpers;
   private final BindingIndex bindingIndex;
 
   @Inject
   protected SourceWriteUtil(GuiceUtil guiceUtil, @Injectable MemberCollector memberCollector,
-      MethodCallUtil methodCallUtil, @Assisted BindingIndex bindingIndex) {
+      MethodCallUtil methodCallUtil, SharedAccessors sharedAccessors,
+      SharedHelpers sharedHelpers, @Assisted BindingIndex bindingIndex) {
     this.guiceUtil = guiceUtil;
     this.memberCollector = memberCollector;
     this.methodCallUtil = methodCallUtil;
+    this.sharedAccessors = sharedAccessors;
+    this.sharedHelpers = sharedHelpers;
     this.bindingIndex = bindingIndex;
   }
 
@@ -99,6 +109,33 @@ public class SourceWriteUtil {
         || ReflectUtil.isPrivate(field.getDeclaringType())
         || field.isLegacyFinalField();
 
+    String sharedSetter = null;
+    if (useNativeMethod && sharedAccessors.isShared(field)
+        && hasInjectee == !field.isStatic()) {
+      sharedSetter = sharedAccessors.getFieldSetter(field, nameGenerator);
+    } else if (!useNativeMethod && sharedHelpers.isShared(field)
+        && hasInjectee == !field.isStatic()) {
+      sharedSetter = sharedHelpers.getFieldSetter(field, nameGenerator);
+    }
+
+    if (sharedSetter != null) {
+      // The field's shared accessor or helper is called directly, no method is
+      // needed.
+      final String setter = sharedSetter;
+      return new SourceSnippet() {
+        public String getSource(InjectorWriteContext writeContext) {
+          List<String> callParams = new ArrayList<String>();
+          if (hasInjectee) {
+            callParams.add(injecteeName);
+          }
+
+          callParams.add(writeContext.callGetter(guiceUtil.getKey(field)));
+
+          return setter + "(" + join(", ", callParams) + ");\n";
+        }
+      };
+    }
+
     // Determine method signature parts.
     final String injecteeTypeName = ReflectUtil.getSourceName(field.getRawDeclaringType());
     String fieldTypeName = ReflectUtil.getSourceName(field.getFieldType());
@@ -314,6 +351,13 @@ public class SourceWriteUtil {
    * Generates all the required injector methods to inject members of the given
    * type, and a standard member-inject method that invokes them.
    *
+   * <p>If the type's superclass has injected members, and the type inherits
+   * all of them unchanged, the member-inject method first invokes the
+   * member-inject method of the superclass (see
+   * {@link #getMemberInjectionSupertype}) and then only injects the members
+   * the type declares itself.  The caller is responsible for creating the
+   * superclass's member-inject method as well.
+   *
    * @param type type for which the injection is performed
    * @param nameGenerator the name generator used to create method names
    * @param methodsOutput a list to which the new injection method and all its
@@ -328,10 +372,20 @@ public class SourceWriteUtil {
 
     SourceSnippetBuilder sb = new SourceSnippetBuilder();
 
-    sb.append(createMethodInjections(getMethodsToInject(type), "injectee", nameGenerator,
-        methodsOutput));
-    sb.append(createFieldInjections(getFieldsToInject(type), "injectee", nameGenerator,
-        methodsOutput));
+    Set<MethodLiteral<?, Method>> methods = getMethodsToInject(type);
+    Set<FieldLiteral<?>> fields = getFieldsToInject(type);
+
+    TypeLiteral<?> supertype = getMemberInjectionSupertype(type);
+    if (supertype != null) {
+      sb.append(SourceSnippets.callMethod(nameGenerator.getMemberInjectMethodName(supertype),
+          ReflectUtil.getUserPackageName(supertype), Collections.singletonList("injectee")))
+          .append(";\n");
+      methods = getDeclaredMembers(methods, type.getRawType());
+      fields = getDeclaredMembers(fields, type.getRawType());
+    }
+
+    sb.append(createMethodInjections(methods, "injectee", nameGenerator, methodsOutput));
+    sb.append(createFieldInjections(fields, "injectee", nameGenerator, methodsOutput));
 
     // Generate the top-level member inject method in the package containing the
     // type we're injecting:
@@ -341,6 +395,100 @@ public class SourceWriteUtil {
     return memberInjectMethodName;
   }
 
+  /**
+   * Returns the supertype whose member-inject method the member-inject method
+   * of the given type invokes to inject its inherited members, or {@code null}
+   * if the type injects all its members itself.
+   *
+   * <p>A type's member injection is delegated to its superclass if the
+   * superclass has injected members, and the type inherits exactly those
+   * members, i.e. doesn't override any of the superclass's injected methods.
+   * The superclass must also be visible from the package of the type's
+   * member-inject method.  Types sharing a superclass then share the
+   * injection code for that superclass's members.
+   */
+  public TypeLiteral<?> getMemberInjectionSupertype(TypeLiteral<?> type) {
+    Class<?> rawType = type.getRawType();
+    Class<?> superclass = rawType.getSuperclass();
+    if (superclass == null || superclass == Object.class) {
+      return null;
+    }
+
+    TypeLiteral<?> supertype = type.getSupertype((Class) superclass);
+    if (superclass.getTypeParameters().length > 0
+        && !(supertype.getType() instanceof ParameterizedType)) {
+      // Raw supertype: its injected members can't be resolved on their own.
+      return null;
+    }
+
+    Set<MethodLiteral<?, Method>> superMethods = getMethodsToInject(supertype);
+    Set<FieldLiteral<?>> superFields = getFieldsToInject(supertype);
+    if (superMethods.isEmpty() && superFields.isEmpty()) {
+      return null;
+    }
+
+    if (!getSignatures(superMethods).equals(getInheritedSignatures(getMethodsToInject(type),
+        rawType))
+        || !getSignatures(superFields).equals(getInheritedSignatures(getFieldsToInject(type),
+            rawType))) {
+      return null;
+    }
+
+    if (!ReflectUtil.getUserPackageName(type).equals(ReflectUtil.getUserPackageName(supertype))) {
+      for (Class<?> current = superclass; current != null;
+          current = current.getEnclosingClass()) {
+        if (!ReflectUtil.isPublic(current)) {
+          return null;
+        }
+      }
+    }
+
+    try {
+      ReflectUtil.getSourceName(supertype);
+    } catch (NoSourceNameException e) {
+      return null;
+    }
+
+    return supertype;
+  }
+
+  private static <T extends MemberLiteral<?, ?>> Set<T> getDeclaredMembers(Set<T> members,
+      Class<?> declaringType) {
+    Set<T> result = new LinkedHashSet<T>();
+    for (T member : members) {
+      if (member.getRawDeclaringType() == declaringType) {
+        result.add(member);
+      }
+    }
+    return result;
+  }
+
+  private static Set<List<?>> getInheritedSignatures(Set<? extends MemberLiteral<?, ?>> members,
+      Class<?> subtype) {
+    Set<MemberLiteral<?, ?>> inherited = new LinkedHashSet<MemberLiteral<?, ?>>();
+    for (MemberLiteral<?, ?> member : members) {
+      if (member.getRawDeclaringType() != subtype) {
+        inherited.add(member);
+      }
+    }
+    return getSignatures(inherited);
+  }
+
+  /**
+   * Returns signatures identifying the given members independently of the
+   * type they were collected for.
+   */
+  private static Set<List<?>> getSignatures(Set<? extends MemberLiteral<?, ?>> members) {
+    Set<List<?>> signatures = new HashSet<List<?>>();
+    for (MemberLiteral<?, ?> member : members) {
+      signatures.add(Arrays.asList(member.getRawDeclaringType(), member.getName(),
+          member instanceof MethodLiteral
+              ? ((MethodLiteral<?, ?>) member).getRawParameterTypes()
+              : null));
+    }
+    return signatures;
+  }
+
   private String getJsniSignature(FieldLiteral<?> field) throws NoSourceNameException {
     StringBuilder signature = new StringBuilder();
     signature.append("@");
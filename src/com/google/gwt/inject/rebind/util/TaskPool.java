@@ -0,0 +1,97 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * The fork-join pool running the parallel phases of all generator runs of a
+ * compile, so that they share one set of worker threads instead of starting
+ * their own for every ginjector.
+ *
+ * <p>Tasks run on the pool must not use the generator context, the tree
+ * logger or the type oracle, none of which are thread-safe.  Their results
+ * are applied on the generator's thread instead.
+ */
+public final class TaskPool {
+
+  /**
+   * The pool, created on first use.  Its worker threads are daemon threads
+   * that end when idle, so it is never shut down.
+   */
+  private static ForkJoinPool pool;
+
+  private TaskPool() {}
+
+  /**
+   * Runs the given tasks on the pool and returns their results, in the order
+   * of the tasks.  If any task fails, rethrows the failure of the first such
+   * task once all tasks completed.
+   */
+  public static <T> List<T> invokeAll(List<? extends Callable<T>> tasks) {
+    // The pool may rethrow a copy of a task's exception, so failures are
+    // recorded by the tasks themselves.
+    final List<T> results = new ArrayList<T>(Collections.<T>nCopies(tasks.size(), null));
+    final Throwable[] failures = new Throwable[tasks.size()];
+    List<Callable<Void>> recordingTasks = new ArrayList<Callable<Void>>();
+    for (int i = 0; i < tasks.size(); i++) {
+      final int index = i;
+      final Callable<T> task = tasks.get(i);
+      recordingTasks.add(new Callable<Void>() {
+        public Void call() {
+          try {
+            results.set(index, task.call());
+          } catch (Throwable t) {
+            failures[index] = t;
+          }
+          return null;
+        }
+      });
+    }
+
+    getPool().invokeAll(recordingTasks);
+
+    for (Throwable failure : failures) {
+      if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      } else if (failure instanceof Error) {
+        throw (Error) failure;
+      } else if (failure != null) {
+        throw new RuntimeException(failure);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Starts running the given task on the pool.
+   */
+  public static <T> Future<T> submit(Callable<T> task) {
+    return getPool().submit(task);
+  }
+
+  private static synchronized ForkJoinPool getPool() {
+    if (pool == null) {
+      pool = new ForkJoinPool();
+    }
+    return pool;
+  }
+}
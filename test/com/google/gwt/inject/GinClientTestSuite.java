@@ -20,11 +20,13 @@ import com.google.gwt.inject.client.InnerGinjectorTest;
 import com.google.gwt.inject.client.assistedinject.AnnotatedFactoryTest;
 import com.google.gwt.inject.client.assistedinject.CarFactoryTest;
 import com.google.gwt.inject.client.assistedinject.CircularFactoryTest;
+import com.google.gwt.inject.client.asyncfragments.AsyncFragmentsTest;
 import com.google.gwt.inject.client.binding.ConstantBindingTest;
 import com.google.gwt.inject.client.binding.EagerBindingTest;
 import com.google.gwt.inject.client.binding.GinjectorBindingTest;
 import com.google.gwt.inject.client.binding.InjectMembersTest;
 import com.google.gwt.inject.client.configurationmodules.ConfigurationModulesTest;
+import com.google.gwt.inject.client.eager.DeferredEagerSingletonTest;
 import com.google.gwt.inject.client.eager.EagerSingletonTest;
 import com.google.gwt.inject.client.field.FieldInjectTest;
 import com.google.gwt.inject.client.generics.GenericsTest;
@@ -35,6 +37,7 @@ import com.google.gwt.inject.client.gwtdotcreate.GwtDotCreateInjectTest;
 import com.google.gwt.inject.client.hierarchical.HierarchicalTest;
 import com.google.gwt.inject.client.implicit.AsyncProviderTest;
 import com.google.gwt.inject.client.implicit.ImplicitBindingTest;
+import com.google.gwt.inject.client.inline.InlineTest;
 import com.google.gwt.inject.client.installduplicate.InstallDuplicateTest;
 import com.google.gwt.inject.client.jsr330.Jsr330Test;
 import com.google.gwt.inject.client.method.MethodInjectTest;
@@ -57,6 +60,8 @@ import com.google.gwt.inject.client.privatepinned.PrivatePinnedTest;
 import com.google.gwt.inject.client.provider.ProviderTest;
 import com.google.gwt.inject.client.providermethods.ProviderMethodsTest;
 import com.google.gwt.inject.client.scopedimplicit.ScopedImplicitTest;
+import com.google.gwt.inject.client.splitpoint.SplitPointTest;
+import com.google.gwt.inject.client.trace.TraceTest;
 import com.google.gwt.inject.superclient.supersource.SuperSourceTest;
 import com.google.gwt.inject.generated.client.GeneratorTest;
 import com.google.gwt.junit.tools.GWTTestSuite;
@@ -89,6 +94,7 @@ public class GinClientTestSuite {
     suite.addTestSuite(GinjectorBindingTest.class);
     suite.addTestSuite(EagerBindingTest.class);
     suite.addTestSuite(EagerSingletonTest.class);
+    suite.addTestSuite(DeferredEagerSingletonTest.class);
     suite.addTestSuite(ImplicitBindingTest.class);
     suite.addTestSuite(AsyncProviderTest.class);
     suite.addTestSuite(ProviderTest.class);
@@ -101,6 +107,10 @@ public class GinClientTestSuite {
     suite.addTestSuite(BikeTest.class);
     suite.addTestSuite(BusTest.class);
     suite.addTestSuite(ConfigurationModulesTest.class);
+    suite.addTestSuite(AsyncFragmentsTest.class);
+    suite.addTestSuite(SplitPointTest.class);
+    suite.addTestSuite(TraceTest.class);
+    suite.addTestSuite(InlineTest.class);
     suite.addTestSuite(InstallDuplicateTest.class);
     suite.addTestSuite(PackagePrivateTest.class);
     suite.addTestSuite(PrivateBasicTest.class);
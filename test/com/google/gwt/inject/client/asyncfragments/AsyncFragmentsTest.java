@@ -0,0 +1,87 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client.asyncfragments;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.inject.client.AsyncProvider;
+import com.google.gwt.junit.client.GWTTestCase;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+
+/**
+ * Tests bindings that are only reachable through an AsyncProvider, with the
+ * asynchronous fragments of the ginjector enabled.
+ */
+public class AsyncFragmentsTest extends GWTTestCase {
+
+  @Singleton
+  public static class Shared {}
+
+  public static class Header {
+    @Inject Shared shared;
+  }
+
+  @Singleton
+  public static class Screen {
+    final Shared shared;
+    final Header header;
+    final Provider<Header> headerProvider;
+
+    @Inject
+    Screen(Shared shared, Header header, Provider<Header> headerProvider) {
+      this.shared = shared;
+      this.header = header;
+      this.headerProvider = headerProvider;
+    }
+  }
+
+  public void testAsyncOnlyBindings() {
+    final AsyncFragmentsGinjector injector = GWT.create(AsyncFragmentsGinjector.class);
+    final AsyncProvider<Screen> screenProvider = injector.getScreenProvider();
+    delayTestFinish(500);
+    screenProvider.get(new AbstractAsyncCallback<Screen>() {
+      public void onSuccess(final Screen screen1) {
+        Shared shared = injector.getShared();
+        assertSame(shared, screen1.shared);
+        assertSame(shared, screen1.header.shared);
+        assertNotSame(screen1.header, screen1.headerProvider.get());
+        assertSame(shared, screen1.headerProvider.get().shared);
+
+        delayTestFinish(500);
+        screenProvider.get(new AbstractAsyncCallback<Screen>() {
+          public void onSuccess(Screen screen2) {
+            assertSame(screen1, screen2);
+            finishTest();
+          }
+        });
+      }
+    });
+  }
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gwt.inject.client.asyncfragments.AsyncFragmentsTest";
+  }
+
+  private abstract class AbstractAsyncCallback<T> implements AsyncCallback<T> {
+
+    public void onFailure(Throwable caught) {
+      fail("Should not happen");
+    }
+  }
+}
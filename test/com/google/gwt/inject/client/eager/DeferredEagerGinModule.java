@@ -0,0 +1,34 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client.eager;
+
+import com.google.gwt.inject.client.AbstractGinModule;
+import com.google.gwt.inject.client.DeferredEagerSingleton;
+import com.google.gwt.inject.client.PrivateGinModule;
+
+public class DeferredEagerGinModule extends AbstractGinModule {
+
+  protected void configure() {
+    bind(MyDeferredSingleton.class).in(DeferredEagerSingleton.class);
+    bind(MyEagerSingleton.class).asEagerSingleton();
+
+    install(new PrivateGinModule() {
+      protected void configure() {
+        bind(PrivateDeferredSingleton.class).in(DeferredEagerSingleton.class);
+      }
+    });
+  }
+}
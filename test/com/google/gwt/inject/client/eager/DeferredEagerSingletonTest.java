@@ -0,0 +1,93 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client.eager;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class DeferredEagerSingletonTest extends GWTTestCase {
+
+  private static final int TIMEOUT_MILLIS = 5000;
+
+  @Override
+  protected void gwtSetUp() throws Exception {
+    MyEagerSingleton.instances = 0;
+    MyDeferredSingleton.instances = 0;
+    AnnotatedDeferredSingleton.instances = 0;
+    PrivateDeferredSingleton.instances = 0;
+  }
+
+  public void testDeferredEagerSingletonsCreatedAfterStartup() {
+    GWT.create(DeferredEagerGinjector.class);
+
+    assertEquals(1, MyEagerSingleton.instances);
+    assertEquals(0, MyDeferredSingleton.instances);
+    assertEquals(0, AnnotatedDeferredSingleton.instances);
+    assertEquals(0, PrivateDeferredSingleton.instances);
+
+    delayTestFinish(TIMEOUT_MILLIS);
+    Scheduler.get().scheduleFixedDelay(new RepeatingCommand() {
+      public boolean execute() {
+        if (!allDeferredSingletonsCreated()) {
+          return true;
+        }
+
+        assertEquals(1, MyEagerSingleton.instances);
+        assertEquals(1, MyDeferredSingleton.instances);
+        assertEquals(1, AnnotatedDeferredSingleton.instances);
+        assertEquals(1, PrivateDeferredSingleton.instances);
+        finishTest();
+        return false;
+      }
+    }, 10);
+  }
+
+  public void testDeferredEagerSingletonInjectedBeforeItsTurn() {
+    final DeferredEagerGinjector ginjector = GWT.create(DeferredEagerGinjector.class);
+    final MyDeferredSingleton myDeferredSingleton = ginjector.getMyDeferredSingleton();
+
+    assertEquals(1, MyDeferredSingleton.instances);
+    assertNotNull(myDeferredSingleton.myEagerSingleton);
+
+    delayTestFinish(TIMEOUT_MILLIS);
+    Scheduler.get().scheduleFixedDelay(new RepeatingCommand() {
+      public boolean execute() {
+        if (!allDeferredSingletonsCreated()) {
+          return true;
+        }
+
+        assertEquals(1, MyDeferredSingleton.instances);
+        assertSame(myDeferredSingleton, ginjector.getMyDeferredSingleton());
+        assertSame(ginjector.getAnnotatedDeferredSingleton(),
+            ginjector.getAnnotatedDeferredSingleton());
+        assertEquals(1, AnnotatedDeferredSingleton.instances);
+        finishTest();
+        return false;
+      }
+    }, 10);
+  }
+
+  private static boolean allDeferredSingletonsCreated() {
+    return MyDeferredSingleton.instances > 0 && AnnotatedDeferredSingleton.instances > 0
+        && PrivateDeferredSingleton.instances > 0;
+  }
+
+  public String getModuleName() {
+    return "com.google.gwt.inject.client.eager.DeferredEagerSingletonTest";
+  }
+}
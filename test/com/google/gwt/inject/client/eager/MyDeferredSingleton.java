@@ -13,28 +13,19 @@
  * License for the specific language governing permissions and limitations under
  * the License.
  */
-package com.google.gwt.inject.client.multibindings;
+package com.google.gwt.inject.client.eager;
 
-import com.google.inject.Provider;
+import com.google.inject.Inject;
 
-import java.util.LinkedHashSet;
-import java.util.Set;
+public class MyDeferredSingleton {
 
-/**
- * A registry to keep track of multiple bindings for a type.
- *
- * @param <T> type of key for multi binding
- */
-public class MultibinderRegistry<T> {
+  static int instances = 0;
 
-  private final Set<Provider<T>> providers = new LinkedHashSet<Provider<T>>();
-
-  @SuppressWarnings("unchecked")
-  void register(Provider<? extends T> provider) {
-    providers.add((Provider<T>) provider);
-  }
+  final MyEagerSingleton myEagerSingleton;
 
-  Set<Provider<T>> getProviders() {
-    return providers;
+  @Inject
+  public MyDeferredSingleton(MyEagerSingleton myEagerSingleton) {
+    this.myEagerSingleton = myEagerSingleton;
+    instances++;
   }
 }
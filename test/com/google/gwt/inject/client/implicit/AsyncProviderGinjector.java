@@ -17,6 +17,7 @@ package com.google.gwt.inject.client.implicit;
 
 import com.google.gwt.inject.client.AsyncProvider;
 import com.google.gwt.inject.client.Ginjector;
+import com.google.gwt.inject.client.LoadableAsyncProvider;
 import com.google.gwt.inject.client.NoGinModules;
 
 @NoGinModules
@@ -27,4 +28,8 @@ public interface AsyncProviderGinjector extends Ginjector {
   FooAsync getFooAsync();
   
   AsyncProvider<FooAsync> getFooAsyncAsyncProvider();
+
+  LoadableAsyncProvider<FooAsync> getFooAsyncLoadableAsyncProvider();
+
+  LoadableAsyncProvider<FailingAsync> getFailingAsyncProvider();
 }
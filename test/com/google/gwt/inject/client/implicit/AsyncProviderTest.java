@@ -18,9 +18,13 @@ package com.google.gwt.inject.client.implicit;
 
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.inject.client.AsyncProvider;
+import com.google.gwt.inject.client.LoadableAsyncProvider;
 import com.google.gwt.junit.client.GWTTestCase;
 import com.google.gwt.user.client.rpc.AsyncCallback;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * The tests here use the following approach for testing asynchronous code:
  * 
@@ -112,6 +116,68 @@ public class AsyncProviderTest extends GWTTestCase {
     });
   }
   
+  public void testAsyncProviderSharesLoad() {
+    final LoadableAsyncProvider<FooAsync> fooAsyncAsyncProvider =
+        injector.getFooAsyncLoadableAsyncProvider();
+    final List<FooAsync> results = new ArrayList<FooAsync>();
+    delayTestFinish(500);
+    fooAsyncAsyncProvider.get(new AbstractAsyncCallback<FooAsync>() {
+
+      public void onSuccess(FooAsync fooAsync) {
+        results.add(fooAsync);
+      }
+    });
+    fooAsyncAsyncProvider.get(new AbstractAsyncCallback<FooAsync>() {
+
+      public void onSuccess(FooAsync fooAsync) {
+        results.add(fooAsync);
+        assertEquals(2, results.size());
+        assertNotSame(results.get(0), results.get(1));
+        assertTrue(fooAsyncAsyncProvider.isLoaded());
+
+        // Once loaded, the provider calls back synchronously.
+        fooAsyncAsyncProvider.get(new AbstractAsyncCallback<FooAsync>() {
+
+          public void onSuccess(FooAsync fooAsync) {
+            results.add(fooAsync);
+          }
+        });
+        assertEquals(3, results.size());
+        finishTest();
+      }
+    });
+  }
+
+  public void testAsyncProviderReportsFailedCreation() {
+    final LoadableAsyncProvider<FailingAsync> failingAsyncProvider =
+        injector.getFailingAsyncProvider();
+    assertFalse(failingAsyncProvider.isLoaded());
+    final List<Throwable> failures = new ArrayList<Throwable>();
+    delayTestFinish(500);
+    failingAsyncProvider.get(new FailingCallback() {
+
+      public void onFailure(Throwable caught) {
+        failures.add(caught);
+      }
+    });
+    failingAsyncProvider.get(new FailingCallback() {
+
+      public void onFailure(Throwable caught) {
+        // Every pending callback is told of its failed creation.
+        failures.add(caught);
+        assertEquals(2, failures.size());
+        assertTrue(failures.get(0) instanceof IllegalStateException);
+
+        // The code was loaded nonetheless, which providers created afterwards,
+        // in any ginjector, know too.
+        assertTrue(failingAsyncProvider.isLoaded());
+        AsyncProviderGinjector otherInjector = GWT.create(AsyncProviderGinjector.class);
+        assertTrue(otherInjector.getFailingAsyncProvider().isLoaded());
+        finishTest();
+      }
+    });
+  }
+
   public void testAsyncProviderWithSupertype() {
     AsyncProvider<Foo> fooAsyncProvider = injector.getFooAsyncProvider();
     assertNotNull(fooAsyncProvider);
@@ -137,4 +203,11 @@ public class AsyncProviderTest extends GWTTestCase {
       fail("Should not happen");
     }
   }
+
+  private abstract class FailingCallback implements AsyncCallback<FailingAsync> {
+
+    public void onSuccess(FailingAsync result) {
+      fail("Should not happen");
+    }
+  }
 }
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client.inline;
+
+import com.google.gwt.inject.client.AbstractGinModule;
+import com.google.inject.Singleton;
+import com.google.inject.name.Names;
+
+public class InlineGinModule extends AbstractGinModule {
+
+  protected void configure() {
+    bind(Vehicle.class).to(Car.class);
+    bind(Car.class).to(SportsCar.class);
+    bind(Vehicle.class).annotatedWith(Names.named("hidden")).to(HiddenVehicle.class);
+    bind(Garage.class).to(BigGarage.class).in(Singleton.class);
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client.inline;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.inject.client.inline.driver.Driver;
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class InlineTest extends GWTTestCase {
+
+  public void testLinkedBindingChain() {
+    InlineGinjector ginjector = GWT.create(InlineGinjector.class);
+
+    assertTrue(ginjector.getVehicle() instanceof SportsCar);
+    assertNotSame(ginjector.getVehicle(), ginjector.getVehicle());
+    assertTrue(ginjector.getHiddenVehicle() instanceof HiddenVehicle);
+  }
+
+  public void testScopedLinkedBinding() {
+    InlineGinjector ginjector = GWT.create(InlineGinjector.class);
+
+    assertTrue(ginjector.getGarage() instanceof BigGarage);
+    assertSame(ginjector.getGarage(), ginjector.getGarage());
+  }
+
+  public void testLinkedBindingsFromOtherPackage() {
+    InlineGinjector ginjector = GWT.create(InlineGinjector.class);
+    Driver driver = ginjector.getDriver();
+
+    assertTrue(driver.getVehicle() instanceof SportsCar);
+    assertTrue(driver.getHiddenVehicle() instanceof HiddenVehicle);
+    assertSame(ginjector.getGarage(), driver.getGarage());
+  }
+
+  public String getModuleName() {
+    return "com.google.gwt.inject.client.inline.InlineTest";
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client.inline.driver;
+
+import com.google.gwt.inject.client.inline.Garage;
+import com.google.gwt.inject.client.inline.Vehicle;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+public class Driver {
+
+  final Vehicle vehicle;
+  final Vehicle hiddenVehicle;
+  final Garage garage;
+
+  @Inject
+  public Driver(Vehicle vehicle, @Named("hidden") Vehicle hiddenVehicle, Garage garage) {
+    this.vehicle = vehicle;
+    this.hiddenVehicle = hiddenVehicle;
+    this.garage = garage;
+  }
+
+  public Vehicle getVehicle() {
+    return vehicle;
+  }
+
+  public Vehicle getHiddenVehicle() {
+    return hiddenVehicle;
+  }
+
+  public Garage getGarage() {
+    return garage;
+  }
+}
@@ -19,10 +19,12 @@ import com.google.gwt.core.client.GWT;
 import com.google.gwt.inject.client.AbstractGinModule;
 import com.google.gwt.inject.client.GinModules;
 import com.google.gwt.inject.client.Ginjector;
+import com.google.gwt.inject.client.PrivateGinModule;
 import com.google.gwt.junit.client.GWTTestCase;
 import com.google.inject.Inject;
 import com.google.inject.TypeLiteral;
 
+import java.util.Iterator;
 import java.util.Map;
 
 public class MapBinderTest extends GWTTestCase {
@@ -109,6 +111,36 @@ public class MapBinderTest extends GWTTestCase {
   }
 
 
+  public static class GinModuleWithDuplicateKeys extends AbstractGinModule {
+    @Override
+    protected void configure() {
+      MapBinder<String, X> mapBinder = MapBinder.newMapBinder(binder(), String.class, X.class);
+      mapBinder.addBinding("1").to(X1.class);
+      mapBinder.addBinding("2").to(X2.class);
+      mapBinder.addBinding("1").to(X2.class);
+    }
+  }
+
+  @GinModules(GinModuleWithDuplicateKeys.class)
+  public interface DuplicateKeysInjector extends Ginjector {
+    Map<String, X> getMapX();
+  }
+
+  public void testInjectMapWithDuplicateKeys() throws Exception {
+    DuplicateKeysInjector injector = GWT.create(DuplicateKeysInjector.class);
+
+    Map<String, X> mapX = injector.getMapX();
+    assertEquals(2, mapX.size());
+
+    // The last binding of a key wins, but the key keeps its first position.
+    Iterator<Map.Entry<String, X>> iterator = mapX.entrySet().iterator();
+    Map.Entry<String, X> entry = iterator.next();
+    assertEquals("1", entry.getKey());
+    assertTrue(entry.getValue() instanceof X2);
+    assertEquals("2", iterator.next().getKey());
+    assertFalse(iterator.hasNext());
+  }
+
   public interface Y {}
   public static class YImpl implements Y {}
 
@@ -159,6 +191,46 @@ public class MapBinderTest extends GWTTestCase {
     assertTrue(((X3<?>) mapX.get("4")).object instanceof YImpl);
   }
 
+  public static class GinModuleWithMoreXInRealPrivateModule extends PrivateGinModule {
+    @Override
+    protected void configure() {
+      install(new GinModuleWithMoreX());
+    }
+  }
+
+  @GinModules({GinModuleWithX.class, GinModuleWithMoreXInRealPrivateModule.class})
+  public interface XWithRealPrivateModuleInjector extends Ginjector {
+    Map<String, X> getMapX();
+  }
+
+  public void testInjectMapWithBindingsFromRealPrivateModule() throws Exception {
+    XWithRealPrivateModuleInjector injector = GWT.create(XWithRealPrivateModuleInjector.class);
+
+    Map<String, X> mapX = injector.getMapX();
+    assertEquals(4, mapX.size());
+    assertTrue(mapX.get("1") instanceof X1);
+    assertTrue(mapX.get("2") instanceof X2);
+    assertTrue(mapX.get("3") instanceof X1);
+    assertTrue(mapX.get("4") instanceof X3<?>);
+    assertTrue(((X3<?>) mapX.get("4")).object instanceof YImpl);
+  }
+
+  @SuppressWarnings("deprecation")
+  @GinModules(GinModuleWithX.class)
+  public interface ProviderForMapInjector extends Ginjector {
+    ProviderForMap<String, X> getProviderForMapX();
+  }
+
+  @SuppressWarnings("deprecation")
+  public void testProviderForMap() throws Exception {
+    ProviderForMapInjector injector = GWT.create(ProviderForMapInjector.class);
+
+    Map<String, X> mapX = injector.getProviderForMapX().get();
+    assertEquals(2, mapX.size());
+    assertTrue(mapX.get("1") instanceof X1);
+    assertTrue(mapX.get("2") instanceof X2);
+  }
+
   @Override
   public String getModuleName() {
     return "com.google.gwt.inject.InjectTest";
@@ -19,6 +19,7 @@ import com.google.gwt.core.client.GWT;
 import com.google.gwt.inject.client.AbstractGinModule;
 import com.google.gwt.inject.client.GinModules;
 import com.google.gwt.inject.client.Ginjector;
+import com.google.gwt.inject.client.PrivateGinModule;
 import com.google.gwt.junit.client.GWTTestCase;
 
 import java.util.Iterator;
@@ -154,6 +155,45 @@ public class MultibinderTest extends GWTTestCase {
     assertTrue(iterator.next() instanceof X1);
   }
 
+  public static class GinModuleWithMoreXInRealPrivateModule extends PrivateGinModule {
+    @Override
+    protected void configure() {
+      install(new GinModuleWithMoreX());
+    }
+  }
+
+  @GinModules({GinModuleWithX.class, GinModuleWithMoreXInRealPrivateModule.class})
+  public interface XWithRealPrivateModuleInjector extends Ginjector {
+    Set<X> getSetX();
+  }
+
+  public void testInjectSetWithBindingsFromRealPrivateModule() throws Exception {
+    XWithRealPrivateModuleInjector injector = GWT.create(XWithRealPrivateModuleInjector.class);
+
+    Set<X> setX = injector.getSetX();
+    assertEquals(3, setX.size());
+
+    Iterator<X> iterator = setX.iterator();
+    assertTrue(iterator.next() instanceof X1);
+    assertTrue(iterator.next() instanceof X2);
+    assertTrue(iterator.next() instanceof X1);
+  }
+
+  @SuppressWarnings("deprecation")
+  @GinModules(GinModuleWithX.class)
+  public interface ProviderForSetInjector extends Ginjector {
+    ProviderForSet<X> getProviderForSetX();
+  }
+
+  @SuppressWarnings("deprecation")
+  public void testProviderForSet() throws Exception {
+    ProviderForSetInjector injector = GWT.create(ProviderForSetInjector.class);
+
+    Set<X> setX = injector.getProviderForSetX().get();
+    assertEquals(1, setX.size());
+    assertTrue(setX.iterator().next() instanceof X1);
+  }
+
   @Override
   public String getModuleName() {
     return "com.google.gwt.inject.InjectTest";
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client.splitpoint;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.prefetch.RunAsyncCode;
+import com.google.gwt.inject.client.AsyncProvider;
+import com.google.gwt.inject.client.AsyncSplitPoint;
+import com.google.gwt.junit.client.GWTTestCase;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+/**
+ * Tests AsyncProviders whose targets share a split point.
+ */
+public class SplitPointTest extends GWTTestCase {
+
+  /**
+   * The name of the split point shared by {@link Inbox} and {@link Outbox}.
+   */
+  public interface MailSplitPoint {}
+
+  @AsyncSplitPoint(MailSplitPoint.class)
+  public static class Inbox {}
+
+  @AsyncSplitPoint(value = MailSplitPoint.class, prefetch = true)
+  public static class Outbox {}
+
+  public void testSharedSplitPoint() {
+    final SplitPointGinjector injector = GWT.create(SplitPointGinjector.class);
+    final AsyncProvider<Outbox> outboxProvider = injector.getOutboxProvider();
+    delayTestFinish(500);
+    injector.getInboxProvider().get(new AbstractAsyncCallback<Inbox>() {
+      public void onSuccess(Inbox inbox) {
+        assertNotNull(inbox);
+        assertTrue(RunAsyncCode.runAsyncCode(MailSplitPoint.class).isLoaded());
+
+        delayTestFinish(500);
+        outboxProvider.get(new AbstractAsyncCallback<Outbox>() {
+          public void onSuccess(Outbox outbox) {
+            assertNotNull(outbox);
+            finishTest();
+          }
+        });
+      }
+    });
+  }
+
+  @Override
+  public String getModuleName() {
+    return "com.google.gwt.inject.InjectTest";
+  }
+
+  private abstract class AbstractAsyncCallback<T> implements AsyncCallback<T> {
+
+    public void onFailure(Throwable caught) {
+      fail("Should not happen");
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.client.trace;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.inject.client.GinTrace;
+import com.google.gwt.inject.client.GinTrace.Node;
+import com.google.gwt.junit.client.GWTTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TraceTest extends GWTTestCase {
+
+  private static final String BRAKES = Brakes.class.getName();
+  private static final String CAR = Car.class.getName();
+  private static final String ENGINE = Engine.class.getName();
+  private static final String WHEELS = Wheels.class.getName();
+
+  @Override
+  protected void gwtSetUp() throws Exception {
+    GinTrace.clear();
+    GinTrace.setCallback(null);
+  }
+
+  public void testInstantiationTree() {
+    TraceGinjector ginjector = GWT.create(TraceGinjector.class);
+    ginjector.getCar();
+
+    assertEquals(1, GinTrace.getRoots().size());
+    Node car = GinTrace.getRoots().get(0);
+    assertEquals(CAR, car.getKey());
+    assertTrue(car.getDurationMillis() >= 0);
+
+    // The singleton engine is only created once, for the first dependency that
+    // needs it.
+    assertEquals(2, car.getChildren().size());
+    Node engine = car.getChildren().get(0);
+    assertEquals(ENGINE, engine.getKey());
+    assertTrue(engine.getChildren().isEmpty());
+    Node wheels = car.getChildren().get(1);
+    assertEquals(WHEELS, wheels.getKey());
+    assertTrue(wheels.getChildren().isEmpty());
+
+    assertEquals(CAR + ": " + car.getDurationMillis() + " ms\n"
+        + "  " + ENGINE + ": " + engine.getDurationMillis() + " ms\n"
+        + "  " + WHEELS + ": " + wheels.getDurationMillis() + " ms\n", GinTrace.dump());
+  }
+
+  public void testCallback() {
+    final List<String> instantiated = new ArrayList<String>();
+    GinTrace.setCallback(new GinTrace.Callback() {
+      public void onInstantiated(Node node) {
+        instantiated.add(node.getKey());
+      }
+    });
+
+    TraceGinjector ginjector = GWT.create(TraceGinjector.class);
+    ginjector.getCar();
+    ginjector.getCar();
+
+    assertEquals(2, instantiated.size());
+    assertEquals(CAR, instantiated.get(0));
+    assertEquals(CAR, instantiated.get(1));
+
+    // The engine was already created for the first car.
+    assertEquals(1, GinTrace.getRoots().get(1).getChildren().size());
+  }
+
+  public void testFailedInstantiation() {
+    TraceGinjector ginjector = GWT.create(TraceGinjector.class);
+    try {
+      ginjector.getBrakes();
+      fail("Expected the brakes to fail");
+    } catch (IllegalStateException expected) {
+    }
+    ginjector.getCar();
+
+    // The car must not be attached under the brakes that failed.
+    assertEquals(2, GinTrace.getRoots().size());
+    assertEquals(BRAKES, GinTrace.getRoots().get(0).getKey());
+    assertEquals(ENGINE, GinTrace.getRoots().get(0).getChildren().get(0).getKey());
+    assertEquals(CAR, GinTrace.getRoots().get(1).getKey());
+  }
+
+  public String getModuleName() {
+    return "com.google.gwt.inject.client.trace.TraceTest";
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.gwt.inject.rebind;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.inject.rebind.GeneratorProfiler.Counter;
+import com.google.gwt.inject.rebind.GeneratorProfiler.Phase;
+
+import junit.framework.TestCase;
+
+public class GeneratorProfilerTest extends TestCase {
+
+  private GinjectorBindings root;
+  private GinjectorBindings child;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    root = createNiceMock(GinjectorBindings.class);
+    child = createNiceMock(GinjectorBindings.class);
+    expect(child.getParent()).andReturn(root).anyTimes();
+    expect(child.getModule()).andReturn((Class) String.class).anyTimes();
+    replay(root, child);
+  }
+
+  public void testDisabled() {
+    GeneratorProfiler profiler = new GeneratorProfiler((String) null, TreeLogger.NULL);
+    assertFalse(profiler.isEnabled());
+
+    profiler.start(Phase.OUTPUT, root).stop();
+    profiler.increment(Counter.KEYS_EXPLORED, root);
+    assertEquals("{\"ginjector\":\"Foo\",\"nodes\":[]}", profiler.createReport("Foo"));
+  }
+
+  public void testEmptyPathDisables() {
+    assertFalse(new GeneratorProfiler(" ", TreeLogger.NULL).isEnabled());
+  }
+
+  public void testReport() {
+    GeneratorProfiler profiler = new GeneratorProfiler("unused", TreeLogger.NULL);
+    assertTrue(profiler.isEnabled());
+
+    profiler.start(Phase.ELEMENT_VISITING, root).stop();
+    profiler.start(Phase.OUTPUT, child).stop();
+    profiler.start(Phase.OUTPUT, child).stop();
+    profiler.increment(Counter.KEYS_EXPLORED, child);
+    profiler.add(Counter.KEYS_EXPLORED, child, 2);
+
+    String report = profiler.createReport("Foo");
+    assertTrue(report, report.startsWith(
+        "{\"ginjector\":\"Foo\",\"nodes\":[{\"id\":0,\"parent\":null,\"module\":null,"
+            + "\"phases\":{\"element_visiting\":{\"invocations\":1,"));
+    assertTrue(report, report.contains(
+        "{\"id\":1,\"parent\":0,\"module\":\"java.lang.String\","
+            + "\"phases\":{\"output\":{\"invocations\":2,"));
+    assertTrue(report, report.endsWith("},\"counters\":{\"keys_explored\":3}}]}"));
+  }
+}
@@ -55,6 +55,96 @@ public class GinBridgeClassLoaderTest extends TestCase {
     assertClassVersion(loader, "b", "a", "com.google.gwt.inject.rebind.types.Simple");
   }
 
+  public void testLookedUpClassHashes() throws ClassNotFoundException {
+    GeneratorContext context =
+        GeneratorContextBuilder.newEmptyBuilder().add(createSimple()).buildGeneratorContext();
+
+    GinBridgeClassLoader loader =
+        new GinBridgeClassLoader(context, createLogger(), new HashSet<String>());
+    assertTrue(loader.getLookedUpClassHashes().isEmpty());
+
+    String className = "com.google.gwt.inject.rebind.types.Simple";
+    loader.loadClass(className);
+
+    String hash = loader.getClassHash(className);
+    assertNotNull(hash);
+    assertEquals(hash, loader.getLookedUpClassHashes().get(className));
+    assertNull(loader.getClassHash("com.google.gwt.inject.rebind.types.Missing"));
+  }
+
+  public void testLookedUpClassHashesIncludeExceptedPackages() throws ClassNotFoundException {
+    GeneratorContext context =
+        GeneratorContextBuilder.newEmptyBuilder().add(createSimple()).buildGeneratorContext();
+
+    GinBridgeClassLoader loader = new GinBridgeClassLoader(context, createLogger(),
+        Collections.singleton("com.google.gwt.inject.rebind.types"));
+    String className = "com.google.gwt.inject.rebind.types.Simple";
+    loader.loadClass(className);
+
+    assertEquals(loader.getClassHash(className), loader.getLookedUpClassHashes().get(className));
+  }
+
+  // Verify that a class that couldn't be found is recorded too, since adding
+  // it later changes what the generator sees.
+  public void testLookedUpClassHashesIncludeMissingClasses() {
+    GeneratorContext context =
+        GeneratorContextBuilder.newEmptyBuilder().add(createSimple()).buildGeneratorContext();
+
+    GinBridgeClassLoader loader =
+        new GinBridgeClassLoader(context, createLogger(), new HashSet<String>());
+    String className = "com.google.gwt.inject.rebind.types.Missing";
+    try {
+      loader.loadClass(className);
+      fail("Expected ClassNotFoundException.");
+    } catch (ClassNotFoundException e) {
+      // Expected.
+    }
+
+    assertTrue(loader.getLookedUpClassHashes().containsKey(className));
+    assertNull(loader.getLookedUpClassHashes().get(className));
+  }
+
+  public void testExceptedPackagesMatchWholeSegments() throws ClassNotFoundException,
+      NoSuchMethodException {
+    GeneratorContext context =
+        GeneratorContextBuilder.newEmptyBuilder().add(createSimple()).buildGeneratorContext();
+
+    GinBridgeClassLoader loader = new GinBridgeClassLoader(context, createLogger(),
+        Collections.singleton("com.google.gwt.inject.rebind.ty"));
+
+    assertClassVersion(loader, "a", "b", "com.google.gwt.inject.rebind.types.Simple");
+  }
+
+  public void testSharedInstance() throws ClassNotFoundException {
+    GeneratorContext context =
+        GeneratorContextBuilder.newEmptyBuilder().add(createSimple()).buildGeneratorContext();
+
+    GinBridgeClassLoader loader = GinBridgeClassLoader.getSharedInstance(context, createLogger(),
+        new HashSet<String>());
+    Class<?> simple = loader.loadClass("com.google.gwt.inject.rebind.types.Simple");
+
+    GinBridgeClassLoader sharedLoader = GinBridgeClassLoader.getSharedInstance(context,
+        createLogger(), new HashSet<String>());
+    assertSame(loader, sharedLoader);
+    assertSame(simple, sharedLoader.loadClass("com.google.gwt.inject.rebind.types.Simple"));
+
+    GinBridgeClassLoader otherLoader = GinBridgeClassLoader.getSharedInstance(context,
+        createLogger(), Collections.singleton("com.google.gwt.inject.rebind.types"));
+    assertNotSame(loader, otherLoader);
+  }
+
+  public void testSharedInstanceScopedToCompile() {
+    GeneratorContext context =
+        GeneratorContextBuilder.newEmptyBuilder().add(createSimple()).buildGeneratorContext();
+    GeneratorContext otherContext =
+        GeneratorContextBuilder.newEmptyBuilder().add(createSimple()).buildGeneratorContext();
+
+    assertNotSame(
+        GinBridgeClassLoader.getSharedInstance(context, createLogger(), new HashSet<String>()),
+        GinBridgeClassLoader.getSharedInstance(otherContext, createLogger(),
+            new HashSet<String>()));
+  }
+
   public void testJavaCoreClass() throws ClassNotFoundException {
     GeneratorContext context =
         GeneratorContextBuilder.newEmptyBuilder().add(createFakeString()).buildGeneratorContext();
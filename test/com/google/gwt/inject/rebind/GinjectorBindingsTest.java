@@ -337,7 +337,7 @@ public class GinjectorBindingsTest extends TestCase {
    * {@link GinjectorBindings}.
    */
   private void expectFinalize(GinjectorBindings bindings) throws Exception {
-    bindingResolver.resolveBindings(bindings);
+    bindingResolver.resolveBindings(bindings, null);
     errorManager.checkForError();
   }
 
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.inject.client.AbstractGinModule;
+import com.google.gwt.inject.client.GinModule;
+import com.google.gwt.inject.client.PrivateGinModule;
+import com.google.gwt.inject.client.multibindings.MapBinder;
+import com.google.gwt.inject.client.multibindings.MultibindingElement;
+import com.google.gwt.inject.client.multibindings.Multibinder;
+import com.google.gwt.inject.rebind.adapter.GinModuleAdapter;
+import com.google.gwt.inject.rebind.binding.Binding;
+import com.google.gwt.inject.rebind.binding.BindingFactory;
+import com.google.gwt.inject.rebind.binding.Context;
+import com.google.gwt.inject.rebind.binding.ExposedChildBinding;
+import com.google.gwt.inject.rebind.binding.MapBinderBinding;
+import com.google.gwt.inject.rebind.binding.MultibinderBinding;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.spi.Elements;
+import junit.framework.TestCase;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.easymock.IMocksControl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class GuiceElementVisitorTest extends TestCase {
+
+  private static final Key<Set<Plugin>> SET_KEY = Key.get(new TypeLiteral<Set<Plugin>>() {});
+  private static final Key<Map<String, Plugin>> MAP_KEY =
+      Key.get(new TypeLiteral<Map<String, Plugin>>() {});
+
+  private IMocksControl control;
+  private BindingFactory bindingFactory;
+  private GuiceElementVisitor.GuiceElementVisitorFactory visitorFactory;
+  private ErrorManager errorManager;
+
+  /** The keys bound in each ginjector, in the order they were bound. */
+  private Map<GinjectorBindings, List<Key<?>>> boundKeys;
+
+  /** The entry keys passed for each bound set or map, by ginjector. */
+  private Map<GinjectorBindings, Map<Key<?>, List<Key<?>>>> multibindingEntries;
+
+  /** The ginjectors keys were exposed from, by key. */
+  private Map<Key<?>, List<GinjectorBindings>> exposedFrom;
+
+  /** The entry keys of the set binding created last. */
+  private List<Key<?>> lastSetEntries;
+
+  public void setUp() throws Exception {
+    super.setUp();
+
+    control = EasyMock.createNiceControl();
+    bindingFactory = control.createMock("bindingFactory", BindingFactory.class);
+    visitorFactory =
+        control.createMock("visitorFactory", GuiceElementVisitor.GuiceElementVisitorFactory.class);
+    errorManager = control.createMock("errorManager", ErrorManager.class);
+    boundKeys = new LinkedHashMap<GinjectorBindings, List<Key<?>>>();
+    multibindingEntries = new LinkedHashMap<GinjectorBindings, Map<Key<?>, List<Key<?>>>>();
+    exposedFrom = new LinkedHashMap<Key<?>, List<GinjectorBindings>>();
+
+    expect(bindingFactory.getExposedChildBinding((Key<?>) anyObject(),
+        (GinjectorBindings) anyObject(), (Context) anyObject()))
+        .andStubAnswer(new IAnswer<ExposedChildBinding>() {
+          public ExposedChildBinding answer() {
+            Object[] arguments = EasyMock.getCurrentArguments();
+            Key<?> key = (Key<?>) arguments[0];
+            if (!exposedFrom.containsKey(key)) {
+              exposedFrom.put(key, new ArrayList<GinjectorBindings>());
+            }
+            exposedFrom.get(key).add((GinjectorBindings) arguments[1]);
+            return null;
+          }
+        });
+
+    expect(bindingFactory.getMultibinderBinding((Key<?>) anyObject(),
+        (List<Key<?>>) anyObject(), (Context) anyObject()))
+        .andStubAnswer(new IAnswer<MultibinderBinding>() {
+          @SuppressWarnings("unchecked")
+          public MultibinderBinding answer() {
+            lastSetEntries = (List<Key<?>>) EasyMock.getCurrentArguments()[1];
+            return null;
+          }
+        });
+  }
+
+  // Verify that entries bound in private modules, at any depth, belong to the
+  // set bound by the root, which is bound only there.
+  public void testSetEntriesFromPrivateModules() throws Exception {
+    GinjectorBindings root = createBindings("root", null);
+    GinjectorBindings child = createBindings("child", root);
+    GinjectorBindings grandchild = createBindings("grandchild", child);
+    setChildren(root, child);
+    setChildren(child, grandchild);
+    setChildren(grandchild);
+
+    control.replay();
+
+    visit(root, new AbstractGinModule() {
+      protected void configure() {
+        Multibinder<Plugin> multibinder = Multibinder.newSetBinder(binder(), Plugin.class);
+        multibinder.addBinding().to(PluginA.class);
+        install(new PrivateGinModule() {
+          protected void configure() {
+            install(new PrivateGinModule() {
+              protected void configure() {
+                Multibinder.newSetBinder(binder(), Plugin.class).addBinding().to(PluginB.class);
+              }
+            });
+          }
+        });
+        multibinder.addBinding().to(PluginC.class);
+      }
+    });
+
+    control.verify();
+
+    List<Key<?>> entries = multibindingEntries.get(root).get(SET_KEY);
+    assertEquals(3, entries.size());
+    Key<?> grandchildEntry = entries.get(1);
+    assertTrue(boundKeys.get(root).containsAll(entries));
+    assertTrue(boundKeys.get(grandchild).contains(grandchildEntry));
+    assertEquals(Arrays.asList(grandchild, child), exposedFrom.get(grandchildEntry));
+    assertEquals(Collections.singleton(grandchildEntry), exposedFrom.keySet());
+
+    // The set is only bound by the root.
+    assertTrue(boundKeys.get(root).contains(SET_KEY));
+    assertFalse(boundKeys.get(child).contains(SET_KEY));
+    assertFalse(boundKeys.get(grandchild).contains(SET_KEY));
+    assertNull(multibindingEntries.get(grandchild));
+  }
+
+  // Verify that a map bound both by a ginjector and by its child gets the
+  // entries of both, in the order they were bound.
+  public void testMapBoundInParentAndChild() throws Exception {
+    GinjectorBindings root = createBindings("root", null);
+    GinjectorBindings child = createBindings("child", root);
+    setChildren(root, child);
+    setChildren(child);
+
+    final Map<String, List<Key<?>>> mapEntries = new LinkedHashMap<String, List<Key<?>>>();
+    expect(bindingFactory.getMapBinderBinding((Key<?>) anyObject(), (List<Key<?>>) anyObject(),
+        (List<Key<?>>) anyObject(), (Context) anyObject()))
+        .andStubAnswer(new IAnswer<MapBinderBinding>() {
+          @SuppressWarnings("unchecked")
+          public MapBinderBinding answer() {
+            Object[] arguments = EasyMock.getCurrentArguments();
+            mapEntries.put("keys", (List<Key<?>>) arguments[1]);
+            mapEntries.put("values", (List<Key<?>>) arguments[2]);
+            return null;
+          }
+        });
+
+    control.replay();
+
+    visit(root, new AbstractGinModule() {
+      protected void configure() {
+        install(new PrivateGinModule() {
+          protected void configure() {
+            MapBinder.newMapBinder(binder(), String.class, Plugin.class)
+                .addBinding("b").to(PluginB.class);
+          }
+        });
+        MapBinder.newMapBinder(binder(), String.class, Plugin.class)
+            .addBinding("a").to(PluginA.class);
+      }
+    });
+
+    control.verify();
+
+    assertTrue(boundKeys.get(root).contains(MAP_KEY));
+    assertFalse(boundKeys.get(child).contains(MAP_KEY));
+
+    List<Key<?>> keyKeys = mapEntries.get("keys");
+    List<Key<?>> valueKeys = mapEntries.get("values");
+    assertEquals(2, keyKeys.size());
+    assertEquals(2, valueKeys.size());
+    assertEquals(MultibindingElement.Role.MAP_KEY,
+        ((MultibindingElement) keyKeys.get(0).getAnnotation()).role());
+    assertEquals(MultibindingElement.Role.MAP_VALUE,
+        ((MultibindingElement) valueKeys.get(0).getAnnotation()).role());
+
+    // The entry bound first comes from the child and is exposed from it.
+    assertTrue(boundKeys.get(child).containsAll(Arrays.asList(keyKeys.get(0), valueKeys.get(0))));
+    assertTrue(boundKeys.get(root).containsAll(Arrays.asList(keyKeys.get(1), valueKeys.get(1))));
+    assertEquals(Collections.singletonList(child), exposedFrom.get(keyKeys.get(0)));
+    assertEquals(Collections.singletonList(child), exposedFrom.get(valueKeys.get(0)));
+    assertEquals(2, exposedFrom.size());
+  }
+
+  // Verify that sibling private modules each get their own set if no ancestor
+  // binds it.
+  public void testSetsBoundInSiblings() throws Exception {
+    GinjectorBindings root = createBindings("root", null);
+    GinjectorBindings first = createBindings("first", root);
+    GinjectorBindings second = createBindings("second", root);
+    setChildren(root, first, second);
+    setChildren(first);
+    setChildren(second);
+
+    control.replay();
+
+    visit(root, new AbstractGinModule() {
+      protected void configure() {
+        install(new PluginModule(PluginA.class));
+        install(new PluginModule(PluginB.class));
+      }
+    });
+
+    control.verify();
+
+    assertFalse(boundKeys.get(root).contains(SET_KEY));
+    assertEquals(1, multibindingEntries.get(first).get(SET_KEY).size());
+    assertEquals(1, multibindingEntries.get(second).get(SET_KEY).size());
+    assertTrue(exposedFrom.isEmpty());
+  }
+
+  // Verify that entries added through different binders get distinct keys,
+  // even if their annotations have the same members.
+  public void testEntriesOfDifferentBinders() throws Exception {
+    GinjectorBindings root = createBindings("root", null);
+    setChildren(root);
+
+    control.replay();
+
+    visit(root, new AbstractGinModule() {
+      protected void configure() {
+        Multibinder.newSetBinder(binder(), Plugin.class).addBinding().to(PluginA.class);
+        Multibinder.newSetBinder(binder(), Plugin.class).addBinding().to(PluginA.class);
+      }
+    });
+
+    control.verify();
+
+    List<Key<?>> entries = multibindingEntries.get(root).get(SET_KEY);
+    assertEquals(2, entries.size());
+    assertFalse(entries.get(0).equals(entries.get(1)));
+    assertEquals(entries.get(0).toString(), entries.get(1).toString());
+  }
+
+  private void visit(GinjectorBindings root, GinModule module) {
+    GuiceElementVisitor visitor = createVisitor(root);
+    visitor.visitElementsAndReportErrors(Elements.getElements(new GinModuleAdapter(module)));
+    assertEquals(Collections.emptyList(), visitor.getMessages());
+  }
+
+  private GuiceElementVisitor createVisitor(GinjectorBindings bindings) {
+    return new GuiceElementVisitor(TreeLogger.NULL, visitorFactory,
+        new GuiceBindingVisitorFactory(bindingFactory), errorManager, bindings, bindingFactory,
+        new GeneratorProfiler((String) null, TreeLogger.NULL));
+  }
+
+  /**
+   * Creates a ginjector recording the keys bound in it, and the entries of
+   * the set it binds, whose visitor is created by {@link #visitorFactory}.
+   */
+  private GinjectorBindings createBindings(String name, GinjectorBindings parent) {
+    final GinjectorBindings bindings = control.createMock(name, GinjectorBindings.class);
+    final List<Key<?>> keys = new ArrayList<Key<?>>();
+    boundKeys.put(bindings, keys);
+
+    expect(bindings.getParent()).andStubReturn(parent);
+    bindings.addBinding((Key<?>) anyObject(), (Binding) anyObject());
+    expectLastCall().andStubAnswer(new IAnswer<Void>() {
+      public Void answer() {
+        Key<?> key = (Key<?>) EasyMock.getCurrentArguments()[0];
+        keys.add(key);
+        if (key.equals(SET_KEY)) {
+          if (!multibindingEntries.containsKey(bindings)) {
+            multibindingEntries.put(bindings, new LinkedHashMap<Key<?>, List<Key<?>>>());
+          }
+          multibindingEntries.get(bindings).put(key, lastSetEntries);
+        }
+        return null;
+      }
+    });
+    expect(visitorFactory.create(bindings)).andStubAnswer(new IAnswer<GuiceElementVisitor>() {
+      public GuiceElementVisitor answer() {
+        return createVisitor(bindings);
+      }
+    });
+    return bindings;
+  }
+
+  private void setChildren(GinjectorBindings bindings, GinjectorBindings... children) {
+    expect(bindings.getChildren()).andStubReturn(Arrays.asList(children));
+  }
+
+  interface Plugin {}
+
+  static class PluginA implements Plugin {}
+
+  static class PluginB implements Plugin {}
+
+  static class PluginC implements Plugin {}
+
+  static class PluginModule extends PrivateGinModule {
+    private final Class<? extends Plugin> plugin;
+
+    PluginModule(Class<? extends Plugin> plugin) {
+      this.plugin = plugin;
+    }
+
+    protected void configure() {
+      Multibinder.newSetBinder(binder(), Plugin.class).addBinding().to(plugin);
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.gwt.inject.rebind;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+
+import com.google.gwt.core.ext.typeinfo.TypeOracle;
+import com.google.gwt.inject.client.AbstractGinModule;
+import com.google.gwt.inject.client.GinModule;
+import com.google.gwt.inject.client.assistedinject.FactoryModule;
+import com.google.inject.spi.Element;
+
+import junit.framework.TestCase;
+import org.easymock.EasyMock;
+import org.easymock.IMocksControl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ModuleElementCacheTest extends TestCase {
+
+  private IMocksControl control;
+  private TypeOracle typeOracle;
+  private List<Class<? extends GinModule>> modules;
+  private List<Element> elements;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    control = EasyMock.createControl();
+    typeOracle = createMock(TypeOracle.class);
+    modules = Collections.<Class<? extends GinModule>>singletonList(MyModule.class);
+    elements = Collections.singletonList(createMock(Element.class));
+  }
+
+  public void testDisabled() {
+    ModuleElementCache cache = new ModuleElementCache(typeOracle, false);
+    GinjectorBindings root = control.createMock("root", GinjectorBindings.class);
+
+    control.replay();
+    cache.put(modules, elements, root);
+    assertNull(cache.get(modules, root));
+    control.verify();
+  }
+
+  public void testReplaysRecordedStructure() {
+    ModuleElementCache cache = new ModuleElementCache(typeOracle, true);
+    FactoryModule<?> factoryModule = createMock(FactoryModule.class);
+
+    GinjectorBindings recordedRoot = control.createMock("recordedRoot", GinjectorBindings.class);
+    GinjectorBindings recordedChild = control.createMock("recordedChild", GinjectorBindings.class);
+    expect(recordedRoot.getModule()).andStubReturn(null);
+    expect(recordedRoot.getFactoryModules())
+        .andStubReturn(Collections.<FactoryModule<?>>singletonList(factoryModule));
+    expect(recordedRoot.getChildren())
+        .andStubReturn(Collections.singletonList(recordedChild));
+    EasyMock.<Class<?>>expect(recordedChild.getModule()).andStubReturn(MyPrivateModule.class);
+    expect(recordedChild.getFactoryModules())
+        .andStubReturn(Collections.<FactoryModule<?>>emptyList());
+    expect(recordedChild.getChildren())
+        .andStubReturn(Collections.<GinjectorBindings>emptyList());
+
+    GinjectorBindings root = control.createMock("root", GinjectorBindings.class);
+    GinjectorBindings child = control.createMock("child", GinjectorBindings.class);
+    root.addFactoryModule(factoryModule);
+    expect(root.createChildGinjectorBindings(MyPrivateModule.class)).andReturn(child);
+
+    control.replay();
+    cache.put(modules, elements, recordedRoot);
+    assertEquals(elements, cache.get(modules, root));
+    control.verify();
+  }
+
+  public void testScopedToTypeOracleAndModules() {
+    GinjectorBindings root = control.createMock("root", GinjectorBindings.class);
+    expect(root.getModule()).andStubReturn(null);
+    expect(root.getFactoryModules()).andStubReturn(Collections.<FactoryModule<?>>emptyList());
+    expect(root.getChildren()).andStubReturn(Collections.<GinjectorBindings>emptyList());
+
+    control.replay();
+    new ModuleElementCache(typeOracle, true).put(modules, elements, root);
+
+    assertNull(new ModuleElementCache(typeOracle, true).get(
+        Collections.<Class<? extends GinModule>>singletonList(MyPrivateModule.class), root));
+    assertEquals(elements, new ModuleElementCache(typeOracle, true).get(modules, root));
+
+    // Another compile doesn't see the recordings, which are then released.
+    assertNull(new ModuleElementCache(createMock(TypeOracle.class), true).get(modules, root));
+    assertNull(new ModuleElementCache(typeOracle, true).get(modules, root));
+  }
+
+  // Verify that a recording isn't reused for a list that has more modules, as
+  // their elements may depend on each other's installs.
+  public void testScopedToWholeModuleList() {
+    GinjectorBindings root = control.createMock("root", GinjectorBindings.class);
+    expect(root.getModule()).andStubReturn(null);
+    expect(root.getFactoryModules()).andStubReturn(Collections.<FactoryModule<?>>emptyList());
+    expect(root.getChildren()).andStubReturn(Collections.<GinjectorBindings>emptyList());
+
+    control.replay();
+    ModuleElementCache cache = new ModuleElementCache(typeOracle, true);
+    cache.put(modules, elements, root);
+
+    assertNull(cache.get(Arrays.<Class<? extends GinModule>>asList(
+        MyModule.class, MyPrivateModule.class), root));
+  }
+
+  static class MyModule extends AbstractGinModule {
+    @Override
+    protected void configure() {}
+  }
+
+  static class MyPrivateModule extends AbstractGinModule {
+    @Override
+    protected void configure() {}
+  }
+}
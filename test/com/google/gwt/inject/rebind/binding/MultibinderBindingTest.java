@@ -0,0 +1,132 @@
+/*
+ * Copyright 2008 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind.binding;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+
+import com.google.gwt.inject.rebind.reflect.NoSourceNameException;
+import com.google.gwt.inject.rebind.util.InjectorMethod;
+import com.google.gwt.inject.rebind.util.InjectorWriteContext;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests for {@link MultibinderBinding} and {@link MapBinderBinding}.
+ */
+public class MultibinderBindingTest extends TestCase {
+
+  private static final String SOURCE = "dummy";
+  private static final Context CONTEXT = Context.forText(SOURCE);
+
+  private static final Key<Set<String>> SET_KEY = Key.get(new TypeLiteral<Set<String>>() {});
+  private static final Key<Map<String, Integer>> MAP_KEY =
+      Key.get(new TypeLiteral<Map<String, Integer>>() {});
+
+  private static final Key<String> A = Key.get(String.class, Names.named("a"));
+  private static final Key<String> B = Key.get(String.class, Names.named("b"));
+  private static final Key<Integer> ONE = Key.get(Integer.class, Names.named("1"));
+  private static final Key<Integer> TWO = Key.get(Integer.class, Names.named("2"));
+
+  public void testSet() throws NoSourceNameException {
+    MultibinderBinding binding =
+        new MultibinderBinding(SET_KEY, Arrays.<Key<?>>asList(A, B), CONTEXT);
+
+    assertEquals(3, binding.getDependencies().size());
+    assertTrue(binding.getDependencies().contains(
+        new Dependency(Dependency.GINJECTOR, SET_KEY, SOURCE)));
+    assertTrue(binding.getDependencies().contains(new Dependency(SET_KEY, A, SOURCE)));
+    assertTrue(binding.getDependencies().contains(new Dependency(SET_KEY, B, SOURCE)));
+
+    InjectorWriteContext writeContext = createMock(InjectorWriteContext.class);
+    expect(writeContext.callGetter(A)).andReturn("getA()");
+    expect(writeContext.callGetter(B)).andReturn("getB()");
+    replay(writeContext);
+
+    assertCreationStatements(binding, writeContext, "java.util.Set<java.lang.String> result ="
+        + " new com.google.gwt.inject.client.multibindings.ArraySet<java.lang.String>("
+        + "new Object[] {\n    getA(),\n    getB()});");
+    verify(writeContext);
+  }
+
+  public void testEmptySet() throws NoSourceNameException {
+    MultibinderBinding binding =
+        new MultibinderBinding(SET_KEY, Collections.<Key<?>>emptyList(), CONTEXT);
+
+    assertEquals(1, binding.getDependencies().size());
+
+    InjectorWriteContext writeContext = createMock(InjectorWriteContext.class);
+    replay(writeContext);
+
+    assertCreationStatements(binding, writeContext, "java.util.Set<java.lang.String> result ="
+        + " new com.google.gwt.inject.client.multibindings.ArraySet<java.lang.String>("
+        + "new Object[] {});");
+    verify(writeContext);
+  }
+
+  public void testMap() throws NoSourceNameException {
+    MapBinderBinding binding = new MapBinderBinding(MAP_KEY, Arrays.<Key<?>>asList(A, B),
+        Arrays.<Key<?>>asList(ONE, TWO), CONTEXT);
+
+    assertEquals(5, binding.getDependencies().size());
+    assertTrue(binding.getDependencies().contains(new Dependency(MAP_KEY, A, SOURCE)));
+    assertTrue(binding.getDependencies().contains(new Dependency(MAP_KEY, TWO, SOURCE)));
+
+    InjectorWriteContext writeContext = createMock(InjectorWriteContext.class);
+    expect(writeContext.callGetter(A)).andReturn("getA()");
+    expect(writeContext.callGetter(B)).andReturn("getB()");
+    expect(writeContext.callGetter(ONE)).andReturn("getOne()");
+    expect(writeContext.callGetter(TWO)).andReturn("getTwo()");
+    replay(writeContext);
+
+    assertCreationStatements(binding, writeContext,
+        "java.util.Map<java.lang.String, java.lang.Integer> result = new"
+        + " com.google.gwt.inject.client.multibindings.ArrayMap<java.lang.String,"
+        + " java.lang.Integer>(new Object[] {\n    getA(),\n    getB()}, new Object[] {\n"
+        + "    getOne(),\n    getTwo()});");
+    verify(writeContext);
+  }
+
+  public void testMapNeedsValueForEachKey() {
+    try {
+      new MapBinderBinding(MAP_KEY, Arrays.<Key<?>>asList(A, B),
+          Arrays.<Key<?>>asList(ONE), CONTEXT);
+      fail("Expected IllegalArgumentException.");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  private void assertCreationStatements(Binding binding, InjectorWriteContext writeContext,
+      String expectedStatements) throws NoSourceNameException {
+    List<InjectorMethod> methods = new ArrayList<InjectorMethod>();
+    String actualStatements =
+        binding.getCreationStatements(null, methods).getSource(writeContext);
+
+    assertEquals(expectedStatements, actualStatements);
+    assertEquals(0, methods.size());
+  }
+}
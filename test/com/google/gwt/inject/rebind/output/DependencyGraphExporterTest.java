@@ -0,0 +1,132 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind.output;
+
+import static org.easymock.EasyMock.expect;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.inject.rebind.ConfigurationProperties;
+import com.google.gwt.inject.rebind.GinjectorBindings;
+import com.google.gwt.inject.rebind.GinjectorNameGenerator;
+import com.google.gwt.inject.rebind.binding.Binding;
+import com.google.gwt.inject.rebind.util.InjectorMethod;
+import com.google.gwt.inject.rebind.util.SourceSnippets;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import junit.framework.TestCase;
+import org.easymock.EasyMock;
+import org.easymock.IMocksControl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class DependencyGraphExporterTest extends TestCase {
+
+  private static final Key<String> KEY = Key.get(String.class);
+  private static final TypeLiteral<Integer> INJECTED_TYPE = TypeLiteral.get(Integer.class);
+
+  private IMocksControl control;
+  private ConfigurationProperties properties;
+  private FragmentPartitioner fragmentPartitioner;
+  private GinjectorNameGenerator ginjectorNameGenerator;
+  private GinjectorBindings bindings;
+
+  public void setUp() throws Exception {
+    super.setUp();
+
+    control = EasyMock.createControl();
+    properties = control.createMock("properties", ConfigurationProperties.class);
+    fragmentPartitioner = control.createMock("fragmentPartitioner", FragmentPartitioner.class);
+    ginjectorNameGenerator =
+        control.createMock("ginjectorNameGenerator", GinjectorNameGenerator.class);
+    bindings = control.createMock("bindings", GinjectorBindings.class);
+  }
+
+  // Verify that methods are passed through untouched when the export is
+  // disabled.
+  public void testDisabled() throws Exception {
+    expect(properties.isEnabled(DependencyGraphExporter.GRAPH_EXPORT_PROPERTY)).andReturn(false);
+
+    control.replay();
+
+    DependencyGraphExporter exporter = createExporter();
+    InjectorMethod getter = createMethod("String get_Key()", "return null;");
+    List<InjectorMethod> helpers = Collections.singletonList(getter);
+
+    assertSame(getter, exporter.attributeGetter(bindings, KEY, getter));
+    assertSame(helpers, exporter.attributeHelpers(bindings, KEY, helpers));
+    assertSame(helpers,
+        exporter.attributeMemberInjection(bindings, TypeLiteral.get(String.class), helpers));
+
+    control.verify();
+  }
+
+  // Verify that the sizes of written methods are attributed to their type in
+  // the exported graph, and that child nodes refer to their parent.
+  public void testCreateGraph() throws Exception {
+    expect(properties.isEnabled(DependencyGraphExporter.GRAPH_EXPORT_PROPERTY)).andReturn(true);
+
+    GinjectorBindings child = control.createMock("child", GinjectorBindings.class);
+    expect(bindings.getGinjectorInterface())
+        .andStubReturn((TypeLiteral) TypeLiteral.get(Runnable.class));
+    expect(bindings.getChildren()).andStubReturn(Collections.singletonList(child));
+    expect(bindings.getParent()).andStubReturn(null);
+    EasyMock.<Class<?>>expect(bindings.getModule()).andStubReturn(null);
+    expect(bindings.getBindings())
+        .andStubReturn(Collections.<Map.Entry<Key<?>, Binding>>emptyList());
+    expect(child.getChildren()).andStubReturn(Collections.<GinjectorBindings>emptyList());
+    expect(child.getParent()).andStubReturn(bindings);
+    EasyMock.<Class<?>>expect(child.getModule()).andStubReturn(String.class);
+    expect(child.getBindings())
+        .andStubReturn(Collections.<Map.Entry<Key<?>, Binding>>emptyList());
+    expect(ginjectorNameGenerator.getClassName(bindings)).andStubReturn("Root");
+    expect(ginjectorNameGenerator.getClassName(child)).andStubReturn("Child");
+
+    control.replay();
+
+    DependencyGraphExporter exporter = createExporter();
+    List<InjectorMethod> methods = exporter.attributeMemberInjection(child, INJECTED_TYPE,
+        Arrays.asList(createMethod("inject", "body"), createMethod("helper", "helperBody")));
+    assertEquals(2, methods.size());
+    for (InjectorMethod method : methods) {
+      // Written twice, as if to two fragments.
+      method.getMethodBody(null);
+      method.getMethodBody(null);
+    }
+
+    assertEquals("{\"ginjector\":\"java.lang.Runnable\",\"nodes\":["
+        + "{\"id\":0,\"parent\":null,\"module\":null,\"class\":\"Root\",\"bindings\":[],"
+        + "\"memberInjections\":[]},"
+        + "{\"id\":1,\"parent\":0,\"module\":\"java.lang.String\",\"class\":\"Child\","
+        + "\"bindings\":[],"
+        + "\"memberInjections\":[{\"type\":\"java.lang.Integer\",\"chars\":52}]}]}",
+        exporter.createGraph(bindings));
+
+    control.verify();
+  }
+
+  private DependencyGraphExporter createExporter() {
+    return new DependencyGraphExporter(null, TreeLogger.NULL, properties, fragmentPartitioner,
+        ginjectorNameGenerator, null);
+  }
+
+  private InjectorMethod createMethod(String signature, String body) {
+    return SourceSnippets.asMethod(false, signature, "com.example",
+        SourceSnippets.forText(body));
+  }
+}
@@ -19,9 +19,12 @@ import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.capture;
 import static org.easymock.EasyMock.expect;
 
+import com.google.gwt.core.ext.BadPropertyValueException;
 import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.PropertyOracle;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.inject.client.Ginjector;
+import com.google.gwt.inject.rebind.ConfigurationProperties;
 import com.google.gwt.inject.rebind.GinjectorBindings;
 import com.google.gwt.inject.rebind.output.subpackage.SubPackageClass;
 import com.google.gwt.inject.rebind.reflect.FieldLiteral;
@@ -141,11 +144,16 @@ public class GinjectorBindingsOutputterTest extends TestCase {
     fragmentOutputter.invokeInInitializeStaticInjections("test_injectSubClass");
     fragmentOutputterSubpackage.invokeInInitializeStaticInjections("test_injectSubPackageClass");
 
+    PropertyOracle propertyOracle = createMock(PropertyOracle.class, "propertyOracle");
+    expect(propertyOracle.getConfigurationProperty((String) anyObject()))
+        .andStubThrow(new BadPropertyValueException("undefined"));
+
     replay();
 
     GinjectorBindingsOutputter outputter = new GinjectorBindingsOutputter(ctx,
-        null, fragmentOutputterFactory, new TestFragmentPackageNameFactory(), null,
-        TreeLogger.NULL, methodCallUtil, null, null);
+        new ConfigurationProperties(propertyOracle), null, null, fragmentOutputterFactory,
+        new TestFragmentPackageNameFactory(), null, null, TreeLogger.NULL, methodCallUtil, null,
+        null, null, null);
     GinjectorBindingsOutputter.FragmentMap fragments =
         new GinjectorBindingsOutputter.FragmentMap(bindings, ginjectorPackageName,
             ginjectorClassName, fragmentOutputterFactory);
@@ -159,6 +167,54 @@ public class GinjectorBindingsOutputterTest extends TestCase {
     assertEquals(superClass, fieldCapture.getValue().getDeclaringType());
   }
 
+  // Verify that deferred fragment output is written for every fragment before
+  // the fragments are committed.
+  public void testWriteDeferredOutputInParallel() throws Exception {
+    GinjectorBindings bindings = createMock(GinjectorBindings.class, "bindings");
+
+    String ginjectorPackageName = "com.google.gwt.inject.rebind.output";
+    String ginjectorClassName = "GinjectorFragmentOutputterTest$FakeGinjector";
+
+    GinjectorFragmentOutputter.Factory fragmentOutputterFactory =
+        createMock(GinjectorFragmentOutputter.Factory.class, "fragmentOutputterFactory");
+    GinjectorFragmentOutputter fragmentOutputter =
+        createMock(GinjectorFragmentOutputter.class, "fragmentOutputter");
+    GinjectorFragmentOutputter fragmentOutputterSubpackage =
+        createMock(GinjectorFragmentOutputter.class, "fragmentOutputterSubpackage");
+
+    FragmentPackageName packageName =
+        new FragmentPackageName(null, "com.google.gwt.inject.rebind.output");
+    FragmentPackageName subpackageName =
+        new FragmentPackageName(null, "com.google.gwt.inject.rebind.output.subpackage");
+
+    expect(fragmentOutputterFactory.create(bindings, packageName, ginjectorPackageName,
+        ginjectorClassName)).andReturn(fragmentOutputter);
+    expect(fragmentOutputterFactory.create(bindings, subpackageName, ginjectorPackageName,
+        ginjectorClassName)).andReturn(fragmentOutputterSubpackage);
+
+    // The first fragment exists before output is deferred, the second one is
+    // created afterwards.
+    fragmentOutputter.deferOutput();
+    fragmentOutputterSubpackage.deferOutput();
+    fragmentOutputter.writeDeferredOutput();
+    fragmentOutputterSubpackage.writeDeferredOutput();
+    fragmentOutputter.commit();
+    fragmentOutputterSubpackage.commit();
+
+    replay();
+
+    GinjectorBindingsOutputter.FragmentMap fragments =
+        new GinjectorBindingsOutputter.FragmentMap(bindings, ginjectorPackageName,
+            ginjectorClassName, fragmentOutputterFactory);
+    fragments.get(packageName);
+    fragments.deferOutput();
+    fragments.get(subpackageName);
+    fragments.writeDeferredOutputInParallel();
+    fragments.commitAll();
+
+    verify();
+  }
+
   private static class TestFragmentPackageNameFactory implements FragmentPackageName.Factory {
     public FragmentPackageName create(String packageName) {
       return new FragmentPackageName(Ginjector.class, packageName);
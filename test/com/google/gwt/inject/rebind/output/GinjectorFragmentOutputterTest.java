@@ -0,0 +1,184 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind.output;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.same;
+
+import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.inject.rebind.ConfigurationProperties;
+import com.google.gwt.inject.rebind.ErrorManager;
+import com.google.gwt.inject.rebind.GinScope;
+import com.google.gwt.inject.rebind.GinjectorBindings;
+import com.google.gwt.inject.rebind.binding.Binding;
+import com.google.gwt.inject.rebind.binding.Context;
+import com.google.gwt.inject.rebind.util.InjectorMethod;
+import com.google.gwt.inject.rebind.util.InjectorWriteContext;
+import com.google.gwt.inject.rebind.util.NameGenerator;
+import com.google.gwt.inject.rebind.util.SourceSnippets;
+import com.google.gwt.inject.rebind.util.SourceWriteUtil;
+import com.google.gwt.user.rebind.SourceWriter;
+import com.google.inject.Key;
+import junit.framework.TestCase;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.easymock.IMocksControl;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+public class GinjectorFragmentOutputterTest extends TestCase {
+
+  private static final String PACKAGE_NAME = "com.google.gwt.inject.rebind.output";
+
+  private IMocksControl control;
+  private ConfigurationProperties properties;
+  private GeneratorContext ctx;
+  private DependencyGraphExporter graphExporter;
+  private SourceWriteUtil.Factory sourceWriteUtilFactory;
+  private GinjectorFragmentContext.Factory fragmentContextFactory;
+  private ErrorManager errorManager;
+  private GinjectorBindings bindings;
+  private Binding binding;
+  private NameGenerator nameGenerator;
+  private SingletonSlots slots;
+
+  /** Source of the fragment class. */
+  private StringWriter fragmentSource;
+
+  /** Bodies of the written getters, by key. */
+  private Map<Key<?>, String> getterBodies;
+
+  public void setUp() throws Exception {
+    super.setUp();
+
+    control = EasyMock.createControl();
+    properties = control.createMock("properties", ConfigurationProperties.class);
+    ctx = control.createMock("ctx", GeneratorContext.class);
+    graphExporter = control.createMock("graphExporter", DependencyGraphExporter.class);
+    sourceWriteUtilFactory =
+        control.createMock("sourceWriteUtilFactory", SourceWriteUtil.Factory.class);
+    fragmentContextFactory =
+        control.createMock("fragmentContextFactory", GinjectorFragmentContext.Factory.class);
+    errorManager = control.createMock("errorManager", ErrorManager.class);
+    bindings = control.createMock("bindings", GinjectorBindings.class);
+    binding = control.createMock("binding", Binding.class);
+    nameGenerator = new NameGenerator();
+    slots = new SingletonSlots();
+    fragmentSource = new StringWriter();
+    getterBodies = new HashMap<Key<?>, String>();
+
+    expect(ctx.tryCreate((TreeLogger) anyObject(), (String) anyObject(), (String) anyObject()))
+        .andStubReturn(new PrintWriter(fragmentSource, true));
+    SourceWriteUtil sourceWriteUtil = control.createMock("sourceWriteUtil", SourceWriteUtil.class);
+    expect(sourceWriteUtilFactory.create(bindings)).andStubReturn(sourceWriteUtil);
+    sourceWriteUtil.writeBindingContextJavadoc((SourceWriter) anyObject(), (Context) anyObject(),
+        (Key<?>) anyObject());
+    expectLastCall().asStub();
+    sourceWriteUtil.writeMethod((InjectorMethod) anyObject(), (SourceWriter) anyObject(),
+        (InjectorWriteContext) anyObject());
+    expectLastCall().asStub();
+    expect(fragmentContextFactory.create(same(bindings), (FragmentPackageName) anyObject(),
+        (SourceWriter) anyObject())).andStubReturn(null);
+    expect(bindings.getNameGenerator()).andStubReturn(nameGenerator);
+    expect(binding.getContext()).andStubReturn(Context.forText("test"));
+
+    // Getters are recorded and passed through the exporter unchanged.
+    expect(graphExporter.attributeGetter(same(bindings), (Key<?>) anyObject(),
+        (InjectorMethod) anyObject())).andStubAnswer(new IAnswer<InjectorMethod>() {
+          public InjectorMethod answer() throws Throwable {
+            Object[] arguments = EasyMock.getCurrentArguments();
+            InjectorMethod getter = (InjectorMethod) arguments[2];
+            getterBodies.put((Key<?>) arguments[1], getter.getMethodBody(null));
+            return getter;
+          }
+        });
+  }
+
+  // Verify that singletons are cached in the ginjector's slot array, each in
+  // its own slot, if slots are enabled.
+  public void testSingletonSlots() throws Exception {
+    expect(properties.isEnabled(GinjectorFragmentOutputter.SINGLETON_SLOTS_PROPERTY))
+        .andStubReturn(true);
+    expect(properties.isEnabled((String) anyObject())).andStubReturn(false);
+
+    control.replay();
+
+    GinjectorFragmentOutputter outputter = createOutputter();
+    String stringGetter = writeGetter(outputter, Key.get(String.class), GinScope.SINGLETON);
+    String integerGetter =
+        writeGetter(outputter, Key.get(Integer.class), GinScope.EAGER_SINGLETON);
+    String doubleGetter =
+        writeGetter(outputter, Key.get(Double.class), GinScope.DEFERRED_EAGER_SINGLETON);
+    String longGetter = writeGetter(outputter, Key.get(Long.class), GinScope.NO_SCOPE);
+
+    control.verify();
+
+    assertEquals(0, slots.getSlot(bindings, Key.get(String.class)));
+    assertEquals(1, slots.getSlot(bindings, Key.get(Integer.class)));
+    assertEquals(2, slots.getSlot(bindings, Key.get(Double.class)));
+    assertEquals(3, slots.getCount());
+
+    assertTrue(stringGetter, stringGetter.contains("Object slot = injector.singletonSlots[0];"));
+    assertTrue(stringGetter, stringGetter.contains("return (java.lang.String) slot;"));
+    assertTrue(stringGetter, stringGetter.contains("injector.singletonSlots[0] = result;"));
+    assertTrue(integerGetter, integerGetter.contains("injector.singletonSlots[1] = result;"));
+    assertTrue(doubleGetter, doubleGetter.contains("injector.singletonSlots[2] = result;"));
+    assertFalse(longGetter, longGetter.contains("singletonSlots"));
+
+    // Singletons in slots don't get a field.
+    assertFalse(fragmentSource.toString(), fragmentSource.toString().contains("private "));
+  }
+
+  // Verify that singletons are cached in fields if slots are disabled.
+  public void testSingletonFields() throws Exception {
+    expect(properties.isEnabled(GinjectorFragmentOutputter.SINGLETON_SLOTS_PROPERTY))
+        .andStubReturn(false);
+    expect(properties.isEnabled((String) anyObject())).andStubReturn(false);
+
+    control.replay();
+
+    GinjectorFragmentOutputter outputter = createOutputter();
+    String getter = writeGetter(outputter, Key.get(String.class), GinScope.SINGLETON);
+
+    control.verify();
+
+    assertEquals(0, slots.getCount());
+    assertFalse(getter, getter.contains("singletonSlots"));
+    assertTrue(fragmentSource.toString(),
+        fragmentSource.toString().contains("private java.lang.String "));
+  }
+
+  /**
+   * Writes the getter of the given key and returns its body.
+   */
+  private String writeGetter(GinjectorFragmentOutputter outputter, Key<?> key, GinScope scope) {
+    outputter.writeBindingGetter(key, binding, scope,
+        SourceSnippets.forText("Object result = null;"));
+    return getterBodies.get(key);
+  }
+
+  private GinjectorFragmentOutputter createOutputter() {
+    return new GinjectorFragmentOutputter(ctx, properties, graphExporter, fragmentContextFactory,
+        errorManager, TreeLogger.NULL, sourceWriteUtilFactory, slots, bindings,
+        new FragmentPackageName(null, PACKAGE_NAME), PACKAGE_NAME, "FakeGinjector");
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind.output;
+
+import static org.easymock.EasyMock.expect;
+
+import com.google.gwt.inject.rebind.GinjectorBindings;
+import com.google.inject.Key;
+import junit.framework.TestCase;
+import org.easymock.EasyMock;
+import org.easymock.IMocksControl;
+
+import java.util.Collections;
+
+public class SingletonSlotsTest extends TestCase {
+
+  // Verify that the injectors of a ginjector share one range of indices, even
+  // for the same key.
+  public void testSlotsSharedByInjectors() {
+    IMocksControl control = EasyMock.createControl();
+    GinjectorBindings root = control.createMock("root", GinjectorBindings.class);
+    GinjectorBindings child = control.createMock("child", GinjectorBindings.class);
+    GinjectorBindings otherChild = control.createMock("otherChild", GinjectorBindings.class);
+    expect(root.getChildren()).andStubReturn(Collections.singletonList(child));
+    expect(child.getChildren()).andStubReturn(Collections.<GinjectorBindings>emptyList());
+    expect(otherChild.getChildren()).andStubReturn(Collections.<GinjectorBindings>emptyList());
+    control.replay();
+
+    SingletonSlots slots = new SingletonSlots();
+    assertFalse(slots.isUsed(root));
+
+    assertEquals(0, slots.getSlot(child, Key.get(String.class)));
+    assertEquals(1, slots.getSlot(child, Key.get(Integer.class)));
+    assertEquals(2, slots.getSlot(root, Key.get(String.class)));
+    assertEquals(0, slots.getSlot(child, Key.get(String.class)));
+    assertEquals(3, slots.getCount());
+
+    // The root needs the array for its child.
+    assertTrue(slots.isUsed(root));
+    assertTrue(slots.isUsed(child));
+    assertFalse(slots.isUsed(otherChild));
+  }
+}
@@ -10,6 +10,7 @@ import static org.easymock.EasyMock.isA;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.dev.util.Preconditions;
 import com.google.gwt.inject.rebind.ErrorManager;
+import com.google.gwt.inject.rebind.GeneratorProfiler;
 import com.google.gwt.inject.rebind.GinjectorBindings;
 import com.google.gwt.inject.rebind.binding.Binding;
 import com.google.gwt.inject.rebind.binding.Context;
@@ -17,6 +18,7 @@ import com.google.gwt.inject.rebind.binding.Dependency;
 import com.google.gwt.inject.rebind.binding.ExposedChildBinding;
 import com.google.gwt.inject.rebind.resolution.DependencyExplorer.DependencyExplorerOutput;
 import com.google.inject.Key;
+import com.google.inject.name.Names;
 
 import junit.framework.TestCase;
 
@@ -135,6 +137,24 @@ public class BindingPositionerTest extends TestCase {
         .test();
   }
 
+  public void testPositionLongChain() throws Exception {
+    // Every key of the chain has to follow the last one down to the grandchild.
+    Key<?>[] chain = new Key<?>[1000];
+    for (int i = 0; i < chain.length; i++) {
+      chain[i] = Key.get(String.class, Names.named("key" + i));
+    }
+
+    PositionerExpectationsBuilder builder = new PositionerExpectationsBuilder(grandchild);
+    for (int i = 0; i < chain.length - 1; i++) {
+      builder.addEdge(new Dependency(chain[i], chain[i + 1], SOURCE));
+    }
+    builder
+        .addEdge(new Dependency(chain[chain.length - 1], foo(), SOURCE))
+        .keysBoundAt(grandchild, foo())
+        .implicitlyBoundAt(grandchild, chain)
+        .test();
+  }
+
   private PositionerExpectationsBuilder testCycle() {
     return new PositionerExpectationsBuilder(grandchild)
         .addEdge(new Dependency(foo(), bar(), SOURCE))
@@ -374,7 +394,8 @@ public class BindingPositionerTest extends TestCase {
       expectExposedBindingsExist();
       expectNotExposedBindingsExist();
       control.replay();
-      BindingPositioner positioner = new BindingPositioner(treeLogger);
+      BindingPositioner positioner = new BindingPositioner(
+          new GeneratorProfiler((String) null, treeLogger), treeLogger);
 
       RuntimeException actuallyThrownException = null;
       try {
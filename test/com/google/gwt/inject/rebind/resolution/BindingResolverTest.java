@@ -32,6 +32,7 @@ import static org.easymock.EasyMock.createControl;
 
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.inject.rebind.ErrorManager;
+import com.google.gwt.inject.rebind.GeneratorProfiler;
 import com.google.gwt.inject.rebind.GinjectorBindings;
 import com.google.gwt.inject.rebind.binding.Binding;
 import com.google.gwt.inject.rebind.binding.BindingFactory;
@@ -39,7 +40,9 @@ import com.google.gwt.inject.rebind.binding.Context;
 import com.google.gwt.inject.rebind.binding.Dependency;
 import com.google.gwt.inject.rebind.binding.ExposedChildBinding;
 import com.google.gwt.inject.rebind.binding.ParentBinding;
+import com.google.gwt.inject.rebind.resolution.DependencyExplorer.DependencyExplorerOutput;
 import com.google.gwt.inject.rebind.resolution.ImplicitBindingCreator.BindingCreationException;
+import com.google.gwt.inject.rebind.util.TaskPool;
 import com.google.inject.Key;
 import junit.framework.TestCase;
 import org.easymock.Capture;
@@ -52,6 +55,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 public class BindingResolverTest extends TestCase {
 
@@ -96,6 +100,7 @@ public class BindingResolverTest extends TestCase {
     bindingCreator = control.createMock("bindingCreator", ImplicitBindingCreator.class);
     errorManager = control.createMock("errorManager", ErrorManager.class);
     bindingFactory = control.createMock("bindingFactory", BindingFactory.class);
+    final GeneratorProfiler profiler = new GeneratorProfiler((String) null, treeLogger);
 
     final ImplicitBindingCreator.Factory bindingCreatorFactory =
         new ImplicitBindingCreator.Factory() {
@@ -108,22 +113,22 @@ public class BindingResolverTest extends TestCase {
         new DependencyExplorer.Factory() {
           @Override
           public DependencyExplorer create(TreeLogger logger) {
-            return new DependencyExplorer(bindingCreatorFactory, logger);
+            return new DependencyExplorer(bindingCreatorFactory, profiler, logger);
           }
         };
     UnresolvedBindingValidator.Factory unresolvedBindingValidatorFactory =
         new UnresolvedBindingValidator.Factory() {
           @Override
           public UnresolvedBindingValidator create(TreeLogger logger) {
-            return new UnresolvedBindingValidator(new EagerCycleFinder(errorManager), errorManager,
-                logger);
+            return new UnresolvedBindingValidator(new EagerCycleFinder(errorManager, profiler),
+                errorManager, logger);
           }
         };
     final BindingPositioner.Factory bindingPositionerFactory =
         new BindingPositioner.Factory() {
           @Override
           public BindingPositioner create(TreeLogger logger) {
-            return new BindingPositioner(logger);
+            return new BindingPositioner(profiler, logger);
           }
         };
     BindingInstaller.Factory bindingInstallerFactory =
@@ -253,6 +258,36 @@ public class BindingResolverTest extends TestCase {
     replayAndResolve(tree.childLL, required(Dependency.GINJECTOR, foo()));
   }
   
+  // Verify that an exploration done ahead of time on another thread is used
+  // for the resolution, without creating its implicit bindings again.
+  public void testResolveExploredAhead() throws Exception {
+    StandardTree tree = createExampleTree();
+    final GinjectorBindings origin = tree.childLL;
+
+    Binding fooBinding = expectCreateBinding(foo(), required(foo(), bar()), required(foo(), baz()));
+    bind(bar(), tree.root);
+    bind(baz(), tree.root);
+    bindingCreator.detach();
+
+    tree.root.addBinding(foo(), fooBinding);
+    expectParentBinding(foo(), tree.root, origin);
+
+    expect(origin.getHierarchyLock()).andStubReturn(tree.root);
+    expect(origin.getDependencies()).andStubReturn(
+        TestUtils.dependencyList(required(Dependency.GINJECTOR, foo())));
+    replay();
+
+    DependencyExplorerOutput exploration =
+        TaskPool.submit(new Callable<DependencyExplorerOutput>() {
+          public DependencyExplorerOutput call() {
+            return bindingResolver.explore(origin);
+          }
+        }).get();
+    bindingResolver.resolveBindings(origin, exploration);
+
+    verify();
+  }
+
   public void testResolveDependenciesInRoot_InheritedByChild() throws Exception {
     StandardTree tree = createExampleTree();
     
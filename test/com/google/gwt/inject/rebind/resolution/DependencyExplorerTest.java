@@ -7,18 +7,23 @@ import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.isA;
 
 import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.inject.rebind.GeneratorProfiler;
 import com.google.gwt.inject.rebind.GinjectorBindings;
 import com.google.gwt.inject.rebind.binding.Binding;
 import com.google.gwt.inject.rebind.binding.Dependency;
 import com.google.gwt.inject.rebind.binding.ExposedChildBinding;
 import com.google.gwt.inject.rebind.resolution.DependencyExplorer.DependencyExplorerOutput;
 import com.google.gwt.inject.rebind.resolution.ImplicitBindingCreator.BindingCreationException;
+import com.google.gwt.inject.rebind.resolution.ImplicitBindingCreator.DetachedCreationException;
+import com.google.inject.Key;
 
 import junit.framework.TestCase;
 
 import org.easymock.EasyMock;
 import org.easymock.IMocksControl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -60,7 +65,8 @@ public class DependencyExplorerTest extends TestCase {
 
     bindingCreator = control.createMock(ImplicitBindingCreator.class);
     origin = control.createMock("origin", GinjectorBindings.class);
-    dependencyExplorer = new DependencyExplorer(bindingCreatorFactory, treeLogger);
+    dependencyExplorer = new DependencyExplorer(bindingCreatorFactory,
+        new GeneratorProfiler((String) null, treeLogger), treeLogger);
     binding = control.createMock("binding", Binding.class);
     childBinding = control.createMock(ExposedChildBinding.class);
   }
@@ -175,6 +181,62 @@ public class DependencyExplorerTest extends TestCase {
     control.verify();
   }
   
+  /**
+   * Tests that an exploration remains up to date as long as the keys it looked up resolve to the
+   * same ginjectors.
+   */
+  public void testUpToDate() throws Exception {
+    GinjectorBindings parent = control.createMock("parent", GinjectorBindings.class);
+    exploreImplicitFooBoundBar(parent);
+    DependencyExplorerOutput output = dependencyExplorer.explore(origin);
+    control.verify();
+
+    control.reset();
+    expectLookups(parent, false);
+    control.replay();
+    assertTrue(output.isUpToDate());
+    control.verify();
+  }
+
+  /**
+   * Tests that an exploration is out of date once a key it created an implicit binding for gets
+   * bound in the meantime, e.g. by the resolution of a sibling ginjector.
+   */
+  public void testNotUpToDateAfterParentBindsImplicitKey() throws Exception {
+    GinjectorBindings parent = control.createMock("parent", GinjectorBindings.class);
+    exploreImplicitFooBoundBar(parent);
+    DependencyExplorerOutput output = dependencyExplorer.explore(origin);
+    control.verify();
+
+    control.reset();
+    expectLookups(parent, true);
+    control.replay();
+    assertFalse(output.isUpToDate());
+    control.verify();
+  }
+
+  private void exploreImplicitFooBoundBar(GinjectorBindings parent) throws Exception {
+    expect(origin.getDependencies()).andStubReturn(TestUtils.dependencyList(
+        new Dependency(Dependency.GINJECTOR, foo(), SOURCE)));
+    expectLookups(parent, false);
+    expect(bindingCreator.create(foo())).andReturn(binding);
+    expect(binding.getDependencies()).andReturn(TestUtils.dependencyList(
+        new Dependency(foo(), bar(), SOURCE)));
+    control.replay();
+  }
+
+  private void expectLookups(GinjectorBindings parent, boolean parentBindsFoo) {
+    expect(origin.isBound(foo())).andStubReturn(false);
+    expect(origin.isPinned(foo())).andStubReturn(false);
+    expect(origin.isBound(bar())).andStubReturn(false);
+    expect(origin.isPinned(bar())).andStubReturn(false);
+    expect(origin.getParent()).andStubReturn(parent);
+    expect(parent.getParent()).andStubReturn(null);
+    expect(parent.isBound(foo())).andStubReturn(parentBindsFoo);
+    expect(parent.isPinned(foo())).andStubReturn(false);
+    expect(parent.isBound(bar())).andStubReturn(true);
+  }
+
   /**
    * Tests that we don't try to use an exposed binding from the "origin" to satisfy a dependency
    * from the origin.
@@ -239,6 +301,52 @@ public class DependencyExplorerTest extends TestCase {
     control.verify();
   }
   
+  // Verify that concurrent explorations detach their binding creator, and give
+  // up on keys whose binding needs the generator context.
+  public void testExploreConcurrently_detached() throws Exception {
+    expect(origin.getDependencies()).andStubReturn(TestUtils.dependencyList(
+        new Dependency(Dependency.GINJECTOR, foo(), SOURCE)));
+    expect(origin.getParent()).andStubReturn(null);
+    expect(origin.isBound(foo())).andReturn(false).anyTimes();
+    expect(origin.isPinned(foo())).andReturn(false).anyTimes();
+    bindingCreator.detach();
+    expect(bindingCreator.create(foo())).andThrow(new DetachedCreationException(foo()));
+    control.replay();
+    try {
+      dependencyExplorer.exploreConcurrently(origin, new Object());
+      fail("Expected DetachedCreationException");
+    } catch (DetachedCreationException expected) {
+    }
+    control.verify();
+  }
+
+  public void testImplicitBindingChain() throws Exception {
+    Binding barBinding = control.createMock("barBinding", Binding.class);
+    Binding bazBinding = control.createMock("bazBinding", Binding.class);
+    expect(origin.getDependencies()).andStubReturn(TestUtils.dependencyList(
+        new Dependency(Dependency.GINJECTOR, foo(), SOURCE)));
+    expect(origin.getParent()).andStubReturn(null);
+    expect(origin.isBound(isA(Key.class))).andReturn(false).anyTimes();
+    expect(origin.isPinned(isA(Key.class))).andReturn(false).anyTimes();
+    expect(bindingCreator.create(foo())).andReturn(binding);
+    expect(binding.getDependencies()).andReturn(TestUtils.dependencyList(
+        new Dependency(foo(), bar(), SOURCE), new Dependency(foo(), baz(), SOURCE)));
+    expect(bindingCreator.create(bar())).andReturn(barBinding);
+    expect(barBinding.getDependencies()).andReturn(TestUtils.dependencyList(
+        new Dependency(bar(), baz(), SOURCE)));
+    expect(bindingCreator.create(baz())).andReturn(bazBinding);
+    expect(bazBinding.getDependencies()).andReturn(TestUtils.dependencyList());
+    control.replay();
+    DependencyExplorerOutput output = dependencyExplorer.explore(origin);
+    assertEmpty(output.getBindingErrors());
+    // Keys are listed in post-order, i.e. after all their dependencies.
+    assertEquals(Arrays.asList(baz(), bar(), foo()),
+        new ArrayList<Key<?>>(output.getImplicitlyBoundKeys()));
+    assertContentsAnyOrder(output.getGraph().getDependenciesTargeting(baz()),
+        new Dependency(foo(), baz(), SOURCE), new Dependency(bar(), baz(), SOURCE));
+    control.verify();
+  }
+
   public void testImplicitBindingFailed() throws Exception {
     expect(origin.getDependencies()).andStubReturn(TestUtils.dependencyList(
         new Dependency(Dependency.GINJECTOR, foo(), SOURCE)));
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind.resolution;
+
+import static com.google.gwt.inject.rebind.resolution.TestUtils.bar;
+import static com.google.gwt.inject.rebind.resolution.TestUtils.baz;
+import static com.google.gwt.inject.rebind.resolution.TestUtils.foo;
+
+import com.google.gwt.inject.rebind.GinjectorBindings;
+import com.google.gwt.inject.rebind.binding.Dependency;
+import com.google.inject.Key;
+
+import junit.framework.TestCase;
+
+import org.easymock.EasyMock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class DependencyGraphTest extends TestCase {
+
+  private static final String SOURCE = "dummy";
+
+  private static final Dependency GINJECTOR_TO_FOO =
+      new Dependency(Dependency.GINJECTOR, foo(), SOURCE);
+  private static final Dependency GINJECTOR_TO_BAZ =
+      new Dependency(Dependency.GINJECTOR, baz(), SOURCE);
+  private static final Dependency FOO_TO_BAR = new Dependency(foo(), bar(), SOURCE);
+  private static final Dependency BAZ_TO_BAR = new Dependency(baz(), bar(), SOURCE);
+  private static final Dependency BAR_TO_BAZ = new Dependency(bar(), baz(), SOURCE);
+
+  private GinjectorBindings origin;
+
+  @Override
+  protected void setUp() throws Exception {
+    origin = EasyMock.createMock(GinjectorBindings.class);
+  }
+
+  public void testInsertionOrder() {
+    DependencyGraph graph = new DependencyGraph.Builder(origin)
+        .addEdge(BAZ_TO_BAR)
+        .addEdge(GINJECTOR_TO_FOO)
+        .addEdge(FOO_TO_BAR)
+        .addEdge(GINJECTOR_TO_BAZ)
+        .build();
+
+    assertEquals(3, graph.size());
+    assertEquals(Arrays.asList(bar(), foo(), baz()), keys(graph.getAllKeys()));
+    assertEquals(Arrays.asList(BAZ_TO_BAR, FOO_TO_BAR),
+        new ArrayList<Dependency>(graph.getDependenciesTargeting(bar())));
+    assertEquals(Arrays.asList(GINJECTOR_TO_FOO, GINJECTOR_TO_BAZ),
+        new ArrayList<Dependency>(graph.getDependenciesOf(Dependency.GINJECTOR)));
+    assertTrue(graph.getDependenciesOf(bar()).isEmpty());
+    assertTrue(graph.getDependenciesOf(Key.get(String.class)).isEmpty());
+  }
+
+  public void testFirstDuplicateWins() {
+    Dependency duplicate = new Dependency(foo(), bar(), "other");
+    DependencyGraph graph = new DependencyGraph.Builder(origin)
+        .addEdge(GINJECTOR_TO_FOO)
+        .addEdge(FOO_TO_BAR)
+        .addEdge(duplicate)
+        .build();
+
+    assertEquals(1, graph.getDependenciesOf(foo()).size());
+    assertSame(FOO_TO_BAR, graph.getDependenciesOf(foo()).iterator().next());
+  }
+
+  public void testPruneKey() {
+    DependencyGraph graph = new DependencyGraph.Builder(origin)
+        .addEdge(GINJECTOR_TO_FOO)
+        .addEdge(FOO_TO_BAR)
+        .addEdge(GINJECTOR_TO_BAZ)
+        .addEdge(BAZ_TO_BAR)
+        .addEdge(BAR_TO_BAZ)
+        .build();
+
+    graph = new DependencyGraph.GraphPruner(graph).remove(foo()).update();
+
+    // The pruned key keeps its own edges, but they are removed from the other
+    // end.
+    assertEquals(3, graph.size());
+    assertEquals(Arrays.asList(foo(), bar(), baz()), keys(graph.getAllKeys()));
+    assertEquals(Arrays.asList(GINJECTOR_TO_BAZ),
+        new ArrayList<Dependency>(graph.getDependenciesOf(Dependency.GINJECTOR)));
+    assertEquals(Arrays.asList(BAZ_TO_BAR),
+        new ArrayList<Dependency>(graph.getDependenciesTargeting(bar())));
+    assertEquals(1, graph.getDependenciesTargeting(bar()).size());
+    assertEquals(Arrays.asList(GINJECTOR_TO_FOO),
+        new ArrayList<Dependency>(graph.getDependenciesTargeting(foo())));
+    assertEquals(Arrays.asList(FOO_TO_BAR),
+        new ArrayList<Dependency>(graph.getDependenciesOf(foo())));
+
+    // Removing keys that aren't in the graph is a no-op.
+    new DependencyGraph.GraphPruner(graph).remove(Key.get(String.class));
+    assertEquals(3, graph.size());
+  }
+
+  // Verify that keys only reachable through a pruned key drop out of the graph,
+  // while the pruned key itself stays, as when pruning an invalid optional key.
+  public void testPruneOptionalKey() {
+    Dependency ginjectorToFooOptional =
+        new Dependency(Dependency.GINJECTOR, foo(), true, false, SOURCE);
+    DependencyGraph graph = new DependencyGraph.Builder(origin)
+        .addEdge(ginjectorToFooOptional)
+        .addEdge(FOO_TO_BAR)
+        .addEdge(GINJECTOR_TO_BAZ)
+        .build();
+
+    graph = new DependencyGraph.GraphPruner(graph).remove(foo()).update();
+
+    assertEquals(2, graph.size());
+    assertEquals(Arrays.asList(foo(), baz()), keys(graph.getAllKeys()));
+    assertEquals(Arrays.asList(GINJECTOR_TO_BAZ),
+        new ArrayList<Dependency>(graph.getDependenciesOf(Dependency.GINJECTOR)));
+    assertTrue(graph.getDependenciesTargeting(bar()).isEmpty());
+  }
+
+  private static List<Key<?>> keys(Iterable<Key<?>> keys) {
+    List<Key<?>> result = new ArrayList<Key<?>>();
+    for (Key<?> key : keys) {
+      result.add(key);
+    }
+    return result;
+  }
+}
@@ -21,11 +21,14 @@ import static com.google.gwt.inject.rebind.resolution.TestUtils.foo;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.isA;
 
+import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.inject.rebind.ErrorManager;
+import com.google.gwt.inject.rebind.GeneratorProfiler;
 import com.google.gwt.inject.rebind.GinjectorBindings;
 import com.google.gwt.inject.rebind.binding.Dependency;
 import com.google.gwt.inject.rebind.util.PrettyPrinter;
 import com.google.inject.Key;
+import com.google.inject.name.Names;
 
 import junit.framework.TestCase;
 
@@ -59,7 +62,8 @@ public class EagerCycleFinderTest extends TestCase {
     control = EasyMock.createControl();
     origin = control.createMock(GinjectorBindings.class);
     errorManager = control.createMock(ErrorManager.class);
-    eagerCycleFinder = new EagerCycleFinder(errorManager);
+    eagerCycleFinder = new EagerCycleFinder(errorManager,
+        new GeneratorProfiler((String) null, TreeLogger.NULL));
   }
   
   public void testShortCycleDetection() throws Exception {
@@ -230,6 +234,21 @@ public class EagerCycleFinderTest extends TestCase {
     control.verify();
   }
 
+  public void testLongChainWithoutCycle() throws Exception {
+    control.replay();
+    DependencyGraph.Builder builder = new DependencyGraph.Builder(origin)
+        .addEdge(new Dependency(Dependency.GINJECTOR, chainKey(0), SOURCE));
+    for (int i = 0; i < 100000; i++) {
+      builder.addEdge(new Dependency(chainKey(i), chainKey(i + 1), SOURCE));
+    }
+    assertFalse(eagerCycleFinder.findAndReportCycles(builder.build()));
+    control.verify();
+  }
+
+  private Key<?> chainKey(int index) {
+    return Key.get(String.class, Names.named("key" + index));
+  }
+
   public void testRootCycleAt_keyNotPresent() {
     assertDependencyListEquals(
         EagerCycleFinder.rootCycleAt(
@@ -20,9 +20,11 @@ import static org.easymock.EasyMock.expect;
 
 import com.google.gwt.core.ext.GeneratorContext;
 import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.inject.rebind.RebindRules;
 import com.google.gwt.inject.rebind.binding.BindingFactory;
 import com.google.gwt.inject.rebind.binding.CallGwtDotCreateBinding;
 import com.google.gwt.inject.rebind.resolution.ImplicitBindingCreator.BindingCreationException;
+import com.google.gwt.inject.rebind.resolution.ImplicitBindingCreator.DetachedCreationException;
 import com.google.inject.Key;
 import com.google.inject.TypeLiteral;
 import junit.framework.TestCase;
@@ -58,7 +60,8 @@ public class ImplicitBindingCreatorTest extends TestCase {
     this.generatorContext = control.createMock(GeneratorContext.class);
     this.treeLogger = control.createMock(TreeLogger.class);
 
-    bindingCreator = new ImplicitBindingCreator(bindingFactory, this.generatorContext, treeLogger);
+    bindingCreator = new ImplicitBindingCreator(bindingFactory,
+        new RebindRules(this.generatorContext), treeLogger);
   }
 
   protected void tearDown() throws Exception {
@@ -142,6 +145,31 @@ public class ImplicitBindingCreatorTest extends TestCase {
         bindingCreator.create(Key.get(NoNullaryConstructor.class)));
   }
 
+  public void testCreate_detached() throws BindingCreationException {
+    expect(bindingFactory.getCallGwtDotCreateBinding(TypeLiteral.get(NullaryConstructor.class)))
+        .andReturn(callGwtDotCreateBinding);
+    replay();
+
+    // Verify that a detached creator creates bindings that don't need the
+    // generator context without using it.
+    bindingCreator.detach();
+    assertEquals(callGwtDotCreateBinding,
+        bindingCreator.create(Key.get(NullaryConstructor.class)));
+  }
+
+  public void testCreate_detached_rebindRule() throws BindingCreationException {
+    replay();
+
+    // Verify that a detached creator doesn't check for rebind rules, but fails
+    // instead.
+    bindingCreator.detach();
+    try {
+      bindingCreator.create(Key.get(NoNullaryConstructor.class));
+      fail("Expected DetachedCreationException");
+    } catch (DetachedCreationException expected) {
+    }
+  }
+
   private static class NoConstructor {
   }
 
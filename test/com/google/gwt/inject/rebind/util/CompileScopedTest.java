@@ -0,0 +1,52 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind.util;
+
+import static org.easymock.EasyMock.createMock;
+
+import com.google.gwt.core.ext.typeinfo.TypeOracle;
+
+import junit.framework.TestCase;
+
+public class CompileScopedTest extends TestCase {
+
+  public void testGet() {
+    TypeOracle typeOracle = createMock(TypeOracle.class);
+    CompileScoped<String> scoped = new CompileScoped<String>();
+    assertNull(scoped.get(typeOracle));
+
+    scoped.set(typeOracle, "value");
+    assertEquals("value", scoped.get(typeOracle));
+    assertEquals("value", scoped.get(typeOracle));
+  }
+
+  // Verify that the value of a compile is released once another compile uses
+  // the holder, even if the value's compile comes back later.
+  public void testReleasedByOtherCompile() {
+    TypeOracle typeOracle = createMock(TypeOracle.class);
+    TypeOracle otherTypeOracle = createMock(TypeOracle.class);
+    CompileScoped<String> scoped = new CompileScoped<String>();
+
+    scoped.set(typeOracle, "value");
+    assertNull(scoped.get(otherTypeOracle));
+    assertNull(scoped.get(typeOracle));
+
+    scoped.set(typeOracle, "value");
+    scoped.set(otherTypeOracle, "other");
+    assertEquals("other", scoped.get(otherTypeOracle));
+    assertNull(scoped.get(typeOracle));
+  }
+}
@@ -15,7 +15,10 @@
  */
 package com.google.gwt.inject.rebind.util;
 
+import static org.easymock.EasyMock.createMock;
+
 import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.core.ext.typeinfo.TypeOracle;
 import com.google.gwt.inject.rebind.reflect.FieldLiteral;
 import com.google.gwt.inject.rebind.reflect.MemberLiteral;
 import com.google.gwt.inject.rebind.reflect.MethodLiteral;
@@ -171,6 +174,41 @@ public class MemberCollectorTest extends TestCase {
     }
   }
 
+  public void testSharedCache() {
+    MemberCollectorCache cache = new MemberCollectorCache();
+    MemberCollector collector = new MemberCollector(TreeLogger.NULL, cache);
+    collector.setMethodFilter(MemberCollector.ALL_METHOD_FILTER);
+    MemberCollector otherCollector = new MemberCollector(TreeLogger.NULL, cache);
+    otherCollector.setMethodFilter(MemberCollector.ALL_METHOD_FILTER);
+
+    TypeLiteral<SubClass> type = TypeLiteral.get(SubClass.class);
+    Collection<MethodLiteral<?, Method>> methods = collector.getMethods(type);
+    assertSame(methods, otherCollector.getMethods(type));
+
+    // Collectors with different filters don't share members.
+    MemberCollector filteredCollector = new MemberCollector(TreeLogger.NULL, cache);
+    filteredCollector.setMethodFilter(new MemberCollector.MethodFilter() {
+      public boolean accept(MethodLiteral<?, Method> method) {
+        return isObject(method);
+      }
+    });
+    Collection<MethodLiteral<?, Method>> filteredMethods = filteredCollector.getMethods(type);
+    assertNotSame(methods, filteredMethods);
+    assertTrue(filteredMethods.size() < methods.size());
+  }
+
+  public void testSharedCacheScopedToCompile() {
+    TypeOracle typeOracle = createMock(TypeOracle.class);
+    MemberCollectorCache cache = MemberCollectorCache.getSharedInstance(typeOracle);
+    assertSame(cache, MemberCollectorCache.getSharedInstance(typeOracle));
+
+    // Another compile gets its own cache, and the earlier one is released.
+    MemberCollectorCache otherCache =
+        MemberCollectorCache.getSharedInstance(createMock(TypeOracle.class));
+    assertNotSame(cache, otherCache);
+    assertNotSame(cache, MemberCollectorCache.getSharedInstance(typeOracle));
+  }
+
   // Collect everything but "java.lang.Object" members (they can throw our
   // counts off and should not matter for Guice injection in production code).
   private static boolean isObject(MemberLiteral<?, ?> member) {
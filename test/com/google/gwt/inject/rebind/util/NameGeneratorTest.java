@@ -19,6 +19,8 @@ import com.google.inject.Key;
 
 import junit.framework.TestCase;
 
+import java.util.Map;
+
 public class NameGeneratorTest extends TestCase {
 
   // TODO(schmitt):  Test mangle.
@@ -65,4 +67,60 @@ public class NameGeneratorTest extends TestCase {
     assertFalse(getStringGetter.equals(getStringField));
     assertEquals(getStringGetter, nameGenerator.getGetterMethodName(key));
   }
+
+  public void testFork() {
+    NameGenerator nameGenerator = new NameGenerator();
+    nameGenerator.createMethodName("foo");
+    String getter = nameGenerator.getGetterMethodName(Key.get(String.class));
+
+    NameGenerator fork = nameGenerator.fork();
+    assertEquals("foo_", fork.createMethodName("foo"));
+    assertEquals(getter, fork.getGetterMethodName(Key.get(String.class)));
+    String forkGetter = fork.getGetterMethodName(Key.get(Integer.class));
+
+    // The fork's names are only known to the original once merged.
+    assertEquals("bar", nameGenerator.createMethodName("bar"));
+    assertTrue(nameGenerator.merge(fork));
+    assertEquals("foo__", nameGenerator.createMethodName("foo"));
+    assertEquals(forkGetter, nameGenerator.getGetterMethodName(Key.get(Integer.class)));
+  }
+
+  public void testMergeConflictingFork() {
+    NameGenerator nameGenerator = new NameGenerator();
+    NameGenerator fork = nameGenerator.fork();
+    NameGenerator otherFork = nameGenerator.fork();
+
+    String getter = fork.getGetterMethodName(Key.get(String.class));
+    otherFork.createMethodName("bar");
+    otherFork.getGetterMethodName(Key.get(String.class));
+
+    assertTrue(nameGenerator.merge(fork));
+    assertFalse(nameGenerator.merge(otherFork));
+
+    // None of the conflicting fork's names were added.
+    assertEquals("bar", nameGenerator.createMethodName("bar"));
+    assertEquals(getter, nameGenerator.getGetterMethodName(Key.get(String.class)));
+  }
+
+  public void testSplitPointClassName() {
+    NameGenerator nameGenerator = new NameGenerator();
+    assertEquals("NameGeneratorTest_GinSplitPoint",
+        nameGenerator.getSplitPointClassName(NameGeneratorTest.class));
+    assertEquals("com.google.gwt.inject.rebind.util",
+        nameGenerator.getSplitPointPackageName(NameGeneratorTest.class));
+    assertEquals("NameGeneratorTest_Nested_GinSplitPoint",
+        nameGenerator.getSplitPointClassName(Nested.class));
+  }
+
+  public void testSplitPointClassNameInProhibitedPackage() {
+    NameGenerator nameGenerator = new NameGenerator();
+    assertEquals("com.google.gwt.inject.client",
+        nameGenerator.getSplitPointPackageName(Map.Entry.class));
+    assertEquals("java_util_Map_Entry_GinSplitPoint",
+        nameGenerator.getSplitPointClassName(Map.Entry.class));
+    assertEquals("com.google.gwt.inject.client.java_util_Map_Entry_GinSplitPoint",
+        nameGenerator.getSplitPointCanonicalClassName(Map.Entry.class));
+  }
+
+  public static class Nested {}
 }
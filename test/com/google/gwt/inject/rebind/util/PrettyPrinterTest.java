@@ -16,6 +16,9 @@
 
 package com.google.gwt.inject.rebind.util;
 
+import static org.easymock.EasyMock.expect;
+
+import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.inject.client.MyBindingAnnotation;
 import com.google.gwt.inject.client.nested.Outer;
 import com.google.gwt.inject.rebind.binding.Dependency;
@@ -25,6 +28,8 @@ import com.google.inject.TypeLiteral;
 
 import junit.framework.TestCase;
 
+import org.easymock.EasyMock;
+
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -175,6 +180,35 @@ public class PrettyPrinterTest extends TestCase {
         PrettyPrinter.format("%s", dependencyList(DEP01, DEP12, DEP23, DEP34)));
   }
 
+  public void testLog_notLoggable() {
+    TreeLogger logger = EasyMock.createMock(TreeLogger.class);
+    expect(logger.isLoggable(TreeLogger.DEBUG)).andStubReturn(false);
+    EasyMock.replay(logger);
+
+    Object unformattable = new Object() {
+      @Override
+      public String toString() {
+        throw new AssertionError("Formatted an argument that isn't logged");
+      }
+    };
+    PrettyPrinter.log(logger, TreeLogger.DEBUG, "%s", unformattable);
+    PrettyPrinter.log(logger, TreeLogger.DEBUG, "%s %s %s %s %s", KEY1, KEY2, KEY3, KEY4,
+        unformattable);
+    PrettyPrinter.log(logger, TreeLogger.DEBUG, "%s %s %s %s %s %s", KEY1, KEY2, KEY3, KEY4,
+        KEY1, unformattable);
+    EasyMock.verify(logger);
+  }
+
+  public void testLog_loggable() {
+    TreeLogger logger = EasyMock.createMock(TreeLogger.class);
+    expect(logger.isLoggable(TreeLogger.DEBUG)).andStubReturn(true);
+    logger.log(TreeLogger.DEBUG, "X: " + KEY_STRING1 + " -> " + KEY_STRING3);
+    EasyMock.replay(logger);
+
+    PrettyPrinter.log(logger, TreeLogger.DEBUG, "X: %s -> %s", KEY1, KEY3);
+    EasyMock.verify(logger);
+  }
+
   private static List<Dependency> dependencyList(Dependency... dependencies) {
     return Arrays.asList(dependencies);
   }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind.util;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.inject.rebind.reflect.FieldLiteral;
+import com.google.gwt.inject.rebind.reflect.MethodLiteral;
+import com.google.inject.Inject;
+import com.google.inject.TypeLiteral;
+
+import junit.framework.TestCase;
+
+public class SharedAccessorsTest extends TestCase {
+
+  private static final String ACCESSOR_CLASS =
+      "com.google.gwt.inject.rebind.util.SharedAccessorsTest_Injectee_GinAccessor";
+
+  private static final TypeLiteral<Injectee> INJECTEE = TypeLiteral.get(Injectee.class);
+
+  public void testIsShared() throws Exception {
+    SharedAccessors sharedAccessors = new SharedAccessors(null, TreeLogger.NULL, true);
+
+    assertTrue(sharedAccessors.isShared(getField("privateField")));
+    assertTrue(sharedAccessors.isShared(getField("finalField")));
+    assertTrue(sharedAccessors.isShared(getMethod("setPrivate", long.class)));
+    assertTrue(sharedAccessors.isShared(getConstructor(int.class)));
+    assertFalse(sharedAccessors.isShared(getField("uninjectedField")));
+    assertFalse(sharedAccessors.isShared(getMethod("uninjectedMethod")));
+  }
+
+  public void testAccessorClass() throws Exception {
+    SharedAccessors sharedAccessors = new SharedAccessors(null, TreeLogger.NULL, true);
+
+    assertEquals(ACCESSOR_CLASS + ".set_privateField",
+        sharedAccessors.getFieldSetter(getField("privateField"), new NameGenerator()));
+
+    String source = sharedAccessors.createClassBody(Injectee.class);
+
+    assertTrue(source, source.contains("public static native void set_privateField("
+        + "Object injectee, Object value) /*-{"));
+    assertTrue(source, source.contains(
+        "injectee.@com.google.gwt.inject.rebind.util.SharedAccessorsTest.Injectee::privateField"
+        + " = value;"));
+    assertTrue(source, source.contains("public static native void set_finalField("
+        + "Object injectee, int value) /*-{"));
+    assertTrue(source, source.contains("@com.google.gwt.core.client.UnsafeNativeLong "
+        + "public static native void call_setPrivate_J(Object invokee, long _0) /*-{"));
+    assertTrue(source, source.contains("public static native Object create_I(int _0) /*-{"));
+    assertTrue(source, source.contains("} catch (e) {"));
+    assertFalse(source, source.contains("uninjected"));
+  }
+
+  private FieldLiteral<Injectee> getField(String name) throws Exception {
+    return FieldLiteral.get(Injectee.class.getDeclaredField(name), INJECTEE);
+  }
+
+  private MethodLiteral<Injectee, ?> getMethod(String name, Class<?>... parameterTypes)
+      throws Exception {
+    return MethodLiteral.get(Injectee.class.getDeclaredMethod(name, parameterTypes), INJECTEE);
+  }
+
+  private MethodLiteral<Injectee, ?> getConstructor(Class<?>... parameterTypes) throws Exception {
+    return MethodLiteral.get(Injectee.class.getDeclaredConstructor(parameterTypes), INJECTEE);
+  }
+
+  public static class Injectee {
+    @Inject private String privateField;
+    @Inject final int finalField = 0;
+    private String uninjectedField;
+
+    @Inject
+    private Injectee(int value) throws Exception {}
+
+    @Inject private void setPrivate(long value) {}
+    private void uninjectedMethod() {}
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.gwt.inject.rebind.util;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.inject.rebind.reflect.FieldLiteral;
+import com.google.gwt.inject.rebind.reflect.MethodLiteral;
+import com.google.inject.Inject;
+import com.google.inject.Provides;
+import com.google.inject.TypeLiteral;
+
+import junit.framework.TestCase;
+
+public class SharedHelpersTest extends TestCase {
+
+  private static final String HELPER_CLASS =
+      "com.google.gwt.inject.rebind.util.SharedHelpersTest_Injectee_GinHelper";
+
+  private static final TypeLiteral<Injectee> INJECTEE = TypeLiteral.get(Injectee.class);
+
+  public void testIsShared() throws Exception {
+    SharedHelpers sharedHelpers = new SharedHelpers(null, TreeLogger.NULL, true);
+
+    assertTrue(sharedHelpers.isShared(getField("field")));
+    assertTrue(sharedHelpers.isShared(getMethod("setValue", long.class)));
+    assertTrue(sharedHelpers.isShared(getMethod("provideString", int.class)));
+    assertTrue(sharedHelpers.isShared(getConstructor(int.class)));
+    assertTrue(sharedHelpers.isShared(getConstructor()));
+    assertFalse(sharedHelpers.isShared(getField("privateField")));
+    assertFalse(sharedHelpers.isShared(getField("uninjectedField")));
+    assertFalse(sharedHelpers.isShared(getMethod("setHidden", Hidden.class)));
+    assertFalse(sharedHelpers.isShared(getMethod("uninjectedMethod")));
+  }
+
+  public void testHelperClass() throws Exception {
+    SharedHelpers sharedHelpers = new SharedHelpers(null, TreeLogger.NULL, true);
+
+    assertEquals(HELPER_CLASS + ".set_field",
+        sharedHelpers.getFieldSetter(getField("field"), new NameGenerator()));
+
+    String source = sharedHelpers.createClassBody(Injectee.class);
+
+    assertTrue(source, source.contains("public static void set_field("
+        + "com.google.gwt.inject.rebind.util.SharedHelpersTest.Injectee injectee, "
+        + "java.lang.String value) {"));
+    assertTrue(source, source.contains("injectee.field = value;"));
+    assertTrue(source, source.contains("public static void call_setValue_J("
+        + "com.google.gwt.inject.rebind.util.SharedHelpersTest.Injectee invokee, long _0) {"));
+    assertTrue(source, source.contains("public static java.lang.String call_provideString_I("
+        + "com.google.gwt.inject.rebind.util.SharedHelpersTest.Injectee invokee, int _0) {"));
+    assertTrue(source, source.contains("return invokee.provideString(_0);"));
+    assertTrue(source, source.contains(
+        "public static com.google.gwt.inject.rebind.util.SharedHelpersTest.Injectee create_I("
+        + "int _0) {"));
+    assertTrue(source, source.contains(
+        "return new com.google.gwt.inject.rebind.util.SharedHelpersTest.Injectee(_0);"));
+    assertTrue(source, source.contains("} catch (Exception e) {"));
+    assertFalse(source, source.contains("privateField"));
+    assertFalse(source, source.contains("uninjected"));
+    assertFalse(source, source.contains("Hidden"));
+  }
+
+  private FieldLiteral<Injectee> getField(String name) throws Exception {
+    return FieldLiteral.get(Injectee.class.getDeclaredField(name), INJECTEE);
+  }
+
+  private MethodLiteral<Injectee, ?> getMethod(String name, Class<?>... parameterTypes)
+      throws Exception {
+    return MethodLiteral.get(Injectee.class.getDeclaredMethod(name, parameterTypes), INJECTEE);
+  }
+
+  private MethodLiteral<Injectee, ?> getConstructor(Class<?>... parameterTypes) throws Exception {
+    return MethodLiteral.get(Injectee.class.getDeclaredConstructor(parameterTypes), INJECTEE);
+  }
+
+  public static class Injectee {
+    @Inject String field;
+    @Inject private String privateField;
+    String uninjectedField;
+
+    public Injectee() {}
+
+    @Inject
+    Injectee(int value) throws Exception {}
+
+    @Inject void setValue(long value) {}
+    @Inject void setHidden(Hidden hidden) {}
+    @Provides String provideString(int value) { return null; }
+    void uninjectedMethod() {}
+  }
+
+  static class Hidden {}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind.util;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.same;
+import static org.easymock.EasyMock.verify;
+
+import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.inject.rebind.reflect.FieldLiteral;
+import com.google.gwt.inject.rebind.reflect.MemberLiteral;
+import com.google.gwt.inject.rebind.reflect.MethodLiteral;
+import com.google.gwt.inject.rebind.reflect.NoSourceNameException;
+import com.google.inject.TypeLiteral;
+
+import junit.framework.TestCase;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+public class SharedMemberClassesTest extends TestCase {
+
+  private static final String PACKAGE = "com.google.gwt.inject.rebind.util";
+  private static final String CLASS_NAME = "Injectee_Shared";
+
+  private static final TypeLiteral<Injectee> INJECTEE = TypeLiteral.get(Injectee.class);
+
+  public void testIsShared() throws Exception {
+    assertTrue(new TestMemberClasses(null, true).isShared(getField("field")));
+    assertFalse(new TestMemberClasses(null, true).isShared(getField("unsharedField")));
+    assertFalse(new TestMemberClasses(null, false).isShared(getField("field")));
+  }
+
+  public void testMethodNames() throws Exception {
+    TestMemberClasses memberClasses = new TestMemberClasses(null, true);
+    NameGenerator nameGenerator = new NameGenerator();
+
+    assertEquals(PACKAGE + "." + CLASS_NAME + ".set_field",
+        memberClasses.getFieldSetter(getField("field"), nameGenerator));
+    assertEquals(PACKAGE + "." + CLASS_NAME + ".call_method_Ljava_lang_String_2I",
+        memberClasses.getMethodInvoker(
+            getMethod("method", String.class, int.class), nameGenerator));
+    assertEquals(PACKAGE + "." + CLASS_NAME + ".create_J",
+        memberClasses.getMethodInvoker(getConstructor(long.class), nameGenerator));
+  }
+
+  // Verify that requested classes are only written by writePendingClasses(),
+  // and only once, however many of their methods are requested.
+  public void testWritePendingClasses() throws Exception {
+    StringWriter output = new StringWriter();
+    PrintWriter printWriter = new PrintWriter(output);
+
+    GeneratorContext ctx = createMock(GeneratorContext.class);
+    expect(ctx.tryCreate((TreeLogger) anyObject(), eq(PACKAGE), eq(CLASS_NAME)))
+        .andReturn(printWriter);
+    ctx.commit((TreeLogger) anyObject(), same(printWriter));
+    expectLastCall().anyTimes();
+    replay(ctx);
+
+    TestMemberClasses memberClasses = new TestMemberClasses(ctx, true);
+    NameGenerator nameGenerator = new NameGenerator();
+
+    memberClasses.getFieldSetter(getField("field"), nameGenerator);
+    memberClasses.getMethodInvoker(getConstructor(long.class), nameGenerator);
+    assertEquals("", output.toString());
+
+    memberClasses.writePendingClasses();
+    memberClasses.getFieldSetter(getField("field"), nameGenerator);
+    memberClasses.writePendingClasses();
+
+    verify(ctx);
+
+    printWriter.flush();
+    String source = output.toString();
+
+    // Every member with a method is written, sorted by method name.
+    assertTrue(source, source.contains("call_method_Ljava_lang_String_2I"));
+    assertTrue(source, source.indexOf("call_method") < source.indexOf("create_J"));
+    assertTrue(source, source.indexOf("create_J") < source.indexOf("set_field"));
+    assertFalse(source, source.contains("unsharedField"));
+  }
+
+  // Verify that a class some other generator run already wrote isn't
+  // written again.
+  public void testWritePendingClasses_existingClass() throws Exception {
+    GeneratorContext ctx = createMock(GeneratorContext.class);
+    expect(ctx.tryCreate((TreeLogger) anyObject(), eq(PACKAGE), eq(CLASS_NAME)))
+        .andReturn(null);
+    replay(ctx);
+
+    TestMemberClasses memberClasses = new TestMemberClasses(ctx, true);
+    memberClasses.getFieldSetter(getField("field"), new NameGenerator());
+    memberClasses.writePendingClasses();
+
+    verify(ctx);
+  }
+
+  private FieldLiteral<Injectee> getField(String name) throws Exception {
+    return FieldLiteral.get(Injectee.class.getDeclaredField(name), INJECTEE);
+  }
+
+  private MethodLiteral<Injectee, ?> getMethod(String name, Class<?>... parameterTypes)
+      throws Exception {
+    return MethodLiteral.get(Injectee.class.getDeclaredMethod(name, parameterTypes), INJECTEE);
+  }
+
+  private MethodLiteral<Injectee, ?> getConstructor(Class<?>... parameterTypes) throws Exception {
+    return MethodLiteral.get(Injectee.class.getDeclaredConstructor(parameterTypes), INJECTEE);
+  }
+
+  /**
+   * Shares every member whose name doesn't start with "unshared", writing the
+   * method's name as its source.
+   */
+  private static class TestMemberClasses extends SharedMemberClasses {
+
+    TestMemberClasses(GeneratorContext ctx, boolean enabled) {
+      super(ctx, TreeLogger.NULL, enabled);
+    }
+
+    @Override
+    protected boolean hasMethod(MemberLiteral<?, ?> member) {
+      return !member.isSynthetic() && !member.getName().startsWith("unshared");
+    }
+
+    @Override
+    protected String getClassName(Class<?> declaringClass, NameGenerator nameGenerator) {
+      return declaringClass.getSimpleName() + "_Shared";
+    }
+
+    @Override
+    protected String createFieldSetter(FieldLiteral<?> field) {
+      return getMethodName(field);
+    }
+
+    @Override
+    protected String createMethodInvoker(MethodLiteral<?, ?> method)
+        throws NoSourceNameException {
+      return getMethodName(method);
+    }
+  }
+
+  public static class Injectee {
+    String field;
+    String unsharedField;
+
+    Injectee(long value) {}
+
+    void method(String value, int count) {}
+  }
+}
@@ -15,20 +15,34 @@
  */
 package com.google.gwt.inject.rebind.util;
 
+import static com.google.gwt.inject.rebind.util.SourceWriteUtil.join;
+
 import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.inject.rebind.GinjectorBindings;
 import com.google.gwt.inject.rebind.binding.BindingIndex;
 import com.google.gwt.inject.rebind.reflect.FieldLiteral;
 import com.google.gwt.inject.rebind.reflect.MethodLiteral;
 import com.google.gwt.user.rebind.SourceWriter;
 import com.google.inject.Inject;
 import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
 
 import junit.framework.TestCase;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class SourceWriteUtilTest extends TestCase {
 
+  private static final String MEMBERS =
+      "com.google.gwt.inject.rebind.util.SourceWriteUtilTest.Members";
+  private static final String MEMBERS_ACCESSOR =
+      "com.google.gwt.inject.rebind.util.SourceWriteUtilTest_Members_GinAccessor";
+  private static final String MEMBERS_HELPER =
+      "com.google.gwt.inject.rebind.util.SourceWriteUtilTest_Members_GinHelper";
+
   private SourceWriteUtil sourceWriteUtil;
 
   // TODO(schmitt):  Add unit tests for method and field inject generation.
@@ -55,19 +69,125 @@ public class SourceWriteUtilTest extends TestCase {
     assertEquals(signature + " /*-{\\n" + body + "\\n}-*/;\\n\\n", writer.toString());
   }
 
+  public void testMemberInjectionSupertype() {
+    assertEquals(TypeLiteral.get(Base.class),
+        sourceWriteUtil.getMemberInjectionSupertype(TypeLiteral.get(Sub.class)));
+    assertEquals(TypeLiteral.get(Sub.class),
+        sourceWriteUtil.getMemberInjectionSupertype(TypeLiteral.get(SubSub.class)));
+  }
+
+  public void testMemberInjectionSupertype_withoutInjectedMembers() {
+    assertNull(sourceWriteUtil.getMemberInjectionSupertype(TypeLiteral.get(Base.class)));
+    assertNull(sourceWriteUtil.getMemberInjectionSupertype(
+        TypeLiteral.get(SubOfUninjected.class)));
+  }
+
+  public void testMemberInjectionSupertype_overriddenMethod() {
+    assertNull(sourceWriteUtil.getMemberInjectionSupertype(TypeLiteral.get(Overriding.class)));
+  }
+
+  public void testMemberInjectionSupertype_parameterized() {
+    assertEquals(new TypeLiteral<GenericBase<String>>() {},
+        sourceWriteUtil.getMemberInjectionSupertype(TypeLiteral.get(StringSub.class)));
+    assertNull(sourceWriteUtil.getMemberInjectionSupertype(TypeLiteral.get(RawSub.class)));
+  }
+
+  public void testFieldInjection_native() throws Exception {
+    List<InjectorMethod> methods = new ArrayList<InjectorMethod>();
+    SourceSnippet injection = sourceWriteUtil.createFieldInjection(
+        getField("privateField"), "injectee", new NameGenerator(), methods);
+
+    assertEquals(1, methods.size());
+    assertTrue(methods.get(0).isNative());
+    assertEquals("injectee.@" + MEMBERS + "::privateField = value;",
+        methods.get(0).getMethodBody(new TestWriteContext()));
+    String call = injection.getSource(new TestWriteContext());
+    assertTrue(call, call.endsWith("_fieldInjection(injectee, get_String());\n"));
+  }
+
+  // Verify that shared accessors are called directly for field injections.
+  public void testFieldInjection_sharedAccessor() throws Exception {
+    List<InjectorMethod> methods = new ArrayList<InjectorMethod>();
+    SourceSnippet injection = createSourceWriteUtil(true, false).createFieldInjection(
+        getField("privateField"), "injectee", new NameGenerator(), methods);
+
+    assertEquals(0, methods.size());
+    assertEquals(MEMBERS_ACCESSOR + ".set_privateField(injectee, get_String());\n",
+        injection.getSource(new TestWriteContext()));
+  }
+
+  // Verify that method injections through shared accessors still use an
+  // invoker, which is plain Java delegating to the accessor.
+  public void testMethodInjection_sharedAccessor() throws Exception {
+    List<InjectorMethod> methods = new ArrayList<InjectorMethod>();
+    createSourceWriteUtil(true, false).createMethodInjections(
+        Collections.singletonList(getMethod("setPrivate")), "injectee", new NameGenerator(),
+        methods);
+
+    assertEquals(1, methods.size());
+    assertFalse(methods.get(0).isNative());
+    assertEquals(MEMBERS_ACCESSOR + ".call_setPrivate_Ljava_lang_String_2(invokee, _0);",
+        methods.get(0).getMethodBody(new TestWriteContext()));
+  }
+
+  // Verify that shared helpers are called directly for field injections.
+  public void testFieldInjection_sharedHelper() throws Exception {
+    List<InjectorMethod> methods = new ArrayList<InjectorMethod>();
+    SourceSnippet injection = createSourceWriteUtil(false, true).createFieldInjection(
+        getField("field"), "injectee", new NameGenerator(), methods);
+
+    assertEquals(0, methods.size());
+    assertEquals(MEMBERS_HELPER + ".set_field(injectee, get_String());\n",
+        injection.getSource(new TestWriteContext()));
+  }
+
+  // Verify that shared helpers are called directly for method and constructor
+  // injections.
+  public void testMethodInjection_sharedHelper() throws Exception {
+    List<InjectorMethod> methods = new ArrayList<InjectorMethod>();
+    SourceWriteUtil sharingSourceWriteUtil = createSourceWriteUtil(false, true);
+    SourceSnippet methodInjection = sharingSourceWriteUtil.createMethodInjections(
+        Collections.singletonList(getMethod("setValue")), "injectee", new NameGenerator(),
+        methods);
+    SourceSnippet constructorInjection = sharingSourceWriteUtil.createMethodInjections(
+        Collections.singletonList(MethodLiteral.get(
+            Members.class.getDeclaredConstructor(String.class), TypeLiteral.get(Members.class))),
+        null, new NameGenerator(), methods);
+
+    assertEquals(0, methods.size());
+    assertEquals(MEMBERS_HELPER + ".call_setValue_Ljava_lang_String_2(injectee, get_String());\n",
+        methodInjection.getSource(new TestWriteContext()));
+    assertEquals(MEMBERS_HELPER + ".create_Ljava_lang_String_2(get_String());\n",
+        constructorInjection.getSource(new TestWriteContext()));
+  }
+
   protected void setUp() throws Exception {
     super.setUp();
+    sourceWriteUtil = createSourceWriteUtil(false, false);
+  }
+
+  private SourceWriteUtil createSourceWriteUtil(boolean shareAccessors, boolean shareHelpers) {
     BindingIndex bindingIndex = new BindingIndex() {
       public boolean isBound(Key<?> key) {
         return false;
       }
     };
 
-    NameGenerator nameGenerator = new NameGenerator();
     GuiceUtil guiceUtil = new GuiceUtil(createInjectableCollector());
-    MethodCallUtil methodCallUtil = new MethodCallUtil();
-    sourceWriteUtil = new SourceWriteUtil(guiceUtil, createInjectableCollector(), methodCallUtil,
-        bindingIndex);
+    SharedAccessors sharedAccessors = new SharedAccessors(null, TreeLogger.NULL, shareAccessors);
+    SharedHelpers sharedHelpers = new SharedHelpers(null, TreeLogger.NULL, shareHelpers);
+    MethodCallUtil methodCallUtil = new MethodCallUtil(sharedAccessors, sharedHelpers);
+    return new SourceWriteUtil(guiceUtil, createInjectableCollector(), methodCallUtil,
+        sharedAccessors, sharedHelpers, bindingIndex);
+  }
+
+  private FieldLiteral<Members> getField(String name) throws Exception {
+    return FieldLiteral.get(Members.class.getDeclaredField(name), TypeLiteral.get(Members.class));
+  }
+
+  private MethodLiteral<Members, Method> getMethod(String name) throws Exception {
+    return MethodLiteral.get(Members.class.getDeclaredMethod(name, String.class),
+        TypeLiteral.get(Members.class));
   }
 
   // TODO(schmitt): same collector as in the guice module, centralize.
@@ -90,6 +210,80 @@ public class SourceWriteUtilTest extends TestCase {
     return collector;
   }
 
+  public static class Base {
+    @Inject String field;
+    @Inject void setValue(Integer value) {}
+  }
+
+  public static class Sub extends Base {
+    @Inject Long subField;
+  }
+
+  public static class SubSub extends Sub {
+    @Inject void setSubSubValue(Long value) {}
+  }
+
+  public static class Overriding extends Base {
+    @Inject @Override void setValue(Integer value) {}
+  }
+
+  public static class Uninjected {}
+
+  public static class SubOfUninjected extends Uninjected {
+    @Inject String field;
+  }
+
+  public static class Members {
+    @Inject String field;
+    @Inject private String privateField;
+
+    @Inject
+    public Members(String value) {}
+
+    @Inject void setValue(String value) {}
+    @Inject private void setPrivate(String value) {}
+  }
+
+  public static class GenericBase<T> {
+    @Inject T value;
+  }
+
+  public static class StringSub extends GenericBase<String> {}
+
+  @SuppressWarnings("rawtypes")
+  public static class RawSub extends GenericBase {}
+
+  /**
+   * Calls getters by the simple name of their key's type, and methods by name.
+   */
+  private static class TestWriteContext implements InjectorWriteContext {
+
+    public String callGetter(Key<?> key) {
+      return "get_" + key.getTypeLiteral().getRawType().getSimpleName() + "()";
+    }
+
+    public String callChildGetter(GinjectorBindings childBindings, Key<?> key) {
+      throw new UnsupportedOperationException();
+    }
+
+    public String callParentGetter(Key<?> key, GinjectorBindings parentBindings) {
+      throw new UnsupportedOperationException();
+    }
+
+    public String callMemberInject(TypeLiteral<?> type, String input) {
+      throw new UnsupportedOperationException();
+    }
+
+    public String callMethod(String methodName, String fragmentPackageName,
+        Iterable<String> parameters) {
+      return methodName + "(" + join(", ", parameters) + ")";
+    }
+
+    public String callGinjectorInterfaceGetter() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
   private static class UnitTestSourceWriter implements SourceWriter {
 
     private StringBuilder sb = new StringBuilder();
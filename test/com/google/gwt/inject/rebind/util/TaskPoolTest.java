@@ -0,0 +1,65 @@
+/*
+ * Copyright 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.inject.rebind.util;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+public class TaskPoolTest extends TestCase {
+
+  public void testInvokeAll() {
+    List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+    for (int i = 0; i < 5; i++) {
+      tasks.add(new ValueTask(i, null));
+    }
+
+    assertEquals(Arrays.asList(0, 1, 2, 3, 4), TaskPool.invokeAll(tasks));
+  }
+
+  public void testInvokeAll_failure() {
+    IllegalStateException first = new IllegalStateException("first");
+    List<Callable<Integer>> tasks = Arrays.<Callable<Integer>>asList(new ValueTask(0, null),
+        new ValueTask(1, first), new ValueTask(2, new IllegalStateException("second")));
+
+    try {
+      TaskPool.invokeAll(tasks);
+      fail("Expected IllegalStateException.");
+    } catch (IllegalStateException e) {
+      assertSame(first, e);
+    }
+  }
+
+  private static class ValueTask implements Callable<Integer> {
+    private final int value;
+    private final RuntimeException failure;
+
+    ValueTask(int value, RuntimeException failure) {
+      this.value = value;
+      this.failure = failure;
+    }
+
+    public Integer call() {
+      if (failure != null) {
+        throw failure;
+      }
+      return value;
+    }
+  }
+}